@@ -1,6 +1,9 @@
 package com.brunata.meteringdemo.api;
 
 import com.brunata.meteringdemo.common.ApiError;
+import com.brunata.meteringdemo.services.ingest.IngestUnavailableException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -38,4 +41,15 @@ public class ApiRestExceptionHandler {
         );
         return ResponseEntity.badRequest().body(err);
     }
+
+    /** Asynchroner Ingest nicht verfügbar (deaktiviert/Queue voll) → 503 (ApiError) mit Retry-After. */
+    @ExceptionHandler(IngestUnavailableException.class)
+    public ResponseEntity<ApiError> handleIngestUnavailable(IngestUnavailableException ex) {
+        var err = new ApiError(
+                Instant.now(),
+                "SERVICE_UNAVAILABLE",
+                List.of(new ApiError.FieldError("generic", ex.getMessage()))
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").body(err);
+    }
 }
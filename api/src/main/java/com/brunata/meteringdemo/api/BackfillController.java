@@ -0,0 +1,59 @@
+package com.brunata.meteringdemo.api;
+
+import com.brunata.meteringdemo.services.DailyReadingRollup;
+import com.brunata.meteringdemo.services.dto.BackfillReport;
+import com.brunata.meteringdemo.services.dto.RollupRebuildReport;
+import com.brunata.meteringdemo.services.ingest.ReadingBackfillService;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * REST-Controller für historische Backfills (Onboarding großer Messwert-Historien).
+ *
+ * - POST `/api/readings/backfill` mit `text/csv` (Kopfzeile deviceId,readingTime,value,unit,source)
+ *   oder `application/x-ndjson`; Import per PostgreSQL COPY, Antwort mit Durchsatz und Phasen-Dauer
+ * - GET `/api/readings/backfill/{id}/errors` liefert den vollständigen Fehlerreport
+ * - POST `/api/readings/backfill/rollup/daily?from=&to=` baut den Tages-Rollup für einen Zeitraum neu auf
+ */
+@RestController
+@Tag(name = "Readings", description = "Messwerte erfassen und listen")
+@RequestMapping("/api/readings/backfill")
+public class BackfillController {
+
+    private final ReadingBackfillService backfill;
+    private final DailyReadingRollup rollup;
+
+    public BackfillController(ReadingBackfillService backfill, DailyReadingRollup rollup) {
+        this.backfill = backfill;
+        this.rollup = rollup;
+    }
+
+    @PostMapping(consumes = "text/csv")
+    public BackfillReport backfillCsv(HttpServletRequest request) throws IOException {
+        return backfill.backfill(request.getInputStream(), ReadingBackfillService.Format.CSV);
+    }
+
+    @PostMapping(consumes = ReadingController.NDJSON)
+    public BackfillReport backfillNdjson(HttpServletRequest request) throws IOException {
+        return backfill.backfill(request.getInputStream(), ReadingBackfillService.Format.NDJSON);
+    }
+
+    @GetMapping("/{backfillId}/errors")
+    public List<BackfillReport.BackfillError> errors(@PathVariable UUID backfillId,
+                                                     @RequestParam(defaultValue = "1000") int limit) {
+        return backfill.errors(backfillId, Math.max(1, Math.min(limit, 100_000)));
+    }
+
+    @PostMapping("/rollup/daily")
+    public RollupRebuildReport rebuildDailyRollup(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return rollup.rebuild(from, to);
+    }
+}
@@ -1,9 +1,12 @@
 package com.brunata.meteringdemo.api;
 
 import com.brunata.meteringdemo.domain.Invoice;
-import com.brunata.meteringdemo.services.BillingService;
+import com.brunata.meteringdemo.services.BillingBatchService;
+import com.brunata.meteringdemo.services.BillingRunCoordinator;
+import com.brunata.meteringdemo.services.dto.BillingRunProgress;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
@@ -14,8 +17,9 @@ import java.util.UUID;
  *
  * Verantwortlichkeiten:
  * - Entgegennahme der Request-Parameter (contractId, from, to)
- * - Delegation der Business-Logik an BillingService
+ * - Delegation der Business-Logik an BillingService (über BillingRunCoordinator: Single-Flight, Idempotency-Key)
  * - Rückgabe der erzeugten Rechnung (Invoice) als JSON
+ * - Sammel-Abrechnung aller Verträge eines Zeitraums starten (202 + Run-ID) und Fortschritt abfragen
  */
 @RestController
 @Tag(name = "Billing", description = "Abrechnung erstellen")
@@ -23,9 +27,13 @@ import java.util.UUID;
 public class BillingController {
 
     // Dependency-Injection des Domänen-Services für Abrechnung
-    private final BillingService billing;
+    private final BillingRunCoordinator billing;
+    private final BillingBatchService batch;
 
-    public BillingController(BillingService billing) { this.billing = billing; }
+    public BillingController(BillingRunCoordinator billing, BillingBatchService batch) {
+        this.billing = billing;
+        this.batch = batch;
+    }
 
     /**
      * Startet die Abrechnung für einen Vertrag und einen Zeitraum.
@@ -34,13 +42,34 @@ public class BillingController {
      * @param contractId ID des Vertrags (UUID)
      * @param from       Startdatum (inklusive), ISO-Format yyyy-MM-dd
      * @param to         Enddatum (inklusive), ISO-Format yyyy-MM-dd
+     * @param idempotencyKey optional; Wiederholungen mit demselben Schlüssel liefern das gemerkte Ergebnis
      * @return erzeugte Rechnung mit Verbrauch und Betrag
      */
     @PostMapping("/run")
     public Invoice run(@RequestParam UUID contractId,
                        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
-                       @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+                       @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                       @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         // Controller bleibt dünn: Validierungen/Logik liegen im Service
-        return billing.run(contractId, from, to);
+        return billing.run(contractId, from, to, idempotencyKey);
+    }
+
+    /**
+     * Startet die Abrechnung aller im Zeitraum aktiven Verträge im Hintergrund.
+     * Beispiel: POST /api/billing/run-all?from=2025-09-01&to=2025-09-30
+     * Erneuter Aufruf für denselben Zeitraum setzt fort (bereits abgerechnete Verträge werden übersprungen).
+     *
+     * @return 202 mit Run-ID und initialem Fortschritt
+     */
+    @PostMapping("/run-all")
+    public ResponseEntity<BillingRunProgress> runAll(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                     @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.accepted().body(batch.start(from, to));
+    }
+
+    /** Fortschritt eines Sammel-Abrechnungslaufs; 404, wenn der Lauf unbekannt oder bereits verdrängt ist. */
+    @GetMapping("/run-all/{runId}")
+    public ResponseEntity<BillingRunProgress> runAllProgress(@PathVariable UUID runId) {
+        return ResponseEntity.of(batch.progress(runId));
     }
 }
@@ -8,9 +8,19 @@ import com.brunata.meteringdemo.persistence.ContractRepository;
 import com.brunata.meteringdemo.persistence.DeviceRepository;
 import com.brunata.meteringdemo.persistence.MeterReadingRepository;
 import com.brunata.meteringdemo.persistence.TariffRepository;
+import com.brunata.meteringdemo.services.DailyReadingRollup;
+import com.brunata.meteringdemo.services.dto.ReadingDto;
+import com.brunata.meteringdemo.services.dto.SyntheticDataReport;
+import com.brunata.meteringdemo.services.dto.SyntheticDataSpec;
+import com.brunata.meteringdemo.services.ingest.DeviceWatermarkCache;
+import com.brunata.meteringdemo.services.reference.ReferenceDataCache;
+import com.brunata.meteringdemo.services.seed.SyntheticDataGenerator;
+import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -20,6 +30,7 @@ import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -29,6 +40,8 @@ import java.util.UUID;
  * Endpunkte:
  * - POST/GET `/api/demo/seed` erzeugt einen Beispiel-Tarif, ein Gerät, einen Vertrag
  *   und zwei Messwerte (früher/später), damit andere Flows (Billing, Listing) getestet werden können.
+ * - POST `/api/demo/synthetic` startet den Generator für Last-/Kapazitätstestdaten (202 + Run-ID, nur mit
+ *   `demo.synthetic.enabled=true`), GET `/api/demo/synthetic/{runId}` liefert Fortschritt bzw. Ergebnis.
  *
  * Hinweise:
  * - Werte sind bewusst deterministisch/überschaubar gewählt (kWh, 0.25 EUR/kWh),
@@ -44,15 +57,27 @@ public class DemoSeedController {
     private final TariffRepository tariffRepo;
     private final ContractRepository contractRepo;
     private final MeterReadingRepository readingRepo;
+    private final DailyReadingRollup rollup;
+    private final SyntheticDataGenerator generator;
+    private final DeviceWatermarkCache watermarks;
+    private final ReferenceDataCache referenceData;
 
     public DemoSeedController(DeviceRepository deviceRepo,
                               TariffRepository tariffRepo,
                               ContractRepository contractRepo,
-                              MeterReadingRepository readingRepo) {
+                              MeterReadingRepository readingRepo,
+                              DailyReadingRollup rollup,
+                              SyntheticDataGenerator generator,
+                              DeviceWatermarkCache watermarks,
+                              ReferenceDataCache referenceData) {
         this.deviceRepo = deviceRepo;
         this.tariffRepo = tariffRepo;
         this.contractRepo = contractRepo;
         this.readingRepo = readingRepo;
+        this.rollup = rollup;
+        this.generator = generator;
+        this.watermarks = watermarks;
+        this.referenceData = referenceData;
     }
 
     @PostMapping("/seed")
@@ -64,6 +89,7 @@ public class DemoSeedController {
         t.setPricePerUnit(new BigDecimal("0.2500"));
         t.setUnit("kWh");
         t = tariffRepo.save(t);
+        referenceData.evictTariff(t.getId());
 
         // 2) Demo-Gerät erzeugen (HEAT, zufällige Seriennummer)
         Device d = new Device();
@@ -71,6 +97,7 @@ public class DemoSeedController {
         d.setSerialNo("DEMO-" + UUID.randomUUID().toString().substring(0, 8));
         d.setLocation("Demo");
         d = deviceRepo.save(d);
+        watermarks.devicesCreated(List.of(d.getId()));
 
         // 3) Vertrag mit Startdatum heute und verknüpftem Tarif
         Contract c = new Contract();
@@ -79,6 +106,7 @@ public class DemoSeedController {
         c.setStartDate(LocalDate.now());
         c.setTariff(t);
         c = contractRepo.save(c);
+        referenceData.evictContract(c.getId());
 
         // 4) Zwei Messzeitpunkte im aktuellen Monat (10. und 25. Tag, 00:00 UTC)
         Instant r1t = LocalDate.now().withDayOfMonth(10).atStartOfDay().toInstant(ZoneOffset.UTC);
@@ -102,6 +130,11 @@ public class DemoSeedController {
         r2.setSource("Demo");
         r2 = readingRepo.save(r2);
 
+        // Tages-Rollup fortschreiben (Billing rechnet daraus)
+        rollup.add(List.of(
+                new ReadingDto(d.getId(), r1.getReadingTime(), r1.getValue(), r1.getUnit(), r1.getSource()),
+                new ReadingDto(d.getId(), r2.getReadingTime(), r2.getValue(), r2.getUnit(), r2.getSource())));
+
         // 7) IDs zur einfachen Weiterverwendung zurückgeben (z. B. für API-Calls im Tutorial)
         Map<String, Object> res = new HashMap<>();
         res.put("deviceId", d.getId());
@@ -119,4 +152,18 @@ public class DemoSeedController {
     public Map<String, Object> seedGet() {
         return seed();
     }
+
+    /**
+     * Synthetische Testdaten erzeugen (asynchron). Leerer Body → Defaults (Seed 42, 1 000 Zähler, 365 Tage, PT15M).
+     */
+    @PostMapping("/synthetic")
+    public ResponseEntity<SyntheticDataReport> synthetic(@RequestBody(required = false) SyntheticDataSpec spec) {
+        var request = spec != null ? spec : new SyntheticDataSpec(null, null, null, null, null, null, null, null, null);
+        return ResponseEntity.accepted().body(generator.start(request));
+    }
+
+    @GetMapping("/synthetic/{runId}")
+    public ResponseEntity<SyntheticDataReport> syntheticProgress(@PathVariable UUID runId) {
+        return ResponseEntity.of(generator.progress(runId));
+    }
 }
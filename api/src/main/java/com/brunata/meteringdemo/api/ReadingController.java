@@ -1,12 +1,36 @@
 package com.brunata.meteringdemo.api;
 
+import com.brunata.meteringdemo.common.series.ReadingSeriesWriter;
 import com.brunata.meteringdemo.domain.MeterReading;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import com.brunata.meteringdemo.services.ConsumptionSeriesService;
+import com.brunata.meteringdemo.services.ReadingBatchService;
+import com.brunata.meteringdemo.services.ReadingHistoryService;
 import com.brunata.meteringdemo.services.ReadingService;
+import com.brunata.meteringdemo.services.dto.AsyncIngestReceipt;
+import com.brunata.meteringdemo.services.dto.ConsumptionBucket;
+import com.brunata.meteringdemo.services.dto.ConsumptionSeries;
+import com.brunata.meteringdemo.services.dto.IngestResult;
 import com.brunata.meteringdemo.services.dto.ReadingDto;
+import com.brunata.meteringdemo.services.dto.ReadingPage;
+import com.brunata.meteringdemo.services.dto.ReadingView;
+import com.brunata.meteringdemo.services.ingest.AsyncIngestService;
+import com.brunata.meteringdemo.services.ingest.NdjsonReadingIngestor;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 
@@ -14,16 +38,38 @@ import java.util.UUID;
  * REST-Controller für Messwerte (Readings).
  * Verantwortlichkeiten:
  * - Validierte DTOs entgegennehmen und in Domain-Objekte speichern
- * - Liste der Messwerte für ein Gerät liefern
+ * - Messwert-Historie eines Geräts liefern (seitenweise per Keyset-Cursor oder gestreamt)
  */
 @RestController
 @Tag(name = "Readings", description = "Messwerte erfassen und listen")
 @RequestMapping("/api/readings")
 public class ReadingController {
 
+    static final String NDJSON = "application/x-ndjson";
+    static final String READING_SERIES = "application/vnd.brunata.reading-series";
+
     private final ReadingService service;
+    private final ReadingBatchService batchService;
+    private final NdjsonReadingIngestor ndjsonIngestor;
+    private final AsyncIngestService asyncIngest;
+    private final ReadingHistoryService history;
+    private final ConsumptionSeriesService consumption;
+    private final ObjectMapper mapper;
+    // ohne Flush je Zeile: die Antwort wird erst committed, wenn der Puffer voll ist
+    private final ObjectWriter rowWriter;
 
-    public ReadingController(ReadingService service) { this.service = service; }
+    public ReadingController(ReadingService service, ReadingBatchService batchService,
+                             NdjsonReadingIngestor ndjsonIngestor, AsyncIngestService asyncIngest,
+                             ReadingHistoryService history, ConsumptionSeriesService consumption, ObjectMapper mapper) {
+        this.service = service;
+        this.batchService = batchService;
+        this.ndjsonIngestor = ndjsonIngestor;
+        this.asyncIngest = asyncIngest;
+        this.history = history;
+        this.consumption = consumption;
+        this.mapper = mapper;
+        this.rowWriter = mapper.writerFor(ReadingView.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
 
     /**
      * Nimmt eine Liste validierter Messwerte entgegen und speichert diese.
@@ -34,10 +80,142 @@ public class ReadingController {
     }
 
     /**
-     * Liefert alle Messwerte für ein Gerät (vereinfachte Demo-Implementierung).
+     * Bulk-Ingest für Gateway-Batches: set-basierte Validierung + JDBC-Batch-Insert in einer Transaktion.
+     * Liefert eine kompakte Zusammenfassung (Anzahl akzeptiert/abgelehnt + Index/Grund je Ablehnung).
+     */
+    @PostMapping("/batch")
+    public IngestResult ingestBatch(@Valid @RequestBody List<@Valid ReadingDto> readings){
+        return batchService.ingest(readings);
+    }
+
+    /**
+     * Streaming-Ingest (`application/x-ndjson`, eine Messung pro Zeile): Zeilen werden inkrementell gelesen,
+     * validiert und chunkweise persistiert; je Zeile wird ein Ergebnis als NDJSON zurückgestreamt.
+     */
+    @PostMapping(consumes = NDJSON, produces = NDJSON)
+    public void ingestNdjson(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON);
+        ndjsonIngestor.ingest(request.getInputStream(), response.getOutputStream());
+    }
+
+    /**
+     * Asynchroner Ingest: Messwerte werden in das lokale Write-Ahead-Log geschrieben und mit 202 quittiert;
+     * die Persistierung erfolgt geordnet je Gerät durch Hintergrund-Worker (503, wenn deaktiviert oder voll).
+     */
+    @PostMapping("/async")
+    public ResponseEntity<AsyncIngestReceipt> ingestAsync(@Valid @RequestBody List<@Valid ReadingDto> readings){
+        return ResponseEntity.accepted().body(asyncIngest.enqueue(readings));
+    }
+
+    /**
+     * Liefert alle Messwerte für ein Gerät als JSON-Array (aufsteigend nach Zeit).
+     * Die Zeilen werden aus einem DB-Cursor direkt in die Antwort geschrieben, nicht als Liste gesammelt.
+     * Bricht der Cursor ab, bleibt das Array offen und der Fehler wird weitergereicht (kein scheinbar
+     * vollständiges 200).
      */
     @GetMapping
-    public List<MeterReading> list(@RequestParam UUID deviceId){
-        return service.list(deviceId);
+    public void list(@RequestParam UUID deviceId, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        var gen = generator(response);
+        gen.writeStartArray();
+        history.stream(deviceId, null, null, row -> write(gen, row));
+        gen.writeEndArray();
+        gen.close();
+    }
+
+    /**
+     * Keyset-Pagination der Messwerte eines Geräts, optional im Zeitraum [`from`, `to`).
+     * Folgeseite: `after`/`afterId` aus `nextAfter`/`nextAfterId` der vorherigen Antwort übernehmen.
+     * Beispiel: GET /api/readings/page?deviceId=...&limit=500&after=2025-09-01T00:15:00Z&afterId=...
+     */
+    @GetMapping("/page")
+    public ReadingPage page(@RequestParam UUID deviceId,
+                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant after,
+                            @RequestParam(required = false) UUID afterId,
+                            @RequestParam(required = false) Integer limit) {
+        return history.page(deviceId, from, to, after, afterId, limit);
+    }
+
+    /**
+     * Streamt die Messwerte eines Geräts (optional im Zeitraum [`from`, `to`)) als NDJSON, eine Messung pro Zeile.
+     */
+    @GetMapping(value = "/stream", produces = NDJSON)
+    public void stream(@RequestParam UUID deviceId,
+                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                       HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON);
+        var gen = generator(response);
+        gen.setRootValueSeparator(null);
+        history.stream(deviceId, from, to, row -> {
+            write(gen, row);
+            try {
+                gen.writeRaw('\n');
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        gen.close();
+    }
+
+    /**
+     * Verbrauch je Bucket (HOUR/DAY/WEEK/MONTH/QUARTER/YEAR, UTC) im Zeitraum [`from`, `to`) für Diagramme.
+     * Höchstens `maxPoints` Punkte; bei längeren Zeiträumen wird die Bucket-Größe automatisch vergröbert.
+     * Beispiel: GET /api/readings/consumption?deviceId=...&from=2025-01-01T00:00:00Z&bucket=HOUR&maxPoints=500
+     */
+    @GetMapping("/consumption")
+    public ConsumptionSeries consumption(@RequestParam UUID deviceId,
+                                         @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                                         @RequestParam(required = false) ConsumptionBucket bucket,
+                                         @RequestParam(required = false) Integer maxPoints) {
+        return consumption.series(deviceId, from, to, bucket, maxPoints);
+    }
+
+    /**
+     * Export der Messwerte eines Geräts im kompakten Binärformat BRS1 (spaltenweise, Delta/varint,
+     * Wörterbücher für Einheit/Quelle, Deflate je Block); lesen mit `common.series.ReadingSeriesReader`.
+     * Die Endmarke wird nur nach vollständigem Lesen geschrieben; bricht der Cursor ab, bleibt die Datei
+     * erkennbar unvollständig und der Fehler wird weitergereicht.
+     */
+    @GetMapping(value = "/export", produces = READING_SERIES)
+    public void export(@RequestParam UUID deviceId,
+                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                       HttpServletResponse response) throws IOException {
+        response.setContentType(READING_SERIES);
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + deviceId + ".brs\"");
+        try (var writer = new ReadingSeriesWriter(response.getOutputStream(), deviceId)) {
+            history.stream(deviceId, from, to, row -> {
+                try {
+                    writer.write(row.readingTime(), row.value(), row.unit(), row.source());
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+            writer.finish();
+        }
+    }
+
+    /**
+     * Generator für gestreamte Antworten: `close()` ergänzt keine offenen Arrays/Objekte und schließt den
+     * Servlet-Stream nicht. Er wird nur nach Erfolg geschlossen; im Fehlerfall bleibt der noch gepufferte Rest
+     * ungesendet, so dass vor dem Commit eine Fehlerantwort möglich ist und danach die Antwort abbricht.
+     */
+    private JsonGenerator generator(HttpServletResponse response) throws IOException {
+        return mapper.getFactory().createGenerator(response.getOutputStream())
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    private void write(JsonGenerator gen, ReadingView row) {
+        try {
+            rowWriter.writeValue(gen, row);
+        } catch (IOException ex) {
+            // Client hat die Verbindung geschlossen → Cursor/Transaktion abbrechen
+            throw new UncheckedIOException(ex);
+        }
     }
 }
@@ -3,7 +3,9 @@ package com.brunata.meteringdemo.api;
 import com.brunata.meteringdemo.common.RestExceptionHandler;
 import com.brunata.meteringdemo.common.ValidationException;
 import com.brunata.meteringdemo.domain.Invoice;
-import com.brunata.meteringdemo.services.BillingService;
+import com.brunata.meteringdemo.services.BillingBatchService;
+import com.brunata.meteringdemo.services.BillingRunCoordinator;
+import com.brunata.meteringdemo.services.dto.BillingRunProgress;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
@@ -13,31 +15,39 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 class BillingControllerTest {
     /**
      * Tests für den Billing-Controller:
-     * - Erfolgreicher Durchlauf liefert Invoice-JSON
+     * - Erfolgreicher Durchlauf liefert Invoice-JSON (Idempotency-Key wird durchgereicht)
      * - ValidationException wird korrekt in API-Error gemappt
+     * - Sammel-Abrechnung startet mit 202 + Run-ID; unbekannte Run-ID liefert 404
      */
 
     private MockMvc mvc;
 
     @Mock
-    private BillingService billingService;
+    private BillingRunCoordinator billingService;
+
+    @Mock
+    private BillingBatchService batchService;
 
     @BeforeEach
     void setup() {
         MockitoAnnotations.openMocks(this);
-        var controller = new BillingController(billingService);
+        var controller = new BillingController(billingService, batchService);
         this.mvc = MockMvcBuilders.standaloneSetup(controller)
                 .setControllerAdvice(new RestExceptionHandler())
                 .build();
@@ -54,13 +64,15 @@ class BillingControllerTest {
         when(billingService.run(
                 org.mockito.ArgumentMatchers.any(UUID.class),
                 org.mockito.ArgumentMatchers.any(LocalDate.class),
-                org.mockito.ArgumentMatchers.any(LocalDate.class)
+                org.mockito.ArgumentMatchers.any(LocalDate.class),
+                org.mockito.ArgumentMatchers.eq("retry-42")
         )).thenReturn(inv);
 
         mvc.perform(post("/api/billing/run")
                         .param("contractId", UUID.randomUUID().toString())
                         .param("from", "2025-09-01")
                         .param("to", "2025-09-30")
+                        .header("Idempotency-Key", "retry-42")
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
@@ -73,7 +85,8 @@ class BillingControllerTest {
         when(billingService.run(
                 org.mockito.ArgumentMatchers.any(UUID.class),
                 org.mockito.ArgumentMatchers.any(LocalDate.class),
-                org.mockito.ArgumentMatchers.any(LocalDate.class)
+                org.mockito.ArgumentMatchers.any(LocalDate.class),
+                org.mockito.ArgumentMatchers.isNull()
         ))
                 .thenThrow(new ValidationException("No readings in period"));
 
@@ -86,4 +99,22 @@ class BillingControllerTest {
                 .andExpect(jsonPath("$.error", is("VALIDATION_ERROR")))
                 .andExpect(jsonPath("$.details[0].message", containsString("No readings")));
     }
+
+    @Test
+    void run_all_is_accepted_and_progress_is_queryable() throws Exception {
+        var runId = UUID.randomUUID();
+        var from = LocalDate.parse("2025-09-01");
+        var to = LocalDate.parse("2025-09-30");
+        when(batchService.start(from, to)).thenReturn(new BillingRunProgress(runId, from, to,
+                BillingRunProgress.Status.RUNNING, 0, 0, 0, 0, 0, 0, 0, 0, Instant.now(), null, List.of()));
+        when(batchService.progress(org.mockito.ArgumentMatchers.any(UUID.class))).thenReturn(Optional.empty());
+
+        mvc.perform(post("/api/billing/run-all").param("from", "2025-09-01").param("to", "2025-09-30"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.runId", is(runId.toString())))
+                .andExpect(jsonPath("$.status", is("RUNNING")));
+
+        mvc.perform(get("/api/billing/run-all/{id}", UUID.randomUUID()))
+                .andExpect(status().isNotFound());
+    }
 }
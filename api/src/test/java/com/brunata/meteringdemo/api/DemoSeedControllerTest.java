@@ -0,0 +1,63 @@
+package com.brunata.meteringdemo.api;
+
+import com.brunata.meteringdemo.domain.Contract;
+import com.brunata.meteringdemo.domain.Device;
+import com.brunata.meteringdemo.domain.MeterReading;
+import com.brunata.meteringdemo.domain.Tariff;
+import com.brunata.meteringdemo.persistence.ContractRepository;
+import com.brunata.meteringdemo.persistence.DeviceRepository;
+import com.brunata.meteringdemo.persistence.MeterReadingRepository;
+import com.brunata.meteringdemo.persistence.TariffRepository;
+import com.brunata.meteringdemo.services.DailyReadingRollup;
+import com.brunata.meteringdemo.services.ingest.DeviceWatermarkCache;
+import com.brunata.meteringdemo.services.reference.ReferenceDataCache;
+import com.brunata.meteringdemo.services.seed.SyntheticDataGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DemoSeedControllerTest {
+    /**
+     * Tests für den Seed-Controller:
+     * - angelegte Tarife/Verträge werden im Stammdaten-Cache verworfen, das neue Gerät im Watermark-Cache
+     */
+
+    @Mock private DeviceRepository deviceRepo;
+    @Mock private TariffRepository tariffRepo;
+    @Mock private ContractRepository contractRepo;
+    @Mock private MeterReadingRepository readingRepo;
+    @Mock private DailyReadingRollup rollup;
+    @Mock private SyntheticDataGenerator generator;
+    @Mock private DeviceWatermarkCache watermarks;
+    @Mock private ReferenceDataCache referenceData;
+
+    private DemoSeedController controller;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        when(tariffRepo.save(any())).thenAnswer(inv -> { Tariff t = inv.getArgument(0); t.setId(UUID.randomUUID()); return t; });
+        when(deviceRepo.save(any())).thenAnswer(inv -> { Device d = inv.getArgument(0); d.setId(UUID.randomUUID()); return d; });
+        when(contractRepo.save(any())).thenAnswer(inv -> { Contract c = inv.getArgument(0); c.setId(UUID.randomUUID()); return c; });
+        when(readingRepo.save(any())).thenAnswer(inv -> { MeterReading r = inv.getArgument(0); r.setId(UUID.randomUUID()); return r; });
+        controller = new DemoSeedController(deviceRepo, tariffRepo, contractRepo, readingRepo, rollup, generator,
+                watermarks, referenceData);
+    }
+
+    @Test
+    void seed_evicts_written_reference_data() {
+        var res = controller.seed();
+
+        verify(referenceData).evictTariff((UUID) res.get("tariffId"));
+        verify(referenceData).evictContract((UUID) res.get("contractId"));
+        verify(watermarks).devicesCreated(List.of((UUID) res.get("deviceId")));
+    }
+}
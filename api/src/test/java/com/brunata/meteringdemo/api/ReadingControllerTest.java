@@ -0,0 +1,167 @@
+package com.brunata.meteringdemo.api;
+
+import com.brunata.meteringdemo.common.RestExceptionHandler;
+import com.brunata.meteringdemo.common.series.ReadingSeriesReader;
+import com.brunata.meteringdemo.services.ConsumptionSeriesService;
+import com.brunata.meteringdemo.services.ReadingBatchService;
+import com.brunata.meteringdemo.services.ReadingHistoryService;
+import com.brunata.meteringdemo.services.ReadingService;
+import com.brunata.meteringdemo.services.dto.ReadingView;
+import com.brunata.meteringdemo.services.ingest.AsyncIngestService;
+import com.brunata.meteringdemo.services.ingest.NdjsonReadingIngestor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class ReadingControllerTest {
+    /**
+     * Tests für den Readings-Controller (gestreamte Antworten):
+     * - Export: vollständige Reihe endet mit Endmarke; bricht der Cursor ab, wird der Fehler weitergereicht und
+     *   die bereits gesendete Datei ist als abgeschnitten erkennbar (keine Endmarke)
+     * - JSON-Liste/NDJSON: Array wird nur bei Erfolg geschlossen; Abbruch vor dem Commit → 500 ohne Teilinhalt,
+     *   nach dem Commit wird der Fehler weitergereicht und das Array bleibt offen
+     */
+
+    @Mock private ReadingService service;
+    @Mock private ReadingBatchService batchService;
+    @Mock private NdjsonReadingIngestor ndjsonIngestor;
+    @Mock private AsyncIngestService asyncIngest;
+    @Mock private ReadingHistoryService history;
+    @Mock private ConsumptionSeriesService consumption;
+
+    private ReadingController controller;
+    private MockMvc mvc;
+
+    private final UUID deviceId = UUID.randomUUID();
+    private final Instant t0 = Instant.parse("2025-01-01T00:00:00Z");
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        controller = new ReadingController(service, batchService, ndjsonIngestor, asyncIngest, history, consumption,
+                new ObjectMapper().findAndRegisterModules());
+        mvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new RestExceptionHandler())
+                .build();
+    }
+
+    /** Cursor liefert `rows` Messungen und bricht dann ab (failAfter = true) bzw. endet regulär. */
+    @SuppressWarnings("unchecked")
+    private void stubHistory(int rows, boolean failAfter) {
+        doAnswer(inv -> {
+            Consumer<ReadingView> sink = inv.getArgument(3);
+            for (int i = 0; i < rows; i++) {
+                sink.accept(new ReadingView(UUID.randomUUID(), deviceId, t0.plusSeconds(900L * i),
+                        BigDecimal.valueOf(1_000_000L + 250L * i, 3), "kWh", "gateway"));
+            }
+            if (failAfter) throw new DataAccessResourceFailureException("cursor lost");
+            return (long) rows;
+        }).when(history).stream(eq(deviceId), any(), any(), any(Consumer.class));
+    }
+
+    @Test
+    void export_ends_with_marker_on_success() throws Exception {
+        stubHistory(3, false);
+
+        var bytes = mvc.perform(get("/api/readings/export").param("deviceId", deviceId.toString()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        var reader = new ReadingSeriesReader(new ByteArrayInputStream(bytes));
+        int n = 0;
+        while (reader.next() != null) n++;
+        assertThat(n).isEqualTo(3);
+    }
+
+    @Test
+    void export_failure_is_not_answered_with_200() {
+        stubHistory(3, true);
+
+        // der Fehler erreicht den Container (Fehlerseite 500) statt einer scheinbar vollständigen Datei
+        assertThatThrownBy(() -> mvc.perform(get("/api/readings/export").param("deviceId", deviceId.toString())))
+                .hasRootCauseInstanceOf(DataAccessResourceFailureException.class);
+    }
+
+    @Test
+    void export_failure_after_commit_propagates_and_leaves_truncated_series() throws Exception {
+        stubHistory(10_000, true); // > 1 Block, Antwort ist bereits committed
+        var response = new MockHttpServletResponse();
+        response.setBufferSize(16);
+
+        assertThatThrownBy(() -> controller.export(deviceId, null, null, response))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+
+        assertThat(response.isCommitted()).isTrue();
+        var reader = new ReadingSeriesReader(new ByteArrayInputStream(response.getContentAsByteArray()));
+        assertThatThrownBy(() -> {
+            while (reader.next() != null) { }
+        }).isInstanceOf(EOFException.class);
+    }
+
+    @Test
+    void list_closes_array_on_success() throws Exception {
+        stubHistory(2, false);
+
+        mvc.perform(get("/api/readings").param("deviceId", deviceId.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(2)))
+                .andExpect(jsonPath("$[1].unit", is("kWh")));
+    }
+
+    @Test
+    void list_failure_before_commit_returns_500_without_partial_array() throws Exception {
+        stubHistory(2, true);
+
+        var body = mvc.perform(get("/api/readings").param("deviceId", deviceId.toString()))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.title", is("INTERNAL_ERROR")))
+                .andReturn().getResponse().getContentAsString();
+        assertThat(body).doesNotContain("[");
+    }
+
+    @Test
+    void list_failure_after_commit_propagates_and_leaves_array_open() throws Exception {
+        stubHistory(500, true);
+        var response = new MockHttpServletResponse();
+        response.setBufferSize(16);
+
+        assertThatThrownBy(() -> controller.list(deviceId, response))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+
+        var body = response.getContentAsString();
+        assertThat(response.isCommitted()).isTrue();
+        assertThat(body).startsWith("[{").doesNotEndWith("]");
+    }
+
+    @Test
+    void stream_failure_propagates() {
+        stubHistory(500, true);
+        var response = new MockHttpServletResponse();
+        response.setBufferSize(16);
+
+        assertThatThrownBy(() -> controller.stream(deviceId, null, null, response))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+    }
+}
@@ -0,0 +1,41 @@
+package com.brunata.meteringdemo.actuator;
+
+import com.brunata.meteringdemo.services.dto.QueryStatsReport;
+import com.brunata.meteringdemo.services.jdbc.QueryStatistics;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator-Endpunkt `/actuator/querystats`: SQL-Statement-Statistik je Fingerprint (Anzahl, Gesamt-/Max-/p99-Zeit,
+ * Zeilen, langsame Aufrufe mit aufrufender Methode).
+ *
+ * - GET `?sort=total|mean|max|p99|count|rows|errors&limit=50` – Top-Statements (Default: nach Gesamtzeit, 50)
+ * - DELETE – Statistik zurücksetzen (z. B. vor einem Lasttest)
+ *
+ * Bei aktivierter Basic-Auth nur authentifiziert erreichbar (nicht in der öffentlichen Actuator-Liste).
+ */
+@Component
+@Endpoint(id = "querystats")
+public class QueryStatsEndpoint {
+
+    static final int DEFAULT_LIMIT = 50;
+
+    private final QueryStatistics statistics;
+
+    public QueryStatsEndpoint(QueryStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    @ReadOperation
+    public QueryStatsReport statements(@Nullable String sort, @Nullable Integer limit) {
+        return statistics.report(sort, limit != null ? limit : DEFAULT_LIMIT);
+    }
+
+    @DeleteOperation
+    public void reset() {
+        statistics.reset();
+    }
+}
@@ -0,0 +1,64 @@
+package com.brunata.meteringdemo.cli;
+
+import com.brunata.meteringdemo.services.dto.SyntheticDataReport;
+import com.brunata.meteringdemo.services.dto.SyntheticDataSpec;
+import com.brunata.meteringdemo.services.seed.SyntheticDataGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.function.Function;
+
+/**
+ * CLI-Modus des Generators für synthetische Testdaten: mit `--generate-data` erzeugt die Anwendung die Daten
+ * synchron, gibt den Report als JSON aus und beendet sich (Exit-Code 0 bzw. 1 bei Fehlern).
+ *
+ * Optionen (alle optional, Defaults siehe SyntheticDataSpec):
+ * --seed, --devices, --tariffs, --from, --to (ISO-Datum), --interval (ISO-Dauer, z. B. PT15M),
+ * --noise, --gap-rate, --offline-rate
+ *
+ * Beispiel: scripts/generate-data.sh --devices=10000 --seed=7 --from=2025-01-01 --to=2025-12-31
+ */
+@Component
+public class GenerateDataCommand implements ApplicationRunner {
+
+    private final SyntheticDataGenerator generator;
+    private final ObjectMapper mapper;
+    private final ConfigurableApplicationContext context;
+
+    public GenerateDataCommand(SyntheticDataGenerator generator, ObjectMapper mapper,
+                               ConfigurableApplicationContext context) {
+        this.generator = generator;
+        this.mapper = mapper;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (!args.containsOption("generate-data")) return;
+        var spec = new SyntheticDataSpec(
+                option(args, "seed", Long::valueOf),
+                option(args, "devices", Integer::valueOf),
+                option(args, "tariffs", Integer::valueOf),
+                option(args, "from", LocalDate::parse),
+                option(args, "to", LocalDate::parse),
+                option(args, "interval", Duration::parse),
+                option(args, "noise", Double::valueOf),
+                option(args, "gap-rate", Double::valueOf),
+                option(args, "offline-rate", Double::valueOf));
+        var report = generator.generate(spec);
+        System.out.println(mapper.writerWithDefaultPrettyPrinter().writeValueAsString(report));
+        int code = report.status() == SyntheticDataReport.Status.COMPLETED ? 0 : 1;
+        System.exit(SpringApplication.exit(context, () -> code));
+    }
+
+    private static <T> T option(ApplicationArguments args, String name, Function<String, T> parse) {
+        var values = args.getOptionValues(name);
+        return values == null || values.isEmpty() ? null : parse.apply(values.get(values.size() - 1));
+    }
+}
@@ -0,0 +1,55 @@
+-- V10__meter_reading_partitioning.sql
+-- Ziel: meter_reading monatlich nach reading_time partitionieren (Range-Partitionierung, PostgreSQL).
+-- - Vacuum/Indexpflege je Monat statt auf einer großen Heap-Tabelle
+-- - Zeitraum-Queries (Billing) lesen nur die betroffenen Partitionen (Partition Pruning)
+-- - alte Monate lassen sich per DETACH/DROP entfernen (siehe ReadingPartitionManager)
+-- Der PK muss den Partitionsschlüssel enthalten → (id, reading_time).
+
+ALTER TABLE meter_reading RENAME TO meter_reading_unpartitioned;
+ALTER INDEX IF EXISTS meter_reading_pkey RENAME TO meter_reading_unpartitioned_pkey;
+DROP INDEX IF EXISTS idx_reading_device_time;
+DROP INDEX IF EXISTS idx_reading_device_time_desc;
+
+CREATE TABLE meter_reading (
+  id UUID NOT NULL,
+  device_id UUID NOT NULL,
+  reading_time TIMESTAMPTZ NOT NULL,
+  value NUMERIC(18,6) NOT NULL,
+  unit VARCHAR(16) NOT NULL,
+  source VARCHAR(16) NOT NULL,
+  CONSTRAINT meter_reading_pkey PRIMARY KEY (id, reading_time),
+  CONSTRAINT chk_meter_reading_value_nonneg CHECK (value >= 0),
+  CONSTRAINT chk_meter_reading_unit_not_empty CHECK (unit IS NOT NULL AND length(trim(unit)) > 0)
+) PARTITION BY RANGE (reading_time);
+
+-- Bewusst ohne DEFAULT-Partition: nur dann kann PostgreSQL „neuester Messwert je Gerät“ (ORDER BY reading_time
+-- DESC LIMIT 1) als geordnetes Append ausführen und bricht nach der jüngsten Partition mit Treffer ab.
+-- Fehlende Monate legt ReadingPartitionManager vor dem Schreiben an.
+
+-- Monatspartitionen vom ältesten Messwert bis 3 Monate in die Zukunft (Name: meter_reading_yYYYYmMM)
+DO $$
+DECLARE
+  m date := date_trunc('month', coalesce((SELECT min(reading_time) FROM meter_reading_unpartitioned), now()) AT TIME ZONE 'UTC')::date;
+  last date := (date_trunc('month', now() AT TIME ZONE 'UTC') + interval '3 months')::date;
+BEGIN
+  WHILE m <= last LOOP
+    EXECUTE format('CREATE TABLE %I PARTITION OF meter_reading FOR VALUES FROM (%L) TO (%L)',
+                   'meter_reading_y' || to_char(m, 'YYYY') || 'm' || to_char(m, 'MM'),
+                   m::timestamp AT TIME ZONE 'UTC', (m + interval '1 month')::timestamp AT TIME ZONE 'UTC');
+    m := (m + interval '1 month')::date;
+  END LOOP;
+END $$;
+
+INSERT INTO meter_reading (id, device_id, reading_time, value, unit, source)
+SELECT id, device_id, reading_time, value, unit, source FROM meter_reading_unpartitioned;
+
+DROP TABLE meter_reading_unpartitioned;
+
+-- Ein Index genügt für neuesten Messwert (Rückwärts-Scan) und Zeiträume je Gerät;
+-- der frühere DESC-Zwilling kostete nur Schreibleistung. Wird je Partition angelegt.
+CREATE INDEX idx_reading_device_time ON meter_reading(device_id, reading_time);
+
+ANALYZE meter_reading;
+
+COMMENT ON TABLE meter_reading IS 'Stores cumulative meter readings for devices (range-partitioned by reading_time, monthly).';
+COMMENT ON COLUMN meter_reading.value IS 'Cumulative reading value; expected to be non-decreasing per device.';
@@ -0,0 +1,29 @@
+-- V11__device_daily_reading.sql
+-- Ziel: Tages-Rollup je Gerät (UTC-Tag) für Verbrauchsabfragen in O(Tage) statt O(Messwerte).
+-- Wird beim Ingest inkrementell fortgeschrieben (DailyReadingRollup) und lässt sich für Zeiträume neu aufbauen.
+
+CREATE TABLE device_daily_reading (
+  device_id UUID NOT NULL,
+  day DATE NOT NULL,
+  first_time TIMESTAMPTZ NOT NULL,
+  first_value NUMERIC(18,6) NOT NULL,
+  last_time TIMESTAMPTZ NOT NULL,
+  last_value NUMERIC(18,6) NOT NULL,
+  min_value NUMERIC(18,6) NOT NULL,
+  max_value NUMERIC(18,6) NOT NULL,
+  reading_count BIGINT NOT NULL,
+  CONSTRAINT device_daily_reading_pkey PRIMARY KEY (device_id, day),
+  CONSTRAINT chk_device_daily_reading_count CHECK (reading_count > 0)
+);
+
+-- Initialbefüllung aus vorhandenen Messwerten
+INSERT INTO device_daily_reading (device_id, day, first_time, first_value, last_time, last_value,
+                                  min_value, max_value, reading_count)
+SELECT device_id, (reading_time AT TIME ZONE 'UTC')::date,
+       min(reading_time), (array_agg(value ORDER BY reading_time, id))[1],
+       max(reading_time), (array_agg(value ORDER BY reading_time DESC, id DESC))[1],
+       min(value), max(value), count(*)
+FROM meter_reading
+GROUP BY device_id, (reading_time AT TIME ZONE 'UTC')::date;
+
+COMMENT ON TABLE device_daily_reading IS 'Daily (UTC) rollup of meter_reading per device: first/last/min/max value and count.';
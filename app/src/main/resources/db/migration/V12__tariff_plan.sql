@@ -0,0 +1,32 @@
+-- V12__tariff_plan.sql
+-- Ziel: Tarifpläne mit Staffelpreisen (Mengenblöcke je Abrechnungszeitraum) und Zeitfenstern (Time-of-Use).
+-- Ohne Staffeln und Zeitfenster gilt wie bisher price_per_unit für den gesamten Verbrauch.
+
+-- Zeitzone, in der die Stunden der Zeitfenster ausgewertet werden
+ALTER TABLE tariff ADD COLUMN time_zone TEXT NOT NULL DEFAULT 'UTC';
+
+-- Staffel: ab from_quantity (kumulierter Verbrauch im Zeitraum) gilt price_per_unit;
+-- unterhalb der ersten Staffel gilt tariff.price_per_unit
+CREATE TABLE tariff_tier (
+  tariff_id UUID NOT NULL REFERENCES tariff(id) ON DELETE CASCADE,
+  position INT NOT NULL,
+  from_quantity NUMERIC(18,6) NOT NULL,
+  price_per_unit NUMERIC(12,4) NOT NULL,
+  CONSTRAINT tariff_tier_pkey PRIMARY KEY (tariff_id, position),
+  CONSTRAINT chk_tariff_tier_from_quantity CHECK (from_quantity >= 0)
+);
+
+-- Zeitfenster [start_hour, end_hour) in der Tarif-Zeitzone (end_hour <= start_hour: über Mitternacht);
+-- surcharge wird auf den Preis der jeweiligen Staffel addiert (negativ = Rabatt)
+CREATE TABLE tariff_time_window (
+  tariff_id UUID NOT NULL REFERENCES tariff(id) ON DELETE CASCADE,
+  position INT NOT NULL,
+  start_hour INT NOT NULL,
+  end_hour INT NOT NULL,
+  surcharge NUMERIC(12,4) NOT NULL,
+  CONSTRAINT tariff_time_window_pkey PRIMARY KEY (tariff_id, position),
+  CONSTRAINT chk_tariff_time_window_hours CHECK (start_hour BETWEEN 0 AND 23 AND end_hour BETWEEN 0 AND 24)
+);
+
+COMMENT ON TABLE tariff_tier IS 'Tiered price blocks of a tariff, by cumulative consumption within the billing period.';
+COMMENT ON TABLE tariff_time_window IS 'Time-of-use windows of a tariff: hourly surcharge in the tariff time zone.';
@@ -0,0 +1,20 @@
+-- V13__device_offline_report.sql
+-- Zustand der Offline-Meldungen an Jira: je Gerät höchstens eine offene Meldung (neue Issues nur beim Übergang
+-- online -> offline), dazu die Keyset-Position des Laufs, damit jeder Lauf dort weitermacht, wo der letzte aufhörte
+
+CREATE TABLE IF NOT EXISTS device_offline_report (
+  device_id UUID PRIMARY KEY REFERENCES device(id) ON DELETE CASCADE,
+  issue_key TEXT,
+  last_seen_at TIMESTAMPTZ,
+  reported_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+COMMENT ON TABLE device_offline_report IS 'Open offline issues per device; removed when the device is seen again (recovery).';
+
+CREATE TABLE IF NOT EXISTS sync_cursor (
+  name TEXT PRIMARY KEY,
+  position UUID NOT NULL,
+  updated_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+COMMENT ON TABLE sync_cursor IS 'Keyset position of paged integration jobs (last fully processed id).';
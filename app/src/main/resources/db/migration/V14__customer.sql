@@ -0,0 +1,23 @@
+-- V14__customer.sql
+-- Kundenstamm aus dem ERP (inkrementeller Sync): Upsert nur geänderter Zeilen, dazu die Validatoren des letzten
+-- vollständigen Abrufs (ETag/Last-Modified) für bedingte Requests (unverändert = 304, ein Roundtrip)
+
+CREATE TABLE IF NOT EXISTS customer (
+  customer_no TEXT PRIMARY KEY,
+  name TEXT NOT NULL,
+  email TEXT,
+  city TEXT,
+  erp_updated_at TIMESTAMPTZ,
+  synced_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+COMMENT ON TABLE customer IS 'Customers synced from the ERP; synced_at = last time the row actually changed.';
+
+CREATE TABLE IF NOT EXISTS sync_validator (
+  name TEXT PRIMARY KEY,
+  etag TEXT,
+  last_modified TEXT,
+  updated_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+COMMENT ON TABLE sync_validator IS 'HTTP validators (ETag/Last-Modified) of the last complete fetch per integration feed.';
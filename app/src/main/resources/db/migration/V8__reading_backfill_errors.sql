@@ -0,0 +1,16 @@
+-- V8__reading_backfill_errors.sql
+-- Fehlerreport für historische Backfills (COPY-Import über Staging-Tabelle)
+-- Je abgelehnter Zeile: Rohwerte + Grund, gruppiert über die Backfill-ID
+
+CREATE TABLE IF NOT EXISTS reading_backfill_error (
+  backfill_id UUID NOT NULL,
+  line_no BIGINT NOT NULL,
+  device_id TEXT,
+  reading_time TEXT,
+  value TEXT,
+  reason TEXT NOT NULL,
+  created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+  PRIMARY KEY (backfill_id, line_no)
+);
+
+COMMENT ON TABLE reading_backfill_error IS 'Rejected rows of historical reading backfills (line_no = n-th data record of the upload).';
@@ -0,0 +1,18 @@
+-- Zeitlich sortierbare UUIDs (Version 7, RFC 9562) für DB-seitig erzeugte Schlüssel (z. B. Backfill).
+-- 48 Bit Unix-Millisekunden vor die Zufallsbits einer v4-UUID legen und die Versionsbits auf 7 setzen.
+-- Gegenstück zu common.UuidV7 (dort zusätzlich monoton innerhalb einer Millisekunde).
+create or replace function uuid_v7(ts timestamptz default clock_timestamp())
+returns uuid
+language sql
+volatile
+as $$
+  select encode(
+    set_bit(
+      set_bit(
+        overlay(uuid_send(gen_random_uuid())
+                placing substring(int8send(floor(extract(epoch from ts) * 1000)::bigint) from 3)
+                from 1 for 6),
+        52, 1),
+      53, 1),
+    'hex')::uuid;
+$$;
@@ -0,0 +1,154 @@
+package com.brunata.meteringdemo;
+
+import com.brunata.meteringdemo.services.ReadingPartitionManager;
+import com.brunata.meteringdemo.services.dto.BackfillReport;
+import com.brunata.meteringdemo.services.ingest.ReadingBackfillService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+class ReadingBackfillIntegrationTest {
+    /**
+     * SQL-Ebene des Backfills gegen PostgreSQL 16 (pg_input_is_valid):
+     * - Fehlerklassifikation je Zeile: Formatfehler (UUID, Zeitstempel, NUMERIC(18,6)), Pflichtfelder, Längen
+     *   (VARCHAR(16)), Zukunft, unbekanntes Gerät, nicht parsebares NDJSON
+     * - Monotonie je Gerät über das Window (vorheriges Maximum im Upload, nach Zeit sortiert) und gegen den
+     *   neuesten vorhandenen Messwert; ein Ausreißer nach oben lehnt nachfolgende kleinere Werte ab
+     */
+
+    @Container
+    static PostgreSQLContainer<?> pg = new PostgreSQLContainer<>(
+            System.getenv().getOrDefault("TEST_POSTGRES_IMAGE", "postgres:16")
+    )
+            .withDatabaseName(System.getenv().getOrDefault("TEST_DB_NAME", "metering"))
+            .withUsername(System.getenv().getOrDefault("TEST_DB_USER", "metering"))
+            .withPassword(System.getenv().getOrDefault("TEST_DB_PASSWORD", "metering"));
+
+    @DynamicPropertySource
+    static void props(DynamicPropertyRegistry r){
+        r.add("spring.datasource.url", pg::getJdbcUrl);
+        r.add("spring.datasource.username", pg::getUsername);
+        r.add("spring.datasource.password", pg::getPassword);
+    }
+
+    @Autowired ReadingBackfillService backfill;
+    @Autowired ReadingPartitionManager partitions;
+    @Autowired JdbcTemplate jdbc;
+
+    private final UUID a = UUID.randomUUID();
+    private final UUID b = UUID.randomUUID();
+
+    @BeforeEach
+    void devices() {
+        jdbc.update("insert into device (id, type, serial_no) values (?, 'ELECTRICITY', ?), (?, 'ELECTRICITY', ?)",
+                a, "BF-A-" + a, b, "BF-B-" + b);
+        // Gerät B hat bereits einen Messwert (500 am 2025-03-01)
+        var existing = Instant.parse("2025-03-01T00:00:00Z");
+        partitions.ensureCovered(List.of(existing));
+        jdbc.update("insert into meter_reading (id, device_id, reading_time, value, unit, source) values (?, ?, ?, 500, 'kWh', 'gw')",
+                UUID.randomUUID(), b, Timestamp.from(existing));
+    }
+
+    @Test
+    void classifies_rejected_rows_and_checks_monotonicity_per_device() {
+        var unknown = UUID.randomUUID();
+        var csv = String.join("\n",
+                "deviceId,readingTime,value,unit,source",
+                a + ",2025-02-01T00:00:00Z,100,kWh,gw",
+                "not-a-uuid,2025-02-01T00:00:00Z,1,kWh,gw",
+                a + ",not-a-time,1,kWh,gw",
+                a + ",2025-02-01T01:00:00Z,abc,kWh,gw",
+                a + ",2025-02-01T01:00:00Z,1e20,kWh,gw",
+                a + ",2025-02-01T01:00:00Z,-1,kWh,gw",
+                a + ",2025-02-01T01:00:00Z,101,,gw",
+                a + ",2999-01-01T00:00:00Z,101,kWh,gw",
+                unknown + ",2025-02-01T01:00:00Z,1,kWh,gw",
+                a + ",2025-02-01T02:00:00Z,90,kWh,gw",
+                a + ",2025-02-01T03:00:00Z,95,kWh,gw",
+                a + ",2025-02-01T04:00:00Z,120,kWh,gw",
+                a + ",2025-01-31T23:00:00Z,50,kWh,gw",
+                b + ",2025-02-15T00:00:00Z,600,kWh,gw",
+                b + ",2025-03-02T00:00:00Z,400,kWh,gw",
+                b + ",2025-03-03T00:00:00Z,700,kWh,gw",
+                a + ",2025-02-02T00:00:00Z,130,kilowatt-hours-xx,gw",
+                a + ",2025-02-02T00:00:00Z,130,kWh,gateway-0123456789") + "\n";
+
+        var report = backfill.backfill(in(csv), ReadingBackfillService.Format.CSV);
+
+        assertThat(report.rowsStaged()).isEqualTo(18);
+        assertThat(report.rowsInserted()).isEqualTo(4);
+        assertThat(report.rowsRejected()).isEqualTo(14);
+        var monotonicityA = "Monotonicity violated for device BF-A-" + a;
+        assertThat(reasons(report)).containsExactlyEntriesOf(new TreeMap<>(Map.ofEntries(
+                Map.entry(2L, "Invalid deviceId"),
+                Map.entry(3L, "Invalid readingTime"),
+                Map.entry(4L, "Invalid value"),
+                Map.entry(5L, "Invalid value"), // übersteigt NUMERIC(18,6)
+                Map.entry(6L, "value must be greater than or equal to 0"),
+                Map.entry(7L, "unit must not be blank"),
+                Map.entry(8L, "readingTime must be a date in the past or in the present"),
+                Map.entry(9L, "Unknown device: " + unknown),
+                // nach Zeit sortiert: 50 (23:00), 100, 90, 95, 120 -> 90 und 95 liegen unter dem bisherigen Maximum
+                Map.entry(10L, monotonicityA),
+                Map.entry(11L, monotonicityA),
+                // Gerät B gegen den vorhandenen Messwert (2025-03-01, 500)
+                Map.entry(14L, "Reading time must be >= last reading time"),
+                Map.entry(15L, "Monotonicity violated for device BF-B-" + b),
+                // VARCHAR(16)
+                Map.entry(17L, "unit size must be between 0 and 16"),
+                Map.entry(18L, "source size must be between 0 and 16"))));
+
+        assertThat(jdbc.queryForList("select value from meter_reading where device_id = ? order by reading_time",
+                BigDecimal.class, a)).extracting(BigDecimal::intValue).containsExactly(50, 100, 120);
+        assertThat(jdbc.queryForList("select value from meter_reading where device_id = ? order by reading_time",
+                BigDecimal.class, b)).extracting(BigDecimal::intValue).containsExactly(500, 700);
+    }
+
+    @Test
+    void malformed_ndjson_lines_are_reported_with_parse_error() {
+        var ndjson = String.join("\n",
+                "{\"deviceId\":\"" + a + "\",\"readingTime\":\"2025-02-01T00:00:00Z\",\"value\":1.5,\"unit\":\"kWh\",\"source\":\"gw\"}",
+                "{\"deviceId\":\"" + a + "\",\"value\":",
+                "{\"deviceId\":\"" + a + "\",\"readingTime\":\"2025-02-01T00:15:00Z\",\"unit\":\"kWh\",\"source\":\"gw\"}");
+
+        var report = backfill.backfill(in(ndjson), ReadingBackfillService.Format.NDJSON);
+
+        assertThat(report.rowsInserted()).isEqualTo(1);
+        var reasons = reasons(report);
+        assertThat(reasons.keySet()).containsExactly(2L, 3L);
+        assertThat(reasons.get(2L)).startsWith("Malformed JSON: ");
+        // fehlendes Feld -> SQL NULL -> Typprüfung
+        assertThat(reasons.get(3L)).isEqualTo("Invalid value");
+    }
+
+    private static Map<Long, String> reasons(BackfillReport report) {
+        var reasons = new TreeMap<Long, String>();
+        report.errors().forEach(e -> reasons.put(e.lineNo(), e.reason()));
+        return reasons;
+    }
+
+    private static ByteArrayInputStream in(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
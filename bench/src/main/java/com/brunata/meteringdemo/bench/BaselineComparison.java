@@ -0,0 +1,119 @@
+package com.brunata.meteringdemo.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Vergleicht ein JMH-Ergebnis (`-rf json`) mit einer gespeicherten Baseline und meldet Regressionen.
+ *
+ * - Schlüssel: Benchmark + Parameter; Zeit-Modi (avgt, sample, ss) kleiner = besser, `thrpt` größer = besser
+ * - Regression: Verschlechterung über `threshold` (relativ) und über den zusammengefassten Messfehler beider Läufe
+ * - zusätzlich Allokation je Operation (`-prof gc`, `gc.alloc.rate.norm`), sofern in beiden Läufen vorhanden
+ *
+ * Aufruf: `java -cp bench/target/benchmarks.jar com.brunata.meteringdemo.bench.BaselineComparison
+ * <baseline.json> <result.json> [threshold, Default 0.10]`; Exit-Code 1 bei Regression.
+ */
+public final class BaselineComparison {
+
+    static final String ALLOC_METRIC = "gc.alloc.rate.norm";
+    // Rauschen der Allokationsmessung (TLAB-Anteile) in Byte je Operation
+    static final double ALLOC_NOISE_BYTES = 64;
+
+    /** Messwert eines Benchmarks (Score, Fehler des Konfidenzintervalls, Allokation oder NaN). */
+    record Result(String mode, double score, double error, String unit, double allocBytes) {
+        boolean higherIsBetter() {
+            return "thrpt".equals(mode);
+        }
+    }
+
+    /** Vergleich eines Benchmarks; `change` relativ zur Baseline, positiv = schlechter. */
+    record Comparison(String key, Result baseline, Result current, double change, double allocChange, boolean regression) {}
+
+    private BaselineComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: BaselineComparison <baseline.json> <result.json> [threshold]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 0.10;
+        var mapper = new ObjectMapper();
+        var baseline = parse(mapper.readTree(new File(args[0])));
+        var current = parse(mapper.readTree(new File(args[1])));
+
+        var comparisons = compare(baseline, current, threshold);
+        System.out.printf("%-70s %16s %16s %8s %14s%n", "benchmark", "baseline", "current", "change", "alloc B/op");
+        for (var c : comparisons) {
+            var alloc = Double.isNaN(c.allocChange()) ? "-"
+                    : String.format("%+.0f", c.current().allocBytes() - c.baseline().allocBytes());
+            System.out.printf("%-70s %16s %16s %7.1f%% %14s%s%n", c.key(), format(c.baseline()), format(c.current()),
+                    c.change() * 100, alloc, c.regression() ? "  REGRESSION" : "");
+        }
+        for (var key : current.keySet()) {
+            if (!baseline.containsKey(key)) System.out.println("new (no baseline): " + key);
+        }
+        for (var key : baseline.keySet()) {
+            if (!current.containsKey(key)) System.out.println("missing in result: " + key);
+        }
+        long regressions = comparisons.stream().filter(Comparison::regression).count();
+        System.out.printf("%d compared, %d regression(s), threshold %.0f%%%n", comparisons.size(), regressions, threshold * 100);
+        if (regressions > 0) System.exit(1);
+    }
+
+    /** Ergebnisse je Schlüssel `Benchmark[param=wert,...]`. */
+    static Map<String, Result> parse(JsonNode root) {
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (var run : root) {
+            var key = new StringBuilder(run.path("benchmark").asText());
+            Map<String, String> params = new TreeMap<>();
+            run.path("params").fields().forEachRemaining(p -> params.put(p.getKey(), p.getValue().asText()));
+            if (!params.isEmpty()) key.append(params.toString().replace('{', '[').replace('}', ']').replace(" ", ""));
+            var primary = run.path("primaryMetric");
+            var alloc = run.path("secondaryMetrics").path(ALLOC_METRIC);
+            results.put(key.toString(), new Result(run.path("mode").asText(), primary.path("score").asDouble(),
+                    finiteOrZero(primary.path("scoreError").asDouble()), primary.path("scoreUnit").asText(),
+                    alloc.isMissingNode() ? Double.NaN : alloc.path("score").asDouble()));
+        }
+        return results;
+    }
+
+    static List<Comparison> compare(Map<String, Result> baseline, Map<String, Result> current, double threshold) {
+        List<Comparison> comparisons = new ArrayList<>();
+        for (var entry : current.entrySet()) {
+            var base = baseline.get(entry.getKey());
+            var cur = entry.getValue();
+            if (base == null || !base.unit().equals(cur.unit())) continue;
+
+            double diff = cur.higherIsBetter() ? base.score() - cur.score() : cur.score() - base.score();
+            double change = base.score() == 0 ? 0 : diff / base.score();
+            boolean slower = change > threshold && diff > base.error() + cur.error();
+
+            double allocChange = Double.NaN;
+            boolean allocates = false;
+            if (!Double.isNaN(base.allocBytes()) && !Double.isNaN(cur.allocBytes())) {
+                double allocDiff = cur.allocBytes() - base.allocBytes();
+                allocChange = base.allocBytes() == 0 ? (allocDiff > ALLOC_NOISE_BYTES ? 1 : 0) : allocDiff / base.allocBytes();
+                allocates = allocDiff > ALLOC_NOISE_BYTES && allocChange > threshold;
+            }
+            comparisons.add(new Comparison(entry.getKey(), base, cur, change, allocChange, slower || allocates));
+        }
+        return comparisons;
+    }
+
+    private static double finiteOrZero(double value) {
+        return Double.isFinite(value) ? value : 0;
+    }
+
+    private static String format(Result r) {
+        return String.format("%.3f %s", r.score(), r.unit());
+    }
+}
@@ -0,0 +1,69 @@
+package com.brunata.meteringdemo.bench;
+
+import com.brunata.meteringdemo.common.Money;
+import com.brunata.meteringdemo.common.Quantity;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Betragsberechnung eines Abrechnungs-Chunks (1 000 Verträge): Verbrauch = letzter - erster Stand,
+ * Betrag = Verbrauch * Preis, gerundet auf 2 Nachkommastellen.
+ *
+ * - `bigDecimal`: bisherige Rechnung (`subtract`, `multiply`, `setScale`)
+ * - `fixedPoint`: {@link Quantity}/{@link Money} (long-Arithmetik, nur das Ergebnis-Objekt je Schritt; BigDecimal
+ *   nur bei Überlauf des Produkts, hier nie)
+ *
+ * Start: `java -jar bench/target/benchmarks.jar BillingArithmetic -prof gc`
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BillingArithmeticBenchmark {
+
+    private static final int CONTRACTS = 1_000;
+
+    private final BigDecimal[] firstValues = new BigDecimal[CONTRACTS];
+    private final BigDecimal[] lastValues = new BigDecimal[CONTRACTS];
+    private final BigDecimal[] prices = new BigDecimal[CONTRACTS];
+    private final Quantity[] firstQuantities = new Quantity[CONTRACTS];
+    private final Quantity[] lastQuantities = new Quantity[CONTRACTS];
+    private final Money[] unitPrices = new Money[CONTRACTS];
+
+    @Setup
+    public void setUp() {
+        var random = new SplittableRandom(7);
+        for (int i = 0; i < CONTRACTS; i++) {
+            long first = random.nextLong(10_000_000_000_000L);
+            firstValues[i] = BigDecimal.valueOf(first, 6);
+            lastValues[i] = BigDecimal.valueOf(first + random.nextLong(5_000_000_000L), 6);
+            prices[i] = BigDecimal.valueOf(1_000 + random.nextLong(5_000), 4);
+            firstQuantities[i] = Quantity.of(firstValues[i]);
+            lastQuantities[i] = Quantity.of(lastValues[i]);
+            unitPrices[i] = Money.of(prices[i]);
+        }
+    }
+
+    @Benchmark
+    public void bigDecimal(Blackhole bh) {
+        for (int i = 0; i < CONTRACTS; i++) {
+            var consumption = lastValues[i].subtract(firstValues[i]);
+            bh.consume(consumption.multiply(prices[i]).setScale(2, RoundingMode.HALF_UP));
+        }
+    }
+
+    @Benchmark
+    public void fixedPoint(Blackhole bh) {
+        for (int i = 0; i < CONTRACTS; i++) {
+            var consumption = lastQuantities[i].minus(firstQuantities[i]);
+            bh.consume(consumption.times(unitPrices[i], 2, RoundingMode.HALF_UP));
+        }
+    }
+}
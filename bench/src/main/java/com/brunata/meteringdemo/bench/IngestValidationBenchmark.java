@@ -0,0 +1,86 @@
+package com.brunata.meteringdemo.bench;
+
+import com.brunata.meteringdemo.common.Quantity;
+import com.brunata.meteringdemo.services.dto.ReadingDto;
+import com.brunata.meteringdemo.services.ingest.DeviceWatermarkCache;
+import com.brunata.meteringdemo.services.ingest.ReadingValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingest-Prüfung ohne DB ({@link ReadingValidator}, wie von ReadingService/ReadingBatchService genutzt),
+ * Watermarks bereits im Cache.
+ *
+ * - `batch`: Gateway-Batch (`batchSize` Messwerte über 100 Geräte, ungeordnet, ~1 % Monotonie-Verletzungen)
+ * - `single`: Einzelwert gegen den Stand des Geräts
+ *
+ * Start: `java -jar bench/target/benchmarks.jar IngestValidation -prof gc`
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IngestValidationBenchmark {
+
+    private static final int DEVICES = 100;
+    private static final Instant START = Instant.parse("2025-01-01T00:00:00Z");
+
+    @State(Scope.Benchmark)
+    public static class Batch {
+        @Param({"1000", "10000"})
+        public int batchSize;
+
+        List<ReadingDto> readings;
+        Map<UUID, DeviceWatermarkCache.Watermark> known;
+
+        @Setup
+        public void setUp() {
+            var random = new Random(11);
+            known = new HashMap<>();
+            readings = new ArrayList<>(batchSize);
+            int perDevice = batchSize / DEVICES;
+            for (int d = 0; d < DEVICES; d++) {
+                var id = UUID.randomUUID();
+                known.put(id, new DeviceWatermarkCache.Watermark(true, "SN-" + d, START, Quantity.ofMicros(1_000_000_000L)));
+                long value = 1_000_000_000L;
+                for (int i = 1; i <= perDevice; i++) {
+                    value += random.nextInt(500_000);
+                    // ~1 % fallende Zählerstände
+                    long reported = random.nextInt(100) == 0 ? value - 2_000_000 : value;
+                    readings.add(new ReadingDto(id, START.plusSeconds(900L * i), BigDecimal.valueOf(reported, Quantity.SCALE),
+                            "kWh", "bench"));
+                }
+            }
+            Collections.shuffle(readings, random);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Single {
+        final DeviceWatermarkCache.Watermark watermark =
+                new DeviceWatermarkCache.Watermark(true, "SN-0", START, Quantity.ofMicros(1_000_000_000L));
+        final ReadingDto next = new ReadingDto(UUID.randomUUID(), START.plusSeconds(900), new BigDecimal("1000.250000"),
+                "kWh", "bench");
+    }
+
+    @Benchmark
+    public ReadingValidator.Outcome batch(Batch state) {
+        return ReadingValidator.validate(state.readings, ids -> state.known);
+    }
+
+    @Benchmark
+    public String single(Single state) {
+        return ReadingValidator.violation(state.watermark, state.next, Quantity.of(state.next.value()));
+    }
+}
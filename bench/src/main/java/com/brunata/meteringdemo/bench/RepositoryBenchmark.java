@@ -0,0 +1,134 @@
+package com.brunata.meteringdemo.bench;
+
+import com.brunata.meteringdemo.persistence.MeterReadingRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repository-Zugriffe der Hot-Paths gegen eine lokale PostgreSQL (z. B. `docker compose up -d db`, Schema per Flyway
+ * durch einmaligen App-Start). Verbindung wie die Anwendung über `DB_URL`, `DB_USER`, `DB_PASSWORD`.
+ * Nur lesend; Gerät und Zeitraum (letzte 30 Tage des Geräts mit den meisten Messwerten) werden beim Start ermittelt.
+ *
+ * - `watermarks`: Watermark-Auflösung für bis zu 100 Geräte (Cache-Miss im Batch-Ingest, eine Query)
+ * - `boundarySeeks`: vier Index-Seeks an den Zeitraumgrenzen (Billing, `consumption-mode=interpolated`), je Seek
+ *   auf `billing.max-reading-gap` (31 Tage) begrenzt; PostgreSQL liest nur die angrenzenden Monatspartitionen
+ * - `unboundedBoundarySeeks`: dieselben Seeks mit nur einer Zeitgrenze (Referenz; ohne Partition-Pruning wird je
+ *   Seek jede Partition angefasst) – fällt `boundarySeeks` auf dieses Niveau, fehlt eine Grenze
+ * - `rangeAggregate`: max - min über den Zeitraum (Range-Scan, Referenz für die Seeks)
+ *
+ * Start: `java -jar bench/target/benchmarks.jar Repository`
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RepositoryBenchmark {
+
+    // Default von `billing.max-reading-gap`
+    private static final Duration MAX_READING_GAP = Duration.ofDays(31);
+
+    static final String SEEK_BEFORE_SQL = """
+            select reading_time, value from meter_reading
+            where device_id = ? and reading_time < ? order by reading_time desc limit 1
+            """;
+    static final String SEEK_AT_OR_AFTER_SQL = """
+            select reading_time, value from meter_reading
+            where device_id = ? and reading_time >= ? order by reading_time limit 1
+            """;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbc;
+    private MeterReadingRepository readingRepo;
+    private List<UUID> deviceIds;
+    private UUID deviceId;
+    private Instant from;
+    private Instant to;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(Config.class)
+                .web(WebApplicationType.NONE)
+                .properties(Map.of(
+                        "spring.main.banner-mode", "off",
+                        "logging.level.root", "WARN",
+                        "spring.datasource.url", "${DB_URL:jdbc:postgresql://localhost:5432/metering}",
+                        "spring.datasource.username", "${DB_USER:metering}",
+                        "spring.datasource.password", "${DB_PASSWORD:metering}",
+                        "spring.jpa.hibernate.ddl-auto", "none",
+                        "spring.jpa.open-in-view", "false"))
+                .run();
+        readingRepo = context.getBean(MeterReadingRepository.class);
+        jdbc = context.getBean(JdbcTemplate.class);
+
+        deviceIds = jdbc.queryForList("select id from device order by id limit 100", UUID.class);
+        var busiest = jdbc.queryForMap("""
+                select device_id, max(reading_time) as last_time from meter_reading
+                group by device_id order by count(*) desc limit 1
+                """);
+        deviceId = (UUID) busiest.get("device_id");
+        to = ((Timestamp) busiest.get("last_time")).toInstant().truncatedTo(ChronoUnit.DAYS);
+        from = to.minus(30, ChronoUnit.DAYS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MeterReadingRepository.DeviceWatermarkView> watermarks() {
+        return readingRepo.findWatermarks(deviceIds);
+    }
+
+    @Benchmark
+    public void boundarySeeks(Blackhole bh) {
+        for (var boundary : List.of(from, to)) {
+            bh.consume(readingRepo.findFirstByDeviceIdAndReadingTimeGreaterThanEqualAndReadingTimeLessThanOrderByReadingTimeDesc(
+                    deviceId, boundary.minus(MAX_READING_GAP), boundary));
+            bh.consume(readingRepo.findFirstByDeviceIdAndReadingTimeGreaterThanEqualAndReadingTimeLessThanOrderByReadingTimeAsc(
+                    deviceId, boundary, boundary.plus(MAX_READING_GAP)));
+        }
+    }
+
+    @Benchmark
+    public void unboundedBoundarySeeks(Blackhole bh) {
+        for (var boundary : List.of(from, to)) {
+            bh.consume(jdbc.queryForList(SEEK_BEFORE_SQL, deviceId, Timestamp.from(boundary)));
+            bh.consume(jdbc.queryForList(SEEK_AT_OR_AFTER_SQL, deviceId, Timestamp.from(boundary)));
+        }
+    }
+
+    @Benchmark
+    public Optional<BigDecimal> rangeAggregate() {
+        return readingRepo.computeConsumption(deviceId, from, to);
+    }
+
+    /** Minimaler Kontext: DataSource + JPA-Repositories, ohne Services, Web und Flyway. */
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @EntityScan("com.brunata.meteringdemo.domain")
+    @EnableJpaRepositories("com.brunata.meteringdemo.persistence")
+    static class Config {
+    }
+}
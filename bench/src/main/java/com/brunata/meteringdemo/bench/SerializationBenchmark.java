@@ -0,0 +1,112 @@
+package com.brunata.meteringdemo.bench;
+
+import com.brunata.meteringdemo.domain.Contract;
+import com.brunata.meteringdemo.domain.Invoice;
+import com.brunata.meteringdemo.domain.MeterReading;
+import com.brunata.meteringdemo.domain.Tariff;
+import com.brunata.meteringdemo.domain.TariffTier;
+import com.brunata.meteringdemo.domain.TariffTimeWindow;
+import com.brunata.meteringdemo.services.dto.ReadingDto;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON-(De-)Serialisierung der REST-Payloads mit einem ObjectMapper wie in der Anwendung
+ * (Spring-Boot-Defaults: Java-Time-Modul, ISO-Zeitstempel statt Epoch-Zahlen).
+ *
+ * - `writeInvoice`: Rechnung inkl. Vertrag und Tarifplan (Antwort von `POST /api/billing/run`)
+ * - `writeReadings`: 1 000 gespeicherte Messwerte (Antwort des Bulk-Ingests)
+ * - `readReadings`: 1 000 Messwerte als Request-Body des Bulk-Ingests
+ *
+ * Start: `java -jar bench/target/benchmarks.jar Serialization -prof gc`
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    private static final int READINGS = 1_000;
+
+    private ObjectMapper mapper;
+    private ObjectReader readingsReader;
+    private Invoice invoice;
+    private List<MeterReading> readings;
+    private byte[] readingsJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        mapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        readingsReader = mapper.readerFor(new TypeReference<List<ReadingDto>>() { });
+
+        var tariff = new Tariff();
+        tariff.setId(UUID.randomUUID());
+        tariff.setName("Strom Staffel");
+        tariff.setPricePerUnit(new BigDecimal("0.3000"));
+        tariff.setUnit("kWh");
+        tariff.setTimeZone("Europe/Copenhagen");
+        tariff.setTiers(List.of(new TariffTier(new BigDecimal("2000"), new BigDecimal("0.2500"))));
+        tariff.setTimeWindows(List.of(new TariffTimeWindow(17, 21, new BigDecimal("0.1500"))));
+        var contract = new Contract();
+        contract.setId(UUID.randomUUID());
+        contract.setCustomerName("Kunde 4711");
+        contract.setDeviceId(UUID.randomUUID());
+        contract.setStartDate(LocalDate.of(2024, 1, 1));
+        contract.setTariff(tariff);
+        invoice = new Invoice();
+        invoice.setId(UUID.randomUUID());
+        invoice.setContract(contract);
+        invoice.setPeriodFrom(LocalDate.of(2025, 3, 1));
+        invoice.setPeriodTo(LocalDate.of(2025, 3, 31));
+        invoice.setConsumption(new BigDecimal("4463.500000"));
+        invoice.setAmount(new BigDecimal("1115.88"));
+
+        readings = new ArrayList<>(READINGS);
+        var dtos = new ArrayList<ReadingDto>(READINGS);
+        var deviceId = UUID.randomUUID();
+        var t = Instant.parse("2025-01-01T00:00:00Z");
+        for (int i = 0; i < READINGS; i++) {
+            var mr = new MeterReading();
+            mr.setId(UUID.randomUUID());
+            mr.setDeviceId(deviceId);
+            mr.setReadingTime(t.plusSeconds(900L * i));
+            mr.setValue(BigDecimal.valueOf(1_000_000_000L + 250_000L * i, 6));
+            mr.setUnit("kWh");
+            mr.setSource("gateway");
+            readings.add(mr);
+            dtos.add(new ReadingDto(deviceId, mr.getReadingTime(), mr.getValue(), mr.getUnit(), mr.getSource()));
+        }
+        readingsJson = mapper.writeValueAsBytes(dtos);
+    }
+
+    @Benchmark
+    public byte[] writeInvoice() throws Exception {
+        return mapper.writeValueAsBytes(invoice);
+    }
+
+    @Benchmark
+    public byte[] writeReadings() throws Exception {
+        return mapper.writeValueAsBytes(readings);
+    }
+
+    @Benchmark
+    public List<ReadingDto> readReadings() throws Exception {
+        return readingsReader.readValue(readingsJson);
+    }
+}
@@ -0,0 +1,113 @@
+package com.brunata.meteringdemo.bench;
+
+import com.brunata.meteringdemo.services.tariff.CompiledTariff;
+import com.brunata.meteringdemo.services.tariff.ReadingSeries;
+import com.brunata.meteringdemo.services.tariff.TariffPlan;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bepreisung eines Jahres 15-Minuten-Messwerte (35 040 Intervalle) mit Staffeln und Zeitfenstern.
+ *
+ * - `compiled`: {@link CompiledTariff#evaluate} auf primitiven Arrays (allokationsfrei, vgl. `-prof gc`)
+ * - `bigDecimalBaseline`: direkte Auswertung des Plans je Intervall (BigDecimal, ZonedDateTime, Staffelsuche)
+ * - `compile`: einmalige Übersetzung des Plans (fällt je Laden in den Stammdaten-Cache an)
+ *
+ * Start: `mvn -Pbench -pl bench -am package -DskipTests && java -jar bench/target/benchmarks.jar TariffEngine -prof gc`
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TariffEngineBenchmark {
+
+    private static final int INTERVALS = 365 * 96;
+
+    private TariffPlan plan;
+    private CompiledTariff tariff;
+    private long[] epochSeconds;
+    private long[] values;
+    private BigDecimal[] decimalValues;
+
+    @Setup
+    public void setUp() {
+        // 0.30 bis 2 000 kWh, 0.25 bis 5 000 kWh, danach 0.20; Spitze 17-21 Uhr +0.15, Nacht 22-06 Uhr -0.08
+        plan = new TariffPlan(new BigDecimal("0.3000"), ZoneId.of("Europe/Copenhagen"),
+                List.of(new TariffPlan.Tier(new BigDecimal("2000"), new BigDecimal("0.2500")),
+                        new TariffPlan.Tier(new BigDecimal("5000"), new BigDecimal("0.2000"))),
+                List.of(new TariffPlan.TimeWindow(17, 21, new BigDecimal("0.1500")),
+                        new TariffPlan.TimeWindow(22, 6, new BigDecimal("-0.0800"))));
+        tariff = CompiledTariff.compile(plan);
+
+        var random = new SplittableRandom(42);
+        var series = new ReadingSeries(INTERVALS + 1);
+        epochSeconds = new long[INTERVALS + 1];
+        values = new long[INTERVALS + 1];
+        decimalValues = new BigDecimal[INTERVALS + 1];
+        long t = Instant.parse("2025-01-01T00:00:00Z").getEpochSecond();
+        long value = 0;
+        for (int i = 0; i <= INTERVALS; i++) {
+            epochSeconds[i] = t;
+            values[i] = value;
+            decimalValues[i] = BigDecimal.valueOf(value, CompiledTariff.QUANTITY_SCALE);
+            series.add(t, value);
+            t += 900;
+            value += random.nextLong(500_000); // bis 0.5 kWh je Viertelstunde
+        }
+        // beide Varianten müssen denselben Betrag liefern
+        if (tariff.amount(series).toBigDecimal().compareTo(bigDecimalBaseline()) != 0) {
+            throw new IllegalStateException("compiled and baseline amounts differ");
+        }
+    }
+
+    @Benchmark
+    public long compiled() {
+        return tariff.evaluate(epochSeconds, values, epochSeconds.length);
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalBaseline() {
+        var tiers = plan.tiers().stream().sorted(Comparator.comparing(TariffPlan.Tier::fromQuantity)).toList();
+        var cumulative = BigDecimal.ZERO;
+        var amount = BigDecimal.ZERO;
+        for (int i = 1; i < decimalValues.length; i++) {
+            var delta = decimalValues[i].subtract(decimalValues[i - 1]);
+            int hour = Instant.ofEpochSecond(epochSeconds[i - 1]).atZone(plan.zone()).getHour();
+            var surcharge = BigDecimal.ZERO;
+            for (var w : plan.timeWindows()) {
+                boolean inWindow = w.endHour() > w.startHour()
+                        ? hour >= w.startHour() && hour < w.endHour()
+                        : hour >= w.startHour() || hour < w.endHour();
+                if (inWindow) surcharge = surcharge.add(w.surcharge());
+            }
+            while (delta.signum() > 0) {
+                var price = plan.basePrice();
+                BigDecimal next = null;
+                for (var tier : tiers) {
+                    if (cumulative.compareTo(tier.fromQuantity()) >= 0) price = tier.pricePerUnit();
+                    else { next = tier.fromQuantity(); break; }
+                }
+                var part = next == null ? delta : delta.min(next.subtract(cumulative));
+                amount = amount.add(part.multiply(price.add(surcharge)));
+                cumulative = cumulative.add(part);
+                delta = delta.subtract(part);
+            }
+        }
+        return amount.setScale(CompiledTariff.AMOUNT_SCALE, RoundingMode.UNNECESSARY);
+    }
+
+    @Benchmark
+    public CompiledTariff compile() {
+        return CompiledTariff.compile(plan);
+    }
+}
@@ -0,0 +1,71 @@
+package com.brunata.meteringdemo.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BaselineComparisonTest {
+    /**
+     * Tests für den Baseline-Vergleich:
+     * - Schlüssel aus Benchmark + Parametern, Allokation aus `-prof gc`
+     * - Regression nur oberhalb Schwelle und Messfehler; Durchsatz-Modus invertiert
+     * - Allokationszuwachs über dem Rauschen ist eine Regression
+     */
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void parses_jmh_json_with_params_and_allocation() throws Exception {
+        var results = BaselineComparison.parse(mapper.readTree("""
+                [{"benchmark":"a.B.batch","mode":"avgt","params":{"size":"10","batchSize":"1000"},
+                  "primaryMetric":{"score":12.5,"scoreError":"NaN","scoreUnit":"us/op"},
+                  "secondaryMetrics":{"gc.alloc.rate.norm":{"score":2048.0,"scoreUnit":"B/op"}}}]
+                """));
+
+        assertThat(results).containsOnlyKeys("a.B.batch[batchSize=1000,size=10]");
+        var r = results.get("a.B.batch[batchSize=1000,size=10]");
+        assertThat(r.score()).isEqualTo(12.5);
+        assertThat(r.error()).isZero();
+        assertThat(r.allocBytes()).isEqualTo(2048.0);
+    }
+
+    @Test
+    void flags_regressions_beyond_threshold_and_error_only() {
+        var baseline = Map.of(
+                "avg", new BaselineComparison.Result("avgt", 100, 2, "us/op", Double.NaN),
+                "noisy", new BaselineComparison.Result("avgt", 100, 20, "us/op", Double.NaN),
+                "thrpt", new BaselineComparison.Result("thrpt", 1000, 10, "ops/s", Double.NaN));
+        var current = Map.of(
+                "avg", new BaselineComparison.Result("avgt", 120, 2, "us/op", Double.NaN),
+                "noisy", new BaselineComparison.Result("avgt", 120, 20, "us/op", Double.NaN),
+                "thrpt", new BaselineComparison.Result("thrpt", 1200, 10, "ops/s", Double.NaN));
+
+        var byKey = BaselineComparison.compare(baseline, current, 0.10).stream()
+                .collect(Collectors.toMap(BaselineComparison.Comparison::key, c -> c));
+
+        assertThat(byKey.get("avg").regression()).isTrue();
+        assertThat(byKey.get("noisy").regression()).isFalse();   // 20 < 20 + 20 Fehler
+        assertThat(byKey.get("thrpt").regression()).isFalse();   // mehr Durchsatz = besser
+        assertThat(byKey.get("thrpt").change()).isEqualTo(-0.2);
+    }
+
+    @Test
+    void flags_allocation_growth_above_noise() {
+        var baseline = Map.of(
+                "grew", new BaselineComparison.Result("avgt", 10, 0, "us/op", 0),
+                "noise", new BaselineComparison.Result("avgt", 10, 0, "us/op", 100));
+        var current = Map.of(
+                "grew", new BaselineComparison.Result("avgt", 10, 0, "us/op", 24_000),
+                "noise", new BaselineComparison.Result("avgt", 10, 0, "us/op", 150));
+
+        var byKey = BaselineComparison.compare(baseline, current, 0.10).stream()
+                .collect(Collectors.toMap(BaselineComparison.Comparison::key, c -> c));
+
+        assertThat(byKey.get("grew").regression()).isTrue();
+        assertThat(byKey.get("noise").regression()).isFalse();
+    }
+}
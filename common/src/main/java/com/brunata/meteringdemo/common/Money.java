@@ -0,0 +1,104 @@
+package com.brunata.meteringdemo.common;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Unveränderlicher Geldbetrag bzw. Preis als Festkomma-Wert: `unscaled * 10^-scale`.
+ *
+ * - Produkte aus {@link Quantity#times(Money)} behalten die volle Skala; gerundet wird einmal am Ende mit
+ *   {@link #rounded(int, RoundingMode)} (alle {@link RoundingMode}s, Ergebnis identisch zu `BigDecimal.setScale`)
+ * - Überläufe werfen {@link ArithmeticException} statt still abzuschneiden
+ * - Umwandlung in {@link BigDecimal} nur an den Rändern (JDBC/JPA, REST)
+ */
+public record Money(long unscaled, int scale) implements Comparable<Money> {
+
+    // 10^0 .. 10^18 (größte Zehnerpotenz in long)
+    private static final long[] POW10 = new long[19];
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) POW10[i] = POW10[i - 1] * 10;
+    }
+
+    public Money {
+        if (scale < 0) throw new IllegalArgumentException("scale must be >= 0: " + scale);
+    }
+
+    public static Money ofUnscaled(long unscaled, int scale) {
+        return new Money(unscaled, scale);
+    }
+
+    /**
+     * Übernimmt einen Dezimalwert exakt mit seiner Skala (negative Skala wird auf 0 gehoben).
+     *
+     * @throws ArithmeticException wenn der Wert nicht in den Wertebereich passt
+     */
+    public static Money of(BigDecimal value) {
+        var v = value.scale() < 0 ? value.setScale(0) : value;
+        return new Money(v.unscaledValue().longValueExact(), v.scale());
+    }
+
+    public Money plus(Money other) {
+        int s = Math.max(scale, other.scale);
+        return new Money(Math.addExact(rescaled(s), other.rescaled(s)), s);
+    }
+
+    /**
+     * Betrag mit `newScale` Nachkommastellen; Rundung wie {@link BigDecimal#setScale(int, RoundingMode)}.
+     *
+     * @throws ArithmeticException bei {@link RoundingMode#UNNECESSARY} und notwendiger Rundung oder Überlauf
+     */
+    public Money rounded(int newScale, RoundingMode mode) {
+        if (newScale >= scale) return new Money(rescaled(newScale), newScale);
+        int drop = scale - newScale;
+        if (drop >= POW10.length) return of(toBigDecimal().setScale(newScale, mode));
+
+        long divisor = POW10[drop];
+        long q = unscaled / divisor;
+        long r = unscaled % divisor;
+        if (r == 0) return new Money(q, newScale);
+        int sign = unscaled < 0 ? -1 : 1;
+        boolean awayFromZero = switch (mode) {
+            case UP -> true;
+            case DOWN -> false;
+            case CEILING -> sign > 0;
+            case FLOOR -> sign < 0;
+            case HALF_UP, HALF_DOWN, HALF_EVEN -> {
+                // |r| < divisor <= 10^18, 2 * |r| passt in long
+                int half = Long.compare(2 * Math.abs(r), divisor);
+                if (half != 0) yield half > 0;
+                yield mode == RoundingMode.HALF_UP || (mode == RoundingMode.HALF_EVEN && (q & 1) != 0);
+            }
+            case UNNECESSARY -> throw new ArithmeticException("Rounding necessary");
+        };
+        return new Money(awayFromZero ? q + sign : q, newScale);
+    }
+
+    public int signum() {
+        return Long.signum(unscaled);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        if (scale == other.scale) return Long.compare(unscaled, other.unscaled);
+        return toBigDecimal().compareTo(other.toBigDecimal());
+    }
+
+    /** Dezimalwert mit Skala {@link #scale()}. */
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(unscaled, scale);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+
+    private long rescaled(int newScale) {
+        int add = newScale - scale;
+        if (add == 0) return unscaled;
+        if (add >= POW10.length) throw new ArithmeticException("Money overflow");
+        return Math.multiplyExact(unscaled, POW10[add]);
+    }
+}
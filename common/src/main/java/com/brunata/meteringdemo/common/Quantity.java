@@ -0,0 +1,92 @@
+package com.brunata.meteringdemo.common;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Unveränderliche Menge (Zählerstand, Verbrauch) als Festkomma-Wert in Millionstel der Einheit.
+ *
+ * Entspricht der Spalte `NUMERIC(18,6)` (meter_reading.value, invoice.consumption): Arithmetik ohne
+ * Objekt-Allokation je Zwischenschritt und mit Überlaufprüfung ({@link ArithmeticException} wie `Math.*Exact`).
+ * Für Rechnungsbeträge {@link #times(Money, int, RoundingMode)} verwenden (BigDecimal-Rückfall statt Überlauf).
+ * Umwandlung in {@link BigDecimal} nur an den Rändern (JDBC/JPA, REST).
+ */
+public record Quantity(long micros) implements Comparable<Quantity> {
+
+    /** Nachkommastellen (wie `NUMERIC(18,6)`). */
+    public static final int SCALE = 6;
+
+    public static final Quantity ZERO = new Quantity(0);
+
+    public static Quantity ofMicros(long micros) {
+        return new Quantity(micros);
+    }
+
+    /**
+     * Übernimmt einen Dezimalwert; mehr als {@value #SCALE} Nachkommastellen werden wie beim Speichern
+     * in `NUMERIC(18,6)` kaufmännisch gerundet (HALF_UP).
+     *
+     * @throws ArithmeticException wenn der Wert nicht in den Wertebereich passt
+     */
+    public static Quantity of(BigDecimal value) {
+        return new Quantity(value.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    public Quantity plus(Quantity other) {
+        return new Quantity(Math.addExact(micros, other.micros));
+    }
+
+    public Quantity minus(Quantity other) {
+        return new Quantity(Math.subtractExact(micros, other.micros));
+    }
+
+    /** Betrag für diese Menge zum Preis je Einheit (exakt, Skala = {@value #SCALE} + Skala des Preises). */
+    public Money times(Money pricePerUnit) {
+        return Money.ofUnscaled(Math.multiplyExact(micros, pricePerUnit.unscaled()), SCALE + pricePerUnit.scale());
+    }
+
+    /**
+     * Betrag für diese Menge zum Preis je Einheit, gerundet auf `scale` Stellen; Ergebnis identisch zu
+     * `toBigDecimal().multiply(price).setScale(scale, mode)`.
+     *
+     * Exakt im ganzen Wertebereich `NUMERIC(18,6)` * `NUMERIC(12,4)`: passt das ungerundete Produkt nicht in
+     * `long` (ab ca. 9.2 * 10^8 Währungseinheiten bei Preis-Skala 4), wird es einmalig über BigDecimal gerechnet.
+     *
+     * @throws ArithmeticException wenn auch der gerundete Betrag nicht in `long` passt
+     */
+    public Money times(Money pricePerUnit, int scale, RoundingMode mode) {
+        long high = Math.multiplyHigh(micros, pricePerUnit.unscaled());
+        long low = micros * pricePerUnit.unscaled();
+        if (high == (low >> 63)) {
+            return Money.ofUnscaled(low, SCALE + pricePerUnit.scale()).rounded(scale, mode);
+        }
+        return Money.of(toBigDecimal().multiply(pricePerUnit.toBigDecimal()).setScale(scale, mode));
+    }
+
+    public int signum() {
+        return Long.signum(micros);
+    }
+
+    public boolean isNegative() {
+        return micros < 0;
+    }
+
+    public boolean isLessThan(Quantity other) {
+        return micros < other.micros;
+    }
+
+    @Override
+    public int compareTo(Quantity other) {
+        return Long.compare(micros, other.micros);
+    }
+
+    /** Dezimalwert mit Skala {@value #SCALE}. */
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(micros, SCALE);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -0,0 +1,109 @@
+package com.brunata.meteringdemo.common.series;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Binärformat für Messwert-Zeitreihen eines Geräts („BRS1“), spaltenweise in Blöcken.
+ *
+ * Datei: Magic `BRS1` | Version (1 Byte) | Device-ID (16 Byte) | Wert-Skala (1 Byte) | Blöcke… | Endmarke (varint 0)
+ * Block: varint Zeilen | varint Länge roh | varint Länge komprimiert | Deflate(Spalten)
+ * Spalten eines Blocks (alle Zahlen als varint, vorzeichenbehaftete per ZigZag):
+ * - Zeit: erster Wert absolut (Epoch-Mikrosekunden), danach Differenzen zum Vorgänger
+ * - Wert: unskalierter Wert (BigDecimal mit fester Skala) absolut, danach Differenzen
+ * - Einheit, Quelle: je ein Block-Wörterbuch (Anzahl + UTF-8-Strings), danach ein Index je Zeile
+ *
+ * Blöcke sind unabhängig dekodierbar (eigene Startwerte + Wörterbücher). Kumulative Zählerstände in festen
+ * Intervallen ergeben nahezu konstante Differenzen – genau das, was Deflate danach gut komprimiert.
+ */
+final class ReadingSeriesFormat {
+
+    static final byte[] MAGIC = {'B', 'R', 'S', '1'};
+    static final int VERSION = 1;
+    static final int DEFAULT_SCALE = 6;
+    static final int DEFAULT_BLOCK_ROWS = 8192;
+
+    private ReadingSeriesFormat() {}
+
+    static long zigZag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    static long unZigZag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    static long readVarLong(InputStream in) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) throw new EOFException("Truncated varint");
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return result;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /** Wachsender Byte-Puffer mit varint-Schreibern (kein Synchronisieren wie ByteArrayOutputStream). */
+    static final class Sink {
+        byte[] buf;
+        int size;
+
+        Sink(int capacity) {
+            buf = new byte[capacity];
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        void writeVarLong(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                buf[size++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[size++] = (byte) v;
+        }
+
+        void write(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, size, bytes.length);
+            size += bytes.length;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > buf.length) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + extra));
+        }
+    }
+
+    /** Lesecursor über einen dekomprimierten Block. */
+    static final class Source {
+        private final byte[] buf;
+        private int pos;
+
+        Source(byte[] buf) {
+            this.buf = buf;
+        }
+
+        long readVarLong() throws IOException {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (pos >= buf.length) throw new EOFException("Truncated block");
+                int b = buf[pos++];
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return result;
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        byte[] read(int len) throws IOException {
+            if (pos + len > buf.length) throw new EOFException("Truncated block");
+            var out = Arrays.copyOfRange(buf, pos, pos + len);
+            pos += len;
+            return out;
+        }
+    }
+}
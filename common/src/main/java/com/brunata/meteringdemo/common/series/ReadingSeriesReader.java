@@ -0,0 +1,133 @@
+package com.brunata.meteringdemo.common.series;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static com.brunata.meteringdemo.common.series.ReadingSeriesFormat.*;
+
+/**
+ * Liest eine Zeitreihe im Format {@link ReadingSeriesFormat} (BRS1), z. B. aus `GET /api/readings/export`.
+ * Es wird immer nur ein Block dekodiert; {@link #next()} liefert die Zeilen der Reihe nach und `null` am Ende.
+ *
+ * <pre>{@code
+ * var reader = new ReadingSeriesReader(in);
+ * for (var row = reader.next(); row != null; row = reader.next()) { ... }
+ * }</pre>
+ */
+public final class ReadingSeriesReader {
+
+    private final InputStream in;
+    private final UUID deviceId;
+    private final int scale;
+    private final Inflater inflater = new Inflater();
+
+    private long[] times = new long[0];
+    private long[] values = new long[0];
+    private String[] units = new String[0];
+    private String[] sources = new String[0];
+    private int rows;
+    private int pos;
+    private boolean finished;
+
+    public ReadingSeriesReader(InputStream in) throws IOException {
+        this.in = in;
+        var magic = in.readNBytes(MAGIC.length);
+        if (!Arrays.equals(magic, MAGIC)) throw new IOException("Not a BRS1 reading series");
+        int version = in.read();
+        if (version != VERSION) throw new IOException("Unsupported BRS version: " + version);
+        var id = in.readNBytes(16);
+        if (id.length != 16) throw new EOFException("Truncated header");
+        long msb = 0, lsb = 0;
+        for (int i = 0; i < 8; i++) {
+            msb = (msb << 8) | (id[i] & 0xFF);
+            lsb = (lsb << 8) | (id[8 + i] & 0xFF);
+        }
+        this.deviceId = new UUID(msb, lsb);
+        this.scale = in.read();
+        if (scale < 0) throw new EOFException("Truncated header");
+    }
+
+    public UUID deviceId() {
+        return deviceId;
+    }
+
+    /** Nächste Messung oder `null`, wenn die Endmarke erreicht ist. */
+    public ReadingSeriesRow next() throws IOException {
+        if (pos == rows && !readBlock()) return null;
+        long micros = times[pos];
+        var row = new ReadingSeriesRow(
+                Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000L),
+                BigDecimal.valueOf(values[pos], scale),
+                units[pos],
+                sources[pos]);
+        pos++;
+        return row;
+    }
+
+    private boolean readBlock() throws IOException {
+        if (finished) return false;
+        int count = (int) readVarLong(in);
+        if (count == 0) {
+            finished = true;
+            inflater.end();
+            return false;
+        }
+        int rawLen = (int) readVarLong(in);
+        int compressedLen = (int) readVarLong(in);
+        var compressed = in.readNBytes(compressedLen);
+        if (compressed.length != compressedLen) throw new EOFException("Truncated block");
+
+        var raw = new byte[rawLen];
+        inflater.reset();
+        inflater.setInput(compressed);
+        try {
+            int n = inflater.inflate(raw);
+            if (n != rawLen || !inflater.finished()) throw new IOException("Corrupt block");
+        } catch (DataFormatException ex) {
+            throw new IOException("Corrupt block", ex);
+        }
+
+        if (times.length < count) {
+            times = new long[count];
+            values = new long[count];
+            units = new String[count];
+            sources = new String[count];
+        }
+        var src = new Source(raw);
+        decodeDeltas(src, times, count);
+        decodeDeltas(src, values, count);
+        decodeDictionary(src, units, count);
+        decodeDictionary(src, sources, count);
+        rows = count;
+        pos = 0;
+        return true;
+    }
+
+    private static void decodeDeltas(Source src, long[] column, int count) throws IOException {
+        long prev = 0;
+        for (int i = 0; i < count; i++) {
+            prev += unZigZag(src.readVarLong());
+            column[i] = prev;
+        }
+    }
+
+    private static void decodeDictionary(Source src, String[] column, int count) throws IOException {
+        var dict = new String[(int) src.readVarLong()];
+        for (int i = 0; i < dict.length; i++) {
+            dict[i] = new String(src.read((int) src.readVarLong()), StandardCharsets.UTF_8);
+        }
+        for (int i = 0; i < count; i++) {
+            int code = (int) src.readVarLong();
+            if (code >= dict.length) throw new IOException("Corrupt dictionary code");
+            column[i] = dict[code];
+        }
+    }
+}
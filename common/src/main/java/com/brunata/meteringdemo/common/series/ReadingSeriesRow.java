@@ -0,0 +1,7 @@
+package com.brunata.meteringdemo.common.series;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/** Eine dekodierte Messung einer BRS1-Zeitreihe. */
+public record ReadingSeriesRow(Instant readingTime, BigDecimal value, String unit, String source) {}
@@ -0,0 +1,176 @@
+package com.brunata.meteringdemo.common.series;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.Deflater;
+
+import static com.brunata.meteringdemo.common.series.ReadingSeriesFormat.*;
+
+/**
+ * Schreibt eine Messwert-Zeitreihe im Format {@link ReadingSeriesFormat} (BRS1).
+ * Zeilen werden blockweise gepuffert (Standard 8192) und als komprimierter Spaltenblock geschrieben;
+ * Speicherbedarf ist damit durch die Blockgröße begrenzt. {@link #finish()} schreibt den letzten Block
+ * und die Endmarke; {@link #close()} gibt nur Ressourcen frei. Ohne `finish()` (z. B. nach einem Fehler der Quelle)
+ * fehlt die Endmarke, der Leser erkennt die Reihe als abgeschnitten. Der Ziel-Stream wird nie geschlossen.
+ */
+public final class ReadingSeriesWriter implements Closeable {
+
+    private final OutputStream out;
+    private final int blockRows;
+    private final int scale;
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+
+    private final long[] times;
+    private final long[] values;
+    private final int[] units;
+    private final int[] sources;
+    private final Dictionary unitDict = new Dictionary();
+    private final Dictionary sourceDict = new Dictionary();
+    private int rows;
+    private long lastTime = Long.MIN_VALUE;
+
+    private final Sink raw = new Sink(64 * 1024);
+    private final Sink header = new Sink(32);
+    private byte[] compressed = new byte[64 * 1024];
+    private boolean finished;
+    private boolean closed;
+
+    public ReadingSeriesWriter(OutputStream out, UUID deviceId) throws IOException {
+        this(out, deviceId, DEFAULT_BLOCK_ROWS, DEFAULT_SCALE);
+    }
+
+    public ReadingSeriesWriter(OutputStream out, UUID deviceId, int blockRows, int scale) throws IOException {
+        if (blockRows < 1) throw new IllegalArgumentException("blockRows must be > 0");
+        this.out = out;
+        this.blockRows = blockRows;
+        this.scale = scale;
+        this.times = new long[blockRows];
+        this.values = new long[blockRows];
+        this.units = new int[blockRows];
+        this.sources = new int[blockRows];
+
+        out.write(MAGIC);
+        out.write(VERSION);
+        var id = new byte[16];
+        long msb = deviceId.getMostSignificantBits(), lsb = deviceId.getLeastSignificantBits();
+        for (int i = 0; i < 8; i++) {
+            id[i] = (byte) (msb >>> (56 - 8 * i));
+            id[8 + i] = (byte) (lsb >>> (56 - 8 * i));
+        }
+        out.write(id);
+        out.write(scale);
+    }
+
+    /**
+     * Hängt eine Messung an. Zeiten müssen aufsteigend sein; Werte dürfen höchstens `scale` Nachkommastellen
+     * haben und müssen unskaliert in einen long passen (NUMERIC(18,6) ist damit abgedeckt).
+     */
+    public void write(Instant readingTime, BigDecimal value, String unit, String source) throws IOException {
+        if (finished || closed) throw new IllegalStateException("Series already finished");
+        long micros = Math.addExact(Math.multiplyExact(readingTime.getEpochSecond(), 1_000_000L),
+                readingTime.getNano() / 1_000);
+        if (micros < lastTime) throw new IllegalArgumentException("Reading times must be ascending");
+        lastTime = micros;
+        times[rows] = micros;
+        values[rows] = value.setScale(scale, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        units[rows] = unitDict.code(unit);
+        sources[rows] = sourceDict.code(source);
+        if (++rows == blockRows) flushBlock();
+    }
+
+    /** Schreibt den letzten Block und die Endmarke; danach sind keine weiteren Messungen möglich. */
+    public void finish() throws IOException {
+        if (finished) return;
+        finished = true;
+        flushBlock();
+        header.reset();
+        header.writeVarLong(0);
+        out.write(header.buf, 0, header.size);
+        out.flush();
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        deflater.end();
+    }
+
+    private void flushBlock() throws IOException {
+        if (rows == 0) return;
+        raw.reset();
+        encodeDeltas(times);
+        encodeDeltas(values);
+        unitDict.encode(raw, units, rows);
+        sourceDict.encode(raw, sources, rows);
+
+        deflater.reset();
+        deflater.setInput(raw.buf, 0, raw.size);
+        deflater.finish();
+        int len = 0;
+        while (!deflater.finished()) {
+            if (len == compressed.length) compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            len += deflater.deflate(compressed, len, compressed.length - len);
+        }
+
+        header.reset();
+        header.writeVarLong(rows);
+        header.writeVarLong(raw.size);
+        header.writeVarLong(len);
+        out.write(header.buf, 0, header.size);
+        out.write(compressed, 0, len);
+        rows = 0;
+        unitDict.clear();
+        sourceDict.clear();
+    }
+
+    private void encodeDeltas(long[] column) {
+        long prev = 0;
+        for (int i = 0; i < rows; i++) {
+            raw.writeVarLong(zigZag(column[i] - prev));
+            prev = column[i];
+        }
+    }
+
+    /** Block-lokales Wörterbuch für wiederkehrende Strings (Einheit, Quelle). */
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> entries = new ArrayList<>();
+
+        int code(String s) {
+            var c = codes.get(s);
+            if (c == null) {
+                c = entries.size();
+                codes.put(s, c);
+                entries.add(s);
+            }
+            return c;
+        }
+
+        void encode(Sink sink, int[] column, int rows) {
+            sink.writeVarLong(entries.size());
+            for (var e : entries) {
+                var bytes = e.getBytes(StandardCharsets.UTF_8);
+                sink.writeVarLong(bytes.length);
+                sink.write(bytes);
+            }
+            for (int i = 0; i < rows; i++) sink.writeVarLong(column[i]);
+        }
+
+        void clear() {
+            codes.clear();
+            entries.clear();
+        }
+    }
+}
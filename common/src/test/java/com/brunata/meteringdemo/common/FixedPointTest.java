@@ -0,0 +1,111 @@
+package com.brunata.meteringdemo.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FixedPointTest {
+    /**
+     * Tests für Quantity/Money:
+     * - Verbrauch * Preis mit anschließender Rundung liefert für alle RoundingModes exakt dasselbe Ergebnis
+     *   (Wert und Skala) wie die bisherige BigDecimal-Rechnung `consumption.multiply(price).setScale(scale, mode)`,
+     *   im ganzen Wertebereich NUMERIC(18,6) * NUMERIC(12,4) (Produkt über long -> BigDecimal-Rückfall)
+     * - Differenzen/Vergleiche wie BigDecimal; Übernahme aus NUMERIC(18,6) ist verlustfrei
+     * - Überlauf wirft ArithmeticException statt still abzuschneiden
+     */
+
+    // 10^0 .. 10^18
+    private static final long[] POW10 = new long[19];
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) POW10[i] = POW10[i - 1] * 10;
+    }
+
+    private static final RoundingMode[] MODES = {RoundingMode.UP, RoundingMode.DOWN, RoundingMode.CEILING,
+            RoundingMode.FLOOR, RoundingMode.HALF_UP, RoundingMode.HALF_DOWN, RoundingMode.HALF_EVEN};
+
+    @Test
+    void billing_arithmetic_matches_big_decimal_exactly() {
+        var random = new SplittableRandom(20251018);
+        int overflowing = 0;
+        for (int i = 0; i < 200_000; i++) {
+            // Zählerstände im ganzen Bereich von NUMERIC(18,6), Größenordnung gleichverteilt
+            var first = BigDecimal.valueOf(random.nextLong(POW10[random.nextInt(1, 19)]), 6);
+            var last = BigDecimal.valueOf(random.nextLong(POW10[random.nextInt(1, 19)]), 6);
+            // Preise wie NUMERIC(12,4): 0..4 Nachkommastellen, |Preis| < 10^8, teils negativ
+            int priceScale = random.nextInt(5);
+            long priceBound = POW10[random.nextInt(1, 9 + priceScale)];
+            var price = BigDecimal.valueOf(random.nextLong(-priceBound / 100, priceBound), priceScale);
+            int scale = random.nextInt(5);
+            var mode = MODES[random.nextInt(MODES.length)];
+
+            var expectedConsumption = last.subtract(first);
+            var consumption = Quantity.of(last).minus(Quantity.of(first));
+            assertThat(consumption.toBigDecimal()).isEqualTo(expectedConsumption);
+            assertThat(consumption.isNegative()).isEqualTo(expectedConsumption.signum() < 0);
+            assertThat(Quantity.of(first).compareTo(Quantity.of(last))).isEqualTo(first.compareTo(last));
+
+            var product = expectedConsumption.multiply(price);
+            if (product.unscaledValue().bitLength() > 63) overflowing++;
+            var expected = product.setScale(scale, mode);
+            if (expected.unscaledValue().bitLength() > 63) {
+                // gerundeter Betrag selbst nicht als long darstellbar (weit jenseits von NUMERIC(18,2))
+                assertThatThrownBy(() -> consumption.times(Money.of(price), scale, mode))
+                        .isInstanceOf(ArithmeticException.class);
+            } else {
+                var actual = consumption.times(Money.of(price), scale, mode).toBigDecimal();
+                assertThat(actual).as("%s * %s -> %d %s", consumption, price, scale, mode).isEqualTo(expected);
+            }
+        }
+        // beide Pfade (long und BigDecimal-Rückfall) sind ausreichend abgedeckt
+        assertThat(overflowing).isBetween(20_000, 180_000);
+    }
+
+    @Test
+    void extreme_column_values_fall_back_to_big_decimal() {
+        var maxReading = Quantity.of(new BigDecimal("999999999999.999999"));
+        var maxPrice = Money.of(new BigDecimal("99999999.9999"));
+        var price = Money.of(new BigDecimal("9.9999"));
+
+        // Produkt mit Skala 10 passt nicht in long, der gerundete Betrag schon
+        assertThat(maxReading.times(price, 2, RoundingMode.HALF_UP).toBigDecimal())
+                .isEqualTo(new BigDecimal("9999900000000.00"));
+        assertThat(maxReading.minus(maxReading).times(maxPrice, 2, RoundingMode.HALF_UP).toBigDecimal())
+                .isEqualTo(new BigDecimal("0.00"));
+        assertThatThrownBy(() -> maxReading.times(price)).isInstanceOf(ArithmeticException.class);
+        // ~10^20 Währungseinheiten: auch gerundet nicht darstellbar
+        assertThatThrownBy(() -> maxReading.times(maxPrice, 2, RoundingMode.HALF_UP)).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void rounds_ties_and_signs_like_big_decimal() {
+        for (var value : new String[]{"2.5", "-2.5", "3.5", "-3.5", "2.4999", "-2.5001", "0.0005", "-0.0005", "7"}) {
+            var decimal = new BigDecimal(value);
+            for (var mode : MODES) {
+                assertThat(Money.of(decimal).rounded(0, mode).toBigDecimal())
+                        .as("%s %s", value, mode).isEqualTo(decimal.setScale(0, mode));
+                assertThat(Money.of(decimal).rounded(3, mode).toBigDecimal())
+                        .as("%s %s", value, mode).isEqualTo(decimal.setScale(3, mode));
+            }
+        }
+        assertThatThrownBy(() -> Money.of(new BigDecimal("1.25")).rounded(1, RoundingMode.UNNECESSARY))
+                .isInstanceOf(ArithmeticException.class);
+        assertThat(Money.of(new BigDecimal("1.20")).rounded(1, RoundingMode.UNNECESSARY).toBigDecimal())
+                .isEqualTo(new BigDecimal("1.2"));
+    }
+
+    @Test
+    void overflow_throws_instead_of_wrapping() {
+        var huge = Quantity.ofMicros(Long.MAX_VALUE - 1);
+        assertThatThrownBy(() -> huge.plus(Quantity.ofMicros(2))).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> huge.times(Money.of(new BigDecimal("0.2500")))).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Quantity.of(new BigDecimal("1E+14"))).isInstanceOf(ArithmeticException.class);
+        assertThat(Quantity.of(new BigDecimal("1.0000005")).toBigDecimal()).isEqualTo(new BigDecimal("1.000001"));
+    }
+}
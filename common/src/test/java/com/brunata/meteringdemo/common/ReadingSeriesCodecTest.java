@@ -0,0 +1,104 @@
+package com.brunata.meteringdemo.common;
+
+import com.brunata.meteringdemo.common.series.ReadingSeriesReader;
+import com.brunata.meteringdemo.common.series.ReadingSeriesRow;
+import com.brunata.meteringdemo.common.series.ReadingSeriesWriter;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReadingSeriesCodecTest {
+    /**
+     * Tests für das binäre Zeitreihenformat (BRS1):
+     * - Roundtrip über mehrere Blöcke inkl. Mikrosekunden, Wörterbuchwechsel und leerer Reihe
+     * - kompakte Darstellung bei regelmäßigen Zählerständen (wenige Bytes je Messung)
+     * - absteigende Zeiten bzw. fremde Daten werden abgelehnt
+     * - ohne `finish()` (abgebrochener Export) fehlt die Endmarke, der Leser meldet die Reihe als abgeschnitten
+     */
+
+    private final UUID deviceId = UUID.randomUUID();
+    private final Instant t0 = Instant.parse("2025-01-01T00:00:00Z");
+
+    @Test
+    void roundtrips_rows_across_blocks() throws IOException {
+        List<ReadingSeriesRow> rows = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            rows.add(new ReadingSeriesRow(t0.plusSeconds(900L * i).plusNanos(i % 7 * 1_000L),
+                    new BigDecimal("1000.000000").add(BigDecimal.valueOf(i, 3)),
+                    i < 1200 ? "kWh" : "m3", i % 3 == 0 ? "gateway" : "manual"));
+        }
+
+        var bytes = encode(rows, 1000);
+        var reader = new ReadingSeriesReader(new ByteArrayInputStream(bytes));
+
+        assertThat(reader.deviceId()).isEqualTo(deviceId);
+        assertThat(readAll(reader)).containsExactlyElementsOf(rows);
+    }
+
+    @Test
+    void empty_series_has_header_and_end_marker_only() throws IOException {
+        var reader = new ReadingSeriesReader(new ByteArrayInputStream(encode(List.of(), 10)));
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void regular_meter_series_needs_only_a_few_bytes_per_row() throws IOException {
+        List<ReadingSeriesRow> rows = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            rows.add(new ReadingSeriesRow(t0.plusSeconds(900L * i), BigDecimal.valueOf(500_000L + 250L * i, 3),
+                    "kWh", "gateway"));
+        }
+        var bytes = encode(rows, 8192);
+        assertThat(bytes.length).isLessThan(rows.size() / 4);
+    }
+
+    @Test
+    void rejects_descending_times_and_foreign_data() throws IOException {
+        try (var writer = new ReadingSeriesWriter(new ByteArrayOutputStream(), deviceId)) {
+            writer.write(t0, BigDecimal.ONE, "kWh", "gateway");
+            assertThatThrownBy(() -> writer.write(t0.minusSeconds(1), BigDecimal.ONE, "kWh", "gateway"))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+        assertThatThrownBy(() -> new ReadingSeriesReader(new ByteArrayInputStream("[{\"id\":1}]".getBytes())))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void series_without_finish_is_detected_as_truncated() throws IOException {
+        var out = new ByteArrayOutputStream();
+        try (var writer = new ReadingSeriesWriter(out, deviceId, 2, 6)) {
+            for (int i = 0; i < 3; i++) writer.write(t0.plusSeconds(i), BigDecimal.ONE, "kWh", "gateway");
+            // Quelle bricht ab: close() ohne finish()
+        }
+        var reader = new ReadingSeriesReader(new ByteArrayInputStream(out.toByteArray()));
+        assertThat(reader.next()).isNotNull();
+        assertThat(reader.next()).isNotNull();
+        assertThatThrownBy(reader::next).isInstanceOf(EOFException.class);
+    }
+
+    private byte[] encode(List<ReadingSeriesRow> rows, int blockRows) throws IOException {
+        var out = new ByteArrayOutputStream();
+        try (var writer = new ReadingSeriesWriter(out, deviceId, blockRows, 6)) {
+            for (var r : rows) writer.write(r.readingTime(), r.value(), r.unit(), r.source());
+            writer.finish();
+        }
+        return out.toByteArray();
+    }
+
+    private static List<ReadingSeriesRow> readAll(ReadingSeriesReader reader) throws IOException {
+        List<ReadingSeriesRow> out = new ArrayList<>();
+        for (var row = reader.next(); row != null; row = reader.next()) out.add(row);
+        return out;
+    }
+}
@@ -0,0 +1,60 @@
+package com.brunata.meteringdemo.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UuidV7Test {
+    /**
+     * Tests für den UUIDv7-Generator:
+     * - Version/Variante und Zeitstempel gemäß RFC 9562
+     * - strikt aufsteigend (auch viele UUIDs innerhalb derselben Millisekunde) und eindeutig unter Last
+     */
+
+    @Test
+    void sets_version_variant_and_timestamp() {
+        long before = System.currentTimeMillis();
+        var uuid = UuidV7.next();
+        long after = System.currentTimeMillis();
+
+        assertThat(uuid.version()).isEqualTo(7);
+        assertThat(uuid.variant()).isEqualTo(2);
+        assertThat(UuidV7.timestamp(uuid)).isBetween(Instant.ofEpochMilli(before), Instant.ofEpochMilli(after + 1));
+    }
+
+    @Test
+    void is_strictly_increasing_within_a_millisecond() {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) ids.add(UuidV7.next());
+
+        // Sortierung über die Bytes (Index-Reihenfolge in PostgreSQL): msb/lsb vorzeichenlos vergleichen
+        for (int i = 1; i < ids.size(); i++) {
+            assertThat(compareUnsigned(ids.get(i - 1), ids.get(i))).isNegative();
+        }
+    }
+
+    @Test
+    void is_unique_across_threads() throws Exception {
+        var all = new ConcurrentLinkedQueue<UUID>();
+        try (var pool = Executors.newFixedThreadPool(8)) {
+            for (int t = 0; t < 8; t++) {
+                pool.submit(() -> { for (int i = 0; i < 20_000; i++) all.add(UuidV7.next()); });
+            }
+        }
+        assertThat(all).hasSize(160_000).doesNotHaveDuplicates();
+        assertThat(Collections.max(all, UuidV7Test::compareUnsigned).version()).isEqualTo(7);
+    }
+
+    private static int compareUnsigned(UUID a, UUID b) {
+        int c = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return c != 0 ? c : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+}
@@ -1,5 +1,6 @@
 package com.brunata.meteringdemo.domain;
 
+import com.brunata.meteringdemo.common.UuidV7;
 import jakarta.persistence.*;
 import java.time.LocalDate;
 import java.util.UUID;
@@ -34,7 +35,7 @@ public class Contract {
     @JoinColumn(name = "tariff_id", nullable = false)
     private Tariff tariff;
 
-    @PrePersist public void pre() { if (id == null) id = UUID.randomUUID(); }
+    @PrePersist public void pre() { if (id == null) id = UuidV7.next(); }
 
     public UUID getId() { return id; }
     public void setId(UUID id) { this.id = id; }
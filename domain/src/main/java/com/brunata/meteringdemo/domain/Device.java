@@ -1,5 +1,6 @@
 package com.brunata.meteringdemo.domain;
 
+import com.brunata.meteringdemo.common.UuidV7;
 import jakarta.persistence.*;
 import java.time.Instant;
 import java.util.UUID;
@@ -24,7 +25,7 @@ public class Device {
     private Instant lastSeenAt;
     private String status = "ACTIVE";
 
-    @PrePersist public void pre() { if (id == null) id = UUID.randomUUID(); }
+    @PrePersist public void pre() { if (id == null) id = UuidV7.next(); }
 
     public UUID getId() { return id; }
     public void setId(UUID id) { this.id = id; }
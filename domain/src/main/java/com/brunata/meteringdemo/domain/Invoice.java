@@ -1,5 +1,6 @@
 package com.brunata.meteringdemo.domain;
 
+import com.brunata.meteringdemo.common.UuidV7;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.time.Instant;
@@ -44,7 +45,7 @@ public class Invoice {
     private Instant createdAt = Instant.now();
 
     // ID-Generierung beim Persistieren
-    @PrePersist public void pre() { if (id == null) id = UUID.randomUUID(); }
+    @PrePersist public void pre() { if (id == null) id = UuidV7.next(); }
 
     public UUID getId() { return id; }
     public void setId(UUID id) { this.id = id; }
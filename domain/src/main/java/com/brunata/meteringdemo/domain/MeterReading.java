@@ -1,5 +1,6 @@
 package com.brunata.meteringdemo.domain;
 
+import com.brunata.meteringdemo.common.UuidV7;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.time.Instant;
@@ -28,7 +29,7 @@ public class MeterReading {
     @Column(nullable = false)
     private String source;
 
-    @PrePersist public void pre() { if (id == null) id = UUID.randomUUID(); }
+    @PrePersist public void pre() { if (id == null) id = UuidV7.next(); }
 
     public UUID getId() { return id; }
     public void setId(UUID id) { this.id = id; }
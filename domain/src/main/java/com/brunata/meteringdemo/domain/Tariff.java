@@ -1,11 +1,14 @@
 package com.brunata.meteringdemo.domain;
 
+import com.brunata.meteringdemo.common.UuidV7;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 /**
- * Tarif mit Preis je Einheit (z. B. kWh, m³).
+ * Tarif mit Preis je Einheit (z. B. kWh, m³), optional mit Staffeln und Zeitfenstern (Tarifplan).
  * Persistiert über JPA und von Verträgen referenziert.
  */
 @Entity
@@ -25,8 +28,24 @@ public class Tariff {
     @Column(nullable = false)
     private String unit;
 
+    // Zeitzone für die Stunden der Zeitfenster (z. B. "Europe/Copenhagen")
+    @Column(name = "time_zone", nullable = false)
+    private String timeZone = "UTC";
+
+    // Staffeln nach kumuliertem Verbrauch; leer = Einheitspreis
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "tariff_tier", joinColumns = @JoinColumn(name = "tariff_id"))
+    @OrderColumn(name = "position")
+    private List<TariffTier> tiers = new ArrayList<>();
+
+    // Zeitfenster mit Auf-/Abschlag je Stunde; leer = keine Tageszeitabhängigkeit
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "tariff_time_window", joinColumns = @JoinColumn(name = "tariff_id"))
+    @OrderColumn(name = "position")
+    private List<TariffTimeWindow> timeWindows = new ArrayList<>();
+
     // Generiert eine UUID, falls keine gesetzt ist (beim Insert)
-    @PrePersist public void pre() { if (id == null) id = UUID.randomUUID(); }
+    @PrePersist public void pre() { if (id == null) id = UuidV7.next(); }
 
     public UUID getId() { return id; }
     public void setId(UUID id) { this.id = id; }
@@ -36,4 +55,10 @@ public class Tariff {
     public void setPricePerUnit(BigDecimal pricePerUnit) { this.pricePerUnit = pricePerUnit; }
     public String getUnit() { return unit; }
     public void setUnit(String unit) { this.unit = unit; }
+    public String getTimeZone() { return timeZone; }
+    public void setTimeZone(String timeZone) { this.timeZone = timeZone; }
+    public List<TariffTier> getTiers() { return tiers; }
+    public void setTiers(List<TariffTier> tiers) { this.tiers = tiers; }
+    public List<TariffTimeWindow> getTimeWindows() { return timeWindows; }
+    public void setTimeWindows(List<TariffTimeWindow> timeWindows) { this.timeWindows = timeWindows; }
 }
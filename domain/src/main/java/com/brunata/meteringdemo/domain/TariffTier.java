@@ -0,0 +1,29 @@
+package com.brunata.meteringdemo.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import java.math.BigDecimal;
+
+/**
+ * Staffel eines Tarifs: ab `fromQuantity` (kumulierter Verbrauch im Abrechnungszeitraum) gilt `pricePerUnit`.
+ */
+@Embeddable
+public class TariffTier {
+    @Column(name = "from_quantity", nullable = false, precision = 18, scale = 6)
+    private BigDecimal fromQuantity;
+
+    @Column(name = "price_per_unit", nullable = false, precision = 12, scale = 4)
+    private BigDecimal pricePerUnit;
+
+    public TariffTier() {}
+
+    public TariffTier(BigDecimal fromQuantity, BigDecimal pricePerUnit) {
+        this.fromQuantity = fromQuantity;
+        this.pricePerUnit = pricePerUnit;
+    }
+
+    public BigDecimal getFromQuantity() { return fromQuantity; }
+    public void setFromQuantity(BigDecimal fromQuantity) { this.fromQuantity = fromQuantity; }
+    public BigDecimal getPricePerUnit() { return pricePerUnit; }
+    public void setPricePerUnit(BigDecimal pricePerUnit) { this.pricePerUnit = pricePerUnit; }
+}
@@ -0,0 +1,36 @@
+package com.brunata.meteringdemo.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import java.math.BigDecimal;
+
+/**
+ * Zeitfenster eines Tarifs (Time-of-Use): Stunden [startHour, endHour) in der Tarif-Zeitzone,
+ * `endHour <= startHour` reicht über Mitternacht. `surcharge` wird auf den Staffelpreis addiert (negativ = Rabatt).
+ */
+@Embeddable
+public class TariffTimeWindow {
+    @Column(name = "start_hour", nullable = false)
+    private int startHour;
+
+    @Column(name = "end_hour", nullable = false)
+    private int endHour;
+
+    @Column(nullable = false, precision = 12, scale = 4)
+    private BigDecimal surcharge;
+
+    public TariffTimeWindow() {}
+
+    public TariffTimeWindow(int startHour, int endHour, BigDecimal surcharge) {
+        this.startHour = startHour;
+        this.endHour = endHour;
+        this.surcharge = surcharge;
+    }
+
+    public int getStartHour() { return startHour; }
+    public void setStartHour(int startHour) { this.startHour = startHour; }
+    public int getEndHour() { return endHour; }
+    public void setEndHour(int endHour) { this.endHour = endHour; }
+    public BigDecimal getSurcharge() { return surcharge; }
+    public void setSurcharge(BigDecimal surcharge) { this.surcharge = surcharge; }
+}
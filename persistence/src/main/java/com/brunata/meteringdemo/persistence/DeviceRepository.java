@@ -1,7 +1,9 @@
 package com.brunata.meteringdemo.persistence;
 
 import com.brunata.meteringdemo.domain.Device;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.time.Instant;
 import java.util.List;
@@ -22,4 +24,15 @@ public interface DeviceRepository extends JpaRepository<Device, UUID> {
      * Ermöglicht effiziente Auswahl für Integrationsjobs (mit Index auf last_seen_at).
      */
     List<Device> findByLastSeenAtIsNullOrLastSeenAtBefore(Instant cutoff);
+
+    /**
+     * Keyset-Seite der Offline-Geräte (nie gesehen oder vor dem Cutoff) mit `id > afterId`, aufsteigend nach `id`;
+     * die Seitengröße kommt aus `page` (nur `pageSize` wird verwendet, kein Offset).
+     */
+    @Query("""
+            select d from Device d
+            where d.id > :afterId and (d.lastSeenAt is null or d.lastSeenAt < :cutoff)
+            order by d.id""")
+    List<Device> findOfflineAfter(UUID afterId, Instant cutoff, Pageable page);
+
 }
@@ -6,6 +6,8 @@ import org.springframework.data.jpa.repository.Query;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -21,13 +23,15 @@ public interface MeterReadingRepository extends JpaRepository<MeterReading, UUID
     Optional<MeterReading> findTop1ByDeviceIdOrderByReadingTimeDesc(UUID deviceId);
 
     /**
-     * Erster Messwert im Zeitraum [from, to) nach Zeit aufsteigend.
+     * Erster Messwert im Zeitraum [from, to) nach Zeit aufsteigend. Beide Grenzen sind Pflicht, damit
+     * PostgreSQL den Seek auf die betroffenen Monatspartitionen beschränkt (auch als Stützstelle ab einer
+     * Abrechnungsgrenze).
      */
     Optional<MeterReading> findFirstByDeviceIdAndReadingTimeGreaterThanEqualAndReadingTimeLessThanOrderByReadingTimeAsc(
             UUID deviceId, Instant from, Instant to);
 
     /**
-     * Letzter Messwert im Zeitraum [from, to) nach Zeit absteigend.
+     * Letzter Messwert im Zeitraum [from, to) nach Zeit absteigend (auch als Stützstelle vor einer Abrechnungsgrenze).
      */
     Optional<MeterReading> findFirstByDeviceIdAndReadingTimeGreaterThanEqualAndReadingTimeLessThanOrderByReadingTimeDesc(
             UUID deviceId, Instant from, Instant to);
@@ -45,7 +49,31 @@ public interface MeterReadingRepository extends JpaRepository<MeterReading, UUID
     Optional<BigDecimal> computeConsumption(UUID deviceId, Instant from, Instant to);
 
     /**
-     * Alle Messwerte eines Geräts (Demo: für einfache Listenansicht); besser als findAll()+Filter.
+     * Set-basierte Auflösung für Batch-Ingest: liefert je existierendem Gerät genau eine Zeile
+     * mit dem neuesten Messwert (Index-Seek je Gerät via LATERAL; Spalten null, falls noch kein Messwert).
+     * Nicht existierende Geräte-IDs erscheinen nicht im Ergebnis.
      */
-    java.util.List<MeterReading> findByDeviceIdOrderByReadingTimeAsc(UUID deviceId);
+    @Query(value = """
+            select d.id as deviceId, d.serial_no as serialNo, r.reading_time as readingTime, r.value as value
+            from device d
+            left join lateral (
+                select m.reading_time, m.value
+                from meter_reading m
+                where m.device_id = d.id
+                order by m.reading_time desc
+                limit 1
+            ) r on true
+            where d.id in (:deviceIds)
+            """, nativeQuery = true)
+    List<DeviceWatermarkView> findWatermarks(Collection<UUID> deviceIds);
+
+    /**
+     * Projektion für {@link #findWatermarks(Collection)}.
+     */
+    interface DeviceWatermarkView {
+        UUID getDeviceId();
+        String getSerialNo();
+        Instant getReadingTime();
+        BigDecimal getValue();
+    }
 }
@@ -0,0 +1,31 @@
+#!/usr/bin/env bash
+set -euo pipefail
+
+# Historischer Backfill von Messwerten (COPY-Import über die API).
+# Usage: scripts/backfill.sh <datei.csv|datei.ndjson>
+#   CSV mit Kopfzeile: deviceId,readingTime,value,unit,source
+# Fehlerreport: curl "$BASE_URL/api/readings/backfill/<backfillId>/errors"
+
+BASE_URL="${BASE_URL:-http://localhost:8080}"
+FILE="${1:-}"
+if [[ -z "$FILE" || ! -f "$FILE" ]]; then
+  echo "[backfill] Usage: $0 <file.csv|file.ndjson>" >&2; exit 1
+fi
+
+case "$FILE" in
+  *.csv) CONTENT_TYPE="text/csv" ;;
+  *.ndjson|*.jsonl) CONTENT_TYPE="application/x-ndjson" ;;
+  *) echo "[backfill] Unbekanntes Format (erwartet .csv oder .ndjson): $FILE" >&2; exit 2 ;;
+esac
+
+# Optional Basic Auth: export BASIC_USER=demo BASIC_PASS=demo123
+AUTH_OPT=()
+if [[ -n "${BASIC_USER:-}" && -n "${BASIC_PASS:-}" ]]; then
+  AUTH_OPT=(-u "${BASIC_USER}:${BASIC_PASS}")
+fi
+
+echo "[backfill] Upload $FILE ($CONTENT_TYPE) → $BASE_URL/api/readings/backfill"
+curl -fsS "${AUTH_OPT[@]}" -X POST "$BASE_URL/api/readings/backfill" \
+  -H "Content-Type: $CONTENT_TYPE" \
+  --data-binary @"$FILE"
+echo
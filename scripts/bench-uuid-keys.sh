@@ -0,0 +1,19 @@
+#!/usr/bin/env bash
+set -euo pipefail
+
+# Vergleich v4- vs. v7-UUID-Schlüssel (Insert-Durchsatz + PK-Indexgröße), siehe bench-uuid-keys.sql.
+# Usage: [PGOPTIONS="-c bench.rows=5000000"] scripts/bench-uuid-keys.sh
+# Nutzt lokales psql, sonst den Postgres-Container aus docker compose. Benötigt Migration V9 (uuid_v7).
+SCRIPT_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")" && pwd)"
+
+DB_HOST="${DB_HOST:-localhost}"
+DB_NAME="${DB_NAME:-metering}"
+DB_USER="${DB_USER:-metering}"
+export PGPASSWORD="${DB_PASS:-metering}"
+
+if command -v psql >/dev/null 2>&1; then
+  psql -h "$DB_HOST" -U "$DB_USER" -d "$DB_NAME" -v ON_ERROR_STOP=1 -f "$SCRIPT_DIR/bench-uuid-keys.sql"
+else
+  docker compose exec -T -e PGOPTIONS="${PGOPTIONS:-}" db \
+    psql -U "$DB_USER" -d "$DB_NAME" -v ON_ERROR_STOP=1 < "$SCRIPT_DIR/bench-uuid-keys.sql"
+fi
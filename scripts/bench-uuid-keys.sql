@@ -0,0 +1,50 @@
+-- Benchmark: Primärschlüssel v4 (zufällig, gen_random_uuid) vs. v7 (zeitlich sortiert, uuid_v7 aus V9)
+-- auf einer Tabelle mit dem Aufbau von meter_reading. Gemessen werden Insert-Durchsatz (Batches wie beim
+-- Gateway-Ingest) sowie Größe des PK-Index danach. Parameter per PGOPTIONS, z. B.:
+--   PGOPTIONS="-c bench.rows=5000000 -c bench.batch=5000" scripts/bench-uuid-keys.sh
+
+drop table if exists bench_keys_v4, bench_keys_v7;
+create table bench_keys_v4 (
+  id uuid primary key,
+  device_id uuid not null,
+  reading_time timestamptz not null,
+  value numeric(18,6) not null,
+  unit text not null,
+  source text not null
+);
+create table bench_keys_v7 (like bench_keys_v4 including all);
+
+create temp table bench_result (variant text, rows bigint, millis bigint, rows_per_sec bigint, pk_bytes bigint);
+
+do $$
+declare
+  total bigint := coalesce(nullif(current_setting('bench.rows', true), ''), '2000000')::bigint;
+  batch int := coalesce(nullif(current_setting('bench.batch', true), ''), '10000')::int;
+  v text;
+  t0 timestamptz;
+  ms bigint;
+  done bigint;
+begin
+  foreach v in array array['v4', 'v7'] loop
+    t0 := clock_timestamp();
+    done := 0;
+    while done < total loop
+      execute format($sql$
+        insert into bench_keys_%s (id, device_id, reading_time, value, unit, source)
+        select %s, md5((g %% 1000)::text)::uuid, now() - make_interval(secs => g), g, 'kWh', 'bench'
+        from generate_series($1 + 1, $1 + $2) g
+        $sql$, v, case v when 'v4' then 'gen_random_uuid()' else 'uuid_v7()' end)
+      using done, least(batch, total - done);
+      done := done + batch;
+    end loop;
+    ms := greatest(1, (extract(epoch from clock_timestamp() - t0) * 1000)::bigint);
+    insert into bench_result
+    values (v, total, ms, total * 1000 / ms, pg_relation_size(format('bench_keys_%s_pkey', v)::regclass));
+  end loop;
+end $$;
+
+select variant, rows, millis, rows_per_sec, pg_size_pretty(pk_bytes) as pk_size,
+       round(pk_bytes::numeric / rows, 1) as pk_bytes_per_row
+from bench_result order by variant;
+
+drop table bench_keys_v4, bench_keys_v7;
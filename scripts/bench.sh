@@ -0,0 +1,37 @@
+#!/usr/bin/env bash
+set -euo pipefail
+
+# JMH-Benchmarks bauen, ausführen (Ergebnis als JSON) und mit der gespeicherten Baseline vergleichen.
+# Usage: scripts/bench.sh [--save-baseline] [JMH-Argumente, Default: -prof gc]
+#   z. B. scripts/bench.sh IngestValidation Serialization -prof gc
+#         scripts/bench.sh -e Repository -prof gc          (ohne lokale DB)
+# Ergebnis: bench/target/jmh-result.json; Baseline: $BENCH_BASELINE (Default bench/baseline.json);
+# Schwelle: $BENCH_THRESHOLD (Default 0.10). Baseline nur auf derselben Maschine/JVM vergleichen.
+# Repository-Benchmarks nutzen die lokale DB (DB_URL, DB_USER, DB_PASSWORD wie die Anwendung).
+ROOT_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")/.." && pwd)"
+cd "$ROOT_DIR"
+
+SAVE_BASELINE=false
+if [[ "${1:-}" == "--save-baseline" ]]; then SAVE_BASELINE=true; shift; fi
+JMH_ARGS=("$@")
+if [[ ${#JMH_ARGS[@]} -eq 0 ]]; then JMH_ARGS=(-prof gc); fi
+
+BASELINE="${BENCH_BASELINE:-bench/baseline.json}"
+RESULT="bench/target/jmh-result.json"
+JAR="bench/target/benchmarks.jar"
+
+echo "[bench] build"
+mvn -B -q -Pbench -pl bench -am package -DskipTests
+
+echo "[bench] run: ${JMH_ARGS[*]}"
+java -jar "$JAR" -rf json -rff "$RESULT" "${JMH_ARGS[@]}"
+
+if $SAVE_BASELINE; then
+  cp "$RESULT" "$BASELINE"
+  echo "[bench] baseline saved: $BASELINE"
+elif [[ -f "$BASELINE" ]]; then
+  echo "[bench] compare with $BASELINE"
+  java -cp "$JAR" com.brunata.meteringdemo.bench.BaselineComparison "$BASELINE" "$RESULT" "${BENCH_THRESHOLD:-0.10}"
+else
+  echo "[bench] no baseline ($BASELINE); save one with --save-baseline"
+fi
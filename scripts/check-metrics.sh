@@ -12,6 +12,11 @@ echo "[check-metrics] Health: $BASE_URL/actuator/health"
 curl -fsS "${AUTH_OPT[@]}" "$BASE_URL/actuator/health" | sed 's/^/[health] /' || { echo "[check-metrics] health failed"; exit 1; }
 
 echo "[check-metrics] Prometheus: $BASE_URL/actuator/prometheus (first lines)"
-curl -fsS "${AUTH_OPT[@]}" "$BASE_URL/actuator/prometheus" | head -n 20 | sed 's/^/[prom]   /' || { echo "[check-metrics] prometheus failed"; exit 2; }
+# einmal abrufen (mit Histogrammen groß; `curl | head` bricht mit pipefail ab)
+PROM="$(curl -fsS "${AUTH_OPT[@]}" "$BASE_URL/actuator/prometheus")" || { echo "[check-metrics] prometheus failed"; exit 2; }
+head -n 20 <<< "$PROM" | sed 's/^/[prom]   /'
+
+echo "[check-metrics] Anwendungsmetriken (ingest/billing/sync/repository, ohne Histogramm-Buckets)"
+grep -E '^(ingest|billing|sync|spring_data_repository)_' <<< "$PROM" | grep -v '_bucket{' | sed 's/^/[app]    /' || true
 
 echo "[check-metrics] OK"
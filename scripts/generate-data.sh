@@ -0,0 +1,20 @@
+#!/usr/bin/env bash
+set -euo pipefail
+
+# Synthetische Last-/Kapazitätstestdaten direkt in die DB schreiben (ohne Webserver, ohne demo.synthetic.enabled).
+# Usage: scripts/generate-data.sh [--seed=42] [--devices=1000] [--tariffs=3] [--from=YYYY-MM-DD] [--to=YYYY-MM-DD]
+#                                 [--interval=PT15M] [--noise=0.2] [--gap-rate=0.001] [--offline-rate=0.02]
+# Gleicher Seed + gleiche Parameter = gleiche Daten; ein Seed lässt sich nur einmal je DB erzeugen (SYN<seed>-*).
+# DB-Verbindung wie die Anwendung (DB_URL, DB_USER, DB_PASSWORD); der Report (JSON) folgt am Ende auf stdout.
+ROOT_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")/.." && pwd)"
+cd "$ROOT_DIR"
+
+JAR="$(ls app/target/app-*.jar 2>/dev/null | grep -v original | head -n 1 || true)"
+if [[ -z "$JAR" ]]; then
+  echo "[generate-data] Baue app ..." >&2
+  mvn -B -q -pl app -am package -DskipTests
+  JAR="$(ls app/target/app-*.jar | grep -v original | head -n 1)"
+fi
+
+exec java -jar "$JAR" --spring.main.web-application-type=none --logging.level.root=WARN \
+  --logging.level.com.brunata.meteringdemo.services.seed=INFO --generate-data "$@"
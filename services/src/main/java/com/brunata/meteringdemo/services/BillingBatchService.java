@@ -0,0 +1,458 @@
+package com.brunata.meteringdemo.services;
+
+import com.brunata.meteringdemo.common.Money;
+import com.brunata.meteringdemo.common.Quantity;
+import com.brunata.meteringdemo.common.UuidV7;
+import com.brunata.meteringdemo.common.ValidationException;
+import com.brunata.meteringdemo.services.config.BillingBatchProperties;
+import com.brunata.meteringdemo.services.config.BillingProperties;
+import com.brunata.meteringdemo.services.dto.BillingRunProgress;
+import com.brunata.meteringdemo.services.reference.ReferenceDataCache;
+import com.brunata.meteringdemo.services.tariff.CompiledTariff;
+import com.brunata.meteringdemo.services.tariff.ReadingSeries;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Sammel-Abrechnung aller im Zeitraum aktiven Verträge (Monatsabschluss).
+ *
+ * Ablauf je Lauf (Koordinator auf eigenem Thread, Chunks parallel auf einem begrenzten Worker-Pool):
+ * 1) Verträge per Keyset (`contract.id`) in Chunks lesen; bereits abgerechnete Verträge werden ausgelassen
+ * 2) je Chunk ein Verbrauchs-Query statt eines Queries je Vertrag: im Modus BOUNDARY zwei Index-Seeks je Gerät
+ *    (LATERAL, erster/letzter Messwert im Zeitraum), im Modus INTERPOLATED vier Index-Seeks je Gerät an den
+ *    Zeitraumgrenzen; alle Seeks mit unterer und oberer Zeitgrenze (Partition-Pruning)
+ *    Verträge mit Tarifplan (Staffeln/Zeitfenster) werden zusätzlich über die Messwertreihen ihrer Geräte bepreist
+ *    (ein Query je Chunk, siehe {@link CompiledTariff})
+ * 3) Rechnungen je Chunk als JDBC-Batch einfügen (`ON CONFLICT ... DO NOTHING`), eine Transaktion je Chunk
+ *
+ * Idempotent und fortsetzbar über `uq_invoice_contract_period`: ein erneuter Lauf für denselben Zeitraum
+ * verarbeitet nur noch Verträge ohne Rechnung (z. B. nach fehlgeschlagenen Chunks oder Neustart).
+ * Verbrauch und Betrag wie {@link BillingService} (ganze UTC-Tage, Rundung nach `billing.*`, gleiche Grenzstände
+ * je Modus); eine nicht monotone Reihe ergibt damit in beiden Pfaden denselben (ggf. negativen) Verbrauch.
+ */
+@Service
+public class BillingBatchService {
+    private static final Logger log = LoggerFactory.getLogger(BillingBatchService.class);
+
+    // Anzahl Fehlermeldungen, die je Lauf im Fortschritt gehalten werden
+    static final int MAX_ERRORS = 20;
+
+    private static final UUID KEYSET_START = new UUID(0L, 0L);
+
+    static final String CONTRACT_CHUNK_SQL = """
+            select c.id, c.device_id, t.id, t.price_per_unit
+            from contract c
+            join tariff t on t.id = c.tariff_id
+            where c.id > ?
+              and c.start_date <= ? and (c.end_date is null or c.end_date >= ?)
+              and not exists (select 1 from invoice i
+                              where i.contract_id = c.id and i.period_from = ? and i.period_to = ?)
+            order by c.id
+            limit ?
+            """;
+
+    // Modus BOUNDARY: erster und letzter Messwert je Gerät im Zeitraum (?1 = Geräte, ?2..?5 = Beginn, Ende je Seek)
+    static final String FIRST_LAST_SQL = """
+            select d.device_id, f.value as first_value, l.value as last_value
+            from unnest(cast(? as uuid[])) as d(device_id)
+            join lateral (select value from meter_reading m
+                          where m.device_id = d.device_id and m.reading_time >= ? and m.reading_time < ?
+                          order by m.reading_time limit 1) f on true
+            join lateral (select value from meter_reading m
+                          where m.device_id = d.device_id and m.reading_time >= ? and m.reading_time < ?
+                          order by m.reading_time desc limit 1) l on true
+            """;
+
+    // Modus INTERPOLATED: Stützstellen je Gerät, letzter Messwert vor / erster ab Zeitraumbeginn bzw. -ende;
+    // jeder Seek ist auf `billing.max-reading-gap` um die Grenze beschränkt (je Seek untere und obere Grenze)
+    static final String BOUNDARY_POINTS_SQL = """
+            select d.device_id,
+                   sb.reading_time as sb_time, sb.value as sb_value, sa.reading_time as sa_time, sa.value as sa_value,
+                   eb.reading_time as eb_time, eb.value as eb_value, ea.reading_time as ea_time, ea.value as ea_value
+            from unnest(cast(? as uuid[])) as d(device_id)
+            left join lateral (select reading_time, value from meter_reading m
+                               where m.device_id = d.device_id and m.reading_time >= ? and m.reading_time < ?
+                               order by m.reading_time desc limit 1) sb on true
+            left join lateral (select reading_time, value from meter_reading m
+                               where m.device_id = d.device_id and m.reading_time >= ? and m.reading_time < ?
+                               order by m.reading_time limit 1) sa on true
+            left join lateral (select reading_time, value from meter_reading m
+                               where m.device_id = d.device_id and m.reading_time >= ? and m.reading_time < ?
+                               order by m.reading_time desc limit 1) eb on true
+            left join lateral (select reading_time, value from meter_reading m
+                               where m.device_id = d.device_id and m.reading_time >= ? and m.reading_time < ?
+                               order by m.reading_time limit 1) ea on true
+            """;
+
+    // Messwertreihen der Geräte mit Tarifplan (Staffeln/Zeitfenster), gruppiert nach Gerät
+    static final String SERIES_SQL = """
+            select device_id, reading_time, value
+            from meter_reading
+            where device_id = any(cast(? as uuid[])) and reading_time >= ? and reading_time < ?
+            order by device_id, reading_time
+            """;
+
+    static final String INSERT_SQL = """
+            insert into invoice (id, contract_id, period_from, period_to, consumption, amount, status)
+            values (?, ?, ?, ?, ?, ?, 'OPEN')
+            on conflict on constraint uq_invoice_contract_period do nothing
+            """;
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final ReferenceDataCache referenceData;
+    private final BillingProperties billingProps;
+    private final BillingBatchProperties props;
+    private final ExecutorService workers;
+    private final Counter duplicates;
+
+    // zuletzt gestartete Läufe (älteste werden verdrängt)
+    private final Map<UUID, Run> runs;
+
+    public BillingBatchService(JdbcTemplate jdbc,
+                               PlatformTransactionManager txManager,
+                               ReferenceDataCache referenceData,
+                               BillingProperties billingProps,
+                               BillingBatchProperties props,
+                               MeterRegistry registry) {
+        if (props.chunkSize() < 1 || props.parallelism() < 1) {
+            throw new IllegalArgumentException("billing.batch.chunk-size and parallelism must be >= 1");
+        }
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(txManager);
+        this.referenceData = referenceData;
+        this.billingProps = billingProps;
+        this.props = props;
+        this.duplicates = BillingService.duplicateCounter(registry, "batch");
+        var threadNo = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(props.parallelism(),
+                r -> new Thread(r, "billing-batch-" + threadNo.incrementAndGet()));
+        this.runs = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Run> eldest) {
+                return size() > Math.max(1, props.retainedRuns());
+            }
+        };
+    }
+
+    /** Startet einen Lauf für [from..to] im Hintergrund und liefert den initialen Fortschritt (inkl. Run-ID). */
+    public BillingRunProgress start(LocalDate from, LocalDate to) {
+        if (from == null || to == null) throw new ValidationException("from and to are required");
+        if (to.isBefore(from)) throw new ValidationException("periodTo < periodFrom");
+        var run = new Run(UuidV7.next(), from, to);
+        synchronized (runs) {
+            runs.put(run.id, run);
+        }
+        Thread.ofVirtual().name("billing-run-" + run.id).start(() -> execute(run));
+        return run.snapshot();
+    }
+
+    /** Fortschritt eines (laufenden oder beendeten) Laufs, solange er noch im Speicher gehalten wird. */
+    public Optional<BillingRunProgress> progress(UUID runId) {
+        synchronized (runs) {
+            return Optional.ofNullable(runs.get(runId)).map(Run::snapshot);
+        }
+    }
+
+    /** Führt einen Lauf vollständig aus; kehrt erst zurück, wenn alle Chunks verarbeitet sind. */
+    void execute(Run run) {
+        var inFlight = new Semaphore(props.parallelism());
+        try {
+            var after = KEYSET_START;
+            while (true) {
+                var chunk = nextChunk(run, after);
+                if (chunk.isEmpty()) break;
+                after = chunk.get(chunk.size() - 1).contractId();
+                run.contracts.addAndGet(chunk.size());
+                // Gegendruck: höchstens `parallelism` Chunks gleichzeitig in Arbeit bzw. im Speicher
+                inFlight.acquire();
+                run.chunksSubmitted.incrementAndGet();
+                workers.execute(() -> {
+                    try {
+                        billChunk(run, chunk);
+                        run.chunksCompleted.incrementAndGet();
+                    } catch (RuntimeException ex) {
+                        run.chunkFailed(chunk, ex);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+                if (chunk.size() < props.chunkSize()) break;
+            }
+            inFlight.acquire(props.parallelism());
+            run.finish(run.chunksFailed.get() == 0
+                    ? BillingRunProgress.Status.COMPLETED
+                    : BillingRunProgress.Status.COMPLETED_WITH_ERRORS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            run.error("interrupted");
+            run.finish(BillingRunProgress.Status.FAILED);
+        } catch (RuntimeException ex) {
+            run.error(ex.toString());
+            run.finish(BillingRunProgress.Status.FAILED);
+        }
+        var p = run.snapshot();
+        log.info("Billing run {} {}..{} {}: contracts={}, created={}, alreadyInvoiced={}, withoutReadings={}, "
+                        + "negative={}, failedChunks={}", p.runId(), p.from(), p.to(), p.status(), p.contracts(),
+                p.invoicesCreated(), p.alreadyInvoiced(), p.withoutReadings(), p.negativeConsumption(), p.chunksFailed());
+    }
+
+    private List<ContractRow> nextChunk(Run run, UUID after) {
+        return jdbc.query(CONTRACT_CHUNK_SQL,
+                (rs, i) -> new ContractRow(rs.getObject(1, UUID.class), rs.getObject(2, UUID.class),
+                        rs.getObject(3, UUID.class), Money.of(rs.getBigDecimal(4))),
+                after, run.to, run.from, run.from, run.to, props.chunkSize());
+    }
+
+    /**
+     * Ein Chunk in einer Transaktion: Verbrauch aller Geräte mit einem Query, danach ein Insert-Batch.
+     * Zähler werden erst nach dem Commit fortgeschrieben.
+     */
+    void billChunk(Run run, List<ContractRow> chunk) {
+        var result = tx.execute(status -> {
+            var consumption = consumptionByDevice(chunk, run.from, run.to);
+            var invoices = new ArrayList<Object[]>(chunk.size());
+            var counts = new ChunkResult();
+            var planned = new ArrayList<ContractRow>();
+            for (var c : chunk) {
+                var bounds = consumption.get(c.deviceId());
+                if (bounds == null) {
+                    counts.withoutReadings++;
+                } else if (bounds.consumption().isNegative()) {
+                    counts.negativeConsumption++;
+                } else if (!pricing(c).flat()) {
+                    planned.add(c);
+                } else {
+                    var amount = BillingService.checkedAmount(() -> bounds.consumption()
+                            .times(c.pricePerUnit(), billingProps.scale(), billingProps.roundingMode()));
+                    invoices.add(invoiceRow(run, c, bounds.consumption(), amount));
+                }
+            }
+            if (!planned.isEmpty()) new PlanPricing(run, planned, consumption, invoices, counts).execute();
+            if (invoices.isEmpty()) return counts;
+            for (int n : jdbc.batchUpdate(INSERT_SQL, invoices)) {
+                // SUCCESS_NO_INFO (-2) zählt als eingefügt; 0 = Konflikt mit vorhandener Rechnung
+                if (n != 0) counts.created++;
+                else counts.alreadyInvoiced++;
+            }
+            return counts;
+        });
+        if (result == null) return;
+        run.invoicesCreated.addAndGet(result.created);
+        run.alreadyInvoiced.addAndGet(result.alreadyInvoiced);
+        duplicates.increment(result.alreadyInvoiced);
+        run.withoutReadings.addAndGet(result.withoutReadings);
+        run.negativeConsumption.addAndGet(result.negativeConsumption);
+    }
+
+    private CompiledTariff pricing(ContractRow c) {
+        return referenceData.tariff(c.tariffId())
+                .orElseThrow(() -> new IllegalStateException("Unknown tariff " + c.tariffId()))
+                .pricing();
+    }
+
+    private Map<UUID, DeviceConsumption> consumptionByDevice(List<ContractRow> chunk, LocalDate from, LocalDate to) {
+        var devices = deviceArray(chunk);
+        var result = new HashMap<UUID, DeviceConsumption>();
+        var start = from.atStartOfDay().toInstant(ZoneOffset.UTC);
+        var end = to.plusDays(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+        if (billingProps.consumptionMode() == BillingProperties.ConsumptionMode.INTERPOLATED) {
+            var gap = billingProps.maxReadingGap();
+            jdbc.query(BOUNDARY_POINTS_SQL, rs -> {
+                var endBefore = point(rs, "eb");
+                var endAfter = point(rs, "ea");
+                // ohne Messwert vor und ab Zeitraumende ist der Stand an der Grenze (noch) nicht bestimmbar
+                if (endBefore == null || endAfter == null) return;
+                var startValue = MeterPoint.interpolate(start, point(rs, "sb"), point(rs, "sa"));
+                var endValue = MeterPoint.interpolate(end, endBefore, endAfter);
+                result.put(rs.getObject("device_id", UUID.class),
+                        new DeviceConsumption(endValue.minus(startValue), startValue, endValue));
+            }, devices,
+                    Timestamp.from(start.minus(gap)), Timestamp.from(start), Timestamp.from(start), Timestamp.from(start.plus(gap)),
+                    Timestamp.from(end.minus(gap)), Timestamp.from(end), Timestamp.from(end), Timestamp.from(end.plus(gap)));
+            return result;
+        }
+        // wie BillingService: letzter minus erster Messwert im Zeitraum (Geräte ohne Messwert fehlen im Ergebnis)
+        jdbc.query(FIRST_LAST_SQL, rs -> {
+            var consumption = Quantity.of(rs.getBigDecimal(3)).minus(Quantity.of(rs.getBigDecimal(2)));
+            result.put(rs.getObject(1, UUID.class), new DeviceConsumption(consumption, null, null));
+        }, devices, Timestamp.from(start), Timestamp.from(end), Timestamp.from(start), Timestamp.from(end));
+        return result;
+    }
+
+    // Parameter für INSERT_SQL; BigDecimal erst hier an der JDBC-Grenze
+    private static Object[] invoiceRow(Run run, ContractRow c, Quantity consumption, Money amount) {
+        return new Object[]{UuidV7.next(), c.contractId(), run.from, run.to, consumption.toBigDecimal(), amount.toBigDecimal()};
+    }
+
+    private static String deviceArray(List<ContractRow> contracts) {
+        return contracts.stream().map(c -> c.deviceId().toString())
+                .distinct().collect(Collectors.joining(",", "{", "}"));
+    }
+
+    private static MeterPoint point(ResultSet rs, String prefix) throws SQLException {
+        var time = rs.getTimestamp(prefix + "_time");
+        return time == null ? null : new MeterPoint(time.toInstant(), Quantity.of(rs.getBigDecimal(prefix + "_value")));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    record ContractRow(UUID contractId, UUID deviceId, UUID tariffId, Money pricePerUnit) {}
+
+    // Verbrauch je Gerät; Grenzstände nur im Modus INTERPOLATED (erster/letzter Punkt der Messwertreihe)
+    private record DeviceConsumption(Quantity consumption, Quantity startValue, Quantity endValue) {}
+
+    /**
+     * Bepreisung der Verträge mit Tarifplan eines Chunks: ein Query über die Messwertreihen aller betroffenen
+     * Geräte (sortiert nach Gerät), je Gerät in einen wiederverwendeten {@link ReadingSeries}-Puffer gelesen
+     * und beim Gerätewechsel ausgewertet.
+     */
+    private final class PlanPricing implements RowCallbackHandler {
+        private final Run run;
+        private final Map<UUID, DeviceConsumption> consumption;
+        private final List<Object[]> invoices;
+        private final ChunkResult counts;
+        private final Instant start, end;
+        private final String devices;
+        // noch nicht ausgewertete Geräte mit ihren Verträgen
+        private final Map<UUID, List<ContractRow>> pending;
+        private final ReadingSeries series = new ReadingSeries();
+        private UUID current;
+
+        PlanPricing(Run run, List<ContractRow> planned, Map<UUID, DeviceConsumption> consumption,
+                    List<Object[]> invoices, ChunkResult counts) {
+            this.run = run;
+            this.consumption = consumption;
+            this.invoices = invoices;
+            this.counts = counts;
+            this.start = run.from.atStartOfDay().toInstant(ZoneOffset.UTC);
+            this.end = run.to.plusDays(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+            this.devices = deviceArray(planned);
+            this.pending = planned.stream().collect(Collectors.groupingBy(ContractRow::deviceId));
+        }
+
+        void execute() {
+            jdbc.query(SERIES_SQL, this, devices, Timestamp.from(start), Timestamp.from(end));
+            if (current != null) finish(current);
+            // interpoliert: Geräte ohne Messwert im Zeitraum haben nur die beiden Grenzstände
+            for (var device : List.copyOf(pending.keySet())) {
+                begin(device);
+                finish(device);
+            }
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            var device = rs.getObject(1, UUID.class);
+            if (!device.equals(current)) {
+                if (current != null) finish(current);
+                begin(device);
+            }
+            series.add(rs.getTimestamp(2).toInstant(), Quantity.of(rs.getBigDecimal(3)));
+        }
+
+        private void begin(UUID device) {
+            current = device;
+            series.clear();
+            var bounds = consumption.get(device);
+            if (bounds.startValue() != null) series.add(start, bounds.startValue());
+        }
+
+        private void finish(UUID device) {
+            var bounds = consumption.get(device);
+            if (bounds.endValue() != null) series.add(end, bounds.endValue());
+            for (var c : pending.remove(device)) {
+                Money raw;
+                try {
+                    raw = pricing(c).amount(series);
+                } catch (ValidationException ex) {
+                    // Betrag außerhalb des Wertebereichs lässt den Chunk scheitern (Meldung im Fortschritt)
+                    if (CompiledTariff.AMOUNT_OUT_OF_RANGE.equals(ex.getMessage())) throw ex;
+                    // fallender Zählerstand innerhalb des Zeitraums
+                    counts.negativeConsumption++;
+                    continue;
+                }
+                var amount = BillingService.checkedAmount(() -> raw.rounded(billingProps.scale(), billingProps.roundingMode()));
+                invoices.add(invoiceRow(run, c, bounds.consumption(), amount));
+            }
+            current = null;
+        }
+    }
+
+    private static final class ChunkResult {
+        long created, alreadyInvoiced, withoutReadings, negativeConsumption;
+    }
+
+    /** Veränderlicher Zustand eines Laufs; Zähler werden von Koordinator und Workern fortgeschrieben. */
+    static final class Run {
+        final UUID id;
+        final LocalDate from, to;
+        final Instant startedAt = Instant.now();
+        final AtomicLong chunksSubmitted = new AtomicLong(), chunksCompleted = new AtomicLong(),
+                chunksFailed = new AtomicLong(), contracts = new AtomicLong(), invoicesCreated = new AtomicLong(),
+                alreadyInvoiced = new AtomicLong(), withoutReadings = new AtomicLong(),
+                negativeConsumption = new AtomicLong();
+        private final List<String> errors = new ArrayList<>();
+        private volatile BillingRunProgress.Status status = BillingRunProgress.Status.RUNNING;
+        private volatile Instant finishedAt;
+
+        Run(UUID id, LocalDate from, LocalDate to) {
+            this.id = id;
+            this.from = from;
+            this.to = to;
+        }
+
+        void chunkFailed(List<ContractRow> chunk, RuntimeException ex) {
+            chunksFailed.incrementAndGet();
+            log.warn("Billing run {}: chunk {}..{} failed: {}", id, chunk.get(0).contractId(),
+                    chunk.get(chunk.size() - 1).contractId(), ex.toString());
+            error("chunk " + chunk.get(0).contractId() + ": " + ex.getMessage());
+        }
+
+        synchronized void error(String message) {
+            if (errors.size() < MAX_ERRORS) errors.add(message);
+        }
+
+        void finish(BillingRunProgress.Status finalStatus) {
+            finishedAt = Instant.now();
+            status = finalStatus;
+        }
+
+        synchronized BillingRunProgress snapshot() {
+            return new BillingRunProgress(id, from, to, status, chunksSubmitted.get(), chunksCompleted.get(),
+                    chunksFailed.get(), contracts.get(), invoicesCreated.get(), alreadyInvoiced.get(),
+                    withoutReadings.get(), negativeConsumption.get(), startedAt, finishedAt, List.copyOf(errors));
+        }
+    }
+}
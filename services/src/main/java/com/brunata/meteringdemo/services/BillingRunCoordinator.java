@@ -0,0 +1,121 @@
+package com.brunata.meteringdemo.services;
+
+import com.brunata.meteringdemo.common.ValidationException;
+import com.brunata.meteringdemo.domain.Invoice;
+import com.brunata.meteringdemo.services.config.BillingProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Vorgeschaltete Koordination der Einzelabrechnung ({@link BillingService#run}).
+ *
+ * - Single-Flight: gleichzeitige Läufe für denselben Vertrag und Zeitraum teilen sich im Prozess eine Berechnung;
+ *   Nachzügler warten auf deren Ergebnis (bzw. Fehler) statt selbst zu rechnen und auf
+ *   `uq_invoice_contract_period` zu kollidieren. Knotenübergreifend serialisiert der Advisory-Lock im BillingService.
+ * - `Idempotency-Key`: das Ergebnis eines erfolgreichen Laufs wird je Schlüssel gemerkt (Caffeine, Größe + TTL,
+ *   knotenlokal) und bei Wiederholung ohne Datenbankzugriff geliefert. Derselbe Schlüssel mit anderen
+ *   Parametern wird abgelehnt; Fehler werden nicht gemerkt (Wiederholung rechnet erneut).
+ * - Metrik `billing.run`: Dauer der eigentlichen Berechnung inkl. Commit (ohne Nachzügler und Cache-Treffer),
+ *   Tag `outcome` (success|rejected|error), mit Perzentil-Histogramm
+ */
+@Service
+public class BillingRunCoordinator {
+
+    // Obergrenze für Schlüssellänge (Header wird ungeprüft übernommen)
+    static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+
+    private record RunKey(UUID contractId, LocalDate from, LocalDate to) {}
+
+    private record IdempotentResult(RunKey run, Invoice invoice) {}
+
+    private final BillingService billing;
+    private final ConcurrentHashMap<RunKey, CompletableFuture<Invoice>> inFlight = new ConcurrentHashMap<>();
+    private final Cache<String, IdempotentResult> idempotent;
+    private final Counter coalesced;
+    private final MeterRegistry registry;
+
+    public BillingRunCoordinator(BillingService billing, BillingProperties props, MeterRegistry registry) {
+        this.billing = billing;
+        this.registry = registry;
+        this.idempotent = Caffeine.newBuilder()
+                .maximumSize(props.idempotency().maxSize())
+                .expireAfterWrite(props.idempotency().ttl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, idempotent, "billingIdempotency");
+        this.coalesced = Counter.builder("billing.run.coalesced")
+                .description("Billing runs that joined an identical in-flight run")
+                .register(registry);
+    }
+
+    /**
+     * Abrechnung für einen Vertrag und Zeitraum; `idempotencyKey` optional.
+     */
+    public Invoice run(UUID contractId, LocalDate from, LocalDate to, String idempotencyKey) {
+        var key = new RunKey(contractId, from, to);
+        if (idempotencyKey == null) return coalesce(key);
+
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            throw new ValidationException("Idempotency-Key must be 1.." + MAX_IDEMPOTENCY_KEY_LENGTH + " characters");
+        }
+        var cached = idempotent.getIfPresent(idempotencyKey);
+        if (cached == null) {
+            var invoice = coalesce(key);
+            cached = idempotent.asMap().putIfAbsent(idempotencyKey, new IdempotentResult(key, invoice));
+            if (cached == null) return invoice;
+        }
+        if (!cached.run().equals(key)) {
+            throw new ValidationException("Idempotency-Key was already used for a different billing run");
+        }
+        return cached.invoice();
+    }
+
+    private Invoice coalesce(RunKey key) {
+        var own = new CompletableFuture<Invoice>();
+        var running = inFlight.putIfAbsent(key, own);
+        if (running != null) {
+            coalesced.increment();
+            return join(running);
+        }
+        var sample = Timer.start(registry);
+        try {
+            var invoice = billing.run(key.contractId(), key.from(), key.to());
+            sample.stop(runTimer("success"));
+            own.complete(invoice);
+            return invoice;
+        } catch (RuntimeException | Error ex) {
+            sample.stop(runTimer(ex instanceof ValidationException ? "rejected" : "error"));
+            // auch bei Error abschließen, sonst warten Nachzügler unbegrenzt
+            own.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    private Timer runTimer(String outcome) {
+        return Timer.builder("billing.run").tag("outcome", outcome).description("Single billing run including commit")
+                .publishPercentileHistogram().register(registry);
+    }
+
+    private static Invoice join(CompletableFuture<Invoice> running) {
+        try {
+            return running.join();
+        } catch (CompletionException ex) {
+            // Fehler des führenden Laufs unverändert weitergeben (z. B. ValidationException -> 400)
+            if (ex.getCause() instanceof RuntimeException cause) throw cause;
+            throw ex;
+        }
+    }
+}
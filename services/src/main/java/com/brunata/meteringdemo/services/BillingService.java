@@ -1,46 +1,112 @@
 package com.brunata.meteringdemo.services;
 
+import com.brunata.meteringdemo.common.Money;
+import com.brunata.meteringdemo.common.Quantity;
 import com.brunata.meteringdemo.common.ValidationException;
 import com.brunata.meteringdemo.domain.Contract;
 import com.brunata.meteringdemo.domain.Invoice;
+import com.brunata.meteringdemo.domain.MeterReading;
+import com.brunata.meteringdemo.domain.Tariff;
+import com.brunata.meteringdemo.domain.TariffTier;
+import com.brunata.meteringdemo.domain.TariffTimeWindow;
 import com.brunata.meteringdemo.persistence.ContractRepository;
 import com.brunata.meteringdemo.persistence.InvoiceRepository;
 import com.brunata.meteringdemo.persistence.MeterReadingRepository;
 import com.brunata.meteringdemo.services.config.BillingProperties;
+import com.brunata.meteringdemo.services.reference.ReferenceDataCache;
+import com.brunata.meteringdemo.services.tariff.ReadingSeries;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * Service für die Abrechnung (Billing).
  *
  * Verantwortlichkeiten:
- * - Konsumermittlung aus Messwerten im Zeitraum (min/max)
- * - Preisermittlung aus dem verknüpften Tarif
+ * - Konsumermittlung im Zeitraum über Index-Seeks auf die Grenz-Messwerte (O(log n) statt Range-Scan);
+ *   Modus über `billing.consumption-mode` (erster/letzter Messwert oder interpoliert an den Zeitraumgrenzen)
+ * - Vertrag und Tarif aus dem Stammdaten-Cache ({@link ReferenceDataCache}), Preisermittlung aus dem Tarif;
+ *   Tarifpläne mit Staffeln/Zeitfenstern werden über die Messwertreihe des Zeitraums bepreist
  * - Erstellen und Persistieren der Rechnung als Transaktion
+ * - Metrik `billing.invoice.duplicate`: Läufe für bereits abgerechnete Zeiträume (Tag `path`: existing = vorab
+ *   gefunden, conflict = Unique-Constraint beim Insert)
  */
 @Service
 public class BillingService {
 
-    // Repositories für Vertragsdaten, Messwerte und Rechnungen
+    // Stammdaten-Cache (Vertrag + Tarif), Repositories für Vertragsreferenz, Messwerte und Rechnungen
+    private final ReferenceDataCache referenceData;
     private final ContractRepository contractRepo;
     private final MeterReadingRepository readingRepo;
     private final InvoiceRepository invoiceRepo;
     private final BillingProperties billingProps;
+    private final JdbcTemplate jdbc;
+    private final Counter duplicateExisting;
+    private final Counter duplicateConflict;
 
-    public BillingService(ContractRepository contractRepo,
+    // invoice.amount NUMERIC(18,2): höchstens 16 Stellen vor dem Komma
+    static final BigDecimal MAX_AMOUNT = BigDecimal.TEN.pow(16);
+    static final String AMOUNT_OUT_OF_RANGE = "Invoice amount exceeds NUMERIC(18,2)";
+
+    // transaktionsgebundene Sperre je (Vertrag, Zeitraum); 64-Bit-Hash, Kollisionen serialisieren nur unnötig
+    static final String ADVISORY_LOCK_SQL = "select pg_advisory_xact_lock(hashtextextended(?, 0))";
+
+    // Messwertreihe eines Geräts im Zeitraum (nur für Tarifpläne mit Staffeln/Zeitfenstern)
+    static final String SERIES_SQL = """
+            select reading_time, value from meter_reading
+            where device_id = ? and reading_time >= ? and reading_time < ?
+            order by reading_time
+            """;
+
+    public BillingService(ReferenceDataCache referenceData,
+                          ContractRepository contractRepo,
                           MeterReadingRepository readingRepo,
                           InvoiceRepository invoiceRepo,
-                          BillingProperties billingProps) {
+                          BillingProperties billingProps,
+                          JdbcTemplate jdbc,
+                          MeterRegistry registry) {
+        this.referenceData = referenceData;
         this.contractRepo = contractRepo;
         this.readingRepo = readingRepo;
         this.invoiceRepo = invoiceRepo;
         this.billingProps = billingProps;
+        this.jdbc = jdbc;
+        this.duplicateExisting = duplicateCounter(registry, "existing");
+        this.duplicateConflict = duplicateCounter(registry, "conflict");
+    }
+
+    /**
+     * Berechnet den gerundeten Rechnungsbetrag und prüft ihn gegen `invoice.amount NUMERIC(18,2)` (Betrag unter
+     * 10^16): ein nicht darstellbarer Betrag ist ein Fachfehler (400) statt eines Überlaufs (500).
+     */
+    static Money checkedAmount(Supplier<Money> amount) {
+        Money result;
+        try {
+            result = amount.get();
+        } catch (ArithmeticException ex) {
+            throw new ValidationException(AMOUNT_OUT_OF_RANGE);
+        }
+        if (result.toBigDecimal().abs().compareTo(MAX_AMOUNT) >= 0) throw new ValidationException(AMOUNT_OUT_OF_RANGE);
+        return result;
+    }
+
+    static Counter duplicateCounter(MeterRegistry registry, String path) {
+        return Counter.builder("billing.invoice.duplicate").tag("path", path)
+                .description("Billing runs for an already invoiced contract and period").register(registry);
     }
 
     /**
@@ -50,50 +116,163 @@ public class BillingService {
     @Transactional
     public Invoice run(UUID contractId, LocalDate from, LocalDate to) {
         // 1) Vertrag laden oder 404/Validation-Fehler
-        Contract contract = contractRepo.findById(contractId)
+        var contract = referenceData.contract(contractId)
                 .orElseThrow(() -> new ValidationException("Unknown contract: " + contractId));
 
         // 2) Grundvalidierung Zeitraum
         if (to.isBefore(from)) throw new ValidationException("periodTo < periodFrom");
 
-        // 2a) Idempotenz: Existierende Rechnung für Zeitraum zurückgeben
+        // 2a) Knotenübergreifend serialisieren (Advisory-Lock bis Transaktionsende): ein paralleler Lauf für
+        //     denselben Vertrag/Zeitraum wartet hier und findet danach die bereits gespeicherte Rechnung
+        jdbc.query(ADVISORY_LOCK_SQL, rs -> { }, "invoice:" + contractId + ":" + from + ":" + to);
+
+        // 2b) Idempotenz: Existierende Rechnung für Zeitraum zurückgeben
         var existing = invoiceRepo.findByContract_IdAndPeriodFromAndPeriodTo(contractId, from, to);
         if (existing.isPresent()) {
+            duplicateExisting.increment();
             return existing.get();
         }
 
-        // 3) Zeitraum in UTC-Instants (inklusive from, inklusive to bis 23:59:59)
-        var fromInstant = from.atStartOfDay().toInstant(ZoneOffset.UTC);
-        var toInstant = to.plusDays(1).atStartOfDay().toInstant(ZoneOffset.UTC);
-
-        // 4) Verbrauchsberechnung bevorzugt per Aggregat-Query (DB-seitig)
-        var consumptionOpt = readingRepo.computeConsumption(contract.getDeviceId(), fromInstant, toInstant);
-
-        var consumption = consumptionOpt.orElseThrow(() ->
-                new ValidationException("No readings in period for device " + contract.getDeviceId()));
-        if (consumption.compareTo(BigDecimal.ZERO) < 0) {
+        // 3) Verbrauch über ganze UTC-Tage [from..to], d. h. im Intervall [from 00:00Z, to+1 00:00Z)
+        var start = from.atStartOfDay().toInstant(ZoneOffset.UTC);
+        var end = to.plusDays(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+        var bounds = meterBounds(contract.deviceId(), start, end);
+        var consumption = bounds.end().minus(bounds.start());
+        if (consumption.isNegative()) {
             throw new ValidationException("Negative consumption (check meter monotony)!");
         }
 
-        // 6) Betrag = Verbrauch * Preis (auf 2 Nachkommastellen runden)
-        var price = contract.getTariff().getPricePerUnit();
-        var amount = consumption.multiply(price).setScale(billingProps.scale(), billingProps.roundingMode());
+        // 6) Betrag: Einheitstarif = Verbrauch * Preis, sonst Tarifplan über die Messwertreihe; danach runden
+        //    (Festkomma bis hier, BigDecimal erst für die Entity)
+        var pricing = contract.tariff().pricing();
+        var amount = checkedAmount(() -> pricing.flat()
+                ? consumption.times(pricing.unitPrice(), billingProps.scale(), billingProps.roundingMode())
+                : pricing.amount(series(contract.deviceId(), start, end, bounds))
+                        .rounded(billingProps.scale(), billingProps.roundingMode()));
 
-        // 7) Rechnung erzeugen und speichern
+        // 7) Rechnung erzeugen und speichern; der Vertrag wird nur als Referenz (Fremdschlüssel) gesetzt,
+        //    damit Hibernate ihn beim Insert nicht erneut aus der Datenbank lädt
         var invoice = new Invoice();
-        invoice.setContract(contract);
+        invoice.setContract(contractRepo.getReferenceById(contractId));
         invoice.setPeriodFrom(from);
         invoice.setPeriodTo(to);
-        invoice.setConsumption(consumption);
-        invoice.setAmount(amount);
+        invoice.setConsumption(consumption.toBigDecimal());
+        invoice.setAmount(amount.toBigDecimal());
         invoice.setStatus("OPEN");
 
         try {
-            return invoiceRepo.save(invoice);
+            return withContract(invoiceRepo.save(invoice), contract);
         } catch (DataIntegrityViolationException ex) {
-            // Race-Condition: paralleler Request hat Rechnung bereits gespeichert -> idempotent zurückgeben
+            // Race-Condition ohne Advisory-Lock (z. B. Sammel-Lauf): Rechnung bereits gespeichert -> idempotent zurückgeben
+            duplicateConflict.increment();
             return invoiceRepo.findByContract_IdAndPeriodFromAndPeriodTo(contractId, from, to)
                     .orElseThrow(() -> ex);
         }
     }
+
+    /** Zählerstände am Anfang und Ende des Intervalls [start, end) gemäß `billing.consumption-mode`. */
+    private MeterBounds meterBounds(UUID deviceId, Instant start, Instant end) {
+        if (billingProps.consumptionMode() == BillingProperties.ConsumptionMode.INTERPOLATED) {
+            return interpolatedBounds(deviceId, start, end);
+        }
+        // zwei Index-Seeks: erster und letzter Messwert im Zeitraum
+        var first = readingRepo
+                .findFirstByDeviceIdAndReadingTimeGreaterThanEqualAndReadingTimeLessThanOrderByReadingTimeAsc(deviceId, start, end)
+                .orElseThrow(() -> new ValidationException("No readings in period for device " + deviceId));
+        var last = readingRepo
+                .findFirstByDeviceIdAndReadingTimeGreaterThanEqualAndReadingTimeLessThanOrderByReadingTimeDesc(deviceId, start, end)
+                .orElse(first);
+        return new MeterBounds(Quantity.of(first.getValue()), Quantity.of(last.getValue()), false);
+    }
+
+    /**
+     * Zählerstand an beiden Grenzen aus den Messwerten unmittelbar davor/danach (je Grenze zwei Index-Seeks).
+     * Auch ein Zeitraum ohne eigenen Messwert erhält so seinen anteiligen Verbrauch.
+     * Das Zeitraumende muss durch einen Messwert ab `end` abgeschlossen sein, sonst würde sich der Stand an der
+     * Grenze mit späteren Messwerten noch ändern und die Folgerechnung nicht exakt anschließen.
+     * Jeder Seek ist auf `billing.max-reading-gap` um die Grenze beschränkt (beidseitig begrenzter Bereich,
+     * damit PostgreSQL auf die angrenzenden Monatspartitionen reduziert); weiter entfernte Messwerte zählen
+     * nicht als Stützstelle.
+     */
+    private MeterBounds interpolatedBounds(UUID deviceId, Instant start, Instant end) {
+        var gap = billingProps.maxReadingGap();
+        var endBefore = before(deviceId, end, gap);
+        if (endBefore == null) {
+            throw new ValidationException("No readings within " + gap + " before period end for device " + deviceId);
+        }
+        var endAfter = atOrAfter(deviceId, end, gap);
+        if (endAfter == null) {
+            throw new ValidationException("No reading at or after period end yet for device " + deviceId
+                    + " (interpolated billing needs readings on both sides of the boundary, at most " + gap + " apart)");
+        }
+        return new MeterBounds(MeterPoint.interpolate(start, before(deviceId, start, gap), atOrAfter(deviceId, start, gap)),
+                MeterPoint.interpolate(end, endBefore, endAfter), true);
+    }
+
+    /** Letzter Messwert in [boundary - gap, boundary). */
+    private MeterPoint before(UUID deviceId, Instant boundary, Duration gap) {
+        return point(readingRepo.findFirstByDeviceIdAndReadingTimeGreaterThanEqualAndReadingTimeLessThanOrderByReadingTimeDesc(
+                deviceId, boundary.minus(gap), boundary));
+    }
+
+    /** Erster Messwert in [boundary, boundary + gap). */
+    private MeterPoint atOrAfter(UUID deviceId, Instant boundary, Duration gap) {
+        return point(readingRepo.findFirstByDeviceIdAndReadingTimeGreaterThanEqualAndReadingTimeLessThanOrderByReadingTimeAsc(
+                deviceId, boundary, boundary.plus(gap)));
+    }
+
+    /**
+     * Messwertreihe im Intervall [start, end) für die Bepreisung nach Tarifplan; interpoliert mit den
+     * Grenzständen als erstem und letztem Punkt, damit die Summe der Intervalle dem Verbrauch entspricht.
+     */
+    private ReadingSeries series(UUID deviceId, Instant start, Instant end, MeterBounds bounds) {
+        var series = new ReadingSeries();
+        if (bounds.interpolated()) series.add(start, bounds.start());
+        jdbc.query(SERIES_SQL, rs -> { series.add(rs.getTimestamp(1).toInstant(), Quantity.of(rs.getBigDecimal(2))); },
+                deviceId, Timestamp.from(start), Timestamp.from(end));
+        if (bounds.interpolated()) series.add(end, bounds.end());
+        return series;
+    }
+
+    private record MeterBounds(Quantity start, Quantity end, boolean interpolated) {}
+
+    private static MeterPoint point(Optional<MeterReading> reading) {
+        return reading.map(r -> new MeterPoint(r.getReadingTime(), Quantity.of(r.getValue()))).orElse(null);
+    }
+
+    /** Losgelöste Kopie der gespeicherten Rechnung mit den Vertragsdaten aus dem Snapshot (für die Antwort). */
+    private static Invoice withContract(Invoice saved, ReferenceDataCache.ContractSnapshot contract) {
+        var copy = new Invoice();
+        copy.setId(saved.getId());
+        copy.setContract(toEntity(contract));
+        copy.setPeriodFrom(saved.getPeriodFrom());
+        copy.setPeriodTo(saved.getPeriodTo());
+        copy.setConsumption(saved.getConsumption());
+        copy.setAmount(saved.getAmount());
+        copy.setStatus(saved.getStatus());
+        copy.setCreatedAt(saved.getCreatedAt());
+        return copy;
+    }
+
+    private static Contract toEntity(ReferenceDataCache.ContractSnapshot snapshot) {
+        var tariff = new Tariff();
+        tariff.setId(snapshot.tariff().id());
+        tariff.setName(snapshot.tariff().name());
+        tariff.setPricePerUnit(snapshot.tariff().pricePerUnit());
+        tariff.setUnit(snapshot.tariff().unit());
+        var plan = snapshot.tariff().pricing().plan();
+        tariff.setTimeZone(plan.zone().getId());
+        tariff.setTiers(plan.tiers().stream()
+                .map(t -> new TariffTier(t.fromQuantity(), t.pricePerUnit())).collect(Collectors.toList()));
+        tariff.setTimeWindows(plan.timeWindows().stream()
+                .map(w -> new TariffTimeWindow(w.startHour(), w.endHour(), w.surcharge())).collect(Collectors.toList()));
+        var contract = new Contract();
+        contract.setId(snapshot.id());
+        contract.setCustomerName(snapshot.customerName());
+        contract.setDeviceId(snapshot.deviceId());
+        contract.setStartDate(snapshot.startDate());
+        contract.setEndDate(snapshot.endDate());
+        contract.setTariff(tariff);
+        return contract;
+    }
 }
@@ -0,0 +1,147 @@
+package com.brunata.meteringdemo.services;
+
+import com.brunata.meteringdemo.common.ValidationException;
+import com.brunata.meteringdemo.services.dto.ConsumptionBucket;
+import com.brunata.meteringdemo.services.dto.ConsumptionSeries;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Verbrauchsreihen (Downsampling) aus kumulativen Zählerständen, vollständig in PostgreSQL berechnet.
+ *
+ * Je Bucket (UTC, `date_trunc`) wird der letzte Zählerstand ermittelt; Verbrauch = letzter Stand des Buckets
+ * minus letzter Stand des vorherigen Buckets mit Messwert (`lag()`), für den ersten Bucket minus letzter Stand
+ * vor `from`. Damit wird auch der Verbrauch zwischen zwei Buckets vollständig zugeordnet und die Summe aller
+ * Punkte entspricht dem Verbrauch im Zeitraum. Leere Buckets werden per `generate_series` mit `null` aufgefüllt.
+ *
+ * Ab Bucket-Größe DAY werden volle UTC-Tage aus dem Tages-Rollup `device_daily_reading`
+ * ({@link DailyReadingRollup}, eine Zeile je Tag statt je Messwert) gelesen, nur die angebrochenen Tage am Anfang
+ * und Ende des Zeitraums aus `meter_reading`; das Ergebnis ist identisch zur Berechnung aus den Rohdaten.
+ *
+ * Die Antwortgröße ist durch `maxPoints` begrenzt: reicht die angefragte Bucket-Größe nicht, wird entlang
+ * {@link ConsumptionBucket} vergröbert (HOUR → DAY → … → YEAR).
+ */
+@Service
+public class ConsumptionSeriesService {
+
+    public static final int DEFAULT_MAX_POINTS = 500;
+    public static final int MAX_POINTS = 5000;
+
+    // Je Bucket letzter/erster Zählerstand und Anzahl aus den Rohdaten
+    private static final String RAW_BUCKETS = """
+            with b as (
+                select date_trunc(?, reading_time at time zone 'UTC') as bucket,
+                       max(value) as last_value, min(value) as first_value, count(*) as readings
+                from meter_reading
+                where device_id = ? and reading_time >= ? and reading_time < ?
+                group by 1
+            )""";
+
+    // Dasselbe aus dem Tages-Rollup für die vollen Tage, Rohdaten nur für die angebrochenen Tage am Rand
+    private static final String ROLLUP_BUCKETS = """
+            with src as (
+                select date_trunc(?, cast(day as timestamp)) as bucket,
+                       max_value as last_value, min_value as first_value, reading_count as readings
+                from device_daily_reading
+                where device_id = ? and day >= ? and day < ?
+                union all
+                select date_trunc(?, reading_time at time zone 'UTC'), value, value, 1
+                from meter_reading
+                where device_id = ?
+                  and (reading_time >= ? and reading_time < ? or reading_time >= ? and reading_time < ?)
+            ), b as (
+                select bucket, max(last_value) as last_value, min(first_value) as first_value,
+                       sum(readings) as readings
+                from src
+                group by 1
+            )""";
+
+    private static final String SERIES = """
+            , c as (
+                select bucket, readings,
+                       last_value - coalesce(lag(last_value) over (order by bucket),
+                                             (select m.value from meter_reading m
+                                              where m.device_id = ? and m.reading_time < ?
+                                              order by m.reading_time desc limit 1),
+                                             first_value) as consumption
+                from b
+            )
+            select s.bucket as bucket_start, c.consumption, coalesce(c.readings, 0) as readings
+            from generate_series(cast(? as timestamp), cast(? as timestamp), cast(? as interval)) as s(bucket)
+            left join c on c.bucket = s.bucket
+            order by s.bucket
+            """;
+
+    static final String RAW_SQL = RAW_BUCKETS + SERIES;
+    static final String ROLLUP_SQL = ROLLUP_BUCKETS + SERIES;
+
+    private final JdbcTemplate jdbc;
+
+    public ConsumptionSeriesService(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Verbrauch je Bucket im Zeitraum [`from`, `to`); `to` default jetzt, `bucket` default DAY.
+     */
+    @Transactional(readOnly = true)
+    public ConsumptionSeries series(UUID deviceId, Instant from, Instant to, ConsumptionBucket bucket, Integer maxPoints) {
+        if (from == null) throw new ValidationException("from is required");
+        var end = to == null ? Instant.now() : to;
+        if (!from.isBefore(end)) throw new ValidationException("from must be before to");
+        int limit = maxPoints == null ? DEFAULT_MAX_POINTS : maxPoints;
+        if (limit < 1 || limit > MAX_POINTS) {
+            throw new ValidationException("maxPoints must be between 1 and " + MAX_POINTS);
+        }
+        var requested = bucket == null ? ConsumptionBucket.DAY : bucket;
+        var effective = widen(requested, utc(from), utc(end), limit);
+
+        var firstBucket = effective.truncate(utc(from));
+        // letzter Bucket-Beginn: der Bucket, in dem der letzte Zeitpunkt vor `to` liegt
+        var lastBucket = effective.truncate(utc(end.minusNanos(1_000)));
+        // volle Tage [firstDay, endDay) im Zeitraum
+        var firstDay = LocalDate.ofInstant(from.minusNanos(1), ZoneOffset.UTC).plusDays(1);
+        var endDay = LocalDate.ofInstant(end, ZoneOffset.UTC);
+        boolean rollup = effective != ConsumptionBucket.HOUR && firstDay.isBefore(endDay);
+        var buckets = rollup
+                ? List.<Object>of(effective.field(), deviceId, firstDay, endDay,
+                        effective.field(), deviceId, Timestamp.from(from), Timestamp.from(startOf(firstDay)),
+                        Timestamp.from(startOf(endDay)), Timestamp.from(end))
+                : List.<Object>of(effective.field(), deviceId, Timestamp.from(from), Timestamp.from(end));
+        var args = new ArrayList<>(buckets);
+        args.addAll(List.of(deviceId, Timestamp.from(from), firstBucket, lastBucket, effective.interval()));
+        var points = jdbc.query(rollup ? ROLLUP_SQL : RAW_SQL, (rs, i) -> new ConsumptionSeries.Point(
+                        rs.getObject("bucket_start", LocalDateTime.class).toInstant(ZoneOffset.UTC),
+                        rs.getBigDecimal("consumption"),
+                        rs.getInt("readings")),
+                args.toArray());
+        return new ConsumptionSeries(deviceId, from, end, requested, effective, points);
+    }
+
+    /** Kleinste Bucket-Größe ab `requested`, die höchstens `maxPoints` Punkte ergibt. */
+    static ConsumptionBucket widen(ConsumptionBucket requested, LocalDateTime from, LocalDateTime to, int maxPoints) {
+        var ladder = ConsumptionBucket.values();
+        for (int i = requested.ordinal(); i < ladder.length; i++) {
+            if (ladder[i].count(from, to) <= maxPoints) return ladder[i];
+        }
+        throw new ValidationException("Range too long for maxPoints=" + maxPoints + " even with yearly buckets");
+    }
+
+    private static Instant startOf(LocalDate day) {
+        return day.atStartOfDay().toInstant(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime utc(Instant t) {
+        return LocalDateTime.ofInstant(t, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,165 @@
+package com.brunata.meteringdemo.services;
+
+import com.brunata.meteringdemo.common.Quantity;
+import com.brunata.meteringdemo.common.ValidationException;
+import com.brunata.meteringdemo.services.dto.ReadingDto;
+import com.brunata.meteringdemo.services.dto.RollupRebuildReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Tages-Rollup `device_daily_reading` (V11): erster/letzter/min/max Zählerstand und Anzahl je Gerät und UTC-Tag.
+ *
+ * - {@link #add}: inkrementelle Fortschreibung beim Ingest, in der Transaktion des Inserts (nur tatsächlich
+ *   eingefügte Messwerte übergeben); je Gerät/Tag ein Upsert, das die Aggregate zusammenführt
+ * - {@link #addSelected}: dasselbe set-basiert für INSERT ... SELECT-Pfade (Backfill)
+ * - {@link #rebuild}: Neuaufbau eines Zeitraums aus `meter_reading`, monatsweise je Transaktion
+ *
+ * Upserts erfolgen in fester Reihenfolge (Gerät, Tag), damit parallele Batches nicht verklemmen.
+ */
+@Component
+public class DailyReadingRollup {
+    private static final Logger log = LoggerFactory.getLogger(DailyReadingRollup.class);
+
+    // Zusammenführen eines neuen Teil-Aggregats mit der vorhandenen Zeile (alle d.* sind die alten Werte)
+    private static final String MERGE = """
+            on conflict (device_id, day) do update set
+              first_time = least(d.first_time, excluded.first_time),
+              first_value = case when excluded.first_time < d.first_time then excluded.first_value else d.first_value end,
+              last_time = greatest(d.last_time, excluded.last_time),
+              last_value = case when excluded.last_time >= d.last_time then excluded.last_value else d.last_value end,
+              min_value = least(d.min_value, excluded.min_value),
+              max_value = greatest(d.max_value, excluded.max_value),
+              reading_count = d.reading_count + excluded.reading_count
+            """;
+
+    private static final String INSERT = """
+            insert into device_daily_reading as d (device_id, day, first_time, first_value, last_time, last_value,
+                                                   min_value, max_value, reading_count)
+            """;
+
+    static final String UPSERT_SQL = INSERT + "values (?, ?, ?, ?, ?, ?, ?, ?, ?)\n" + MERGE;
+
+    // Aggregation über eine Quelle mit den Spalten device_id, reading_time, value
+    private static final String UPSERT_SELECTED = INSERT + """
+            select device_id, (reading_time at time zone 'UTC')::date,
+                   min(reading_time), (array_agg(value order by reading_time))[1],
+                   max(reading_time), (array_agg(value order by reading_time desc))[1],
+                   min(value), max(value), count(*)
+            from (%s) src
+            group by 1, 2
+            order by 1, 2
+            """ + MERGE;
+
+    private static final String REBUILD_SOURCE = """
+            select device_id, reading_time, value from meter_reading
+            where reading_time >= '%s' and reading_time < '%s'
+            """;
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+
+    public DailyReadingRollup(JdbcTemplate jdbc, PlatformTransactionManager txManager) {
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(txManager);
+    }
+
+    /** Schreibt eingefügte Messwerte in den Rollup fort (Aufruf innerhalb der Insert-Transaktion). */
+    public void add(Collection<ReadingDto> inserted) {
+        if (inserted.isEmpty()) return;
+        var aggregates = new TreeMap<Key, Aggregate>(Comparator.comparing(Key::deviceId).thenComparing(Key::day));
+        for (var dto : inserted) {
+            var key = new Key(dto.deviceId(), LocalDate.ofInstant(dto.readingTime(), ZoneOffset.UTC));
+            aggregates.computeIfAbsent(key, k -> new Aggregate(dto)).add(dto);
+        }
+        jdbc.batchUpdate(UPSERT_SQL, aggregates.entrySet(), ReadingBatchService.JDBC_BATCH_SIZE, (ps, e) -> {
+            var a = e.getValue();
+            ps.setObject(1, e.getKey().deviceId());
+            ps.setObject(2, e.getKey().day());
+            ps.setTimestamp(3, Timestamp.from(a.firstTime));
+            ps.setBigDecimal(4, a.firstValue.toBigDecimal());
+            ps.setTimestamp(5, Timestamp.from(a.lastTime));
+            ps.setBigDecimal(6, a.lastValue.toBigDecimal());
+            ps.setBigDecimal(7, a.minValue.toBigDecimal());
+            ps.setBigDecimal(8, a.maxValue.toBigDecimal());
+            ps.setLong(9, a.count);
+        });
+    }
+
+    /**
+     * Schreibt alle Zeilen einer Abfrage (Spalten `device_id`, `reading_time`, `value`) set-basiert fort.
+     * Nur für interne, konstante SQL-Fragmente (keine Benutzereingaben).
+     */
+    public int addSelected(String sourceSql) {
+        return jdbc.update(UPSERT_SELECTED.formatted(sourceSql));
+    }
+
+    /**
+     * Baut den Rollup für die Tage [`from`, `to`] aus `meter_reading` neu auf (eine Transaktion je Monat).
+     * Während eines Monats ist der Rollup gegen parallele Fortschreibung gesperrt (SHARE ROW EXCLUSIVE):
+     * laufende Ingest-Transaktionen werden dadurch entweder vollständig mitgezählt oder danach ergänzt.
+     */
+    public RollupRebuildReport rebuild(LocalDate from, LocalDate to) {
+        if (from == null || to == null || to.isBefore(from)) throw new ValidationException("Invalid rebuild range");
+        long start = System.nanoTime();
+        long rows = 0;
+        for (var chunkStart = from; !chunkStart.isAfter(to); ) {
+            var chunkEnd = min(chunkStart.withDayOfMonth(chunkStart.lengthOfMonth()), to);
+            var s = chunkStart;
+            Integer written = tx.execute(status -> {
+                jdbc.execute("lock table device_daily_reading in share row exclusive mode");
+                jdbc.update("delete from device_daily_reading where day between ? and ?", s, chunkEnd);
+                return addSelected(REBUILD_SOURCE.formatted(startOf(s), startOf(chunkEnd.plusDays(1))));
+            });
+            rows += written == null ? 0 : written;
+            chunkStart = chunkEnd.plusDays(1);
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Rebuilt daily reading rollup {}..{} ({} device-days, {} ms)", from, to, rows, millis);
+        return new RollupRebuildReport(from, to, rows, millis);
+    }
+
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static Instant startOf(LocalDate day) {
+        return day.atStartOfDay().toInstant(ZoneOffset.UTC);
+    }
+
+    private record Key(UUID deviceId, LocalDate day) {}
+
+    private static final class Aggregate {
+        Instant firstTime, lastTime;
+        Quantity firstValue, lastValue, minValue, maxValue;
+        long count;
+
+        Aggregate(ReadingDto seed) {
+            firstTime = lastTime = seed.readingTime();
+            firstValue = lastValue = minValue = maxValue = Quantity.of(seed.value());
+        }
+
+        void add(ReadingDto dto) {
+            var t = dto.readingTime();
+            var v = Quantity.of(dto.value());
+            if (t.isBefore(firstTime)) { firstTime = t; firstValue = v; }
+            if (!t.isBefore(lastTime)) { lastTime = t; lastValue = v; }
+            if (v.isLessThan(minValue)) minValue = v;
+            if (maxValue.isLessThan(v)) maxValue = v;
+            count++;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.brunata.meteringdemo.services;
+
+import com.brunata.meteringdemo.common.Quantity;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Zählerstand zu einem Zeitpunkt; Grundlage der Interpolation an Abrechnungsgrenzen.
+ */
+record MeterPoint(Instant time, Quantity value) {
+
+    /**
+     * Zählerstand zum Zeitpunkt `t`, linear interpoliert zwischen dem letzten Messwert davor (`before`)
+     * und dem ersten Messwert ab `t` (`atOrAfter`). Ohne Messwert davor (Zähler erst später montiert) gilt
+     * der erste Messwert ab `t`; ohne Messwert ab `t` ist der Stand nicht bestimmbar (`null`).
+     *
+     * Das Ergebnis wird auf {@link Quantity#SCALE} gerundet und ist nur von den beiden Messwerten abhängig –
+     * aufeinanderfolgende Zeiträume verwenden an ihrer gemeinsamen Grenze damit exakt denselben Stand.
+     * Das Zwischenprodukt (Differenz * Nanosekunden) übersteigt `long`, daher hier BigDecimal (nur je Grenze).
+     */
+    static Quantity interpolate(Instant t, MeterPoint before, MeterPoint atOrAfter) {
+        if (atOrAfter == null) return null;
+        if (before == null || atOrAfter.time.equals(t)) return atOrAfter.value;
+        long span = Duration.between(before.time, atOrAfter.time).toNanos();
+        long elapsed = Duration.between(before.time, t).toNanos();
+        var delta = atOrAfter.value.minus(before.value).toBigDecimal()
+                .multiply(BigDecimal.valueOf(elapsed))
+                .divide(BigDecimal.valueOf(span), Quantity.SCALE, RoundingMode.HALF_UP);
+        return before.value.plus(Quantity.of(delta));
+    }
+}
@@ -0,0 +1,142 @@
+package com.brunata.meteringdemo.services;
+
+import com.brunata.meteringdemo.common.UuidV7;
+import com.brunata.meteringdemo.services.dto.IngestResult;
+import com.brunata.meteringdemo.services.dto.ReadingDto;
+import com.brunata.meteringdemo.services.ingest.DeviceLastSeenTracker;
+import com.brunata.meteringdemo.services.ingest.DeviceWatermarkCache;
+import com.brunata.meteringdemo.services.ingest.IngestMetrics;
+import com.brunata.meteringdemo.services.ingest.ReadingValidator;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Bulk-Ingest für Messwerte (Gateway-Batches mit tausenden Einträgen).
+ *
+ * Ablauf (eine Transaktion; fehlende Monatspartitionen werden vorher, außerhalb davon angelegt):
+ * - Batch nach Gerät gruppieren, je Gerät nach `readingTime` sortieren und die Monotonie (Zeit + Wert) in-memory
+ *   prüfen ({@link ReadingValidator}); Geräte + letzten Messwert über den {@link DeviceWatermarkCache} auflösen
+ *   (Misses mit einer einzigen Query)
+ * - akzeptierte Messwerte per JDBC-Batch-Insert schreiben, tatsächlich eingefügte in den {@link DailyReadingRollup}
+ *   übernehmen, `lastSeenAt` nach Commit an den {@link DeviceLastSeenTracker} melden
+ * - Dauer, Ablehnungen je Regel und gespeicherte Messwerte je Quelle an {@link IngestMetrics}
+ *
+ * Regeln wie in {@link ReadingService}; akzeptierte Werte eines Batches bilden die Basis für nachfolgende Werte desselben Geräts.
+ */
+@Service
+public class ReadingBatchService {
+
+    static final String INSERT_SQL = """
+            insert into meter_reading (id, device_id, reading_time, value, unit, source)
+            values (?, ?, ?, ?, ?, ?)
+            on conflict (id, reading_time) do nothing
+            """;
+
+    // Größe der JDBC-Batches (Anzahl Statements pro Roundtrip)
+    static final int JDBC_BATCH_SIZE = 500;
+
+    private final DeviceWatermarkCache watermarks;
+    private final DeviceLastSeenTracker lastSeen;
+    private final ReadingPartitionManager partitions;
+    private final DailyReadingRollup rollup;
+    private final JdbcTemplate jdbc;
+    private final IngestMetrics metrics;
+    private final TransactionTemplate tx;
+
+    public ReadingBatchService(DeviceWatermarkCache watermarks, DeviceLastSeenTracker lastSeen,
+                               ReadingPartitionManager partitions, DailyReadingRollup rollup, JdbcTemplate jdbc,
+                               IngestMetrics metrics, PlatformTransactionManager txManager) {
+        this.watermarks = watermarks;
+        this.lastSeen = lastSeen;
+        this.partitions = partitions;
+        this.rollup = rollup;
+        this.jdbc = jdbc;
+        this.metrics = metrics;
+        this.tx = new TransactionTemplate(txManager);
+    }
+
+    /**
+     * Validiert und speichert einen Batch von Messwerten. Ungültige Einträge werden übersprungen
+     * und im Ergebnis mit ihrem Index gemeldet; gültige Einträge werden gespeichert.
+     */
+    public IngestResult ingest(List<ReadingDto> readings) {
+        return ingest(readings, null);
+    }
+
+    /**
+     * Wie {@link #ingest(List)}, aber mit vorab vergebenen IDs (gleicher Index wie `readings`).
+     * Bereits vorhandene IDs werden beim Insert übersprungen; damit ist ein Replay (z. B. aus dem WAL) idempotent.
+     */
+    public IngestResult ingest(List<ReadingDto> readings, List<UUID> ids) {
+        if (ids != null && ids.size() != readings.size()) {
+            throw new IllegalArgumentException("ids must match readings");
+        }
+        if (readings.isEmpty()) return new IngestResult(0, 0, 0, List.of());
+
+        // 0) Monatspartitionen sicherstellen – vor der Transaktion, damit sie gesehen werden und das Anlegen
+        //    keine zweite Verbindung belegt; Messwerte vor dem Aufbewahrungshorizont lehnt die Prüfung ab
+        var horizon = partitions.horizon();
+        partitions.ensureCovered(readings.stream().map(ReadingDto::readingTime).toList());
+        return tx.execute(status -> store(readings, ids, horizon));
+    }
+
+    private IngestResult store(List<ReadingDto> readings, List<UUID> ids, Instant horizon) {
+        metrics.timeTransaction(IngestMetrics.Operation.BATCH);
+
+        // 1) Gruppieren/Sortieren je Gerät, Watermarks über den Cache (Misses gesammelt in einer Query),
+        //    Monotonie (Zeit + Wert) in-memory über den sortierten Batch prüfen
+        var outcome = ReadingValidator.validate(readings, watermarks::getAll, horizon);
+
+        // 2) Schreiben: JDBC-Batch-Insert + Tages-Rollup; Cache + lastSeenAt nach Commit
+        if (!outcome.accepted().isEmpty()) {
+            List<ReadingDto> accepted = new ArrayList<>(outcome.accepted().size());
+            Map<ReadingDto, UUID> acceptedIds = ids != null ? new IdentityHashMap<>() : null;
+            for (var it : outcome.accepted()) {
+                accepted.add(it.dto());
+                if (acceptedIds != null) acceptedIds.put(it.dto(), ids.get(it.index()));
+            }
+            var inserted = insert(accepted, acceptedIds);
+            rollup.add(inserted);
+            metrics.storedAfterCommit(inserted);
+            watermarks.advanceAfterCommit(outcome.advanced());
+            lastSeen.touchAfterCommit(Set.copyOf(outcome.advanced().keySet()), Instant.now());
+        }
+
+        outcome.errors().forEach(e -> metrics.rejected(e.message()));
+        return new IngestResult(readings.size(), outcome.accepted().size(), outcome.errors().size(), outcome.errors());
+    }
+
+    /** Schreibt die Zeilen und liefert die tatsächlich eingefügten (ohne per ON CONFLICT übersprungene). */
+    private List<ReadingDto> insert(List<ReadingDto> rows, Map<ReadingDto, UUID> ids) {
+        int[][] counts = jdbc.batchUpdate(INSERT_SQL, rows, JDBC_BATCH_SIZE, (ps, dto) -> {
+            ps.setObject(1, ids != null ? ids.get(dto) : UuidV7.next());
+            ps.setObject(2, dto.deviceId());
+            ps.setObject(3, dto.readingTime().atOffset(ZoneOffset.UTC));
+            ps.setBigDecimal(4, dto.value());
+            ps.setString(5, dto.unit());
+            ps.setString(6, dto.source());
+        });
+        if (ids == null) return rows; // frische IDs: kein Konflikt möglich
+        List<ReadingDto> inserted = new ArrayList<>(rows.size());
+        int i = 0;
+        for (int[] batch : counts) {
+            for (int c : batch) {
+                // 0 = Konflikt (Replay); SUCCESS_NO_INFO (-2) zählt als eingefügt
+                if (c != 0) inserted.add(rows.get(i));
+                i++;
+            }
+        }
+        return inserted;
+    }
+}
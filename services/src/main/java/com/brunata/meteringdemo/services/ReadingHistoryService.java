@@ -0,0 +1,136 @@
+package com.brunata.meteringdemo.services;
+
+import com.brunata.meteringdemo.common.ValidationException;
+import com.brunata.meteringdemo.services.dto.ReadingPage;
+import com.brunata.meteringdemo.services.dto.ReadingView;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Lesezugriff auf die Messwert-Historie eines Geräts, ohne die komplette Historie im Speicher zu halten.
+ *
+ * - {@link #page}: Keyset-Pagination über den Index `(device_id, reading_time)`; Cursor ist
+ *   (`readingTime`, `id`) des letzten Eintrags, damit gleiche Zeitstempel nicht übersprungen werden.
+ *   Kosten je Seite unabhängig von der Position in der Historie (kein OFFSET).
+ * - {@link #stream}: Forward-only JDBC-Cursor (Fetch-Size, PostgreSQL liefert dann portionsweise),
+ *   jede Zeile geht direkt an den Consumer.
+ * Beide Wege mappen per JDBC auf {@link ReadingView} statt Entities zu hydrieren.
+ */
+@Service
+public class ReadingHistoryService {
+
+    public static final int DEFAULT_LIMIT = 500;
+    public static final int MAX_LIMIT = 5000;
+    static final int STREAM_FETCH_SIZE = 1000;
+
+    private static final String COLUMNS = "select id, device_id, reading_time, value, unit, source from meter_reading";
+    private static final RowMapper<ReadingView> MAPPER = (rs, i) -> map(rs);
+
+    private final JdbcTemplate jdbc;
+
+    public ReadingHistoryService(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Liefert eine Seite aufsteigend nach Zeit im Bereich [`from`, `to`) (beide optional), beginnend nach dem
+     * Cursor `after`/`afterId` (exklusiv; ohne `afterId` alle Einträge nach `after`).
+     */
+    @Transactional(readOnly = true)
+    public ReadingPage page(UUID deviceId, Instant from, Instant to, Instant after, UUID afterId, Integer limit) {
+        int size = limit == null ? DEFAULT_LIMIT : limit;
+        if (size < 1 || size > MAX_LIMIT) {
+            throw new ValidationException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        if (afterId != null && after == null) {
+            throw new ValidationException("afterId requires after");
+        }
+        var sql = new StringBuilder(COLUMNS).append(" where device_id = ?");
+        List<Object> args = new ArrayList<>();
+        args.add(deviceId);
+        appendRange(sql, args, from, to);
+        if (after != null) {
+            // reading_time >= ? zusätzlich zur Row-Bedingung: Partition Pruning + Index-Startpunkt
+            sql.append(" and reading_time >= ?");
+            args.add(Timestamp.from(after));
+            if (afterId != null) {
+                sql.append(" and (reading_time, id) > (?, ?)");
+                args.add(Timestamp.from(after));
+                args.add(afterId);
+            } else {
+                sql.append(" and reading_time > ?");
+                args.add(Timestamp.from(after));
+            }
+        }
+        sql.append(" order by reading_time, id limit ?");
+        args.add(size + 1);
+
+        var rows = jdbc.query(sql.toString(), MAPPER, args.toArray());
+        if (rows.size() <= size) {
+            return new ReadingPage(rows, null, null);
+        }
+        var items = rows.subList(0, size);
+        var last = items.get(size - 1);
+        return new ReadingPage(List.copyOf(items), last.readingTime(), last.id());
+    }
+
+    /**
+     * Streamt alle Messwerte im Bereich [`from`, `to`) aufsteigend nach Zeit an `sink` und liefert die Anzahl.
+     * Läuft in einer Lese-Transaktion (Voraussetzung für den Cursor), die bis zum Ende des Streams offen bleibt.
+     */
+    @Transactional(readOnly = true)
+    public long stream(UUID deviceId, Instant from, Instant to, Consumer<ReadingView> sink) {
+        var sql = new StringBuilder(COLUMNS).append(" where device_id = ?");
+        List<Object> args = new ArrayList<>();
+        args.add(deviceId);
+        appendRange(sql, args, from, to);
+        sql.append(" order by reading_time, id");
+
+        long[] count = {0};
+        jdbc.query(con -> {
+            var ps = con.prepareStatement(sql.toString(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            for (int i = 0; i < args.size(); i++) ps.setObject(i + 1, args.get(i));
+            return ps;
+        }, rs -> {
+            sink.accept(map(rs));
+            count[0]++;
+        });
+        return count[0];
+    }
+
+    private static void appendRange(StringBuilder sql, List<Object> args, Instant from, Instant to) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new ValidationException("from must be before to");
+        }
+        if (from != null) {
+            sql.append(" and reading_time >= ?");
+            args.add(Timestamp.from(from));
+        }
+        if (to != null) {
+            sql.append(" and reading_time < ?");
+            args.add(Timestamp.from(to));
+        }
+    }
+
+    private static ReadingView map(ResultSet rs) throws SQLException {
+        return new ReadingView(
+                rs.getObject("id", UUID.class),
+                rs.getObject("device_id", UUID.class),
+                rs.getTimestamp("reading_time").toInstant(),
+                rs.getBigDecimal("value"),
+                rs.getString("unit"),
+                rs.getString("source"));
+    }
+}
@@ -0,0 +1,174 @@
+package com.brunata.meteringdemo.services;
+
+import com.brunata.meteringdemo.services.config.ReadingPartitionProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Verwaltet die Monatspartitionen von `meter_reading` (Range-Partitionierung nach `reading_time`, siehe V10).
+ *
+ * - legt täglich (und beim Start) die Partitionen bis `months-ahead` Monate in die Zukunft an; laufende
+ *   Messwerte treffen damit immer eine bekannte Partition
+ * - legt fehlende ältere Monate vor dem Schreiben an ({@link #ensureCovered}), z. B. für Backfills alter Historie –
+ *   aber nie vor dem Aufbewahrungshorizont ({@link #horizon()}): entfernte Partitionen entstehen nicht neu,
+ *   Schreibpfade lehnen solche Messwerte ab
+ * - entfernt Partitionen älter als `retention-months` per DETACH CONCURRENTLY (optional anschließend DROP)
+ *
+ * Neue Partitionen entstehen als eigene Tabelle + ATTACH PARTITION in eigener Transaktion: ATTACH sperrt die
+ * Elterntabelle nur mit SHARE UPDATE EXCLUSIVE und blockiert damit laufende Inserts/Abfragen nicht.
+ * {@link #ensureCovered} wird vor Beginn der schreibenden Transaktion aufgerufen (Ingest), so dass das Anlegen
+ * keine zweite Pool-Verbindung neben der Ingest-Transaktion belegt; nur der Backfill, der die Monate erst aus der
+ * Staging-Tabelle kennt, ruft es innerhalb seiner Transaktion auf.
+ */
+@Component
+public class ReadingPartitionManager {
+    private static final Logger log = LoggerFactory.getLogger(ReadingPartitionManager.class);
+
+    static final String PARENT = "meter_reading";
+    private static final Pattern NAME = Pattern.compile(PARENT + "_y(\\d{4})m(\\d{2})");
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate requiresNew;
+    private final ReadingPartitionProperties props;
+    private final Set<YearMonth> known = ConcurrentHashMap.newKeySet();
+    private volatile boolean loaded;
+
+    public ReadingPartitionManager(JdbcTemplate jdbc, PlatformTransactionManager txManager,
+                                   ReadingPartitionProperties props) {
+        this.jdbc = jdbc;
+        this.requiresNew = new TransactionTemplate(txManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.props = props;
+    }
+
+    /**
+     * Stellt sicher, dass für alle Zeitpunkte ab dem Aufbewahrungshorizont eine Monatspartition existiert
+     * (ohne DB-Zugriff, wenn bekannt). Zeitpunkte davor werden übergangen; der Aufrufer muss sie ablehnen.
+     */
+    public void ensureCovered(Collection<Instant> times) {
+        if (!loaded) refresh();
+        var retainedFrom = retainedFrom();
+        Set<YearMonth> missing = null;
+        for (var t : times) {
+            var month = YearMonth.from(t.atOffset(ZoneOffset.UTC));
+            if (!known.contains(month) && (retainedFrom == null || !month.isBefore(retainedFrom))) {
+                if (missing == null) missing = new TreeSet<>();
+                missing.add(month);
+            }
+        }
+        if (missing != null) missing.forEach(this::create);
+    }
+
+    /**
+     * Beginn der Aufbewahrung (erster Tag des ältesten aufbewahrten Monats, UTC) oder `null` bei unbegrenzter
+     * Aufbewahrung. Ältere Messwerte haben keine Partition mehr und werden nicht mehr angenommen.
+     */
+    public Instant horizon() {
+        var retainedFrom = retainedFrom();
+        return retainedFrom == null ? null : start(retainedFrom);
+    }
+
+    /** Wartungslauf: künftige Monate anlegen, Aufbewahrung anwenden. */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${readings.partitions.cron:0 15 3 * * *}")
+    public synchronized void maintain() {
+        refresh();
+        var current = YearMonth.now(ZoneOffset.UTC);
+        for (int i = 0; i <= props.monthsAhead(); i++) {
+            if (!known.contains(current.plusMonths(i))) create(current.plusMonths(i));
+        }
+        var cutoff = retainedFrom();
+        if (cutoff != null) {
+            for (var month : new TreeSet<>(known)) {
+                if (!month.isBefore(cutoff)) continue;
+                try {
+                    retire(month);
+                } catch (DataAccessException ex) {
+                    log.warn("Could not retire partition {}: {}", name(month), ex.getMessage());
+                }
+            }
+        }
+    }
+
+    /** Aktuell angehängte Monatspartitionen (aufsteigend). */
+    public List<YearMonth> partitions() {
+        refresh();
+        return List.copyOf(new TreeSet<>(known));
+    }
+
+    private synchronized void create(YearMonth month) {
+        if (known.contains(month)) return;
+        var name = name(month);
+        try {
+            requiresNew.executeWithoutResult(tx -> {
+                jdbc.execute("create table if not exists " + name
+                        + " (like " + PARENT + " including defaults including constraints)");
+                jdbc.execute("alter table " + PARENT + " attach partition " + name
+                        + " for values from ('" + start(month) + "') to ('" + start(month.plusMonths(1)) + "')");
+            });
+            known.add(month);
+            log.info("Created partition {}", name);
+        } catch (DataAccessException ex) {
+            // parallel von einer anderen Instanz angelegt?
+            refresh();
+            if (!known.contains(month)) throw ex;
+        }
+    }
+
+    private void retire(YearMonth month) {
+        var name = name(month);
+        // CONCURRENTLY: kein ACCESS EXCLUSIVE auf meter_reading (läuft außerhalb einer Transaktion)
+        jdbc.execute("alter table " + PARENT + " detach partition " + name + " concurrently");
+        known.remove(month);
+        if (props.retentionAction() == ReadingPartitionProperties.RetentionAction.DROP) {
+            jdbc.execute("drop table " + name);
+        }
+        log.info("Retired partition {} ({})", name, props.retentionAction());
+    }
+
+    private void refresh() {
+        var names = jdbc.queryForList("""
+                select c.relname from pg_inherits i join pg_class c on c.oid = i.inhrelid
+                where i.inhparent = cast(? as regclass)
+                """, String.class, PARENT);
+        Set<YearMonth> months = new TreeSet<>();
+        for (var n : names) {
+            var m = NAME.matcher(n);
+            if (m.matches()) months.add(YearMonth.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2))));
+        }
+        known.retainAll(months);
+        known.addAll(months);
+        loaded = true;
+    }
+
+    private YearMonth retainedFrom() {
+        return props.retentionMonths() > 0 ? YearMonth.now(ZoneOffset.UTC).minusMonths(props.retentionMonths()) : null;
+    }
+
+    static String name(YearMonth month) {
+        return "%s_y%04dm%02d".formatted(PARENT, month.getYear(), month.getMonthValue());
+    }
+
+    private static Instant start(YearMonth month) {
+        return month.atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+    }
+}
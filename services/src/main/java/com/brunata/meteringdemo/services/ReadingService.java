@@ -1,51 +1,83 @@
 package com.brunata.meteringdemo.services;
 
+import com.brunata.meteringdemo.common.Quantity;
 import com.brunata.meteringdemo.common.ValidationException;
-import com.brunata.meteringdemo.domain.Device;
 import com.brunata.meteringdemo.domain.MeterReading;
-import com.brunata.meteringdemo.persistence.DeviceRepository;
 import com.brunata.meteringdemo.persistence.MeterReadingRepository;
 import com.brunata.meteringdemo.services.dto.ReadingDto;
+import com.brunata.meteringdemo.services.ingest.DeviceLastSeenTracker;
+import com.brunata.meteringdemo.services.ingest.DeviceWatermarkCache;
+import com.brunata.meteringdemo.services.ingest.IngestMetrics;
+import com.brunata.meteringdemo.services.ingest.ReadingValidator;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Instant;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
 
 /**
  * Service für Messwerte.
  * Regeln:
  * - Zeitliche Monotonie: neuer Messwert darf nicht vor dem letzten liegen
  * - Werte-Monotonie: neuer Zählerstand darf nicht kleiner sein
+ * - Wertebereich: Wert muss in `NUMERIC(18,6)` passen (sonst 400 statt Überlauf beim Speichern)
+ * Geprüft wird ({@link ReadingValidator}) gegen den {@link DeviceWatermarkCache} (DB-Zugriff nur bei Cache-Miss);
+ * `lastSeenAt` wird über den {@link DeviceLastSeenTracker} gesammelt geschrieben, der Tages-Rollup
+ * ({@link DailyReadingRollup}) in derselben Transaktion fortgeschrieben. Dauer, Ablehnungen und Quellen
+ * erfasst {@link IngestMetrics}. Aufbewahrungshorizont und Monatspartition werden vor Beginn der Transaktion
+ * geprüft bzw. angelegt ({@link ReadingPartitionManager}).
  */
 @Service
 public class ReadingService {
 
-    private final DeviceRepository deviceRepo;
     private final MeterReadingRepository readingRepo;
+    private final DeviceWatermarkCache watermarks;
+    private final DeviceLastSeenTracker lastSeen;
+    private final ReadingPartitionManager partitions;
+    private final DailyReadingRollup rollup;
+    private final IngestMetrics metrics;
+    private final TransactionTemplate tx;
 
-    public ReadingService(DeviceRepository deviceRepo, MeterReadingRepository readingRepo) {
-        this.deviceRepo = deviceRepo;
+    public ReadingService(MeterReadingRepository readingRepo, DeviceWatermarkCache watermarks, DeviceLastSeenTracker lastSeen,
+                          ReadingPartitionManager partitions, DailyReadingRollup rollup, IngestMetrics metrics,
+                          PlatformTransactionManager txManager) {
         this.readingRepo = readingRepo;
+        this.watermarks = watermarks;
+        this.lastSeen = lastSeen;
+        this.partitions = partitions;
+        this.rollup = rollup;
+        this.metrics = metrics;
+        this.tx = new TransactionTemplate(txManager);
     }
 
     /**
      * Speichert einen Messwert nach Validierung gegen die letzte bekannte Messung.
      */
-    @Transactional
     public MeterReading save(ReadingDto dto) {
-        Device d = deviceRepo.findById(dto.deviceId())
-                .orElseThrow(() -> new ValidationException("Unknown device: " + dto.deviceId()));
-        var last = readingRepo.findTop1ByDeviceIdOrderByReadingTimeDesc(d.getId());
-        last.ifPresent(mr -> {
-            if (dto.readingTime().isBefore(mr.getReadingTime())) {
-                throw new ValidationException("Reading time must be >= last reading time");
-            }
-            if (dto.value().compareTo(mr.getValue()) < 0) {
-                throw new ValidationException("Monotonicity violated for device " + d.getSerialNo());
-            }
-        });
+        var expired = ReadingValidator.retention(partitions.horizon(), dto);
+        if (expired != null) {
+            metrics.rejected(expired);
+            throw new ValidationException(expired);
+        }
+        var value = ReadingValidator.quantity(dto);
+        if (value == null) {
+            metrics.rejected(ReadingValidator.VALUE_RANGE);
+            throw new ValidationException(ReadingValidator.VALUE_RANGE);
+        }
+        partitions.ensureCovered(List.of(dto.readingTime()));
+        return tx.execute(status -> store(dto, value));
+    }
+
+    private MeterReading store(ReadingDto dto, Quantity value) {
+        metrics.timeTransaction(IngestMetrics.Operation.SAVE);
+        var wm = watermarks.get(dto.deviceId());
+        var violation = ReadingValidator.violation(wm, dto, value);
+        if (violation != null) {
+            metrics.rejected(violation);
+            throw new ValidationException(violation);
+        }
 
         var mr = new MeterReading();
         mr.setDeviceId(dto.deviceId());
@@ -54,16 +86,11 @@ public class ReadingService {
         mr.setUnit(dto.unit());
         mr.setSource(dto.source());
 
-        d.setLastSeenAt(Instant.now());
-        deviceRepo.save(d);
-        return readingRepo.save(mr);
-    }
-
-    /**
-     * Liefert Messwerte für ein Gerät (Demo: in-memory Filter; produktiv via Query).
-     */
-    @Transactional(readOnly = true)
-    public List<MeterReading> list(UUID deviceId) {
-        return readingRepo.findByDeviceIdOrderByReadingTimeAsc(deviceId);
+        var saved = readingRepo.save(mr);
+        rollup.add(List.of(dto));
+        watermarks.advanceAfterCommit(Map.of(dto.deviceId(), wm.advance(dto.readingTime(), value)));
+        lastSeen.touchAfterCommit(List.of(dto.deviceId()), Instant.now());
+        metrics.storedAfterCommit(List.of(dto));
+        return saved;
     }
 }
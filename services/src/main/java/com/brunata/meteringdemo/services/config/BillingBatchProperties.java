@@ -0,0 +1,19 @@
+package com.brunata.meteringdemo.services.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Konfigurationswerte für den Sammel-Abrechnungslauf aller Verträge (`POST /api/billing/run-all`).
+ *
+ * Properties (application.yml):
+ * billing.batch.chunk-size: Verträge je Chunk (ein Verbrauchs-Query und ein Insert-Batch je Chunk)
+ * billing.batch.parallelism: parallel verarbeitete Chunks (Worker-Threads, belegt ebenso viele DB-Verbindungen)
+ * billing.batch.retained-runs: Anzahl Läufe, deren Fortschritt im Speicher abrufbar bleibt
+ */
+@ConfigurationProperties(prefix = "billing.batch")
+public record BillingBatchProperties(
+        @DefaultValue("1000") int chunkSize,
+        @DefaultValue("4") int parallelism,
+        @DefaultValue("20") int retainedRuns
+) {}
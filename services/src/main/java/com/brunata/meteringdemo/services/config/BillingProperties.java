@@ -1,8 +1,10 @@
 package com.brunata.meteringdemo.services.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
 
 import java.math.RoundingMode;
+import java.time.Duration;
 
 /**
  * Konfigurationswerte für die Abrechnung.
@@ -10,7 +12,30 @@ import java.math.RoundingMode;
  * Properties (application.yml):
  * billing.scale: Dezimalstellen für Betragsrundung (z. B. 2)
  * billing.rounding-mode: Rundungsmodus (z. B. HALF_UP)
+ * billing.consumption-mode: BOUNDARY (erster/letzter Messwert im Zeitraum) oder INTERPOLATED (Zählerstand an den
+ *   Zeitraumgrenzen linear interpoliert; aufeinanderfolgende Rechnungen schließen lückenlos aneinander an)
+ * billing.max-reading-gap: maximaler Abstand einer Stützstelle zur Zeitraumgrenze (INTERPOLATED); begrenzt die
+ *   Index-Seeks an den Grenzen auf beiden Seiten, damit nur die angrenzenden Monatspartitionen gelesen werden
+ * billing.idempotency.max-size: maximale Anzahl gemerkter `Idempotency-Key`-Ergebnisse (knotenlokal)
+ * billing.idempotency.ttl: Aufbewahrungsdauer eines Ergebnisses je `Idempotency-Key`
  */
 @ConfigurationProperties(prefix = "billing")
-public record BillingProperties(int scale, RoundingMode roundingMode) {
+public record BillingProperties(int scale,
+                                RoundingMode roundingMode,
+                                @DefaultValue("BOUNDARY") ConsumptionMode consumptionMode,
+                                @DefaultValue("31d") Duration maxReadingGap,
+                                @DefaultValue Idempotency idempotency) {
+
+    public record Idempotency(
+            @DefaultValue("100000") long maxSize,
+            @DefaultValue("24h") Duration ttl
+    ) {}
+
+    /** Ermittlung des Verbrauchs eines Zeitraums [from 00:00 UTC, to+1 00:00 UTC). */
+    public enum ConsumptionMode {
+        /** Letzter minus erster Messwert innerhalb des Zeitraums (Verbrauch zwischen Zeiträumen bleibt offen). */
+        BOUNDARY,
+        /** Zählerstand an beiden Grenzen aus den nächstgelegenen Messwerten davor/danach interpoliert. */
+        INTERPOLATED
+    }
 }
@@ -0,0 +1,21 @@
+package com.brunata.meteringdemo.services.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Konfigurationswerte des ERP-Kundensyncs.
+ *
+ * Properties (application.yml):
+ * integration.erp.batch-size: Kunden je Upsert-Batch (Speicherbedarf unabhängig von der Katalog-Größe)
+ * integration.erp.request-timeout: Timeout bis zum Eintreffen der Antwort-Header
+ * integration.erp.idle-timeout: maximale Pause zwischen zwei Kunden im Stream
+ */
+@ConfigurationProperties(prefix = "integration.erp")
+public record ErpSyncProperties(
+        @DefaultValue("500") int batchSize,
+        @DefaultValue("5s") Duration requestTimeout,
+        @DefaultValue("30s") Duration idleTimeout
+) {}
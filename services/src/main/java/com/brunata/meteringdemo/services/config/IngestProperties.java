@@ -0,0 +1,59 @@
+package com.brunata.meteringdemo.services.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Konfigurationswerte für den Ingest-Pfad (Messwerte).
+ *
+ * Properties (application.yml):
+ * ingest.watermark-cache.enabled: Watermark-Cache (letzter Messwert je Gerät) ein/aus
+ * ingest.watermark-cache.max-size: maximale Anzahl Geräte im Cache (LRU-nahe Verdrängung)
+ * ingest.watermark-cache.ttl: maximale Lebensdauer eines Eintrags (begrenzt Staleness bei Fremd-Schreibern)
+ * ingest.watermark-cache.negative-ttl: Lebensdauer für „Gerät unbekannt“-Einträge
+ * ingest.ndjson.chunk-size: Anzahl Zeilen je Persistierungs-Chunk beim NDJSON-Streaming-Ingest
+ * ingest.ndjson.max-line-length: maximale Zeichen je NDJSON-Zeile; längere Zeilen werden abgelehnt und übersprungen
+ * ingest.async.enabled: asynchroner Ingest über das lokale Write-Ahead-Log (`POST /api/readings/async`)
+ * ingest.async.directory: Verzeichnis der WAL-Segmente (persistentes Volume)
+ * ingest.async.shards: Anzahl Shards/Worker (Zuordnung per deviceId-Hash, Reihenfolge je Gerät bleibt erhalten)
+ * ingest.async.segment-size: Größe einer memory-mapped Segmentdatei
+ * ingest.async.fsync: ALWAYS (vor dem 202), INTERVAL (alle `ingest.async.fsync-interval`), NEVER (nur Page-Cache)
+ * ingest.async.batch-size: max. Messwerte je Worker-Transaktion
+ * ingest.async.max-attempts: Fehlversuche eines Batches, nach denen er satzweise geschrieben wird; dauerhaft
+ *   scheiternde Sätze gehen in die Dead-Letter-Datei des Shards
+ * ingest.async.max-pending-per-shard: Obergrenze offener Messwerte je Shard (darüber 503)
+ */
+@ConfigurationProperties(prefix = "ingest")
+public record IngestProperties(@DefaultValue WatermarkCache watermarkCache,
+                               @DefaultValue Ndjson ndjson,
+                               @DefaultValue Async async) {
+
+    public record WatermarkCache(
+            @DefaultValue("true") boolean enabled,
+            @DefaultValue("100000") long maxSize,
+            @DefaultValue("10m") Duration ttl,
+            @DefaultValue("30s") Duration negativeTtl
+    ) {}
+
+    public record Ndjson(
+            @DefaultValue("500") int chunkSize,
+            @DefaultValue("65536") int maxLineLength
+    ) {}
+
+    public record Async(
+            @DefaultValue("false") boolean enabled,
+            @DefaultValue("data/ingest-wal") String directory,
+            @DefaultValue("4") int shards,
+            @DefaultValue("32MB") DataSize segmentSize,
+            @DefaultValue("INTERVAL") FsyncPolicy fsync,
+            @DefaultValue("500") int batchSize,
+            @DefaultValue("1000000") long maxPendingPerShard,
+            @DefaultValue("5") int maxAttempts
+    ) {}
+
+    /** Wann WAL-Seiten per fsync auf das Speichermedium geschrieben werden. */
+    public enum FsyncPolicy { ALWAYS, INTERVAL, NEVER }
+}
@@ -1,6 +1,9 @@
 package com.brunata.meteringdemo.services.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
 
 /**
  * Konfigurationswerte für Integrationsjobs (z. B. Jira-/ERP-Sync).
@@ -10,11 +13,18 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  * integration.jira-base-url: Basis-URL des Jira-Mock-Services
  * integration.erp-base-url: Basis-URL des ERP-Mock-Services
  * integration.offline-hours: Schwellenwert, ab wann ein Gerät als „offline“ gilt
+ * integration.offline-page-size: Geräte je Keyset-Seite des Offline-Reports
+ * integration.offline-run-budget: maximale Laufzeit eines Offline-Reports; der nächste Lauf setzt an der
+ *   gespeicherten Position fort (kleiner als das Scheduling-Intervall von 5 Minuten halten)
+ * integration.jira-close-on-recovery: Issues schließen, sobald das Gerät wieder Messwerte liefert
  */
 @ConfigurationProperties(prefix = "integration")
 public record IntegrationProperties(
         boolean enabled,
         String jiraBaseUrl,
         String erpBaseUrl,
-        int offlineHours
+        int offlineHours,
+        @DefaultValue("200") int offlinePageSize,
+        @DefaultValue("4m") Duration offlineRunBudget,
+        @DefaultValue("false") boolean jiraCloseOnRecovery
 ) {}
@@ -0,0 +1,32 @@
+package com.brunata.meteringdemo.services.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Konfigurationswerte des Jira-Clients (Bulk-Anlage, adaptive Parallelität, Circuit Breaker).
+ *
+ * Properties (application.yml):
+ * integration.jira.batch-size: Issues je Bulk-Request (Jira erlaubt höchstens 50)
+ * integration.jira.initial-concurrency / min-concurrency / max-concurrency: Start- und Grenzwerte der parallelen
+ *   Requests; dazwischen regelt AIMD (+1 je Limit erfolgreicher Requests, Halbierung bei Fehlern)
+ * integration.jira.latency-target: Requests darüber gelten als Überlastsignal (Limit sinkt wie bei Fehlern)
+ * integration.jira.request-timeout: Timeout je Request
+ * integration.jira.max-attempts: Versuche je Batch bei wiederholbaren Fehlern (5xx, 429, Timeout) innerhalb eines Laufs
+ * integration.jira.failure-threshold: aufeinanderfolgende Fehler, nach denen der Circuit Breaker öffnet
+ * integration.jira.open-duration: Wartezeit im offenen Zustand bis zum Probe-Request
+ */
+@ConfigurationProperties(prefix = "integration.jira")
+public record JiraClientProperties(
+        @DefaultValue("50") int batchSize,
+        @DefaultValue("4") int initialConcurrency,
+        @DefaultValue("1") int minConcurrency,
+        @DefaultValue("32") int maxConcurrency,
+        @DefaultValue("1s") Duration latencyTarget,
+        @DefaultValue("5s") Duration requestTimeout,
+        @DefaultValue("3") int maxAttempts,
+        @DefaultValue("5") int failureThreshold,
+        @DefaultValue("60s") Duration openDuration
+) {}
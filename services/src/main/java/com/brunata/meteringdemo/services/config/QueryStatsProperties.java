@@ -0,0 +1,21 @@
+package com.brunata.meteringdemo.services.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Konfigurationswerte für die SQL-Statement-Statistik (`/actuator/querystats`).
+ *
+ * Properties (application.yml):
+ * jdbc.query-stats.enabled: DataSource instrumentieren (aus = keine Erfassung, kein Proxy)
+ * jdbc.query-stats.slow-threshold: Statements ab dieser Dauer werden mit aufrufender Service-Methode geloggt
+ * jdbc.query-stats.max-fingerprints: maximale Anzahl unterschiedlicher Fingerprints; weitere zählen unter `<other>`
+ */
+@ConfigurationProperties(prefix = "jdbc.query-stats")
+public record QueryStatsProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("500ms") Duration slowThreshold,
+        @DefaultValue("500") int maxFingerprints
+) {}
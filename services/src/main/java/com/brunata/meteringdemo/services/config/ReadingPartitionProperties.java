@@ -0,0 +1,23 @@
+package com.brunata.meteringdemo.services.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Konfigurationswerte für die Monatspartitionen von `meter_reading`.
+ *
+ * Properties (application.yml):
+ * readings.partitions.months-ahead: Anzahl künftiger Monate, die vorab angelegt werden
+ * readings.partitions.retention-months: Aufbewahrung in Monaten (0 = unbegrenzt); ältere Partitionen werden entfernt,
+ *   Messwerte vor diesem Horizont abgelehnt (keine Neuanlage entfernter Monate)
+ * readings.partitions.retention-action: DETACH (Tabelle bleibt für Archivierung erhalten) oder DROP
+ * readings.partitions.cron: Zeitplan des Wartungsjobs
+ */
+@ConfigurationProperties(prefix = "readings.partitions")
+public record ReadingPartitionProperties(
+        @DefaultValue("3") int monthsAhead,
+        @DefaultValue("0") int retentionMonths,
+        @DefaultValue("DETACH") RetentionAction retentionAction
+) {
+    public enum RetentionAction { DETACH, DROP }
+}
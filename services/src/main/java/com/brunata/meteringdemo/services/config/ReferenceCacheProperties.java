@@ -0,0 +1,21 @@
+package com.brunata.meteringdemo.services.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Konfigurationswerte für den Cache der Stammdaten (Verträge, Tarife, Geräte).
+ *
+ * Properties (application.yml):
+ * reference.cache.enabled: Cache ein/aus (aus = jede Abfrage geht an die Datenbank)
+ * reference.cache.max-size: maximale Anzahl Einträge je Cache (Verträge, Tarife, Geräte getrennt)
+ * reference.cache.ttl: maximale Lebensdauer eines Eintrags (begrenzt Staleness bei Änderungen außerhalb der Services)
+ */
+@ConfigurationProperties(prefix = "reference.cache")
+public record ReferenceCacheProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("100000") long maxSize,
+        @DefaultValue("10m") Duration ttl
+) {}
@@ -0,0 +1,22 @@
+package com.brunata.meteringdemo.services.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Konfigurationswerte für den Generator synthetischer Testdaten (`POST /api/demo/synthetic`, CLI `--generate-data`).
+ *
+ * Properties (application.yml):
+ * demo.synthetic.enabled: REST-Endpunkt freigeben (Default aus – die öffentliche Demo hat keine Authentifizierung;
+ *   die CLI ist davon unabhängig)
+ * demo.synthetic.chunk-size: Zähler je Transaktion (ein COPY für Messwerte und Tages-Rollup je Chunk)
+ * demo.synthetic.parallelism: parallel geschriebene Chunks (Worker-Threads, belegt ebenso viele DB-Verbindungen)
+ * demo.synthetic.retained-runs: Anzahl Läufe, deren Ergebnis im Speicher abrufbar bleibt
+ */
+@ConfigurationProperties(prefix = "demo.synthetic")
+public record SyntheticDataProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("100") int chunkSize,
+        @DefaultValue("4") int parallelism,
+        @DefaultValue("10") int retainedRuns
+) {}
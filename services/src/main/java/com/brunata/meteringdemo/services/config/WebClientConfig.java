@@ -24,6 +24,7 @@ public class WebClientConfig {
 
             builder.clientConnector(new ReactorClientHttpConnector(httpClient));
 
+            // Obergrenze je gepuffertem Body; bei NDJSON-Streams je Zeile (ERP-Kundensync)
             builder.codecs(cfg -> cfg.defaultCodecs().maxInMemorySize(256 * 1024));
 
             builder.defaultHeaders(h -> h.add("User-Agent", "metering-demo/0.1"));
@@ -0,0 +1,7 @@
+package com.brunata.meteringdemo.services.dto;
+
+/**
+ * Quittung eines asynchronen Ingests (HTTP 202): Anzahl dauerhaft eingereihter Messwerte
+ * und Gesamtzahl noch nicht verarbeiteter Messwerte nach dem Anhängen.
+ */
+public record AsyncIngestReceipt(int queued, long queueDepth) {}
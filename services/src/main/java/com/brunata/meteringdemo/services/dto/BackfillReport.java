@@ -0,0 +1,24 @@
+package com.brunata.meteringdemo.services.dto;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Ergebnis eines historischen Backfills.
+ * - phaseMillis: Dauer je Phase (copy, validate, insert, report) in Millisekunden
+ * - rowsPerSecond: Durchsatz bezogen auf gestagte Zeilen und Gesamtdauer
+ * - errors: Auszug der abgelehnten Zeilen (vollständig über die Backfill-ID abrufbar)
+ */
+public record BackfillReport(
+        UUID backfillId,
+        long rowsStaged,
+        long rowsInserted,
+        long rowsRejected,
+        Map<String, Long> phaseMillis,
+        double rowsPerSecond,
+        List<BackfillError> errors
+) {
+    /** Abgelehnte Zeile (n-ter Datensatz des Uploads) mit Rohwerten und Grund. */
+    public record BackfillError(long lineNo, String deviceId, String readingTime, String value, String reason) {}
+}
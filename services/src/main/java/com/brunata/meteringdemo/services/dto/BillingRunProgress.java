@@ -0,0 +1,34 @@
+package com.brunata.meteringdemo.services.dto;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Fortschritt eines Sammel-Abrechnungslaufs (Momentaufnahme).
+ * - contracts: bisher gelesene, noch nicht abgerechnete Verträge
+ * - alreadyInvoiced: beim Insert bereits vorhandene Rechnungen (paralleler Lauf/Einzelabrechnung)
+ * - withoutReadings / negativeConsumption: übersprungene Verträge (keine Rechnung erzeugt)
+ * - errors: Auszug der Fehlermeldungen fehlgeschlagener Chunks
+ */
+public record BillingRunProgress(
+        UUID runId,
+        LocalDate from,
+        LocalDate to,
+        Status status,
+        long chunksSubmitted,
+        long chunksCompleted,
+        long chunksFailed,
+        long contracts,
+        long invoicesCreated,
+        long alreadyInvoiced,
+        long withoutReadings,
+        long negativeConsumption,
+        Instant startedAt,
+        Instant finishedAt,
+        List<String> errors
+) {
+    /** Status eines Laufs; nach Fehlern kann derselbe Zeitraum erneut gestartet werden (setzt dort fort). */
+    public enum Status { RUNNING, COMPLETED, COMPLETED_WITH_ERRORS, FAILED }
+}
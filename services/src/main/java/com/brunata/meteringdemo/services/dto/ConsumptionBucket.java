@@ -0,0 +1,57 @@
+package com.brunata.meteringdemo.services.dto;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.IsoFields;
+import java.time.temporal.TemporalUnit;
+
+/**
+ * Bucket-Größen für Verbrauchsreihen (UTC). Die Reihenfolge ist die Vergröberungsleiter bei zu vielen Punkten.
+ * `field` entspricht dem PostgreSQL-`date_trunc`-Feld, `interval` der Schrittweite in SQL.
+ */
+public enum ConsumptionBucket {
+    HOUR("hour", "1 hour", ChronoUnit.HOURS),
+    DAY("day", "1 day", ChronoUnit.DAYS),
+    WEEK("week", "1 week", ChronoUnit.WEEKS),
+    MONTH("month", "1 month", ChronoUnit.MONTHS),
+    QUARTER("quarter", "3 months", IsoFields.QUARTER_YEARS),
+    YEAR("year", "1 year", ChronoUnit.YEARS);
+
+    private final String field;
+    private final String interval;
+    private final TemporalUnit unit;
+
+    ConsumptionBucket(String field, String interval, TemporalUnit unit) {
+        this.field = field;
+        this.interval = interval;
+        this.unit = unit;
+    }
+
+    public String field() {
+        return field;
+    }
+
+    public String interval() {
+        return interval;
+    }
+
+    /** Beginn des Buckets, in dem `t` liegt (wie `date_trunc`; Wochen beginnen montags). */
+    public LocalDateTime truncate(LocalDateTime t) {
+        var day = t.truncatedTo(ChronoUnit.DAYS);
+        return switch (this) {
+            case HOUR -> t.truncatedTo(ChronoUnit.HOURS);
+            case DAY -> day;
+            case WEEK -> day.minusDays(t.getDayOfWeek().getValue() - 1L);
+            case MONTH -> day.withDayOfMonth(1);
+            case QUARTER -> day.withDayOfMonth(1).withMonth((t.get(IsoFields.QUARTER_OF_YEAR) - 1) * 3 + 1);
+            case YEAR -> day.withDayOfYear(1);
+        };
+    }
+
+    /** Anzahl Buckets, die [from, to) überdeckt. */
+    public long count(LocalDateTime from, LocalDateTime to) {
+        var start = truncate(from);
+        long n = unit.between(start, to);
+        return start.plus(n, unit).isBefore(to) ? n + 1 : n;
+    }
+}
@@ -0,0 +1,20 @@
+package com.brunata.meteringdemo.services.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Verbrauchsreihe eines Geräts im Zeitraum [`from`, `to`).
+ * `bucket` ist die tatsächlich verwendete Bucket-Größe (ggf. gröber als `requestedBucket`, um `maxPoints` einzuhalten).
+ */
+public record ConsumptionSeries(UUID deviceId, Instant from, Instant to,
+                                ConsumptionBucket requestedBucket, ConsumptionBucket bucket,
+                                List<Point> points) {
+    /**
+     * Verbrauch eines Buckets (Beginn in UTC); `consumption` ist null, wenn im Bucket kein Messwert liegt
+     * (der Verbrauch fällt dann dem nächsten Bucket mit Messwert zu).
+     */
+    public record Point(Instant start, BigDecimal consumption, int readings) {}
+}
@@ -0,0 +1,12 @@
+package com.brunata.meteringdemo.services.dto;
+
+import java.util.List;
+
+/**
+ * Kompakte Zusammenfassung eines Batch-Ingests.
+ * Akzeptierte Einträge werden nur gezählt; abgelehnte Einträge mit Index (Position im Request) und Grund gelistet.
+ */
+public record IngestResult(int received, int accepted, int rejected, List<ItemError> errors) {
+    /** Abgelehnter Eintrag: Index im Eingabe-Batch (0-basiert) + Fehlermeldung. */
+    public record ItemError(int index, String message) {}
+}
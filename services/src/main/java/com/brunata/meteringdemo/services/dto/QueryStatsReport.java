@@ -0,0 +1,30 @@
+package com.brunata.meteringdemo.services.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * SQL-Statement-Statistik seit `since` (Start oder letzter Reset), je normalisiertem Fingerprint.
+ * Zeiten messen die Ausführung (execute*) ohne das Lesen der Ergebniszeilen; `rows` = gelesene Zeilen bzw.
+ * Update-Counts. `p99Ms` stammt aus einem logarithmischen Histogramm (Auflösung ca. 25 %).
+ */
+public record QueryStatsReport(
+        Instant since,
+        long slowThresholdMs,
+        int fingerprints,
+        List<Statement> statements
+) {
+    /** Statistik eines Fingerprints; `slowCaller` = aufrufende Methode des letzten langsamen Aufrufs. */
+    public record Statement(
+            String fingerprint,
+            long count,
+            double totalMs,
+            double meanMs,
+            double maxMs,
+            double p99Ms,
+            long rows,
+            long errors,
+            long slow,
+            String slowCaller
+    ) {}
+}
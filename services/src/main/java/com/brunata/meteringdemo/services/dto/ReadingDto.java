@@ -1,17 +1,23 @@
 package com.brunata.meteringdemo.services.dto;
 
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PastOrPresent;
 import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.UUID;
 
+/**
+ * Eingehender Messwert. Die Constraints entsprechen den Spalten von `meter_reading` (`NUMERIC(18,6)`,
+ * `VARCHAR(16)`), damit ein angenommener Messwert beim Insert nicht mehr scheitern kann.
+ */
 public record ReadingDto(
         @NotNull UUID deviceId,
         @NotNull @PastOrPresent Instant readingTime,
-        @NotNull @PositiveOrZero BigDecimal value,
-        @NotBlank String unit,
-        @NotBlank String source
+        @NotNull @PositiveOrZero @Digits(integer = 12, fraction = 6) BigDecimal value,
+        @NotBlank @Size(max = 16) String unit,
+        @NotBlank @Size(max = 16) String source
 ) {}
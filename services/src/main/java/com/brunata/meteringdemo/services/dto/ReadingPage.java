@@ -0,0 +1,11 @@
+package com.brunata.meteringdemo.services.dto;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Eine Seite der Messwert-Historie (Keyset-Pagination, aufsteigend nach `readingTime`, dann `id`).
+ * `nextAfter`/`nextAfterId` sind der Cursor für die Folgeseite; beide `null`, wenn keine weiteren Einträge folgen.
+ */
+public record ReadingPage(List<ReadingView> items, Instant nextAfter, UUID nextAfterId) {}
@@ -0,0 +1,11 @@
+package com.brunata.meteringdemo.services.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Lesesicht auf einen gespeicherten Messwert (direkt per JDBC gemappt, ohne Entity-Hydrierung).
+ * Feldnamen entsprechen der JSON-Darstellung von `MeterReading`.
+ */
+public record ReadingView(UUID id, UUID deviceId, Instant readingTime, BigDecimal value, String unit, String source) {}
@@ -0,0 +1,6 @@
+package com.brunata.meteringdemo.services.dto;
+
+import java.time.LocalDate;
+
+/** Ergebnis eines Rollup-Neuaufbaus: Zeitraum (Tage inklusive), geschriebene Gerät/Tag-Zeilen und Dauer. */
+public record RollupRebuildReport(LocalDate from, LocalDate to, long deviceDays, long millis) {}
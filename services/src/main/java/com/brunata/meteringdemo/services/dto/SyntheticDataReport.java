@@ -0,0 +1,33 @@
+package com.brunata.meteringdemo.services.dto;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Fortschritt bzw. Ergebnis eines Generator-Laufs (Momentaufnahme).
+ * - spec: verwendete Parameter (inkl. Defaults)
+ * - serialPrefix: Präfix der Seriennummern (`SYN<seed>-`), über das sich die Daten des Laufs wiederfinden lassen
+ * - devices / offlineDevices / contracts / readings / gaps / dailyRollups: bisher geschriebene (committete) Mengen
+ * - rowsPerSecond: geschriebene Messwerte je Sekunde Laufzeit
+ */
+public record SyntheticDataReport(
+        UUID runId,
+        Status status,
+        SyntheticDataSpec spec,
+        String serialPrefix,
+        int tariffs,
+        long devices,
+        long offlineDevices,
+        long contracts,
+        long readings,
+        long gaps,
+        long dailyRollups,
+        double rowsPerSecond,
+        Instant startedAt,
+        Instant finishedAt,
+        List<String> errors
+) {
+    /** Status eines Laufs. */
+    public enum Status { RUNNING, COMPLETED, FAILED }
+}
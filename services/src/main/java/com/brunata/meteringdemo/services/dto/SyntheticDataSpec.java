@@ -0,0 +1,42 @@
+package com.brunata.meteringdemo.services.dto;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+/**
+ * Parameter des Generators für synthetische Last-/Kapazitätstestdaten (fehlende Werte → Defaults, siehe
+ * {@link #withDefaults(LocalDate)}).
+ * - seed: gleicher Seed + gleiche Parameter = gleiche Stammdaten und Messreihen (Default 42)
+ * - devices / tariffs: Anzahl Zähler (je einer mit Vertrag) und Tarife (Default 1 000 / 3)
+ * - from / to: Zeitraum der Messreihen in UTC-Tagen, inklusive (Default: die letzten 365 Tage bis gestern)
+ * - interval: Messintervall (Default PT15M)
+ * - noise: relative Streuung des Verbrauchs je Intervall (Default 0.2)
+ * - gapRate: Wahrscheinlichkeit je Intervall, dass eine Lücke (1..96 Intervalle) beginnt (Default 0.001)
+ * - offlineRate: Anteil der Zähler, die im Zeitraum dauerhaft verstummen (Default 0.02)
+ */
+public record SyntheticDataSpec(
+        Long seed,
+        Integer devices,
+        Integer tariffs,
+        LocalDate from,
+        LocalDate to,
+        Duration interval,
+        Double noise,
+        Double gapRate,
+        Double offlineRate
+) {
+    /** Spec mit allen Defaults; `today` bestimmt nur den Default-Zeitraum. */
+    public SyntheticDataSpec withDefaults(LocalDate today) {
+        var end = to != null ? to : today.minusDays(1);
+        return new SyntheticDataSpec(
+                seed != null ? seed : 42L,
+                devices != null ? devices : 1_000,
+                tariffs != null ? tariffs : 3,
+                from != null ? from : end.minusDays(364),
+                end,
+                interval != null ? interval : Duration.ofMinutes(15),
+                noise != null ? noise : 0.2,
+                gapRate != null ? gapRate : 0.001,
+                offlineRate != null ? offlineRate : 0.02);
+    }
+}
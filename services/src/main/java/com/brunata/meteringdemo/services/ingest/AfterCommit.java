@@ -0,0 +1,23 @@
+package com.brunata.meteringdemo.services.ingest;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Hilfsfunktion: Aktion nach erfolgreichem Commit ausführen (ohne aktive Transaktion sofort).
+ * Für In-Memory-Zustände, die zurückgerollte Schreibvorgänge nicht sehen dürfen.
+ */
+public final class AfterCommit {
+
+    private AfterCommit() { }
+
+    public static void run(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override public void afterCommit() { action.run(); }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package com.brunata.meteringdemo.services.ingest;
+
+import com.brunata.meteringdemo.common.UuidV7;
+import com.brunata.meteringdemo.services.ReadingBatchService;
+import com.brunata.meteringdemo.services.config.IngestProperties;
+import com.brunata.meteringdemo.services.dto.AsyncIngestReceipt;
+import com.brunata.meteringdemo.services.dto.IngestResult;
+import com.brunata.meteringdemo.services.dto.ReadingDto;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchroner Ingest: Messwerte werden in ein lokales Write-Ahead-Log ({@link WriteAheadLog}) geschrieben
+ * und sofort quittiert (HTTP 202); die DB-Arbeit entkoppelt sich damit von der Request-Latenz.
+ *
+ * - Sharding per `deviceId`-Hash: ein WAL + ein Worker (virtueller Thread) je Shard, damit bleibt die
+ *   Reihenfolge je Gerät erhalten
+ * - Worker lesen bis `batch-size` Sätze und schreiben sie über {@link ReadingBatchService} (eine Transaktion);
+ *   der WAL-Checkpoint rückt erst nach erfolgreichem Commit vor, DB-Fehler werden mit Backoff wiederholt
+ * - Scheitert ein Batch `max-attempts`-mal, werden seine Sätze einzeln geschrieben; Sätze, die dabei dauerhaft
+ *   scheitern (z. B. Constraint-Verletzung, Wertebereich), gehen nach `dead-letter.ndjson` im Shard-Verzeichnis
+ *   (Format des NDJSON-Ingests + `id`/`error`, nach Korrektur erneut einspielbar) und der Checkpoint rückt vor.
+ *   Verbindungs-/Transaktionsfehler gelten als vorübergehend und werden weiter wiederholt.
+ * - IDs werden beim Anhängen vergeben; Replay nach Neustart ist damit idempotent (ON CONFLICT DO NOTHING)
+ * - fsync-Policy: ALWAYS (vor der Quittung), INTERVAL (periodisch), NEVER (übersteht Prozess-, nicht OS-Absturz)
+ * - Metriken: `ingest.async.queue.depth` und `ingest.async.lag` (Alter des ältesten offenen Messwerts) je Shard,
+ *   Zähler `ingest.async.appended/applied/rejected/dead_lettered`
+ *
+ * Fachlich abgelehnte Messwerte (Monotonie, unbekanntes Gerät) werden gezählt und geloggt; der Client erfährt
+ * davon nichts mehr. Die Shard-Anzahl eines nicht leeren WAL bleibt bis zum vollständigen Abarbeiten erhalten.
+ */
+@Service
+public class AsyncIngestService implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(AsyncIngestService.class);
+
+    private static final long IDLE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+    private static final Duration STOP_TIMEOUT = Duration.ofSeconds(10);
+    static final String DEAD_LETTER = "dead-letter.ndjson";
+
+    private final ReadingBatchService batchService;
+    private final IngestProperties.Async props;
+    private final MeterRegistry registry;
+    private final ObjectWriter deadLetterWriter;
+    private final Counter appended;
+    private final Counter applied;
+    private final Counter rejected;
+    private final Counter deadLettered;
+
+    private volatile Shard[] shards = new Shard[0];
+    private volatile boolean running;
+
+    public AsyncIngestService(ReadingBatchService batchService, IngestProperties props, MeterRegistry registry,
+                              ObjectMapper mapper) {
+        this.batchService = batchService;
+        this.props = props.async();
+        this.registry = registry;
+        this.deadLetterWriter = mapper.writerFor(DeadLetter.class);
+        this.appended = Counter.builder("ingest.async.appended").description("Readings appended to the WAL").register(registry);
+        this.applied = Counter.builder("ingest.async.applied").description("Readings written from the WAL").register(registry);
+        this.rejected = Counter.builder("ingest.async.rejected").description("Readings rejected by validation").register(registry);
+        this.deadLettered = Counter.builder("ingest.async.dead_lettered")
+                .description("Readings that failed permanently and were moved to the dead-letter file").register(registry);
+    }
+
+    /**
+     * Hängt die Messwerte an die WALs ihrer Shards an (fsync gemäß Policy) und quittiert sie.
+     * Wirft {@link IngestUnavailableException}, wenn der Modus deaktiviert oder ein Shard voll ist.
+     */
+    public AsyncIngestReceipt enqueue(List<ReadingDto> readings) {
+        var shards = this.shards;
+        if (!running) throw new IngestUnavailableException("Async ingest is not available");
+
+        @SuppressWarnings("unchecked")
+        List<ReadingDto>[] byShard = new List[shards.length];
+        for (var dto : readings) {
+            int i = Math.floorMod(dto.deviceId().hashCode(), shards.length);
+            if (byShard[i] == null) byShard[i] = new ArrayList<>();
+            byShard[i].add(dto);
+        }
+        for (int i = 0; i < shards.length; i++) {
+            if (byShard[i] != null && shards[i].wal.pending() + byShard[i].size() > props.maxPendingPerShard()) {
+                throw new IngestUnavailableException("Async ingest queue is full (shard " + i + ")");
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        try {
+            for (int i = 0; i < shards.length; i++) {
+                if (byShard[i] == null) continue;
+                var shard = shards[i];
+                for (var dto : byShard[i]) shard.wal.append(encode(UuidV7.next(), dto), now);
+                if (props.fsync() == IngestProperties.FsyncPolicy.ALWAYS) shard.wal.force();
+                LockSupport.unpark(shard.worker);
+            }
+        } catch (IOException ex) {
+            throw new IngestUnavailableException("Async ingest could not write to WAL: " + ex.getMessage());
+        }
+        appended.increment(readings.size());
+        return new AsyncIngestReceipt(readings.size(), queueDepth());
+    }
+
+    /** Summe der noch nicht geschriebenen Messwerte über alle Shards. */
+    public long queueDepth() {
+        long sum = 0;
+        for (var shard : shards) sum += shard.wal.pending();
+        return sum;
+    }
+
+    /** Periodischer fsync für die Policy INTERVAL. */
+    @Scheduled(fixedDelayString = "${ingest.async.fsync-interval:PT0.2S}")
+    public void forcePeriodically() {
+        if (!running || props.fsync() != IngestProperties.FsyncPolicy.INTERVAL) return;
+        for (var shard : shards) shard.wal.force();
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running || !props.enabled()) return;
+        try {
+            var opened = openShards(Path.of(props.directory()));
+            var created = new Shard[opened.size()];
+            for (int i = 0; i < opened.size(); i++) {
+                var shard = new Shard(i, shardDir(Path.of(props.directory()), i), opened.get(i));
+                Gauge.builder("ingest.async.queue.depth", shard.wal, WriteAheadLog::pending)
+                        .tag("shard", String.valueOf(i)).description("Readings in the WAL not yet written")
+                        .register(registry);
+                Gauge.builder("ingest.async.lag", shard.wal, AsyncIngestService::lagSeconds)
+                        .tag("shard", String.valueOf(i)).baseUnit("seconds")
+                        .description("Age of the oldest reading not yet written").register(registry);
+                shard.worker = Thread.ofVirtual().name("ingest-wal-" + i).unstarted(() -> drain(shard));
+                created[i] = shard;
+            }
+            this.shards = created;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not open ingest WAL in " + props.directory(), ex);
+        }
+        running = true;
+        for (var shard : shards) shard.worker.start();
+        log.info("Async ingest started (shards={}, fsync={}, backlog={})", shards.length, props.fsync(), queueDepth());
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) return;
+        running = false;
+        for (var shard : shards) LockSupport.unpark(shard.worker);
+        for (var shard : shards) {
+            try {
+                if (!shard.worker.join(STOP_TIMEOUT)) log.warn("Async ingest worker {} did not stop in time", shard.index);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            shard.wal.close();
+        }
+        log.info("Async ingest stopped (backlog={} readings remain in WAL)", queueDepth());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // nach dem Web-Server stoppen (Graceful Shutdown nimmt laufende Requests noch an)
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    /**
+     * Worker-Schleife eines Shards: lesen → schreiben → Checkpoint; bei Fehlern zurückspulen und warten.
+     * Nach `max-attempts` Fehlschlägen desselben Batches wird er satzweise geschrieben ({@link #isolate}).
+     */
+    private void drain(Shard shard) {
+        int failures = 0;
+        while (running) {
+            var entries = shard.wal.read(Math.max(1, props.batchSize()));
+            if (entries.isEmpty()) {
+                LockSupport.parkNanos(IDLE_WAIT_NANOS);
+                continue;
+            }
+            try {
+                if (failures >= Math.max(1, props.maxAttempts())) {
+                    isolate(shard, entries);
+                } else {
+                    List<ReadingDto> readings = new ArrayList<>(entries.size());
+                    List<UUID> ids = new ArrayList<>(entries.size());
+                    for (var e : entries) decode(e.payload(), ids, readings);
+                    count(shard, batchService.ingest(readings, ids));
+                }
+                shard.wal.commit(entries.get(entries.size() - 1).next(), entries.size());
+                failures = 0;
+            } catch (RuntimeException | IOException ex) {
+                shard.wal.rewind();
+                long backoff = Math.min(MAX_BACKOFF_MILLIS, 100L << Math.min(++failures, 10));
+                log.warn("Async ingest shard {}: batch of {} failed (attempt {}), retry in {} ms: {}", shard.index,
+                        entries.size(), failures, backoff, ex.toString());
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(backoff));
+            }
+        }
+    }
+
+    /**
+     * Schreibt die Sätze eines wiederholt gescheiterten Batches einzeln (Replay bereits geschriebener Sätze ist
+     * idempotent). Dauerhaft scheiternde Sätze gehen in die Dead-Letter-Datei; vorübergehende Fehler werden
+     * weitergeworfen, der Batch wird dann später erneut versucht.
+     */
+    private void isolate(Shard shard, List<WriteAheadLog.Entry> entries) throws IOException {
+        for (var e : entries) {
+            List<ReadingDto> readings = new ArrayList<>(1);
+            List<UUID> ids = new ArrayList<>(1);
+            try {
+                decode(e.payload(), ids, readings);
+                count(shard, batchService.ingest(readings, ids));
+            } catch (RuntimeException ex) {
+                if (isTransient(ex)) throw ex;
+                deadLetter(shard, e, readings.isEmpty() ? null : readings.get(0), ids.isEmpty() ? null : ids.get(0), ex);
+            }
+        }
+    }
+
+    /** Verbindungs-, Timeout- und Transaktionsfehler: Wiederholen kann helfen, Sätze bleiben im WAL. */
+    static boolean isTransient(RuntimeException ex) {
+        return ex instanceof TransientDataAccessException || ex instanceof RecoverableDataAccessException
+                || ex instanceof DataAccessResourceFailureException || ex instanceof TransactionException;
+    }
+
+    private void count(Shard shard, IngestResult result) {
+        applied.increment(result.accepted());
+        if (result.rejected() > 0) {
+            rejected.increment(result.rejected());
+            log.warn("Async ingest shard {}: {} of {} readings rejected (first: {})", shard.index,
+                    result.rejected(), result.received(), result.errors().get(0).message());
+        }
+    }
+
+    /** Hängt einen dauerhaft gescheiterten Satz an die Dead-Letter-Datei des Shards an (mit fsync). */
+    private void deadLetter(Shard shard, WriteAheadLog.Entry entry, ReadingDto dto, UUID id, RuntimeException ex)
+            throws IOException {
+        var letter = dto != null
+                ? new DeadLetter(id, dto.deviceId(), dto.readingTime(), dto.value(), dto.unit(), dto.source(),
+                        Instant.ofEpochMilli(entry.appendedAtMillis()), ex.toString(), null)
+                : new DeadLetter(null, null, null, null, null, null, Instant.ofEpochMilli(entry.appendedAtMillis()),
+                        ex.toString(), Base64.getEncoder().encodeToString(entry.payload()));
+        var line = deadLetterWriter.writeValueAsBytes(letter);
+        try (var ch = FileChannel.open(shard.dir.resolve(DEAD_LETTER),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ch.write(ByteBuffer.wrap(line));
+            ch.write(ByteBuffer.wrap(new byte[]{'\n'}));
+            ch.force(true);
+        }
+        deadLettered.increment();
+        log.error("Async ingest shard {}: reading {} moved to {} after repeated failures: {}", shard.index,
+                id, DEAD_LETTER, ex.toString());
+    }
+
+    /**
+     * Öffnet die Shard-WALs (`shard-<n>`). Liegt noch ein Rückstand in einer abweichenden Anzahl Shards vor,
+     * wird diese beibehalten, damit die Reihenfolge je Gerät nicht durch ein geändertes Hashing bricht.
+     */
+    private List<WriteAheadLog> openShards(Path root) throws IOException {
+        int segmentSize = (int) Math.min(Integer.MAX_VALUE, props.segmentSize().toBytes());
+        List<WriteAheadLog> wals = new ArrayList<>();
+        while (Files.isDirectory(shardDir(root, wals.size()))) {
+            wals.add(WriteAheadLog.open(shardDir(root, wals.size()), segmentSize));
+        }
+        int existing = wals.size();
+        boolean backlog = wals.stream().anyMatch(w -> w.pending() > 0);
+        int configured = Math.max(1, props.shards());
+        int count = backlog ? existing : configured;
+        if (backlog && existing != configured) {
+            log.warn("Ingest WAL has a backlog in {} shards; keeping {} shards instead of {} until drained",
+                    existing, existing, configured);
+        }
+        while (wals.size() < count) wals.add(WriteAheadLog.open(shardDir(root, wals.size()), segmentSize));
+        while (wals.size() > count) wals.remove(wals.size() - 1).close();
+        return wals;
+    }
+
+    private static Path shardDir(Path root, int index) {
+        return root.resolve("shard-" + index);
+    }
+
+    private static double lagSeconds(WriteAheadLog wal) {
+        long oldest = wal.oldestPendingMillis();
+        return oldest < 0 ? 0 : Math.max(0, System.currentTimeMillis() - oldest) / 1000.0;
+    }
+
+    // Binärformat eines WAL-Satzes: id, deviceId, readingTime (s + ns), value (scale + unscaled), unit, source
+    static byte[] encode(UUID id, ReadingDto dto) {
+        var bytes = new ByteArrayOutputStream(96);
+        try (var out = new DataOutputStream(bytes)) {
+            out.writeLong(id.getMostSignificantBits());
+            out.writeLong(id.getLeastSignificantBits());
+            out.writeLong(dto.deviceId().getMostSignificantBits());
+            out.writeLong(dto.deviceId().getLeastSignificantBits());
+            out.writeLong(dto.readingTime().getEpochSecond());
+            out.writeInt(dto.readingTime().getNano());
+            var unscaled = dto.value().unscaledValue().toByteArray();
+            out.writeInt(dto.value().scale());
+            out.writeShort(unscaled.length);
+            out.write(unscaled);
+            out.writeUTF(dto.unit());
+            out.writeUTF(dto.source());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return bytes.toByteArray();
+    }
+
+    static void decode(byte[] payload, List<UUID> ids, List<ReadingDto> readings) {
+        try (var in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            ids.add(new UUID(in.readLong(), in.readLong()));
+            var deviceId = new UUID(in.readLong(), in.readLong());
+            var readingTime = Instant.ofEpochSecond(in.readLong(), in.readInt());
+            int scale = in.readInt();
+            var unscaled = new byte[in.readUnsignedShort()];
+            in.readFully(unscaled);
+            var value = new BigDecimal(new BigInteger(unscaled), scale);
+            readings.add(new ReadingDto(deviceId, readingTime, value, in.readUTF(), in.readUTF()));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Satz der Dead-Letter-Datei: Felder wie beim NDJSON-Ingest plus WAL-ID, Zeitpunkt des Anhängens und Fehler;
+     * nicht decodierbare Sätze nur als Base64 (`payload`).
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record DeadLetter(UUID id, UUID deviceId, Instant readingTime, BigDecimal value, String unit, String source,
+                      Instant appendedAt, String error, String payload) {}
+
+    private static final class Shard {
+        final int index;
+        final Path dir;
+        final WriteAheadLog wal;
+        Thread worker;
+
+        Shard(int index, Path dir, WriteAheadLog wal) {
+            this.index = index;
+            this.dir = dir;
+            this.wal = wal;
+        }
+    }
+}
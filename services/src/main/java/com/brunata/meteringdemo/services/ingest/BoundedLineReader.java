@@ -0,0 +1,79 @@
+package com.brunata.meteringdemo.services.ingest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Zeilenweises Lesen (UTF-8) mit Obergrenze je Zeile – Ersatz für `BufferedReader.readLine()`, das eine Zeile ohne
+ * Zeilenumbruch vollständig im Speicher sammelt.
+ *
+ * Zeilenende ist `\n` (ein vorangehendes `\r` wird entfernt). Eine Zeile mit mehr als `maxLength` Zeichen wird bis
+ * zum nächsten `\n` überlesen; {@link #readLine()} liefert dann `""` und {@link #overlong()} `true`, sodass der
+ * Aufrufer genau diese Zeile ablehnen und mit der nächsten weitermachen kann.
+ */
+public final class BoundedLineReader {
+    private final Reader in;
+    private final int maxLength;
+    private final char[] buf = new char[8192];
+    private final StringBuilder line = new StringBuilder(256);
+    private int pos, limit;
+    private boolean overlong;
+
+    public BoundedLineReader(InputStream in, int maxLength) {
+        if (maxLength < 1) throw new IllegalArgumentException("maxLength must be >= 1");
+        this.in = new InputStreamReader(in, StandardCharsets.UTF_8);
+        this.maxLength = maxLength;
+    }
+
+    /** Nächste Zeile ohne Zeilenende, `null` am Ende des Streams. */
+    public String readLine() throws IOException {
+        line.setLength(0);
+        overlong = false;
+        boolean any = false;
+        while (true) {
+            if (pos == limit) {
+                limit = in.read(buf, 0, buf.length);
+                pos = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return any ? finish() : null;
+                }
+            }
+            any = true;
+            int start = pos;
+            while (pos < limit && buf[pos] != '\n') pos++;
+            if (!overlong) {
+                // +1 für ein `\r` vor dem Zeilenende; die genaue Länge prüft finish()
+                if (line.length() + (pos - start) > maxLength + 1) {
+                    overlong = true;
+                    line.setLength(0);
+                } else {
+                    line.append(buf, start, pos - start);
+                }
+            }
+            if (pos < limit) {
+                pos++; // '\n'
+                return finish();
+            }
+        }
+    }
+
+    /** Ob die zuletzt gelesene Zeile die Obergrenze überschritten hat (und übersprungen wurde). */
+    public boolean overlong() {
+        return overlong;
+    }
+
+    public int maxLength() {
+        return maxLength;
+    }
+
+    private String finish() {
+        int n = line.length();
+        if (n > 0 && line.charAt(n - 1) == '\r') line.setLength(--n);
+        if (n > maxLength) overlong = true;
+        return overlong ? "" : line.toString();
+    }
+}
@@ -0,0 +1,110 @@
+package com.brunata.meteringdemo.services.ingest;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Koalesziert `Device.lastSeenAt`-Updates im Speicher und schreibt sie periodisch gesammelt.
+ *
+ * Statt eines UPDATE je Messwert auf die heiße `device`-Zeile wird je Gerät nur der maximale Zeitpunkt gemerkt
+ * und alle `ingest.last-seen.flush-interval` als ein UPDATE ... FROM (VALUES ...) geschrieben.
+ * Beim (graceful) Shutdown wird ein letzter Flush ausgeführt. Offline-Abfragen (SyncService) sind damit
+ * höchstens um ein Flush-Intervall verzögert.
+ */
+@Component
+public class DeviceLastSeenTracker {
+    private static final Logger log = LoggerFactory.getLogger(DeviceLastSeenTracker.class);
+
+    // max. Geräte je Statement (2 Parameter je Zeile, weit unter dem PostgreSQL-Limit von 65535)
+    static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+    private final JdbcTemplate jdbc;
+    private final ConcurrentHashMap<UUID, Instant> pending = new ConcurrentHashMap<>();
+
+    public DeviceLastSeenTracker(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /** Merkt den Kontaktzeitpunkt (Maximum je Gerät). */
+    public void touch(UUID deviceId, Instant seenAt) {
+        pending.merge(deviceId, seenAt, (a, b) -> a.isAfter(b) ? a : b);
+    }
+
+    /** Wie {@link #touch}, aber erst nach erfolgreichem Commit der laufenden Transaktion. */
+    public void touchAfterCommit(Collection<UUID> deviceIds, Instant seenAt) {
+        if (deviceIds.isEmpty()) return;
+        AfterCommit.run(() -> deviceIds.forEach(id -> touch(id, seenAt)));
+    }
+
+    /** Anzahl noch nicht geschriebener Geräte. */
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Schreibt alle gesammelten Zeitpunkte. Einträge werden atomar entnommen; schlägt das Schreiben fehl,
+     * werden sie für den nächsten Lauf zurückgelegt.
+     */
+    @Scheduled(fixedDelayString = "${ingest.last-seen.flush-interval:PT5S}")
+    public synchronized int flush() {
+        if (pending.isEmpty()) return 0;
+        List<Map.Entry<UUID, Instant>> drained = new ArrayList<>(pending.size());
+        for (var id : pending.keySet()) {
+            var seenAt = pending.remove(id);
+            if (seenAt != null) drained.add(Map.entry(id, seenAt));
+        }
+        int written = 0;
+        for (int from = 0; from < drained.size(); from += MAX_ROWS_PER_STATEMENT) {
+            var chunk = drained.subList(from, Math.min(from + MAX_ROWS_PER_STATEMENT, drained.size()));
+            try {
+                written += jdbc.update(updateSql(chunk.size()), params(chunk));
+            } catch (RuntimeException ex) {
+                log.warn("lastSeenAt flush failed ({} devices re-queued): {}", chunk.size(), ex.toString());
+                chunk.forEach(e -> touch(e.getKey(), e.getValue()));
+            }
+        }
+        return written;
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        int written = flush();
+        log.info("lastSeenAt flushed on shutdown (devices={})", written);
+    }
+
+    static String updateSql(int rows) {
+        var sb = new StringBuilder("""
+                update device d set last_seen_at = v.seen_at
+                from (values\s""");
+        for (int i = 0; i < rows; i++) {
+            sb.append(i == 0 ? "" : ", ").append("(cast(? as uuid), cast(? as timestamptz))");
+        }
+        return sb.append("""
+                ) as v(id, seen_at)
+                where d.id = v.id and (d.last_seen_at is null or d.last_seen_at < v.seen_at)
+                """).toString();
+    }
+
+    private static Object[] params(List<Map.Entry<UUID, Instant>> chunk) {
+        var args = new Object[chunk.size() * 2];
+        int i = 0;
+        for (var e : chunk) {
+            args[i++] = e.getKey();
+            args[i++] = e.getValue().atOffset(ZoneOffset.UTC);
+        }
+        return args;
+    }
+}
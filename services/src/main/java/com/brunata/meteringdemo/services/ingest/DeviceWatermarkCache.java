@@ -0,0 +1,127 @@
+package com.brunata.meteringdemo.services.ingest;
+
+import com.brunata.meteringdemo.common.Quantity;
+import com.brunata.meteringdemo.persistence.MeterReadingRepository;
+import com.brunata.meteringdemo.services.config.IngestProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Begrenzter, nebenläufiger Cache der „Watermark“ je Gerät (letzter Messzeitpunkt + Zählerstand + Existenz).
+ *
+ * Zweck: Der Ingest-Pfad prüft Monotonie zuerst gegen den Cache und spart so `findById` + `findTop1...`
+ * für aktive Zähler. Einträge werden lazy aus dem MeterReadingRepository geladen (eine Query, auch für Batches),
+ * erst nach erfolgreichem Commit fortgeschrieben und nach Größe (LRU-nah) bzw. TTL verdrängt.
+ * Unbekannte Geräte werden kurz (`negative-ttl`) gecacht; das Anlegen eines Geräts verwirft den Eintrag.
+ *
+ * Hinweis: Der Cache ist knotenlokal. Schreiben andere Knoten/Prozesse auf dieselben Geräte,
+ * begrenzt die TTL die Staleness; bei Bedarf per `ingest.watermark-cache.enabled=false` abschalten.
+ */
+@Component
+public class DeviceWatermarkCache {
+
+    /** Stand eines Geräts; `lastTime`/`lastValue` sind null, solange noch kein Messwert existiert. */
+    public record Watermark(boolean deviceExists, String serialNo, Instant lastTime, Quantity lastValue) {
+        public static final Watermark UNKNOWN_DEVICE = new Watermark(false, null, null, null);
+
+        /** Neuer Stand nach akzeptiertem Messwert. */
+        public Watermark advance(Instant time, Quantity value) {
+            return new Watermark(true, serialNo, time, value);
+        }
+
+        boolean isNewerOrEqual(Watermark other) {
+            return other.lastTime == null || (lastTime != null && !lastTime.isBefore(other.lastTime));
+        }
+    }
+
+    private final MeterReadingRepository readingRepo;
+    private final Cache<UUID, Watermark> cache; // null = deaktiviert
+
+    public DeviceWatermarkCache(MeterReadingRepository readingRepo, IngestProperties props, MeterRegistry registry) {
+        this.readingRepo = readingRepo;
+        var cfg = props.watermarkCache();
+        if (cfg.enabled()) {
+            long ttl = cfg.ttl().toNanos();
+            long negativeTtl = cfg.negativeTtl().toNanos();
+            this.cache = Caffeine.newBuilder()
+                    .maximumSize(cfg.maxSize())
+                    .expireAfter(new Expiry<UUID, Watermark>() {
+                        @Override public long expireAfterCreate(UUID key, Watermark value, long currentTime) {
+                            return value.deviceExists() ? ttl : negativeTtl;
+                        }
+                        @Override public long expireAfterUpdate(UUID key, Watermark value, long currentTime, long currentDuration) {
+                            return expireAfterCreate(key, value, currentTime);
+                        }
+                        @Override public long expireAfterRead(UUID key, Watermark value, long currentTime, long currentDuration) {
+                            return currentDuration;
+                        }
+                    })
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(registry, cache, "deviceWatermark");
+        } else {
+            this.cache = null;
+        }
+    }
+
+    /** Watermark eines Geräts (bei Cache-Miss oder deaktiviertem Cache aus der DB). */
+    public Watermark get(UUID deviceId) {
+        if (cache == null) return load(Set.of(deviceId)).get(deviceId);
+        return cache.get(deviceId, id -> load(Set.of(id)).get(id));
+    }
+
+    /** Watermarks mehrerer Geräte; fehlende Einträge werden mit einer einzigen Query nachgeladen. */
+    public Map<UUID, Watermark> getAll(Collection<UUID> deviceIds) {
+        if (cache == null) return load(deviceIds);
+        return cache.getAll(deviceIds, this::load);
+    }
+
+    /**
+     * Schreibt neue Watermarks fort – innerhalb einer Transaktion erst nach erfolgreichem Commit,
+     * damit zurückgerollte Messwerte den Cache nicht verfälschen.
+     */
+    public void advanceAfterCommit(Map<UUID, Watermark> updates) {
+        if (cache == null || updates.isEmpty()) return;
+        AfterCommit.run(() -> apply(updates));
+    }
+
+    /** Verwirft Einträge (z. B. nach Fremd-Schreibzugriffen wie Backfills). */
+    public void invalidate(Collection<UUID> deviceIds) {
+        if (cache != null) cache.invalidateAll(deviceIds);
+    }
+
+    /**
+     * Neu angelegte Geräte: verwirft nach dem Commit etwaige „Gerät unbekannt“-Einträge, damit Messwerte nicht bis
+     * zum Ablauf von `negative-ttl` abgelehnt werden. Schreibpfade, die Geräte anlegen, rufen dies auf.
+     */
+    public void devicesCreated(Collection<UUID> deviceIds) {
+        if (cache == null || deviceIds.isEmpty()) return;
+        AfterCommit.run(() -> cache.invalidateAll(deviceIds));
+    }
+
+    private void apply(Map<UUID, Watermark> updates) {
+        updates.forEach((id, wm) -> cache.asMap().merge(id, wm, (old, nw) -> nw.isNewerOrEqual(old) ? nw : old));
+    }
+
+    private Map<UUID, Watermark> load(Collection<? extends UUID> deviceIds) {
+        Map<UUID, Watermark> res = new HashMap<>();
+        for (var v : readingRepo.findWatermarks(List.copyOf(deviceIds))) {
+            res.put(v.getDeviceId(), new Watermark(true, v.getSerialNo(), v.getReadingTime(),
+                    v.getValue() == null ? null : Quantity.of(v.getValue())));
+        }
+        for (var id : deviceIds) res.putIfAbsent(id, Watermark.UNKNOWN_DEVICE);
+        return res;
+    }
+}
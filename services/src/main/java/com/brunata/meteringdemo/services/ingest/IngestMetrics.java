@@ -0,0 +1,148 @@
+package com.brunata.meteringdemo.services.ingest;
+
+import com.brunata.meteringdemo.services.dto.ReadingDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Metriken des Ingest-Hot-Paths (Prometheus unter `/actuator/prometheus`):
+ * - `ingest.save` / `ingest.batch`: Dauer je Einzel-/Batch-Ingest inkl. Commit, Tag `outcome` (committed|rolled_back),
+ *   mit Perzentil-Histogramm
+ * - `ingest.rejected`: abgelehnte Messwerte je verletzter Regel (Tag `rule`, siehe {@link ReadingValidator#rule})
+ * - `ingest.readings`: gespeicherte Messwerte je Quelle (Tag `source`); Rate per `rate()` in PromQL
+ * - `ingest.lag`: Sekunden seit dem neuesten gespeicherten `readingTime` (NaN bis zum ersten Messwert)
+ *
+ * Tag-Kardinalität ist begrenzt: `source` kommt ungeprüft vom Client und wird normalisiert (Kleinbuchstaben,
+ * `[a-z0-9._-]`, max. {@value #MAX_SOURCE_LENGTH} Zeichen); nach {@value #MAX_SOURCES} verschiedenen Quellen
+ * zählen weitere als `other`.
+ */
+@Component
+public class IngestMetrics {
+
+    static final int MAX_SOURCES = 20;
+    static final int MAX_SOURCE_LENGTH = 32;
+    static final String OTHER = "other";
+    static final String UNKNOWN = "unknown";
+
+    /** Gemessene Operation. */
+    public enum Operation {
+        SAVE("ingest.save", "Single reading ingest including commit"),
+        BATCH("ingest.batch", "Batch ingest including commit");
+
+        private final String metric;
+        private final String description;
+
+        Operation(String metric, String description) {
+            this.metric = metric;
+            this.description = description;
+        }
+    }
+
+    private final MeterRegistry registry;
+    private final Map<String, Counter> rejected = new ConcurrentHashMap<>();
+    private final Map<String, Counter> bySource = new ConcurrentHashMap<>();
+    private final Set<String> sourceTags = ConcurrentHashMap.newKeySet();
+    private final AtomicLong newestReadingMillis = new AtomicLong(Long.MIN_VALUE);
+
+    public IngestMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        Gauge.builder("ingest.lag", this, IngestMetrics::lagSeconds).baseUnit("seconds")
+                .description("Time since the newest stored reading time").register(registry);
+    }
+
+    /**
+     * Startet die Messung einer Operation; gestoppt wird bei Transaktionsende (Commit bzw. Rollback), damit die
+     * Commit-Dauer enthalten ist. Ohne aktive Transaktion wird nichts gemessen.
+     */
+    public void timeTransaction(Operation op) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        var sample = Timer.start(registry);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                sample.stop(timer(op, status == STATUS_COMMITTED ? "committed" : "rolled_back"));
+            }
+        });
+    }
+
+    /** Zählt einen abgelehnten Messwert anhand der Fehlermeldung des {@link ReadingValidator}. */
+    public void rejected(String violation) {
+        rejected.computeIfAbsent(ReadingValidator.rule(violation), rule -> Counter.builder("ingest.rejected")
+                .tag("rule", rule).description("Readings rejected by ingest validation").register(registry))
+                .increment();
+    }
+
+    /** Zählt gespeicherte Messwerte je Quelle und schreibt das Ingest-Lag fort (nach Commit). */
+    public void storedAfterCommit(List<ReadingDto> readings) {
+        if (readings.isEmpty()) return;
+        AfterCommit.run(() -> stored(readings));
+    }
+
+    void stored(List<ReadingDto> readings) {
+        long newest = Long.MIN_VALUE;
+        String source = null;
+        long run = 0;
+        for (var dto : readings) {
+            newest = Math.max(newest, dto.readingTime().toEpochMilli());
+            // Batches stammen meist aus einer Quelle: Zählerzugriff nur bei Quellwechsel
+            if (run == 0 || !Objects.equals(dto.source(), source)) {
+                if (run > 0) sourceCounter(source).increment(run);
+                source = dto.source();
+                run = 0;
+            }
+            run++;
+        }
+        sourceCounter(source).increment(run);
+        newestReadingMillis.accumulateAndGet(newest, Math::max);
+    }
+
+    private Counter sourceCounter(String source) {
+        var counter = bySource.get(source);
+        if (counter != null) return counter;
+        var tag = normalize(source);
+        if (!sourceTags.contains(tag)) {
+            if (sourceTags.size() >= MAX_SOURCES) tag = OTHER;
+            else sourceTags.add(tag);
+        }
+        var resolved = Counter.builder("ingest.readings").tag("source", tag)
+                .description("Stored readings per source").register(registry);
+        // Rohwerte nur begrenzt merken, sonst wächst die Map mit jeder neuen Client-Eingabe
+        if (source != null && bySource.size() < 4 * MAX_SOURCES) bySource.putIfAbsent(source, resolved);
+        return resolved;
+    }
+
+    static String normalize(String source) {
+        if (source == null || source.isBlank()) return UNKNOWN;
+        var s = source.strip().toLowerCase(Locale.ROOT);
+        var sb = new StringBuilder(Math.min(s.length(), MAX_SOURCE_LENGTH));
+        for (int i = 0; i < s.length() && sb.length() < MAX_SOURCE_LENGTH; i++) {
+            char c = s.charAt(i);
+            sb.append((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '.' || c == '-' || c == '_' ? c : '_');
+        }
+        return sb.toString();
+    }
+
+    private Timer timer(Operation op, String outcome) {
+        return Timer.builder(op.metric).tag("outcome", outcome).description(op.description)
+                .publishPercentileHistogram().register(registry);
+    }
+
+    private double lagSeconds() {
+        long newest = newestReadingMillis.get();
+        return newest == Long.MIN_VALUE ? Double.NaN : (Instant.now().toEpochMilli() - newest) / 1000.0;
+    }
+}
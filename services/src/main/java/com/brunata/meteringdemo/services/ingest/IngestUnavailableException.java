@@ -0,0 +1,8 @@
+package com.brunata.meteringdemo.services.ingest;
+
+/**
+ * Asynchroner Ingest nimmt aktuell nichts an (deaktiviert, Queue voll, WAL nicht schreibbar) → HTTP 503 im REST-Layer.
+ */
+public class IngestUnavailableException extends RuntimeException {
+    public IngestUnavailableException(String message) { super(message); }
+}
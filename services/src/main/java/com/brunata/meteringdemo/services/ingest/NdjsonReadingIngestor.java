@@ -0,0 +1,169 @@
+package com.brunata.meteringdemo.services.ingest;
+
+import com.brunata.meteringdemo.services.ReadingBatchService;
+import com.brunata.meteringdemo.services.config.IngestProperties;
+import com.brunata.meteringdemo.services.dto.IngestResult;
+import com.brunata.meteringdemo.services.dto.ReadingDto;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.validation.Validator;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Streaming-Ingest für NDJSON (`application/x-ndjson`): eine Messung pro Zeile.
+ *
+ * Zeilen werden einzeln gelesen und geparst (Jackson), gegen die Bean-Validation-Constraints von
+ * {@link ReadingDto} geprüft und in Chunks fester Größe an {@link ReadingBatchService} übergeben
+ * (eine Transaktion je Chunk). Das Ergebnis je Zeile wird nach jedem Chunk als NDJSON zurückgestreamt.
+ * Speicherbedarf ist damit durch Chunk-Größe und maximale Zeilenlänge (`ingest.ndjson.max-line-length`) begrenzt,
+ * unabhängig von der Upload-Größe. Ungültige Zeilen (JSON-/Constraint-Fehler, zu lang) werden abgelehnt, ohne den
+ * restlichen Upload abzubrechen.
+ */
+@Component
+public class NdjsonReadingIngestor {
+
+    /** Ergebnis einer Zeile (1-basierte Zeilennummer im Upload). */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record LineResult(long line, String status, String message) {}
+
+    private final ReadingBatchService batchService;
+    private final ObjectMapper mapper;
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+    private final Validator validator;
+    private final int chunkSize;
+    private final int maxLineLength;
+
+    public NdjsonReadingIngestor(ReadingBatchService batchService, ObjectMapper mapper, Validator validator,
+                                 IngestProperties props) {
+        this.batchService = batchService;
+        this.mapper = mapper;
+        this.reader = mapper.readerFor(ReadingDto.class);
+        // Flush nur einmal je Chunk, nicht je Zeile
+        this.writer = mapper.writerFor(LineResult.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.validator = validator;
+        this.chunkSize = Math.max(1, props.ndjson().chunkSize());
+        this.maxLineLength = Math.max(1, props.ndjson().maxLineLength());
+    }
+
+    /**
+     * Liest NDJSON von `in`, persistiert chunkweise und schreibt je Zeile ein Ergebnis nach `out`.
+     * Die letzte Ausgabezeile enthält die Summen (received/accepted/rejected).
+     */
+    public IngestResult ingest(InputStream in, OutputStream out) throws IOException {
+        var lines = new BoundedLineReader(in, maxLineLength);
+        try (JsonGenerator gen = mapper.getFactory().createGenerator(out)) {
+            gen.setRootValueSeparator(null);
+            var chunk = new Chunk(chunkSize);
+            long lineNo = 0;
+            int received = 0, accepted = 0;
+            String line;
+            while ((line = lines.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank() && !lines.overlong()) continue;
+                received++;
+                // zu lange Zeile: nur als Ablehnung vormerken, der Inhalt wurde nicht gepuffert
+                chunk.add(lineNo, lines.overlong() ? null : line);
+                if (chunk.size() == chunkSize) {
+                    accepted += flush(chunk, gen);
+                }
+            }
+            accepted += flush(chunk, gen);
+
+            var summary = new IngestResult(received, accepted, received - accepted, List.of());
+            gen.writeStartObject();
+            gen.writeNumberField("received", summary.received());
+            gen.writeNumberField("accepted", summary.accepted());
+            gen.writeNumberField("rejected", summary.rejected());
+            gen.writeEndObject();
+            gen.writeRaw('\n');
+            return summary;
+        }
+    }
+
+    /** Parst + validiert die gesammelten Zeilen, persistiert gültige Messwerte und schreibt die Zeilenergebnisse. */
+    private int flush(Chunk chunk, JsonGenerator gen) throws IOException {
+        if (chunk.size() == 0) return 0;
+        var results = new LineResult[chunk.size()];
+        List<ReadingDto> valid = new ArrayList<>(chunk.size());
+        List<Integer> validPos = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            long lineNo = chunk.lineNos[i];
+            if (chunk.lines.get(i) == null) {
+                results[i] = new LineResult(lineNo, "REJECTED", "Line exceeds " + maxLineLength + " characters");
+                continue;
+            }
+            try {
+                ReadingDto dto = reader.readValue(chunk.lines.get(i));
+                String violation = dto == null ? "empty value" : violations(dto);
+                if (violation != null) {
+                    results[i] = new LineResult(lineNo, "REJECTED", violation);
+                } else {
+                    valid.add(dto);
+                    validPos.add(i);
+                }
+            } catch (JsonProcessingException ex) {
+                results[i] = new LineResult(lineNo, "REJECTED", "Malformed JSON: " + ex.getOriginalMessage());
+            }
+        }
+
+        int accepted = 0;
+        if (!valid.isEmpty()) {
+            var res = batchService.ingest(valid);
+            accepted = res.accepted();
+            for (var err : res.errors()) {
+                int pos = validPos.get(err.index());
+                results[pos] = new LineResult(chunk.lineNos[pos], "REJECTED", err.message());
+            }
+        }
+        for (int i = 0; i < results.length; i++) {
+            var r = results[i] != null ? results[i] : new LineResult(chunk.lineNos[i], "ACCEPTED", null);
+            writer.writeValue(gen, r);
+            gen.writeRaw('\n');
+        }
+        gen.flush();
+        chunk.clear();
+        return accepted;
+    }
+
+    private String violations(ReadingDto dto) {
+        var v = validator.validate(dto);
+        if (v.isEmpty()) return null;
+        return v.stream()
+                .map(c -> c.getPropertyPath() + ": " + c.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    /** Wiederverwendeter Puffer für die Rohzeilen eines Chunks. */
+    private static final class Chunk {
+        final long[] lineNos;
+        final List<String> lines;
+
+        Chunk(int capacity) {
+            this.lineNos = new long[capacity];
+            this.lines = new ArrayList<>(capacity);
+        }
+
+        void add(long lineNo, String line) {
+            lineNos[lines.size()] = lineNo;
+            lines.add(line);
+        }
+
+        int size() { return lines.size(); }
+
+        void clear() { lines.clear(); }
+    }
+}
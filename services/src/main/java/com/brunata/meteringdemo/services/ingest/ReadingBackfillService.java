@@ -0,0 +1,314 @@
+package com.brunata.meteringdemo.services.ingest;
+
+import com.brunata.meteringdemo.common.ValidationException;
+import com.brunata.meteringdemo.services.DailyReadingRollup;
+import com.brunata.meteringdemo.services.ReadingPartitionManager;
+import com.brunata.meteringdemo.services.config.IngestProperties;
+import com.brunata.meteringdemo.services.dto.BackfillReport;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Historischer Backfill von Messwerten (Onboarding von Liegenschaften mit Jahren an Historie).
+ *
+ * Ablauf in einer Transaktion:
+ * 1) copy:     CSV/NDJSON per PostgreSQL COPY (pgjdbc CopyManager) in eine temporäre Staging-Tabelle (Textspalten)
+ * 2) validate: set-basierte Prüfung (Format, Gerät, Aufbewahrungshorizont, Zeit-/Werte-Monotonie je Gerät via
+ *              Window-Funktion); Monatspartitionen werden vorher angelegt, nie vor dem Horizont
+ * 3) insert:   gültige Zeilen mit einem INSERT ... SELECT nach `meter_reading`, danach set-basiert in den Tages-Rollup
+ * 4) report:   abgelehnte Zeilen nach `reading_backfill_error`
+ *
+ * Hinweise:
+ * - Monotonie wird gegen den neuesten vorhandenen Messwert und die vorangehenden (formal und zeitlich gültigen)
+ *   Zeilen desselben Geräts geprüft; ein Ausreißer nach oben führt daher auch zur Ablehnung nachfolgender Zeilen.
+ * - `lastSeenAt` wird nicht gesetzt (Historie ist kein Gerätekontakt); der Watermark-Cache wird invalidiert.
+ */
+@Service
+public class ReadingBackfillService {
+    private static final Logger log = LoggerFactory.getLogger(ReadingBackfillService.class);
+
+    /** Unterstützte Upload-Formate; CSV mit Kopfzeile deviceId,readingTime,value,unit,source. */
+    public enum Format { CSV, NDJSON }
+
+    // Anzahl Fehlerzeilen, die direkt im Report zurückgegeben werden
+    static final int REPORT_ERROR_SAMPLE = 100;
+
+    private static final String CREATE_STAGING = """
+            create temp table reading_staging (
+              line_no bigint generated always as identity,
+              device_id text, reading_time text, value text, unit text, source text,
+              parse_error text
+            ) on commit drop
+            """;
+
+    private static final String COPY_CSV = """
+            copy reading_staging (device_id, reading_time, value, unit, source)
+            from stdin with (format csv, header true)
+            """;
+
+    private static final String COPY_NDJSON = """
+            copy reading_staging (device_id, reading_time, value, unit, source, parse_error)
+            from stdin with (format csv)
+            """;
+
+    // Ein Zeitpunkt je Monat der formal gültigen Zeitstempel (für die Partitionsanlage)
+    private static final String STAGED_MONTHS = """
+            select distinct date_trunc('month', s.reading_time::timestamptz, 'UTC')
+            from reading_staging s
+            where pg_input_is_valid(s.reading_time, 'timestamptz')
+            """;
+
+    // Set-basierte Validierung: Typprüfung (pg_input_is_valid, PG16), Gerät, Aufbewahrung, Monotonie je Gerät;
+    // %s = Aufbewahrungshorizont als timestamptz-Literal (intern berechnet)
+    private static final String VALIDATE = """
+            create temp table reading_staging_checked on commit drop as
+            with typed as (
+              select s.line_no, s.device_id as raw_device_id, s.reading_time as raw_reading_time, s.value as raw_value,
+                     s.unit, s.source, s.parse_error,
+                     case when pg_input_is_valid(s.device_id, 'uuid') then s.device_id::uuid end as device_id,
+                     case when pg_input_is_valid(s.reading_time, 'timestamptz') then s.reading_time::timestamptz end as reading_time,
+                     case when pg_input_is_valid(s.value, 'numeric(18,6)') then s.value::numeric(18,6) end as value
+              from reading_staging s
+            ), base as (
+              select t.*, d.serial_no,
+                     case
+                       when t.parse_error is not null then t.parse_error
+                       when t.device_id is null then 'Invalid deviceId'
+                       when t.reading_time is null then 'Invalid readingTime'
+                       when t.value is null then 'Invalid value'
+                       when t.value < 0 then 'value must be greater than or equal to 0'
+                       when t.unit is null or btrim(t.unit) = '' then 'unit must not be blank'
+                       when length(t.unit) > 16 then 'unit size must be between 0 and 16'
+                       when t.source is null or btrim(t.source) = '' then 'source must not be blank'
+                       when length(t.source) > 16 then 'source size must be between 0 and 16'
+                       when t.reading_time > now() then 'readingTime must be a date in the past or in the present'
+                       when t.reading_time < %s then '%s'
+                       when d.id is null then 'Unknown device: ' || t.device_id
+                     end as reason
+              from typed t
+              left join device d on d.id = t.device_id
+            ), last_reading as (
+              select g.device_id, r.reading_time as last_time, r.value as last_value
+              from (select distinct device_id from base where reason is null) g
+              cross join lateral (
+                select m.reading_time, m.value from meter_reading m
+                where m.device_id = g.device_id
+                order by m.reading_time desc limit 1
+              ) r
+            ), timed as (
+              select b.*, l.last_value,
+                     coalesce(b.reason, case when b.reading_time < l.last_time
+                                             then 'Reading time must be >= last reading time' end) as time_reason
+              from base b
+              left join last_reading l on l.device_id = b.device_id
+            ), ordered as (
+              select t.line_no,
+                     max(t.value) over (partition by t.device_id order by t.reading_time, t.line_no
+                                        rows between unbounded preceding and 1 preceding) as prev_max
+              from timed t
+              where t.time_reason is null
+            )
+            select t.line_no, t.raw_device_id, t.raw_reading_time, t.raw_value,
+                   t.device_id, t.reading_time, t.value, t.unit, t.source,
+                   coalesce(t.time_reason, case
+                       when t.value < greatest(t.last_value, o.prev_max)
+                         then 'Monotonicity violated for device ' || t.serial_no
+                     end) as reason
+            from timed t
+            left join ordered o on o.line_no = t.line_no
+            """;
+
+    private static final String INSERT_VALID = """
+            insert into meter_reading (id, device_id, reading_time, value, unit, source)
+            select uuid_v7(), device_id, reading_time, value, unit, source
+            from reading_staging_checked
+            where reason is null
+            order by device_id, reading_time
+            """;
+
+    private static final String ROLLUP_SOURCE = """
+            select device_id, reading_time, value from reading_staging_checked where reason is null
+            """;
+
+    private static final String INSERT_ERRORS = """
+            insert into reading_backfill_error (backfill_id, line_no, device_id, reading_time, value, reason)
+            select ?, line_no, raw_device_id, raw_reading_time, raw_value, reason
+            from reading_staging_checked
+            where reason is not null
+            """;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbc;
+    private final DeviceWatermarkCache watermarks;
+    private final ReadingPartitionManager partitions;
+    private final DailyReadingRollup rollup;
+    private final ObjectReader jsonReader;
+    private final int maxLineLength;
+
+    public ReadingBackfillService(DataSource dataSource, JdbcTemplate jdbc, DeviceWatermarkCache watermarks,
+                                  ReadingPartitionManager partitions, DailyReadingRollup rollup, ObjectMapper mapper,
+                                  IngestProperties props) {
+        this.dataSource = dataSource;
+        this.jdbc = jdbc;
+        this.watermarks = watermarks;
+        this.partitions = partitions;
+        this.rollup = rollup;
+        // Dezimalwerte exakt übernehmen (kein double-Umweg)
+        this.jsonReader = mapper.reader().with(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+        this.maxLineLength = Math.max(1, props.ndjson().maxLineLength());
+    }
+
+    /**
+     * Importiert den Upload und liefert Durchsatz, Phasen-Dauer und einen Auszug der Fehler.
+     */
+    @Transactional
+    public BackfillReport backfill(InputStream in, Format format) {
+        var backfillId = UUID.randomUUID();
+        var phases = new LinkedHashMap<String, Long>();
+        long start = System.nanoTime();
+
+        // 1) COPY in die Staging-Tabelle
+        jdbc.execute(CREATE_STAGING);
+        long staged;
+        try {
+            var copy = DataSourceUtils.getConnection(dataSource).unwrap(PGConnection.class).getCopyAPI();
+            staged = format == Format.CSV ? copy.copyIn(COPY_CSV, in) : copyNdjson(copy, in);
+        } catch (SQLException ex) {
+            throw new ValidationException("Backfill upload rejected: " + ex.getMessage());
+        } catch (IOException ex) {
+            throw new ValidationException("Backfill upload could not be read: " + ex.getMessage());
+        }
+        long t = lap(phases, "copy", start);
+
+        // 2) Monatspartitionen für die gelieferten Zeitpunkte sicherstellen, dann set-basiert validieren
+        partitions.ensureCovered(jdbc.queryForList(STAGED_MONTHS, OffsetDateTime.class).stream()
+                .map(OffsetDateTime::toInstant).toList());
+        var horizon = partitions.horizon();
+        jdbc.execute(VALIDATE.formatted(horizon == null ? "'-infinity'::timestamptz" : "timestamptz '" + horizon + "'",
+                ReadingValidator.RETENTION));
+        t = lap(phases, "validate", t);
+
+        // 3) Gültige Zeilen übernehmen (ein Statement)
+        long inserted = jdbc.update(INSERT_VALID);
+        t = lap(phases, "insert", t);
+        rollup.addSelected(ROLLUP_SOURCE);
+        t = lap(phases, "rollup", t);
+
+        // 4) Fehlerreport schreiben
+        long rejected = jdbc.update(INSERT_ERRORS, backfillId);
+        var sample = errors(backfillId, REPORT_ERROR_SAMPLE);
+        lap(phases, "report", t);
+
+        var devices = jdbc.queryForList(
+                "select distinct device_id from reading_staging_checked where reason is null", UUID.class);
+        AfterCommit.run(() -> watermarks.invalidate(devices));
+
+        long totalNanos = System.nanoTime() - start;
+        double rowsPerSecond = staged == 0 ? 0 : staged / (totalNanos / 1e9);
+        log.info("Backfill {} finished (format={}, staged={}, inserted={}, rejected={}, rows/s={}, phases={})",
+                backfillId, format, staged, inserted, rejected, Math.round(rowsPerSecond), phases);
+        return new BackfillReport(backfillId, staged, inserted, rejected, phases, rowsPerSecond, sample);
+    }
+
+    /** Abgelehnte Zeilen eines Backfills (nach Zeilennummer). */
+    @Transactional(readOnly = true)
+    public List<BackfillReport.BackfillError> errors(UUID backfillId, int limit) {
+        return jdbc.query("""
+                        select line_no, device_id, reading_time, value, reason
+                        from reading_backfill_error
+                        where backfill_id = ?
+                        order by line_no
+                        limit ?
+                        """,
+                (rs, i) -> new BackfillReport.BackfillError(rs.getLong(1), rs.getString(2), rs.getString(3),
+                        rs.getString(4), rs.getString(5)),
+                backfillId, limit);
+    }
+
+    /**
+     * NDJSON → CSV-Zeilen direkt in den COPY-Stream (gepuffert); nicht parsebare und zu lange Zeilen
+     * (`ingest.ndjson.max-line-length`, ohne sie zu puffern) werden mit `parse_error` gestaged, damit sie im
+     * Fehlerreport erscheinen.
+     */
+    private long copyNdjson(CopyManager copy, InputStream in) throws SQLException, IOException {
+        CopyIn copyIn = copy.copyIn(COPY_NDJSON);
+        try {
+            var lines = new BoundedLineReader(in, maxLineLength);
+            var buf = new ByteArrayOutputStream(64 * 1024);
+            var sb = new StringBuilder(256);
+            String line;
+            while ((line = lines.readLine()) != null) {
+                if (line.isBlank() && !lines.overlong()) continue;
+                sb.setLength(0);
+                if (lines.overlong()) {
+                    sb.append(",,,,,");
+                    csv(sb, "Line exceeds " + maxLineLength + " characters");
+                } else {
+                    try {
+                        JsonNode node = jsonReader.readTree(line);
+                        csv(sb, text(node, "deviceId")).append(',');
+                        csv(sb, text(node, "readingTime")).append(',');
+                        csv(sb, text(node, "value")).append(',');
+                        csv(sb, text(node, "unit")).append(',');
+                        csv(sb, text(node, "source")).append(',');
+                    } catch (JsonProcessingException ex) {
+                        sb.setLength(0);
+                        sb.append(",,,,,");
+                        csv(sb, "Malformed JSON: " + ex.getOriginalMessage());
+                    }
+                }
+                sb.append('\n');
+                buf.writeBytes(sb.toString().getBytes(StandardCharsets.UTF_8));
+                if (buf.size() >= 60 * 1024) {
+                    copyIn.writeToCopy(buf.toByteArray(), 0, buf.size());
+                    buf.reset();
+                }
+            }
+            if (buf.size() > 0) copyIn.writeToCopy(buf.toByteArray(), 0, buf.size());
+            return copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) copyIn.cancelCopy();
+        }
+    }
+
+    private static String text(JsonNode node, String field) {
+        var v = node.get(field);
+        return v == null || v.isNull() ? null : v.asText();
+    }
+
+    /** CSV-Feld (null → leeres, unquotiertes Feld = SQL NULL). */
+    private static StringBuilder csv(StringBuilder sb, String value) {
+        if (value == null) return sb;
+        return sb.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    private static long lap(LinkedHashMap<String, Long> phases, String name, long since) {
+        long now = System.nanoTime();
+        phases.put(name, TimeUnit.NANOSECONDS.toMillis(now - since));
+        return now;
+    }
+}
@@ -0,0 +1,151 @@
+package com.brunata.meteringdemo.services.ingest;
+
+import com.brunata.meteringdemo.common.Quantity;
+import com.brunata.meteringdemo.services.dto.IngestResult;
+import com.brunata.meteringdemo.services.dto.ReadingDto;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Ingest-Regeln als reine Funktion über die Watermarks (ohne DB-Zugriff), gemeinsam für Einzel- und Batch-Ingest:
+ * - Gerät muss existieren
+ * - Zeitliche Monotonie: neuer Messwert darf nicht vor dem letzten liegen
+ * - Werte-Monotonie: neuer Zählerstand darf nicht kleiner sein
+ * - Aufbewahrung: Messwerte vor dem Horizont der Partitionsverwaltung werden abgelehnt (Partition entfernt)
+ * - Wertebereich: der Wert muss (nach Rundung auf 6 Nachkommastellen) in `NUMERIC(18,6)` passen
+ */
+public final class ReadingValidator {
+
+    static final String UNKNOWN_DEVICE = "Unknown device: ";
+    static final String TIME_ORDER = "Reading time must be >= last reading time";
+    static final String MONOTONICITY = "Monotonicity violated for device ";
+    public static final String RETENTION = "Reading time is before the retention horizon";
+    public static final String VALUE_RANGE = "Value is out of range for NUMERIC(18,6)";
+
+    /** Betragsgrenze von `NUMERIC(18,6)` in Millionstel (10^18, exklusiv). */
+    private static final long MAX_MICROS = 1_000_000_000_000_000_000L;
+
+    /** Messwert mit seinem Index im Request. */
+    public record Item(int index, ReadingDto dto) {}
+
+    /**
+     * Ergebnis eines Batches: akzeptierte Messwerte (je Gerät nach Zeit sortiert), Fehler nach Index,
+     * fortgeschriebene Watermarks der Geräte mit akzeptierten Messwerten.
+     */
+    public record Outcome(List<Item> accepted, List<IngestResult.ItemError> errors,
+                          Map<UUID, DeviceWatermarkCache.Watermark> advanced) {}
+
+    private ReadingValidator() {
+    }
+
+    /**
+     * Prüft einen Messwert gegen den Stand des Geräts.
+     *
+     * @return Fehlermeldung oder `null`, wenn der Messwert gültig ist
+     */
+    public static String violation(DeviceWatermarkCache.Watermark wm, ReadingDto dto, Quantity value) {
+        if (!wm.deviceExists()) return UNKNOWN_DEVICE + dto.deviceId();
+        if (wm.lastTime() != null && dto.readingTime().isBefore(wm.lastTime())) {
+            return TIME_ORDER;
+        }
+        if (wm.lastValue() != null && value.isLessThan(wm.lastValue())) {
+            return MONOTONICITY + wm.serialNo();
+        }
+        return null;
+    }
+
+    /**
+     * Prüft einen Messwert gegen den Aufbewahrungshorizont (`null` = unbegrenzt).
+     *
+     * @return Fehlermeldung oder `null`
+     */
+    public static String retention(Instant horizon, ReadingDto dto) {
+        return horizon != null && dto.readingTime().isBefore(horizon) ? RETENTION : null;
+    }
+
+    /**
+     * Wert eines Messwerts als {@link Quantity}.
+     *
+     * @return `null`, wenn der Wert nicht in `NUMERIC(18,6)` passt (Ablehnung mit {@link #VALUE_RANGE})
+     */
+    public static Quantity quantity(ReadingDto dto) {
+        try {
+            var value = Quantity.of(dto.value());
+            return Math.abs(value.micros()) < MAX_MICROS ? value : null;
+        } catch (ArithmeticException ex) {
+            return null;
+        }
+    }
+
+    /** Verletzte Regel einer Fehlermeldung aus {@link #violation} als Metrik-Tag (feste Wertemenge). */
+    public static String rule(String violation) {
+        if (violation.startsWith(UNKNOWN_DEVICE)) return "unknown_device";
+        if (violation.startsWith(TIME_ORDER)) return "time_order";
+        if (violation.startsWith(MONOTONICITY)) return "monotonicity";
+        if (violation.startsWith(RETENTION)) return "retention";
+        if (violation.startsWith(VALUE_RANGE)) return "value_range";
+        return "other";
+    }
+
+    /**
+     * Prüft einen Batch: gruppiert nach Gerät, sortiert je Gerät nach `readingTime` und prüft fortlaufend –
+     * akzeptierte Werte bilden die Basis für nachfolgende Werte desselben Geräts.
+     *
+     * @param watermarks Auflösung der Watermarks für alle Geräte des Batches (ein Aufruf)
+     */
+    public static Outcome validate(List<ReadingDto> readings,
+                                   Function<Collection<UUID>, Map<UUID, DeviceWatermarkCache.Watermark>> watermarks) {
+        return validate(readings, watermarks, null);
+    }
+
+    /** Wie {@link #validate(List, Function)}; Messwerte vor `horizon` (`null` = unbegrenzt) werden abgelehnt. */
+    public static Outcome validate(List<ReadingDto> readings,
+                                   Function<Collection<UUID>, Map<UUID, DeviceWatermarkCache.Watermark>> watermarks,
+                                   Instant horizon) {
+        Map<UUID, List<Item>> byDevice = new LinkedHashMap<>();
+        List<IngestResult.ItemError> errors = new ArrayList<>();
+        for (int i = 0; i < readings.size(); i++) {
+            var dto = readings.get(i);
+            var expired = retention(horizon, dto);
+            if (expired != null) {
+                errors.add(new IngestResult.ItemError(i, expired));
+                continue;
+            }
+            byDevice.computeIfAbsent(dto.deviceId(), k -> new ArrayList<>()).add(new Item(i, dto));
+        }
+        var known = watermarks.apply(byDevice.keySet());
+
+        List<Item> accepted = new ArrayList<>(readings.size());
+        Map<UUID, DeviceWatermarkCache.Watermark> advanced = new HashMap<>();
+        for (var entry : byDevice.entrySet()) {
+            var items = entry.getValue();
+            var wm = known.get(entry.getKey());
+            if (items.size() > 1 && wm.deviceExists()) {
+                items.sort(Comparator.comparing((Item it) -> it.dto().readingTime()));
+            }
+            var current = wm;
+            for (var it : items) {
+                var value = quantity(it.dto());
+                var error = value == null ? VALUE_RANGE : violation(current, it.dto(), value);
+                if (error != null) {
+                    errors.add(new IngestResult.ItemError(it.index(), error));
+                } else {
+                    accepted.add(it);
+                    current = current.advance(it.dto().readingTime(), value);
+                }
+            }
+            if (current != wm) advanced.put(entry.getKey(), current);
+        }
+        errors.sort(Comparator.comparingInt(IngestResult.ItemError::index));
+        return new Outcome(accepted, errors, advanced);
+    }
+}
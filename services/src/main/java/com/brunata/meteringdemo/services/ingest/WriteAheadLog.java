@@ -0,0 +1,342 @@
+package com.brunata.meteringdemo.services.ingest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only Write-Ahead-Log auf Basis memory-mapped Segmentdateien (ein Schreiber, ein Leser).
+ *
+ * Satzformat: [int Länge][int CRC32C][long appendedAtMillis][Payload]; die CRC deckt Zeitstempel + Payload ab.
+ * Die Länge wird zuletzt geschrieben, ein Satz ist damit erst nach vollständigem Schreiben sichtbar.
+ * Länge 0 markiert das Ende der geschriebenen Daten, -1 den Wechsel ins nächste Segment.
+ *
+ * Der Leser liest ab seinem Cursor bis zur zuletzt veröffentlichten Schreibposition und bestätigt
+ * verarbeitete Sätze per {@link #commit}; die Position wird in `checkpoint` persistiert und vollständig
+ * gelesene Segmente werden gelöscht. Beim Öffnen wird ab dem Checkpoint gescannt: Sätze dahinter gelten
+ * als offen (Replay), ein unvollständiger Satz (CRC-Fehler nach Absturz) beendet das Log.
+ *
+ * Absturzsicherheit (auch bei OS-Absturz): Segmente werden erst gelöscht, nachdem der Checkpoint samt
+ * Verzeichniseintrag per fsync dauerhaft ist; neu angelegte Segmente werden ebenso im Verzeichnis gesichert.
+ * Fehlt das Segment des Checkpoints trotzdem, beginnt der Scan beim ältesten vorhandenen Segment; Segmente
+ * hinter dem Scan-Ende werden nie gelöscht, sondern weiter gescannt.
+ */
+public final class WriteAheadLog implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(WriteAheadLog.class);
+
+    static final int HEADER_BYTES = 16;
+    private static final int END_OF_SEGMENT = -1;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String CHECKPOINT = "checkpoint";
+
+    /** Position im Log (Segmentnummer + Byte-Offset). */
+    public record Position(long segment, int offset) {}
+
+    /** Gelesener Satz inkl. Position direkt dahinter. */
+    public record Entry(long appendedAtMillis, byte[] payload, Position next) {}
+
+    private final Path dir;
+    private final int segmentSize;
+    private final ConcurrentSkipListMap<Long, MappedByteBuffer> segments = new ConcurrentSkipListMap<>();
+    private final AtomicLong pending = new AtomicLong();
+
+    // Schreiber (synchronisiert über this)
+    private long writeSegment;
+    private MappedByteBuffer writeBuffer;
+    private int writeOffset;
+    private int forcedOffset;
+    private boolean closed;
+
+    // zuletzt veröffentlichte Schreibposition (für den Leser)
+    private volatile Position published;
+
+    // Leser (ein Thread)
+    private Position readCursor;
+    private volatile Position committed;
+
+    private WriteAheadLog(Path dir, int segmentSize) {
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+    }
+
+    /** Öffnet (oder erzeugt) das Log in `dir` und stellt Lese-/Schreibposition aus Checkpoint + Scan wieder her. */
+    public static WriteAheadLog open(Path dir, int segmentSize) throws IOException {
+        Files.createDirectories(dir);
+        var wal = new WriteAheadLog(dir, segmentSize);
+        wal.recover();
+        return wal;
+    }
+
+    /** Hängt einen Satz an; sichtbar für den Leser nach Rückkehr (Dauerhaftigkeit erst nach {@link #force}). */
+    public synchronized void append(byte[] payload, long appendedAtMillis) throws IOException {
+        if (closed) throw new IOException("WAL is closed: " + dir);
+        int size = HEADER_BYTES + payload.length;
+        if (size + Integer.BYTES > segmentSize) {
+            throw new IllegalArgumentException("Record too large for segment: " + payload.length + " bytes");
+        }
+        if (writeOffset + size + Integer.BYTES > segmentSize) {
+            writeBuffer.putInt(writeOffset, END_OF_SEGMENT);
+            // Marker mitsichern: ohne ihn endet der Scan nach einem Absturz vor dem neuen Segment
+            writeOffset += Integer.BYTES;
+            force();
+            writeSegment++;
+            writeBuffer = map(writeSegment);
+            writeOffset = 0;
+            forcedOffset = 0;
+        }
+        var crc = new CRC32C();
+        var ts = ByteBuffer.allocate(Long.BYTES).putLong(0, appendedAtMillis);
+        crc.update(ts);
+        crc.update(payload);
+        writeBuffer.putInt(writeOffset + 4, (int) crc.getValue());
+        writeBuffer.putLong(writeOffset + 8, appendedAtMillis);
+        writeBuffer.put(writeOffset + HEADER_BYTES, payload);
+        writeBuffer.putInt(writeOffset, payload.length);
+        writeOffset += size;
+        pending.incrementAndGet();
+        published = new Position(writeSegment, writeOffset);
+    }
+
+    /** Schreibt noch nicht geflushte Seiten des aktuellen Segments auf das Speichermedium (fsync). */
+    public synchronized void force() {
+        if (!closed && writeOffset > forcedOffset) {
+            writeBuffer.force(forcedOffset, writeOffset - forcedOffset);
+            forcedOffset = writeOffset;
+        }
+    }
+
+    /**
+     * Liest bis zu `max` Sätze ab dem Lese-Cursor (nur Leser-Thread). Der Cursor rückt vor;
+     * bestätigt wird erst mit {@link #commit}. {@link #rewind} setzt auf den letzten Checkpoint zurück.
+     */
+    public List<Entry> read(int max) {
+        var end = published;
+        List<Entry> out = new ArrayList<>(Math.min(max, 1024));
+        var pos = readCursor;
+        while (out.size() < max && before(pos, end)) {
+            var buf = segments.get(pos.segment());
+            int len = buf.getInt(pos.offset());
+            if (len == END_OF_SEGMENT) {
+                // nächstes vorhandenes Segment (nach einer Wiederherstellung nicht zwingend lückenlos nummeriert)
+                var next = segments.higherKey(pos.segment());
+                if (next == null) break;
+                pos = new Position(next, 0);
+                continue;
+            }
+            if (len == 0) break;
+            long ts = buf.getLong(pos.offset() + 8);
+            var payload = new byte[len];
+            buf.get(pos.offset() + HEADER_BYTES, payload);
+            pos = new Position(pos.segment(), pos.offset() + HEADER_BYTES + len);
+            out.add(new Entry(ts, payload, pos));
+        }
+        readCursor = pos;
+        return out;
+    }
+
+    /** Setzt den Lese-Cursor auf den letzten Checkpoint zurück (z. B. nach fehlgeschlagener Verarbeitung). */
+    public void rewind() {
+        readCursor = committed;
+    }
+
+    /**
+     * Bestätigt `count` Sätze bis `upTo` (exklusiv): Checkpoint schreiben, gelesene Segmente löschen.
+     * Nur wenn Segmente gelöscht werden, wird der Checkpoint per fsync gesichert – sonst führt ein verlorener
+     * Checkpoint nur zu idempotentem Replay.
+     */
+    public void commit(Position upTo, int count) throws IOException {
+        var consumed = segments.headMap(upTo.segment()).keySet();
+        writeCheckpoint(upTo, !consumed.isEmpty());
+        committed = upTo;
+        pending.addAndGet(-count);
+        for (var seg : consumed) {
+            segments.remove(seg);
+            Files.deleteIfExists(segmentPath(seg));
+        }
+    }
+
+    /** Anzahl angehängter, noch nicht bestätigter Sätze. */
+    public long pending() {
+        return pending.get();
+    }
+
+    /** Zeitstempel des ältesten unbestätigten Satzes oder -1, wenn das Log leer ist. */
+    public long oldestPendingMillis() {
+        if (pending.get() == 0) return -1;
+        var pos = committed;
+        var buf = segments.get(pos.segment());
+        if (buf == null) return -1;
+        int len = buf.getInt(pos.offset());
+        if (len == END_OF_SEGMENT) {
+            var next = segments.higherEntry(pos.segment());
+            return next == null || next.getValue().getInt(0) <= 0 ? -1 : next.getValue().getLong(8);
+        }
+        return len > 0 ? buf.getLong(pos.offset() + 8) : -1;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        force();
+        closed = true;
+    }
+
+    private void recover() throws IOException {
+        var start = readCheckpoint();
+        List<Long> existing;
+        try (Stream<Path> files = Files.list(dir)) {
+            existing = files.map(p -> p.getFileName().toString())
+                    .filter(n -> n.endsWith(SEGMENT_SUFFIX))
+                    .map(n -> Long.parseLong(n.substring(0, n.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+        if (start != null && !existing.contains(start.segment()) && !existing.isEmpty()) {
+            // Segment des Checkpoints fehlt (nie anlegen, sonst endet der Scan dort): ab ältestem Segment
+            // erneut einspielen – idempotent
+            start = new Position(existing.get(0), 0);
+        }
+        if (start == null) {
+            start = new Position(existing.isEmpty() ? 0 : existing.get(0), 0);
+        }
+        for (long seg : existing) {
+            if (seg < start.segment()) Files.deleteIfExists(segmentPath(seg));
+        }
+
+        // Scan ab Checkpoint: offene Sätze zählen, Ende (bzw. abgeschnittenen Satz) finden
+        long seg = start.segment();
+        int off = start.offset();
+        var buf = map(seg);
+        long count = 0;
+        while (true) {
+            int len = off + Integer.BYTES <= segmentSize ? buf.getInt(off) : END_OF_SEGMENT;
+            if (len > 0 && valid(buf, off, len)) {
+                off += HEADER_BYTES + len;
+                count++;
+                continue;
+            }
+            var next = higher(existing, seg);
+            if (next == null) {
+                if (len > 0) buf.putInt(off, 0); // abgeschnittener Satz nach Absturz → überschreibbar machen
+                break;
+            }
+            if (len != END_OF_SEGMENT) {
+                // Ende oder abgeschnittener Satz vor einem neueren Segment: dessen Sätze nicht verwerfen
+                log.warn("Ingest WAL {}: segment {} ends at offset {} without marker, continuing with segment {}",
+                        dir, seg, off, next);
+                if (off + Integer.BYTES <= segmentSize) buf.putInt(off, END_OF_SEGMENT);
+            }
+            seg = next;
+            off = 0;
+            buf = map(seg);
+        }
+        writeSegment = seg;
+        writeBuffer = buf;
+        writeOffset = off;
+        forcedOffset = off;
+        pending.set(count);
+        published = new Position(seg, off);
+        readCursor = start;
+        committed = start;
+    }
+
+    private boolean valid(MappedByteBuffer buf, int off, int len) {
+        if (off + HEADER_BYTES + len > segmentSize) return false;
+        var crc = new CRC32C();
+        crc.update(buf.slice(off + 8, Long.BYTES + len));
+        return (int) crc.getValue() == buf.getInt(off + 4);
+    }
+
+    private MappedByteBuffer map(long seg) throws IOException {
+        var existing = segments.get(seg);
+        if (existing != null) return existing;
+        var path = segmentPath(seg);
+        boolean created = !Files.exists(path);
+        try (var ch = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            var buf = ch.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            if (created) {
+                // Dateigröße und Verzeichniseintrag sichern, sonst fehlt das Segment nach einem OS-Absturz
+                ch.force(true);
+                syncDirectory();
+            }
+            segments.put(seg, buf);
+            return buf;
+        }
+    }
+
+    private static Long higher(List<Long> sorted, long seg) {
+        for (long s : sorted) {
+            if (s > seg) return s;
+        }
+        return null;
+    }
+
+    private static boolean before(Position a, Position b) {
+        return a.segment() < b.segment() || (a.segment() == b.segment() && a.offset() < b.offset());
+    }
+
+    private Path segmentPath(long seg) {
+        return dir.resolve("%016d%s".formatted(seg, SEGMENT_SUFFIX));
+    }
+
+    // Checkpoint: [long segment][int offset][int crc]; atomar per Rename ersetzt. `durable`: Datei und
+    // Verzeichniseintrag per fsync sichern (Pflicht, bevor Segmente gelöscht werden, auf die ein älterer
+    // Checkpoint noch zeigt).
+    private void writeCheckpoint(Position pos, boolean durable) throws IOException {
+        var buf = ByteBuffer.allocate(16).putLong(pos.segment()).putInt(pos.offset());
+        var crc = new CRC32C();
+        crc.update(buf.array(), 0, 12);
+        buf.putInt((int) crc.getValue());
+        var tmp = dir.resolve(CHECKPOINT + ".tmp");
+        try (var ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            buf.flip();
+            while (buf.hasRemaining()) ch.write(buf);
+            if (durable) ch.force(true);
+        }
+        Files.move(tmp, dir.resolve(CHECKPOINT), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        if (durable) syncDirectory();
+    }
+
+    /** fsync des Verzeichnisses (Anlegen/Umbenennen von Dateien); nicht auf allen Plattformen möglich. */
+    private void syncDirectory() throws IOException {
+        try (var ch = FileChannel.open(dir, StandardOpenOption.READ)) {
+            ch.force(true);
+        } catch (AccessDeniedException ex) {
+            // Windows: Verzeichnisse lassen sich nicht öffnen; dort sichert NTFS Metadaten selbst (Journal)
+        }
+    }
+
+    private Position readCheckpoint() {
+        var file = dir.resolve(CHECKPOINT);
+        if (!Files.exists(file)) return null;
+        try {
+            var buf = ByteBuffer.wrap(Files.readAllBytes(file));
+            if (buf.remaining() != 16) return null;
+            var crc = new CRC32C();
+            crc.update(buf.array(), 0, 12);
+            if ((int) crc.getValue() != buf.getInt(12)) return null;
+            return new Position(buf.getLong(0), buf.getInt(8));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
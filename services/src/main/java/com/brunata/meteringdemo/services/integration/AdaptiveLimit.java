@@ -0,0 +1,45 @@
+package com.brunata.meteringdemo.services.integration;
+
+/**
+ * Parallelitätslimit nach AIMD (additive increase, multiplicative decrease), wie bei der TCP-Staukontrolle:
+ * - erfolgreicher Request unter dem Latenzziel: +1/Limit (also etwa +1 je Limit erfolgreicher Requests)
+ * - Fehler, Timeout oder Latenz über dem Ziel: Limit halbieren
+ * Das Limit bleibt zwischen min und max und über Läufe hinweg erhalten.
+ */
+public final class AdaptiveLimit {
+
+    static final double BACKOFF = 0.5;
+
+    private final int min;
+    private final int max;
+    private final long latencyTargetNanos;
+    private volatile double limit;
+
+    public AdaptiveLimit(int initial, int min, int max, long latencyTargetNanos) {
+        if (min < 1 || max < min) throw new IllegalArgumentException("concurrency limits must satisfy 1 <= min <= max");
+        this.min = min;
+        this.max = max;
+        this.latencyTargetNanos = latencyTargetNanos;
+        this.limit = Math.max(min, Math.min(max, initial));
+    }
+
+    public int limit() {
+        return (int) limit;
+    }
+
+    public synchronized void onSuccess(long latencyNanos) {
+        if (latencyNanos > latencyTargetNanos) {
+            decrease();
+        } else {
+            limit = Math.min(max, limit + 1.0 / limit);
+        }
+    }
+
+    public synchronized void onFailure() {
+        decrease();
+    }
+
+    private void decrease() {
+        limit = Math.max(min, Math.floor(limit * BACKOFF));
+    }
+}
@@ -0,0 +1,67 @@
+package com.brunata.meteringdemo.services.integration;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * Einfacher Circuit Breaker:
+ * - CLOSED: alle Requests erlaubt; nach `failureThreshold` aufeinanderfolgenden Fehlern -> OPEN
+ * - OPEN: keine Requests, bis `openDuration` verstrichen ist -> HALF_OPEN
+ * - HALF_OPEN: genau ein Probe-Request; Erfolg -> CLOSED, Fehler -> wieder OPEN
+ */
+public final class CircuitBreaker {
+
+    public enum State { CLOSED, HALF_OPEN, OPEN }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final Consumer<State> onTransition;
+
+    private volatile State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+    private boolean probing;
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration, Consumer<State> onTransition) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = openDuration.toNanos();
+        this.onTransition = onTransition;
+    }
+
+    public State state() {
+        return state;
+    }
+
+    /** Reserviert einen Request; `false`, solange der Breaker offen ist bzw. eine Probe läuft. */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) return false;
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probing) return false;
+            probing = true;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        failures = 0;
+        probing = false;
+        if (state != State.CLOSED) transition(State.CLOSED);
+    }
+
+    public synchronized void onFailure() {
+        probing = false;
+        if (state == State.HALF_OPEN || ++failures >= failureThreshold) {
+            failures = 0;
+            openedAt = System.nanoTime();
+            if (state != State.OPEN) transition(State.OPEN);
+        }
+    }
+
+    private void transition(State next) {
+        state = next;
+        onTransition.accept(next);
+    }
+}
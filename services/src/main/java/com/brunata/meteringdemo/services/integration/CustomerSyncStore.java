@@ -0,0 +1,66 @@
+package com.brunata.meteringdemo.services.integration;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Persistenz des ERP-Kundensyncs: Upsert in `customer` und die HTTP-Validatoren des letzten vollständigen Abrufs
+ * (`sync_validator`).
+ */
+@Component
+public class CustomerSyncStore {
+
+    /** Validatoren eines Feeds für bedingte Requests (`null` = unbekannt). */
+    public record Validators(String etag, String lastModified) {
+        static final Validators NONE = new Validators(null, null);
+    }
+
+    // Unveränderte Zeilen werden nicht geschrieben (kein neues Tupel, Update-Count 0)
+    static final String UPSERT_SQL = """
+            insert into customer (customer_no, name, email, city, erp_updated_at, synced_at)
+            values (?, ?, ?, ?, ?, now())
+            on conflict (customer_no) do update
+              set name = excluded.name, email = excluded.email, city = excluded.city,
+                  erp_updated_at = excluded.erp_updated_at, synced_at = excluded.synced_at
+              where (customer.name, customer.email, customer.city, customer.erp_updated_at)
+                    is distinct from (excluded.name, excluded.email, excluded.city, excluded.erp_updated_at)
+            """;
+
+    private final JdbcTemplate jdbc;
+
+    public CustomerSyncStore(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /** Schreibt einen Chunk als JDBC-Batch; liefert die Anzahl neuer bzw. geänderter Kunden. */
+    public int upsert(List<ErpCustomer> customers) {
+        if (customers.isEmpty()) return 0;
+        int changed = 0;
+        for (int[] counts : jdbc.batchUpdate(UPSERT_SQL, customers, customers.size(), (ps, c) -> {
+            ps.setString(1, c.customerNo());
+            ps.setString(2, c.name());
+            ps.setString(3, c.email());
+            ps.setString(4, c.city());
+            ps.setTimestamp(5, c.updatedAt() != null ? Timestamp.from(c.updatedAt()) : null);
+        })) {
+            for (int n : counts) if (n > 0) changed += n;
+        }
+        return changed;
+    }
+
+    public Validators validators(String feed) {
+        return jdbc.query("select etag, last_modified from sync_validator where name = ?",
+                rs -> rs.next() ? new Validators(rs.getString(1), rs.getString(2)) : Validators.NONE, feed);
+    }
+
+    public void saveValidators(String feed, Validators validators) {
+        jdbc.update("""
+                insert into sync_validator (name, etag, last_modified, updated_at) values (?, ?, ?, now())
+                on conflict (name) do update
+                  set etag = excluded.etag, last_modified = excluded.last_modified, updated_at = excluded.updated_at
+                """, feed, validators.etag(), validators.lastModified());
+    }
+}
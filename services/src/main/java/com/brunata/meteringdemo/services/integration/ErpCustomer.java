@@ -0,0 +1,14 @@
+package com.brunata.meteringdemo.services.integration;
+
+import java.time.Instant;
+
+/**
+ * Kunde, wie ihn der ERP-Mock liefert (eine JSON-Zeile je Kunde im NDJSON-Stream).
+ */
+public record ErpCustomer(String customerNo, String name, String email, String city, Instant updatedAt) {
+
+    /** Pflichtfelder vorhanden (sonst wird die Zeile übersprungen). */
+    boolean valid() {
+        return customerNo != null && !customerNo.isBlank() && name != null && !name.isBlank();
+    }
+}
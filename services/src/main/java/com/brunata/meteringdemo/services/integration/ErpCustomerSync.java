@@ -0,0 +1,114 @@
+package com.brunata.meteringdemo.services.integration;
+
+import com.brunata.meteringdemo.services.config.ErpSyncProperties;
+import com.brunata.meteringdemo.services.config.IntegrationProperties;
+import com.brunata.meteringdemo.services.integration.CustomerSyncStore.Validators;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+/**
+ * Inkrementeller Kundensync aus dem ERP-Mock (`GET /mock/customers`, NDJSON):
+ * - bedingter Request mit `If-None-Match`/`If-Modified-Since` aus dem letzten vollständigen Abruf;
+ *   unverändert -> 304, ein Roundtrip ohne Datenbank-Schreibzugriff
+ * - der Stream wird zeilenweise dekodiert und in Chunks (`integration.erp.batch-size`) per JDBC-Batch upserted;
+ *   Speicherbedarf damit unabhängig von der Katalog-Größe (`maxInMemorySize` gilt je Zeile)
+ * - nur neue bzw. geänderte Kunden werden geschrieben (`IS DISTINCT FROM` im Upsert)
+ * - Validatoren werden erst nach vollständigem Stream gespeichert; ein abgebrochener Abruf wird beim nächsten
+ *   Lauf komplett wiederholt (Upserts sind idempotent)
+ * Kunden, die im ERP entfallen, bleiben erhalten (kein Löschabgleich).
+ *
+ * Metriken: `erp.sync.runs{result=not_modified|updated|failed}`,
+ * `erp.sync.customers{outcome=changed|unchanged|skipped}` sowie `sync.call{integration=erp}` bis zu den Antwort-Headern.
+ */
+@Component
+public class ErpCustomerSync {
+
+    static final String FEED = "erp-customers";
+
+    /** Ergebnis eines Laufs. */
+    public record Result(boolean notModified, long received, long changed, long skipped) {}
+
+    private final WebClient webClient;
+    private final IntegrationProperties integration;
+    private final ErpSyncProperties props;
+    private final CustomerSyncStore store;
+    private final MeterRegistry registry;
+
+    public ErpCustomerSync(WebClient.Builder builder, IntegrationProperties integration, ErpSyncProperties props,
+                           CustomerSyncStore store, MeterRegistry registry) {
+        if (props.batchSize() < 1) throw new IllegalArgumentException("integration.erp.batch-size must be >= 1");
+        this.webClient = builder.build();
+        this.integration = integration;
+        this.props = props;
+        this.store = store;
+        this.registry = registry;
+    }
+
+    public Result sync() {
+        try {
+            var result = fetch();
+            run(result.notModified() ? "not_modified" : "updated");
+            return result;
+        } catch (RuntimeException ex) {
+            run("failed");
+            throw ex;
+        }
+    }
+
+    private Result fetch() {
+        var validators = store.validators(FEED);
+        var response = SyncCalls.timed(registry, "erp", webClient.get()
+                        .uri(integration.erpBaseUrl() + "/mock/customers")
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .headers(h -> {
+                            if (validators.etag() != null) h.setIfNoneMatch(validators.etag());
+                            if (validators.lastModified() != null) {
+                                h.set(HttpHeaders.IF_MODIFIED_SINCE, validators.lastModified());
+                            }
+                        })
+                        .retrieve()
+                        .toEntityFlux(ErpCustomer.class)
+                        .timeout(props.requestTimeout()))
+                .block();
+        if (response == null) throw new IllegalStateException("ERP returned no response");
+        if (response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+            return new Result(true, 0, 0, 0);
+        }
+
+        long received = 0;
+        long changed = 0;
+        long skipped = 0;
+        var body = response.getBody() != null ? response.getBody() : Flux.<ErpCustomer>empty();
+        // toIterable mit Prefetch 1: höchstens ein Chunk im Voraus, der Stream wird per Backpressure gebremst
+        for (var chunk : body.timeout(props.idleTimeout()).buffer(props.batchSize()).toIterable(1)) {
+            var valid = chunk.stream().filter(ErpCustomer::valid).toList();
+            skipped += chunk.size() - valid.size();
+            changed += store.upsert(valid);
+            received += chunk.size();
+        }
+
+        var headers = response.getHeaders();
+        store.saveValidators(FEED, new Validators(headers.getETag(), headers.getFirst(HttpHeaders.LAST_MODIFIED)));
+        customers("changed", changed);
+        customers("unchanged", received - skipped - changed);
+        customers("skipped", skipped);
+        return new Result(false, received, changed, skipped);
+    }
+
+    private void run(String result) {
+        Counter.builder("erp.sync.runs").tag("result", result)
+                .description("ERP customer sync runs").register(registry).increment();
+    }
+
+    private void customers(String outcome, long n) {
+        if (n <= 0) return;
+        Counter.builder("erp.sync.customers").tag("outcome", outcome)
+                .description("Customers received from the ERP").register(registry).increment(n);
+    }
+}
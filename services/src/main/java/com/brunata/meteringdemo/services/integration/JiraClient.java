@@ -0,0 +1,283 @@
+package com.brunata.meteringdemo.services.integration;
+
+import com.brunata.meteringdemo.domain.Device;
+import com.brunata.meteringdemo.services.config.IntegrationProperties;
+import com.brunata.meteringdemo.services.config.JiraClientProperties;
+import com.brunata.meteringdemo.services.integration.OfflineReportStore.OfflineReport;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Jira-Client für die Offline-Meldungen:
+ * - Issues werden gebündelt angelegt (Bulk-Request mit bis zu `integration.jira.batch-size` Issues)
+ * - parallele Requests folgen einem adaptiven Limit ({@link AdaptiveLimit}): steigt, solange Jira schnell und
+ *   fehlerfrei antwortet, halbiert sich bei Fehlern, Timeouts oder Latenz über dem Ziel
+ * - nach wiederholten Fehlern öffnet ein {@link CircuitBreaker}; solange er offen ist, wird nichts gesendet
+ * - Batches, die bei offenem Breaker oder erschöpftem Zeitbudget nicht gesendet wurden (bzw. nach allen Versuchen
+ *   wiederholbar fehlschlugen), meldet das Ergebnis als `unsent`; der Aufrufer behält sie für den nächsten Lauf
+ * - laufende Requests werden vor der Rückkehr ausgewertet oder abgebrochen, nie verwaist zurückgelassen
+ *
+ * Metriken: `jira.client.concurrency.limit`, `jira.client.inflight`, `jira.client.circuit.state`
+ * (0 = closed, 1 = half_open, 2 = open), `jira.client.circuit.transitions{state}`,
+ * `jira.client.items{operation=create|close, outcome=done|failed|unsent}` sowie `sync.call{integration=jira}` je Request.
+ */
+@Component
+public class JiraClient {
+    private static final Logger log = LoggerFactory.getLogger(JiraClient.class);
+
+    /** Ergebnis eines Aufrufs: erledigte Einträge, endgültig abgelehnte und für später liegengebliebene. */
+    public record Outcome<R>(List<R> done, int failed, int unsent) {
+        public boolean complete() {
+            return unsent == 0;
+        }
+    }
+
+    private record Batch<T>(List<T> items, int attempt) {}
+
+    private record Completion<T, R>(Call<T> call, List<R> result, Throwable error, long nanos) {}
+
+    private final WebClient webClient;
+    private final IntegrationProperties integration;
+    private final JiraClientProperties props;
+    private final MeterRegistry registry;
+    private final AdaptiveLimit limit;
+    private final CircuitBreaker breaker;
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    public JiraClient(WebClient.Builder builder, IntegrationProperties integration, JiraClientProperties props,
+                      MeterRegistry registry) {
+        if (props.batchSize() < 1 || props.maxAttempts() < 1) {
+            throw new IllegalArgumentException("integration.jira.batch-size and max-attempts must be >= 1");
+        }
+        this.webClient = builder.build();
+        this.integration = integration;
+        this.props = props;
+        this.registry = registry;
+        this.limit = new AdaptiveLimit(props.initialConcurrency(), props.minConcurrency(), props.maxConcurrency(),
+                props.latencyTarget().toNanos());
+        this.breaker = new CircuitBreaker(props.failureThreshold(), props.openDuration(), state -> {
+            log.warn("Jira circuit breaker -> {}", state);
+            Counter.builder("jira.client.circuit.transitions").tag("state", state.name().toLowerCase())
+                    .description("Circuit breaker state changes of the Jira client").register(registry).increment();
+        });
+        Gauge.builder("jira.client.concurrency.limit", limit, AdaptiveLimit::limit)
+                .description("Adaptive limit of concurrent Jira requests").register(registry);
+        Gauge.builder("jira.client.inflight", inflight, AtomicInteger::get)
+                .description("Jira requests in flight").register(registry);
+        Gauge.builder("jira.client.circuit.state", breaker, b -> b.state().ordinal())
+                .description("Circuit breaker state (0 = closed, 1 = half_open, 2 = open)").register(registry);
+    }
+
+    public int concurrencyLimit() {
+        return limit.limit();
+    }
+
+    public CircuitBreaker.State circuitState() {
+        return breaker.state();
+    }
+
+    /** Legt je Gerät ein Offline-Issue an (Bulk); liefert die angelegten Meldungen inkl. Issue-Key. */
+    public Outcome<OfflineReport> createIssues(List<Device> devices, Instant deadline) {
+        return execute("create", devices, props.batchSize(), this::bulkCreate, deadline);
+    }
+
+    /** Schließt die Issues wieder erreichbarer Geräte; Meldungen ohne Issue-Key gelten sofort als erledigt. */
+    public Outcome<OfflineReport> closeIssues(List<OfflineReport> reports, Instant deadline) {
+        return execute("close", reports, 1, batch -> close(batch.get(0)), deadline);
+    }
+
+    private Mono<List<OfflineReport>> bulkCreate(List<Device> batch) {
+        var issues = batch.stream()
+                .map(d -> Map.of("fields", Map.of(
+                        "summary", "Device offline: " + d.getSerialNo(),
+                        "deviceId", String.valueOf(d.getId()),
+                        "lastSeenAt", String.valueOf(d.getLastSeenAt()))))
+                .toList();
+        return webClient.post()
+                .uri(integration.jiraBaseUrl() + "/mock/issue/bulk")
+                .bodyValue(Map.of("issueUpdates", issues))
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .map(body -> created(batch, body));
+    }
+
+    /**
+     * Ordnet die Antwort eines Bulk-Requests den Geräten zu (wie Jira: `issues` in Reihenfolge der erfolgreichen
+     * Elemente, `errors[].failedElementNumber` = Index der abgelehnten).
+     */
+    static List<OfflineReport> created(List<Device> batch, JsonNode body) {
+        var failed = new HashSet<Integer>();
+        for (var error : body.path("errors")) {
+            failed.add(error.path("failedElementNumber").asInt(-1));
+            log.warn("Jira rejected offline issue #{}: {}", error.path("failedElementNumber").asInt(-1),
+                    error.path("elementErrors"));
+        }
+        var issues = body.path("issues");
+        var reports = new ArrayList<OfflineReport>(batch.size());
+        int k = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            if (failed.contains(i)) continue;
+            var d = batch.get(i);
+            var key = issues.path(k++).path("key").asText("");
+            reports.add(new OfflineReport(d.getId(), d.getSerialNo(), key.isEmpty() ? null : key, d.getLastSeenAt()));
+        }
+        return reports;
+    }
+
+    private Mono<List<OfflineReport>> close(OfflineReport r) {
+        if (r.issueKey() == null) return Mono.just(List.of(r));
+        return webClient.post()
+                .uri(integration.jiraBaseUrl() + "/mock/issue/{key}/close", r.issueKey())
+                .bodyValue(Map.of("deviceId", String.valueOf(r.deviceId()), "lastSeenAt", String.valueOf(r.lastSeenAt())))
+                .retrieve()
+                .toBodilessEntity()
+                .thenReturn(List.of(r));
+    }
+
+    /**
+     * Sendet die Einträge in Batches, höchstens {@link AdaptiveLimit#limit()} gleichzeitig. Der aufrufende Thread
+     * verteilt und wertet aus; die Requests laufen nicht-blockierend und melden ihr Ergebnis über eine Queue.
+     * Zurückgekehrt wird erst, wenn jeder gestartete Request ausgewertet oder abgebrochen ist: ein Ergebnis, das nach
+     * dem Abbruch noch eintrifft, wird verworfen statt ein nicht erfasstes Issue zu hinterlassen.
+     */
+    private <T, R> Outcome<R> execute(String operation, List<T> items, int batchSize,
+                                      Function<List<T>, Mono<List<R>>> call, Instant deadline) {
+        var pending = new ArrayDeque<Batch<T>>();
+        for (int i = 0; i < items.size(); i += batchSize) {
+            pending.add(new Batch<>(items.subList(i, Math.min(items.size(), i + batchSize)), 1));
+        }
+        var completions = new LinkedBlockingQueue<Completion<T, R>>();
+        var running = new ArrayList<Call<T>>();
+        var done = new ArrayList<R>(items.size());
+        int failed = 0;
+        int exhausted = 0;
+        int abandoned = 0;
+        boolean stopped = false;
+        boolean interrupted = false;
+        while ((!stopped && !pending.isEmpty()) || !running.isEmpty()) {
+            while (!stopped && !pending.isEmpty() && running.size() < limit.limit() && Instant.now().isBefore(deadline)
+                    && breaker.tryAcquire()) {
+                var inFlight = new Call<>(pending.poll());
+                running.add(inFlight);
+                inflight.incrementAndGet();
+                long start = System.nanoTime();
+                inFlight.subscription = SyncCalls.timed(registry, "jira",
+                                call.apply(inFlight.batch.items()).timeout(props.requestTimeout()))
+                        .defaultIfEmpty(List.of())
+                        .subscribe(r -> inFlight.settle(completions, r, null, System.nanoTime() - start),
+                                ex -> inFlight.settle(completions, null, ex, System.nanoTime() - start));
+            }
+            if (running.isEmpty()) break; // Breaker offen oder Budget erschöpft -> Rest bleibt liegen
+            Completion<T, R> c;
+            try {
+                // jeder Request endet spätestens mit seinem Timeout
+                c = completions.poll(props.requestTimeout().toMillis() * 2 + 1_000, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                interrupted = true;
+                c = null;
+            }
+            if (c == null) {
+                // nichts mehr versenden; noch offene Requests abbrechen. Bereits eingetroffene Ergebnisse
+                // (settle gewonnen) kommen gleich über die Queue und werden regulär ausgewertet.
+                stopped = true;
+                for (var it = running.iterator(); it.hasNext(); ) {
+                    var open = it.next();
+                    if (!open.cancel()) continue;
+                    it.remove();
+                    inflight.decrementAndGet();
+                    abandoned += open.batch.items().size();
+                }
+                if (abandoned > 0) {
+                    log.warn("Jira {}: cancelled {} item(s) without response", operation, abandoned);
+                }
+                continue;
+            }
+            running.remove(c.call());
+            inflight.decrementAndGet();
+            var batch = c.call().batch;
+            int size = batch.items().size();
+            if (c.error() == null) {
+                limit.onSuccess(c.nanos());
+                breaker.onSuccess();
+                done.addAll(c.result());
+                failed += size - c.result().size();
+            } else if (SyncCalls.isRetryable(c.error())) {
+                limit.onFailure();
+                breaker.onFailure();
+                if (batch.attempt() < props.maxAttempts()) {
+                    pending.addFirst(new Batch<>(batch.items(), batch.attempt() + 1));
+                } else {
+                    exhausted += size;
+                }
+                log.warn("Jira {} of {} item(s) failed (attempt {}): {}", operation, size, batch.attempt(),
+                        c.error().toString());
+            } else {
+                // Jira hat geantwortet, die Anfrage aber abgelehnt: kein Überlast-, aber auch kein Latenzsignal
+                breaker.onSuccess();
+                failed += size;
+                log.warn("Jira {} of {} item(s) rejected: {}", operation, size, c.error().toString());
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        int unsent = exhausted + abandoned + pending.stream().mapToInt(b -> b.items().size()).sum();
+        count(operation, "done", done.size());
+        count(operation, "failed", failed);
+        count(operation, "unsent", unsent);
+        if (unsent > 0) {
+            log.info("Jira {}: {} item(s) left for the next run (circuit={}, limit={})", operation, unsent,
+                    breaker.state(), limit.limit());
+        }
+        return new Outcome<>(done, failed, unsent);
+    }
+
+    /**
+     * Ein laufender Request. Ergebnis und Abbruch konkurrieren um {@link #settled}: genau eines gewinnt, so dass ein
+     * Erfolg entweder ausgewertet oder der Request vorher abgebrochen wird – nie beides und nie keines.
+     */
+    private static final class Call<T> {
+        final Batch<T> batch;
+        final AtomicBoolean settled = new AtomicBoolean();
+        volatile Disposable subscription;
+
+        Call(Batch<T> batch) {
+            this.batch = batch;
+        }
+
+        <R> void settle(LinkedBlockingQueue<Completion<T, R>> completions, List<R> result, Throwable error, long nanos) {
+            if (settled.compareAndSet(false, true)) completions.add(new Completion<>(this, result, error, nanos));
+        }
+
+        boolean cancel() {
+            if (!settled.compareAndSet(false, true)) return false;
+            var s = subscription;
+            if (s != null) s.dispose();
+            return true;
+        }
+    }
+
+    private void count(String operation, String outcome, int n) {
+        if (n == 0) return;
+        Counter.builder("jira.client.items").tag("operation", operation).tag("outcome", outcome)
+                .description("Jira issues processed by the client").register(registry).increment(n);
+    }
+}
@@ -0,0 +1,89 @@
+package com.brunata.meteringdemo.services.integration;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Persistenter Zustand der Offline-Meldungen (`device_offline_report`) und Keyset-Positionen der Sync-Läufe
+ * (`sync_cursor`). Ein Eintrag je Gerät mit offenem Issue; er verschwindet, sobald das Gerät wieder Messwerte
+ * liefert, sodass ein erneuter Ausfall wieder gemeldet wird.
+ */
+@Component
+public class OfflineReportStore {
+
+    /** Keyset-Start (kleinste UUID). */
+    public static final UUID START = new UUID(0L, 0L);
+
+    /** Offene Meldung eines Geräts. */
+    public record OfflineReport(UUID deviceId, String serialNo, String issueKey, Instant lastSeenAt) {}
+
+    private final JdbcTemplate jdbc;
+
+    public OfflineReportStore(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /** Gespeicherte Position eines Laufs ({@link #START}, falls noch keine). */
+    public UUID cursor(String name) {
+        return jdbc.query("select position from sync_cursor where name = ?",
+                rs -> rs.next() ? rs.getObject(1, UUID.class) : START, name);
+    }
+
+    public void saveCursor(String name, UUID position) {
+        jdbc.update("""
+                insert into sync_cursor (name, position, updated_at) values (?, ?, now())
+                on conflict (name) do update set position = excluded.position, updated_at = excluded.updated_at
+                """, name, position);
+    }
+
+    /** Teilmenge der Geräte, für die bereits eine offene Meldung besteht. */
+    public Set<UUID> reported(Collection<UUID> deviceIds) {
+        if (deviceIds.isEmpty()) return Set.of();
+        var ids = deviceIds.toArray(UUID[]::new);
+        return new HashSet<>(jdbc.queryForList(
+                "select device_id from device_offline_report where device_id = any(cast(? as uuid[]))", UUID.class,
+                (Object) ids));
+    }
+
+    /** Vermerkt angelegte Issues (bestehende Einträge bleiben unverändert). */
+    public void markReported(List<OfflineReport> reports) {
+        if (reports.isEmpty()) return;
+        jdbc.batchUpdate("""
+                insert into device_offline_report (device_id, issue_key, last_seen_at) values (?, ?, ?)
+                on conflict (device_id) do nothing
+                """, reports, reports.size(), (ps, r) -> {
+            ps.setObject(1, r.deviceId());
+            ps.setString(2, r.issueKey());
+            ps.setTimestamp(3, r.lastSeenAt() != null ? Timestamp.from(r.lastSeenAt()) : null);
+        });
+    }
+
+    /** Keyset-Seite der gemeldeten Geräte, die seit dem Cutoff wieder gesehen wurden (`device_id > afterId`). */
+    public List<OfflineReport> recovered(Instant cutoff, UUID afterId, int limit) {
+        return jdbc.query("""
+                select r.device_id, d.serial_no, r.issue_key, d.last_seen_at
+                from device_offline_report r
+                join device d on d.id = r.device_id
+                where r.device_id > ? and d.last_seen_at >= ?
+                order by r.device_id
+                limit ?
+                """, (rs, i) -> new OfflineReport(rs.getObject(1, UUID.class), rs.getString(2), rs.getString(3),
+                        rs.getTimestamp(4).toInstant()),
+                afterId, Timestamp.from(cutoff), limit);
+    }
+
+    /** Entfernt die Meldungen wieder erreichbarer Geräte. */
+    public void resolved(Collection<UUID> deviceIds) {
+        if (deviceIds.isEmpty()) return;
+        jdbc.update("delete from device_offline_report where device_id = any(cast(? as uuid[]))",
+                (Object) deviceIds.toArray(UUID[]::new));
+    }
+}
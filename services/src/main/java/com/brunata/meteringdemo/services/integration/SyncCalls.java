@@ -0,0 +1,56 @@
+package com.brunata.meteringdemo.services.integration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Gemeinsame Hilfen der Integrations-Aufrufe: Metrik `sync.call` (Dauer je Aufruf, Tags `integration` und
+ * `outcome` = success|client_error|server_error|timeout|error|cancelled, mit Perzentil-Histogramm) und
+ * Einordnung wiederholbarer Fehler.
+ */
+final class SyncCalls {
+
+    private SyncCalls() {
+    }
+
+    /** Misst einen Aufruf (ab Subscription) und vermerkt das Ergebnis als Tag. */
+    static <T> Mono<T> timed(MeterRegistry registry, String integration, Mono<T> call) {
+        return Mono.defer(() -> {
+            var sample = Timer.start(registry);
+            return call
+                    .doOnSuccess(v -> sample.stop(callTimer(registry, integration, "success")))
+                    .doOnError(ex -> sample.stop(callTimer(registry, integration, outcome(ex))))
+                    .doOnCancel(() -> sample.stop(callTimer(registry, integration, "cancelled")));
+        });
+    }
+
+    private static Timer callTimer(MeterRegistry registry, String integration, String outcome) {
+        return Timer.builder("sync.call").tag("integration", integration).tag("outcome", outcome)
+                .description("Outbound integration call including retries").publishPercentileHistogram()
+                .register(registry);
+    }
+
+    static String outcome(Throwable ex) {
+        if (Exceptions.isRetryExhausted(ex) && ex.getCause() != null) ex = ex.getCause();
+        if (ex instanceof WebClientResponseException we) {
+            return we.getStatusCode().is4xxClientError() ? "client_error" : "server_error";
+        }
+        if (ex instanceof TimeoutException) return "timeout";
+        return "error";
+    }
+
+    static boolean isRetryable(Throwable ex) {
+        if (Exceptions.isRetryExhausted(ex) && ex.getCause() != null) ex = ex.getCause();
+        if (ex instanceof WebClientResponseException we) {
+            int s = we.getStatusCode().value();
+            return s >= 500 || s == 429; // 5xx und Drosselung wiederholen; sonstige 4xx nicht
+        }
+        // Zeitüberschreitungen/Netzwerkfehler etc. sind idR transient
+        return true;
+    }
+}
@@ -1,111 +1,135 @@
 package com.brunata.meteringdemo.services.integration;
 
+import com.brunata.meteringdemo.domain.Device;
 import com.brunata.meteringdemo.persistence.DeviceRepository;
 import com.brunata.meteringdemo.services.config.IntegrationProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
-import org.springframework.web.reactive.function.client.WebClientResponseException;
-import reactor.core.publisher.Flux;
-import reactor.core.publisher.Mono;
-import reactor.util.retry.Retry;
 
 import java.time.Duration;
 import java.time.Instant;
-import java.util.Map;
 
 /**
  * Einfache Synchronisationslogik (Mock) für Jira/ERP, um Erfahrung mit REST, Datenflüssen
- * und Scheduling zu demonstrieren. In echten Projekten würden hier Auth, Retry, CircuitBreaker etc. dazukommen.
+ * und Scheduling zu demonstrieren. Jira-Aufrufe laufen über den {@link JiraClient} (Bulk, adaptive Parallelität,
+ * Circuit Breaker), der Kundenabgleich über {@link ErpCustomerSync}; in echten Projekten käme hier noch Auth dazu.
+ *
+ * Metrik `sync.call` je Aufruf, siehe {@link SyncCalls}.
  */
 @Service
 public class SyncService {
     private static final Logger log = LoggerFactory.getLogger(SyncService.class);
 
+    static final String JIRA_CURSOR = "jira-offline";
+
     private final DeviceRepository deviceRepo;
-    private final WebClient webClient;
+    private final OfflineReportStore offlineReports;
+    private final JiraClient jira;
+    private final ErpCustomerSync erpSync;
     private final IntegrationProperties props;
 
-    public SyncService(DeviceRepository deviceRepo, WebClient.Builder builder, IntegrationProperties props) {
+    public SyncService(DeviceRepository deviceRepo, OfflineReportStore offlineReports, JiraClient jira,
+                       ErpCustomerSync erpSync, IntegrationProperties props) {
         this.deviceRepo = deviceRepo;
+        this.offlineReports = offlineReports;
+        this.jira = jira;
+        this.erpSync = erpSync;
         this.props = props;
-        this.webClient = builder.build();
     }
 
     /**
      * Meldet Geräte, die seit X Stunden offline sind, an ein Jira-Mock-Endpoint.
      * Läuft alle 5 Minuten. Fehler werden geloggt, aber nicht propagiert (best-effort).
+     *
+     * - Ein Issue je Ausfall: nur Geräte ohne offene Meldung (`device_offline_report`) werden gemeldet;
+     *   wieder erreichbare Geräte verlieren ihre Meldung (optional wird das Issue geschlossen)
+     * - Geräte werden seitenweise per Keyset gelesen; die Position bleibt über Läufe erhalten (`sync_cursor`), sodass
+     *   bei erschöpftem Zeitbudget der nächste Lauf fortsetzt und kein Gerät dauerhaft hinten runterfällt
+     * - Die Position rückt nur über Seiten vor, die vollständig an Jira gingen ({@link JiraClient}: Bulk-Anlage,
+     *   adaptive Parallelität, Circuit Breaker); liegengebliebene Meldungen (Budget, offener Breaker) bleiben so für
+     *   den nächsten Lauf. Von Jira abgelehnte halten sie nicht auf (sonst blockiert ein dauerhaft abgelehntes Gerät
+     *   alle folgenden) und werden beim nächsten Durchgang wiederholt
      */
     @Scheduled(cron = "0 */5 * * * *")
     public void reportOfflineDevicesToJira() {
         if (!props.enabled() || props.jiraBaseUrl() == null || props.jiraBaseUrl().isBlank()) return;
-        var cutoff = Instant.now().minus(Duration.ofHours(props.offlineHours()));
-        var offlineDevices = deviceRepo.findByLastSeenAtIsNullOrLastSeenAtBefore(cutoff);
-
-        if (offlineDevices.isEmpty()) {
-            log.info("Jira sync finished (cutoff={}, candidates=0)", cutoff);
-            return;
-        }
-
         var start = Instant.now();
-        int concurrency = 4; // konservatives Limit; vermeidet Backpressure-Probleme
-        Duration perRequestTimeout = Duration.ofSeconds(5);
-        Duration totalBudget = Duration.ofSeconds(Math.min(15, offlineDevices.size() * 2L));
+        var deadline = start.plus(props.offlineRunBudget());
+        var cutoff = start.minus(Duration.ofHours(props.offlineHours()));
+        int pageSize = Math.max(1, props.offlinePageSize());
 
-        Flux.fromIterable(offlineDevices)
-                .flatMap(d -> {
-                    var payload = Map.of(
-                            "summary", "Device offline: " + d.getSerialNo(),
-                            "deviceId", String.valueOf(d.getId()),
-                            "lastSeenAt", String.valueOf(d.getLastSeenAt())
-                    );
-                    return webClient.post()
-                            .uri(props.jiraBaseUrl() + "/mock/issue")
-                            .bodyValue(payload)
-                            .retrieve()
-                            .toBodilessEntity()
-                            .timeout(perRequestTimeout)
-                            .retryWhen(Retry.backoff(2, Duration.ofMillis(200)).filter(this::isRetryable))
-                            .onErrorResume(ex -> {
-                                log.warn("Jira sync failed for {}: {}", d.getSerialNo(), ex.toString());
-                                return Mono.empty();
-                            });
-                }, concurrency)
-                .collectList()
-                .block(totalBudget);
+        int recovered = resolveRecovered(cutoff, deadline, pageSize);
+
+        var cursor = offlineReports.cursor(JIRA_CURSOR);
+        int scanned = 0;
+        int created = 0;
+        boolean wrapped = false;
+        while (Instant.now().isBefore(deadline)) {
+            var page = deviceRepo.findOfflineAfter(cursor, cutoff, PageRequest.ofSize(pageSize));
+            scanned += page.size();
+            var known = offlineReports.reported(page.stream().map(Device::getId).toList());
+            var fresh = page.stream().filter(d -> !known.contains(d.getId())).toList();
+            var outcome = jira.createIssues(fresh, deadline);
+            offlineReports.markReported(outcome.done());
+            created += outcome.done().size();
+            // Budget erschöpft bzw. Breaker offen: Seite im nächsten Lauf erneut (bereits gemeldete entfallen)
+            if (!outcome.complete()) break;
+            if (page.size() < pageSize) {
+                cursor = OfflineReportStore.START;
+                wrapped = true;
+            } else {
+                cursor = page.get(page.size() - 1).getId();
+            }
+            offlineReports.saveCursor(JIRA_CURSOR, cursor);
+            if (wrapped) break;
+        }
 
         var took = Duration.between(start, Instant.now()).toMillis();
-        log.info("Jira sync finished (cutoff={}, candidates={}, tookMs={})", cutoff, offlineDevices.size(), took);
+        log.info("Jira sync finished (cutoff={}, scanned={}, created={}, recovered={}, wrapped={}, tookMs={}, "
+                        + "limit={}, circuit={})",
+                cutoff, scanned, created, recovered, wrapped, took, jira.concurrencyLimit(), jira.circuitState());
+    }
+
+    /** Entfernt Meldungen wieder erreichbarer Geräte (und schließt deren Issues, falls konfiguriert). */
+    private int resolveRecovered(Instant cutoff, Instant deadline, int pageSize) {
+        int resolved = 0;
+        var after = OfflineReportStore.START;
+        while (Instant.now().isBefore(deadline)) {
+            var page = offlineReports.recovered(cutoff, after, pageSize);
+            if (page.isEmpty()) break;
+            var closed = page;
+            boolean complete = true;
+            if (props.jiraCloseOnRecovery()) {
+                var outcome = jira.closeIssues(page, deadline);
+                closed = outcome.done();
+                complete = outcome.complete();
+            }
+            offlineReports.resolved(closed.stream().map(OfflineReportStore.OfflineReport::deviceId).toList());
+            resolved += closed.size();
+            if (!complete || page.size() < pageSize) break;
+            after = page.get(page.size() - 1).deviceId();
+        }
+        return resolved;
     }
 
     /**
-     * Dummy-ERP-Sync (nur Demonstration): ruft eine Liste von Kunden vom ERP-Mock ab und loggt die Anzahl.
+     * Inkrementeller ERP-Kundensync (siehe {@link ErpCustomerSync}): bedingter Request, NDJSON-Stream,
+     * Upsert nur geänderter Kunden in Batches.
      */
     @Scheduled(cron = "30 */10 * * * *")
     public void syncCustomersFromErp() {
         if (!props.enabled() || props.erpBaseUrl() == null || props.erpBaseUrl().isBlank()) return;
+        var start = Instant.now();
         try {
-            var customers = webClient.get()
-                    .uri(props.erpBaseUrl() + "/mock/customers")
-                    .retrieve()
-                    .bodyToMono(String[].class)
-                    .timeout(Duration.ofSeconds(5))
-                    .onErrorReturn(new String[0])
-                    .block();
-            log.info("ERP sync finished (customers fetched={})", customers != null ? customers.length : 0);
+            var r = erpSync.sync();
+            log.info("ERP sync finished (notModified={}, received={}, changed={}, skipped={}, tookMs={})",
+                    r.notModified(), r.received(), r.changed(), r.skipped(),
+                    Duration.between(start, Instant.now()).toMillis());
         } catch (Exception ex) {
             log.warn("ERP sync failed: {}", ex.toString());
         }
     }
-
-    private boolean isRetryable(Throwable ex) {
-        if (ex instanceof WebClientResponseException we) {
-            int s = we.getStatusCode().value();
-            return s >= 500; // nur 5xx wiederholen; 4xx nicht
-        }
-        // Zeitüberschreitungen/Netzwerkfehler etc. sind idR transient
-        return true;
-    }
 }
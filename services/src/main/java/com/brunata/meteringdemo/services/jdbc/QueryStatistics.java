@@ -0,0 +1,178 @@
+package com.brunata.meteringdemo.services.jdbc;
+
+import com.brunata.meteringdemo.services.config.QueryStatsProperties;
+import com.brunata.meteringdemo.services.dto.QueryStatsReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statement-Statistik je normalisiertem SQL-Fingerprint ({@link SqlFingerprint}), gespeist von der instrumentierten
+ * DataSource ({@link QueryStatsDataSource}) – erfasst damit JdbcTemplate- wie Hibernate-Statements.
+ *
+ * Kosten je Ausführung: zwei `nanoTime`, ein Map-Lookup (Fingerprint je SQL-Text gecacht, bei Prepared Statements
+ * einmal je Prepare) und einige `LongAdder`-Inkremente; p99 über ein logarithmisches Histogramm ohne Sortierung.
+ * Nur langsame Statements (ab `jdbc.query-stats.slow-threshold`) ermitteln per StackWalker die aufrufende
+ * Methode der Anwendung und werden geloggt.
+ */
+@Component
+public class QueryStatistics {
+    private static final Logger log = LoggerFactory.getLogger(QueryStatistics.class);
+
+    static final String OTHER = "<other>";
+    static final int MAX_CACHED_SQL = 10_000;
+
+    private static final String APP_PACKAGE = "com.brunata.meteringdemo.";
+    private static final String OWN_PACKAGE = QueryStatistics.class.getPackageName() + ".";
+    private static final StackWalker WALKER = StackWalker.getInstance();
+
+    private final QueryStatsProperties props;
+    private final long slowNanos;
+    // SQL-Text -> Fingerprint (Normalisierung nur beim ersten Auftreten)
+    private final Map<String, String> fingerprints = new ConcurrentHashMap<>();
+    private volatile Map<String, Stats> stats = new ConcurrentHashMap<>();
+    private volatile Instant since = Instant.now();
+
+    public QueryStatistics(QueryStatsProperties props) {
+        this.props = props;
+        this.slowNanos = props.slowThreshold().toNanos();
+    }
+
+    public boolean enabled() {
+        return props.enabled();
+    }
+
+    /** Statistik-Eintrag eines SQL-Textes (bei Erreichen von `max-fingerprints` der Sammeleintrag `<other>`). */
+    Stats statsFor(String sql) {
+        var fingerprint = sql == null ? "<batch>" : fingerprints.get(sql);
+        if (fingerprint == null) {
+            fingerprint = SqlFingerprint.of(sql);
+            if (fingerprints.size() < MAX_CACHED_SQL) fingerprints.putIfAbsent(sql, fingerprint);
+        }
+        var current = stats;
+        var s = current.get(fingerprint);
+        if (s != null) return s;
+        var key = current.size() < props.maxFingerprints() ? fingerprint : OTHER;
+        return current.computeIfAbsent(key, Stats::new);
+    }
+
+    /** Erfasst eine Ausführung; langsame werden mit aufrufender Methode geloggt. */
+    void executed(Stats s, long nanos, long rows, boolean failed) {
+        s.count.increment();
+        s.totalNanos.add(nanos);
+        s.maxNanos.accumulateAndGet(nanos, Math::max);
+        s.histogram.incrementAndGet(bucket(nanos));
+        if (rows > 0) s.rows.add(rows);
+        if (failed) s.errors.increment();
+        if (nanos >= slowNanos) {
+            var caller = caller();
+            s.slow.increment();
+            s.slowCaller = caller;
+            log.warn("Slow SQL ({} ms{}) from {}: {}", nanos / 1_000_000, failed ? ", failed" : "", caller, s.fingerprint);
+        }
+    }
+
+    /** Gelesene Ergebniszeilen (beim Schließen des ResultSets). */
+    void rows(Stats s, long rows) {
+        if (rows > 0) s.rows.add(rows);
+    }
+
+    /**
+     * Momentaufnahme, absteigend sortiert nach `sort` (total|mean|max|p99|count|rows|errors, Default total).
+     */
+    public QueryStatsReport report(String sort, int limit) {
+        Comparator<QueryStatsReport.Statement> order = switch (sort == null ? "total" : sort) {
+            case "mean" -> Comparator.comparingDouble(QueryStatsReport.Statement::meanMs);
+            case "max" -> Comparator.comparingDouble(QueryStatsReport.Statement::maxMs);
+            case "p99" -> Comparator.comparingDouble(QueryStatsReport.Statement::p99Ms);
+            case "count" -> Comparator.comparingLong(QueryStatsReport.Statement::count);
+            case "rows" -> Comparator.comparingLong(QueryStatsReport.Statement::rows);
+            case "errors" -> Comparator.comparingLong(QueryStatsReport.Statement::errors);
+            default -> Comparator.comparingDouble(QueryStatsReport.Statement::totalMs);
+        };
+        var current = stats;
+        var statements = current.values().stream()
+                .map(Stats::snapshot)
+                .sorted(order.reversed())
+                .limit(Math.max(1, limit))
+                .toList();
+        return new QueryStatsReport(since, props.slowThreshold().toMillis(), current.size(), statements);
+    }
+
+    /** Verwirft alle gesammelten Werte (laufende Statements zählen noch in die alte Statistik). */
+    public void reset() {
+        stats = new ConcurrentHashMap<>();
+        since = Instant.now();
+    }
+
+    /** Erste Methode der Anwendung auf dem Stack (außerhalb dieses Pakets und ohne Spring-Proxies). */
+    static String caller() {
+        return WALKER.walk(frames -> frames
+                .filter(f -> f.getClassName().startsWith(APP_PACKAGE) && !f.getClassName().startsWith(OWN_PACKAGE)
+                        && !f.getClassName().contains("$$"))
+                .findFirst()
+                .map(f -> f.getClassName().substring(f.getClassName().lastIndexOf('.') + 1) + "." + f.getMethodName()
+                        + ":" + f.getLineNumber())
+                .orElse("unknown"));
+    }
+
+    // Histogramm: 4 Buckets je Zweierpotenz (in µs, ab 4 µs) -> obere Schranke höchstens 25 % über dem Wert
+    static int bucket(long nanos) {
+        long micros = Math.max(4, nanos / 1_000);
+        int msb = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) ((micros >>> (msb - 2)) & 3);
+        return msb * 4 + sub;
+    }
+
+    static long upperBoundMicros(int bucket) {
+        int msb = bucket / 4;
+        int sub = bucket % 4;
+        return (long) (5 + sub) << (msb - 2);
+    }
+
+    /** Laufende Werte eines Fingerprints. */
+    static final class Stats {
+        final String fingerprint;
+        final LongAdder count = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+        final LongAdder rows = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder slow = new LongAdder();
+        final AtomicLongArray histogram = new AtomicLongArray(64 * 4);
+        volatile String slowCaller;
+
+        Stats(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        QueryStatsReport.Statement snapshot() {
+            long n = count.sum();
+            double totalMs = totalNanos.sum() / 1e6;
+            double maxMs = maxNanos.get() / 1e6;
+            return new QueryStatsReport.Statement(fingerprint, n, totalMs, n == 0 ? 0 : totalMs / n, maxMs,
+                    Math.min(maxMs, percentileMs(0.99)), rows.sum(), errors.sum(), slow.sum(), slowCaller);
+        }
+
+        double percentileMs(double quantile) {
+            long total = 0;
+            for (int i = 0; i < histogram.length(); i++) total += histogram.get(i);
+            if (total == 0) return 0;
+            long rank = (long) Math.ceil(quantile * total);
+            long seen = 0;
+            for (int i = 0; i < histogram.length(); i++) {
+                seen += histogram.get(i);
+                if (seen >= rank) return upperBoundMicros(i) / 1_000.0;
+            }
+            return maxNanos.get() / 1e6;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.brunata.meteringdemo.services.jdbc;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * DataSource, die Connections, Statements und ResultSets per JDK-Proxy umhüllt und jede Ausführung (`execute*`)
+ * an die {@link QueryStatistics} meldet: Dauer, Zeilen (Update-Counts bzw. gelesene Zeilen beim Schließen des
+ * ResultSets) und Fehler.
+ *
+ * `unwrap` reicht an den Pool bzw. Treiber durch (z. B. `PGConnection` für COPY; solche Zugriffe werden nicht
+ * erfasst). `equals`/`hashCode` der Proxies sind identitätsbasiert, damit Spring gebundene Connections wiedererkennt.
+ */
+public class QueryStatsDataSource extends DelegatingDataSource {
+
+    private static final ClassLoader LOADER = QueryStatsDataSource.class.getClassLoader();
+
+    private final QueryStatistics statistics;
+
+    public QueryStatsDataSource(DataSource target, QueryStatistics statistics) {
+        super(target);
+        this.statistics = statistics;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(LOADER, new Class<?>[]{Connection.class},
+                new ConnectionHandler(connection));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /** Gemeinsame Behandlung von equals/hashCode/toString; `null` = an das Ziel weiterreichen. */
+    private static Object identity(Object proxy, Object target, Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "equals" -> args.length == 1 ? proxy == args[0] : null;
+            case "hashCode" -> method.getParameterCount() == 0 ? System.identityHashCode(proxy) : null;
+            case "toString" -> method.getParameterCount() == 0 ? "QueryStats[" + target + "]" : null;
+            default -> null;
+        };
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            var own = identity(proxy, target, method, args);
+            if (own != null) return own;
+            var result = QueryStatsDataSource.invoke(target, method, args);
+            return switch (method.getName()) {
+                case "createStatement" -> statement(Statement.class, (Statement) result, (Connection) proxy, null);
+                case "prepareStatement" -> statement(PreparedStatement.class, (Statement) result, (Connection) proxy,
+                        statistics.statsFor((String) args[0]));
+                case "prepareCall" -> statement(CallableStatement.class, (Statement) result, (Connection) proxy,
+                        statistics.statsFor((String) args[0]));
+                default -> result;
+            };
+        }
+
+        private Object statement(Class<? extends Statement> type, Statement statement, Connection connection,
+                                 QueryStatistics.Stats prepared) {
+            return Proxy.newProxyInstance(LOADER, new Class<?>[]{type},
+                    new StatementHandler(statement, connection, prepared));
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final Connection connection;
+        private final QueryStatistics.Stats prepared;
+        private String batchSql;
+        private QueryStatistics.Stats last;
+        private ResultSetHandler open;
+
+        StatementHandler(Statement target, Connection connection, QueryStatistics.Stats prepared) {
+            this.target = target;
+            this.connection = connection;
+            this.prepared = prepared;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            var own = identity(proxy, target, method, args);
+            if (own != null) return own;
+            var name = method.getName();
+            if (name.startsWith("execute")) return execute(proxy, method, args);
+            switch (name) {
+                case "getConnection":
+                    return connection;
+                case "addBatch":
+                    if (args != null && args.length == 1 && args[0] instanceof String sql && batchSql == null) batchSql = sql;
+                    break;
+                case "getResultSet": {
+                    var rs = (ResultSet) QueryStatsDataSource.invoke(target, method, args);
+                    return rs == null || last == null ? rs : resultSet(rs, (Statement) proxy, last);
+                }
+                case "close":
+                    // schließt auch ein offenes ResultSet -> dessen Zeilen jetzt übernehmen
+                    if (open != null) open.flush();
+                    break;
+                default:
+                    break;
+            }
+            return QueryStatsDataSource.invoke(target, method, args);
+        }
+
+        private Object execute(Object proxy, Method method, Object[] args) throws Throwable {
+            var s = args != null && args.length > 0 && args[0] instanceof String sql
+                    ? statistics.statsFor(sql)
+                    : prepared != null ? prepared : statistics.statsFor(batchSql);
+            last = s;
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = QueryStatsDataSource.invoke(target, method, args);
+            } catch (Throwable ex) {
+                statistics.executed(s, System.nanoTime() - start, 0, true);
+                throw ex;
+            }
+            long nanos = System.nanoTime() - start;
+            if (method.getName().endsWith("Batch")) batchSql = null;
+            statistics.executed(s, nanos, rows(result), false);
+            return result instanceof ResultSet rs ? resultSet(rs, (Statement) proxy, s) : result;
+        }
+
+        private static long rows(Object result) {
+            if (result instanceof Integer n) return Math.max(0, n);
+            if (result instanceof Long n) return Math.max(0, n);
+            long sum = 0;
+            if (result instanceof int[] counts) {
+                for (int c : counts) if (c > 0) sum += c;
+            } else if (result instanceof long[] counts) {
+                for (long c : counts) if (c > 0) sum += c;
+            }
+            return sum;
+        }
+
+        private ResultSet resultSet(ResultSet rs, Statement statement, QueryStatistics.Stats s) {
+            if (open != null) open.flush();
+            open = new ResultSetHandler(rs, statement, s);
+            return (ResultSet) Proxy.newProxyInstance(LOADER, new Class<?>[]{ResultSet.class}, open);
+        }
+    }
+
+    private final class ResultSetHandler implements InvocationHandler {
+        private final ResultSet target;
+        private final Statement statement;
+        private final QueryStatistics.Stats stats;
+        private long rows;
+        private boolean closed;
+
+        ResultSetHandler(ResultSet target, Statement statement, QueryStatistics.Stats stats) {
+            this.target = target;
+            this.statement = statement;
+            this.stats = stats;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next": {
+                    var more = (Boolean) QueryStatsDataSource.invoke(target, method, args);
+                    if (more) rows++;
+                    return more;
+                }
+                case "close":
+                    flush();
+                    break;
+                case "getStatement":
+                    return statement;
+                default: {
+                    var own = identity(proxy, target, method, args);
+                    if (own != null) return own;
+                }
+            }
+            return QueryStatsDataSource.invoke(target, method, args);
+        }
+
+        void flush() {
+            if (closed) return;
+            closed = true;
+            statistics.rows(stats, rows);
+        }
+    }
+}
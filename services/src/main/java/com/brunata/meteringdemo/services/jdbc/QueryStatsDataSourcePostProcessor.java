@@ -0,0 +1,31 @@
+package com.brunata.meteringdemo.services.jdbc;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Ersetzt die DataSource-Beans (Hikari-Pool) durch eine {@link QueryStatsDataSource}, sofern
+ * `jdbc.query-stats.enabled`. JPA, JdbcTemplate und Flyway erhalten damit dieselbe instrumentierte DataSource.
+ * Die Statistik wird erst beim Umhüllen aufgelöst, damit der Post-Processor keine Beans vorzeitig erzeugt.
+ */
+@Component
+public class QueryStatsDataSourcePostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<QueryStatistics> statistics;
+
+    public QueryStatsDataSourcePostProcessor(ObjectProvider<QueryStatistics> statistics) {
+        this.statistics = statistics;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof QueryStatsDataSource)) {
+            var stats = statistics.getObject();
+            if (stats.enabled()) return new QueryStatsDataSource(dataSource, stats);
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,90 @@
+package com.brunata.meteringdemo.services.jdbc;
+
+import java.util.regex.Pattern;
+
+/**
+ * Normalisierter SQL-Fingerprint: gleiche Statements mit anderen Literalen/Parameteranzahlen ergeben denselben Text.
+ * - Kommentare entfernt, Whitespace zusammengefasst, außerhalb von Literalen klein geschrieben
+ * - String- und Zahlliterale sowie `$n` werden zu `?`
+ * - Parameterlisten `(?, ?, ?)` werden zu `(?)`, mehrzeilige `VALUES (?), (?)` zu `(?), ...`
+ */
+public final class SqlFingerprint {
+
+    static final int MAX_LENGTH = 2_000;
+
+    private static final Pattern PARAM_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern ROW_LIST = Pattern.compile("\\(\\?\\)(?:\\s*,\\s*\\(\\?\\))+");
+
+    private SqlFingerprint() {
+    }
+
+    public static String of(String sql) {
+        if (sql == null) return "";
+        var sb = new StringBuilder(Math.min(sql.length(), MAX_LENGTH));
+        int n = sql.length();
+        boolean space = false;
+        for (int i = 0; i < n && sb.length() < MAX_LENGTH; i++) {
+            char c = sql.charAt(i);
+            if (c == '-' && i + 1 < n && sql.charAt(i + 1) == '-') {
+                while (i < n && sql.charAt(i) != '\n') i++;
+                space = sb.length() > 0;
+                continue;
+            }
+            if (c == '/' && i + 1 < n && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? n : end + 1;
+                space = sb.length() > 0;
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                space = sb.length() > 0;
+                continue;
+            }
+            if (space) {
+                sb.append(' ');
+                space = false;
+            }
+            if (c == '\'') {
+                // String-Literal inkl. '' als Escape
+                i++;
+                while (i < n) {
+                    if (sql.charAt(i) == '\'') {
+                        if (i + 1 < n && sql.charAt(i + 1) == '\'') {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                sb.append('?');
+            } else if (c == '"') {
+                // Bezeichner in Anführungszeichen unverändert übernehmen
+                int end = sql.indexOf('"', i + 1);
+                end = end < 0 ? n - 1 : end;
+                sb.append(sql, i, end + 1);
+                i = end;
+            } else if ((Character.isDigit(c) || c == '$') && !identifierBefore(sb)) {
+                // Zahl (inkl. Dezimalteil) bzw. Positionsparameter $n
+                int j = i + 1;
+                while (j < n && (Character.isDigit(sql.charAt(j)) || sql.charAt(j) == '.')) j++;
+                if (c == '$' && j == i + 1) {
+                    sb.append(c);
+                } else {
+                    sb.append('?');
+                    i = j - 1;
+                }
+            } else {
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        var normalized = PARAM_LIST.matcher(sb).replaceAll("(?)");
+        return ROW_LIST.matcher(normalized).replaceAll("(?), ...");
+    }
+
+    private static boolean identifierBefore(StringBuilder sb) {
+        if (sb.isEmpty()) return false;
+        char p = sb.charAt(sb.length() - 1);
+        return Character.isLetterOrDigit(p) || p == '_' || p == '$';
+    }
+}
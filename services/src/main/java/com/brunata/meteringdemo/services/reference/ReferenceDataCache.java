@@ -0,0 +1,124 @@
+package com.brunata.meteringdemo.services.reference;
+
+import com.brunata.meteringdemo.domain.Contract;
+import com.brunata.meteringdemo.domain.Tariff;
+import com.brunata.meteringdemo.persistence.ContractRepository;
+import com.brunata.meteringdemo.persistence.TariffRepository;
+import com.brunata.meteringdemo.services.config.ReferenceCacheProperties;
+import com.brunata.meteringdemo.services.ingest.AfterCommit;
+import com.brunata.meteringdemo.services.tariff.CompiledTariff;
+import com.brunata.meteringdemo.services.tariff.TariffPlan;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Begrenzter Cache für selten geänderte Stammdaten vor `ContractRepository` und `TariffRepository`
+ * (Caffeine, Größe + TTL, Trefferquoten als `cache.gets{cache=reference*}` in Micrometer).
+ *
+ * - Liefert unveränderliche Snapshots (Records) statt verwalteter Entities: Aufrufer können den Cache-Inhalt
+ *   nicht verändern, und Snapshots sind unabhängig von Session/Transaktion verwendbar
+ * - Unbekannte IDs werden nicht gecacht (neu angelegte Datensätze sind sofort sichtbar)
+ * - Schreibpfade für Verträge/Tarife (Demo-Seed, Generator) rufen `evict*` auf: der Eintrag wird sofort und nach
+ *   dem Commit erneut verworfen, damit ein paralleler Leser zwischen Schreiben und Commit keinen alten Stand zurück
+ *   in den Cache legt
+ * - Vertrags-Snapshots enthalten den Tarif; `evictTariff` verwirft daher auch die betroffenen Verträge
+ *
+ * Der Cache ist knotenlokal; Änderungen außerhalb der Services werden nach spätestens `reference.cache.ttl` sichtbar.
+ */
+@Component
+public class ReferenceDataCache {
+
+    /** Tarif-Snapshot inklusive kompiliertem Tarifplan (einmal je Laden in den Cache übersetzt). */
+    public record TariffSnapshot(UUID id, String name, BigDecimal pricePerUnit, String unit, CompiledTariff pricing) {
+        static TariffSnapshot of(Tariff t) {
+            return new TariffSnapshot(t.getId(), t.getName(), t.getPricePerUnit(), t.getUnit(),
+                    CompiledTariff.compile(TariffPlan.of(t)));
+        }
+    }
+
+    /** Vertrags-Snapshot inklusive Tarif. */
+    public record ContractSnapshot(UUID id, String customerName, UUID deviceId, LocalDate startDate,
+                                   LocalDate endDate, TariffSnapshot tariff) {
+        static ContractSnapshot of(Contract c) {
+            return new ContractSnapshot(c.getId(), c.getCustomerName(), c.getDeviceId(), c.getStartDate(),
+                    c.getEndDate(), TariffSnapshot.of(c.getTariff()));
+        }
+    }
+
+    private final ContractRepository contractRepo;
+    private final TariffRepository tariffRepo;
+
+    // null = deaktiviert
+    private final Cache<UUID, ContractSnapshot> contracts;
+    private final Cache<UUID, TariffSnapshot> tariffs;
+
+    public ReferenceDataCache(ContractRepository contractRepo,
+                              TariffRepository tariffRepo,
+                              ReferenceCacheProperties props,
+                              MeterRegistry registry) {
+        this.contractRepo = contractRepo;
+        this.tariffRepo = tariffRepo;
+        this.contracts = build(props, registry, "referenceContract");
+        this.tariffs = build(props, registry, "referenceTariff");
+    }
+
+    public Optional<ContractSnapshot> contract(UUID id) {
+        return lookup(contracts, id, k -> contractRepo.findById(k).map(ContractSnapshot::of).orElse(null));
+    }
+
+    public Optional<TariffSnapshot> tariff(UUID id) {
+        return lookup(tariffs, id, k -> tariffRepo.findById(k).map(TariffSnapshot::of).orElse(null));
+    }
+
+    public void evictContract(UUID id) {
+        evict(() -> invalidate(contracts, id));
+    }
+
+    public void evictTariff(UUID id) {
+        evict(() -> {
+            invalidate(tariffs, id);
+            if (contracts != null) contracts.asMap().values().removeIf(c -> c.tariff().id().equals(id));
+        });
+    }
+
+    /** Verwirft alle Einträge (z. B. nach Massenänderungen). */
+    public void evictAll() {
+        evict(() -> {
+            if (contracts != null) contracts.invalidateAll();
+            if (tariffs != null) tariffs.invalidateAll();
+        });
+    }
+
+    private static <V> Optional<V> lookup(Cache<UUID, V> cache, UUID id, Function<UUID, V> loader) {
+        return Optional.ofNullable(cache == null ? loader.apply(id) : cache.get(id, loader));
+    }
+
+    private static void evict(Runnable action) {
+        action.run();
+        AfterCommit.run(action);
+    }
+
+    private static <V> void invalidate(Cache<UUID, V> cache, UUID id) {
+        if (cache != null) cache.invalidate(id);
+    }
+
+    private static <V> Cache<UUID, V> build(ReferenceCacheProperties props, MeterRegistry registry, String name) {
+        if (!props.enabled()) return null;
+        Cache<UUID, V> cache = Caffeine.newBuilder()
+                .maximumSize(props.maxSize())
+                .expireAfterWrite(props.ttl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, name);
+        return cache;
+    }
+}
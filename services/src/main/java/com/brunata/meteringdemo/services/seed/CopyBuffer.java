@@ -0,0 +1,202 @@
+package com.brunata.meteringdemo.services.seed;
+
+import org.postgresql.copy.CopyIn;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Puffer für das COPY-Textformat, der Zeilen ohne Zwischen-Strings direkt als ASCII-Bytes schreibt (UUIDs, UTC-Zeit-
+ * stempel, Dezimalwerte aus Mikro-Einheiten). Mit {@link CopyIn} werden volle 64-KB-Blöcke an PostgreSQL übergeben,
+ * ohne (`null`) wächst der Puffer im Speicher und wird später per {@link #write(CopyBuffer)} übertragen.
+ *
+ * Werte werden nicht escaped – nur für Felder ohne Tab/Zeilenumbruch/Backslash verwenden.
+ */
+public final class CopyBuffer {
+    private static final int FLUSH_AT = 64 * 1024;
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+    private final CopyIn copyIn;
+    private byte[] buf = new byte[FLUSH_AT + 256];
+    private int pos;
+
+    // Datums-Cache: Messreihen bleiben viele Zeilen am selben Tag
+    private long cachedDay = Long.MIN_VALUE;
+    private final byte[] cachedDate = new byte[10];
+
+    public CopyBuffer(CopyIn copyIn) {
+        this.copyIn = copyIn;
+    }
+
+    public CopyBuffer tab() {
+        return put((byte) '\t');
+    }
+
+    public CopyBuffer newline() {
+        put((byte) '\n');
+        if (copyIn != null && pos >= FLUSH_AT) flush();
+        return this;
+    }
+
+    public CopyBuffer ascii(String s) {
+        ensure(s.length());
+        for (int i = 0; i < s.length(); i++) buf[pos++] = (byte) s.charAt(i);
+        return this;
+    }
+
+    public CopyBuffer uuid(UUID id) {
+        ensure(36);
+        hex(id.getMostSignificantBits() >>> 32, 8);
+        buf[pos++] = '-';
+        hex(id.getMostSignificantBits() >>> 16, 4);
+        buf[pos++] = '-';
+        hex(id.getMostSignificantBits(), 4);
+        buf[pos++] = '-';
+        hex(id.getLeastSignificantBits() >>> 48, 4);
+        buf[pos++] = '-';
+        hex(id.getLeastSignificantBits(), 12);
+        return this;
+    }
+
+    /** Zeitstempel `yyyy-MM-dd HH:mm:ss+00` (UTC). */
+    public CopyBuffer timestamp(long epochSecond) {
+        date(Math.floorDiv(epochSecond, 86_400));
+        int secondOfDay = (int) Math.floorMod(epochSecond, 86_400);
+        ensure(12);
+        buf[pos++] = ' ';
+        digits(secondOfDay / 3_600, 2);
+        buf[pos++] = ':';
+        digits(secondOfDay / 60 % 60, 2);
+        buf[pos++] = ':';
+        digits(secondOfDay % 60, 2);
+        buf[pos++] = '+';
+        buf[pos++] = '0';
+        buf[pos++] = '0';
+        return this;
+    }
+
+    /** Datum `yyyy-MM-dd` eines Epoch-Tags (Jahre 0..9999). */
+    public CopyBuffer date(long epochDay) {
+        if (epochDay != cachedDay) {
+            // Kalenderdatum aus Epoch-Tag (Algorithmus nach H. Hinnant, "civil_from_days")
+            long z = epochDay + 719_468;
+            long era = Math.floorDiv(z, 146_097);
+            long doe = z - era * 146_097;
+            long yoe = (doe - doe / 1_460 + doe / 36_524 - doe / 146_096) / 365;
+            long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+            long mp = (5 * doy + 2) / 153;
+            int d = (int) (doy - (153 * mp + 2) / 5 + 1);
+            int m = (int) (mp < 10 ? mp + 3 : mp - 9);
+            int y = (int) (yoe + era * 400 + (m <= 2 ? 1 : 0));
+            int p = pos;
+            ensure(10);
+            digits(y, 4);
+            buf[pos++] = '-';
+            digits(m, 2);
+            buf[pos++] = '-';
+            digits(d, 2);
+            System.arraycopy(buf, p, cachedDate, 0, 10);
+            cachedDay = epochDay;
+            return this;
+        }
+        ensure(10);
+        System.arraycopy(cachedDate, 0, buf, pos, 10);
+        pos += 10;
+        return this;
+    }
+
+    /** Dezimalwert mit 6 Nachkommastellen aus Mikro-Einheiten (wie `BigDecimal.valueOf(micros, 6).toPlainString()`). */
+    public CopyBuffer decimal(long micros) {
+        ensure(1);
+        // Vorzeichen separat: bei -0.5 ist der ganzzahlige Teil 0
+        if (micros < 0) buf[pos++] = '-';
+        number(Math.abs(micros / 1_000_000));
+        ensure(7);
+        buf[pos++] = '.';
+        digits((int) Math.abs(micros % 1_000_000), 6);
+        return this;
+    }
+
+    /** Ganzzahl wie `Long.toString(value)`. */
+    public CopyBuffer number(long value) {
+        ensure(20);
+        if (value == 0) {
+            buf[pos++] = '0';
+            return this;
+        }
+        if (value < 0) buf[pos++] = '-';
+        int start = pos;
+        // Ziffern aus dem negativen Rest, damit auch Long.MIN_VALUE ohne Überlauf geschrieben wird
+        for (long v = value; v != 0; v /= 10) buf[pos++] = (byte) ('0' + Math.abs(v % 10));
+        for (int i = start, j = pos - 1; i < j; i++, j--) {
+            byte b = buf[i];
+            buf[i] = buf[j];
+            buf[j] = b;
+        }
+        return this;
+    }
+
+    /** Überträgt den Inhalt eines Speicherpuffers. */
+    public void write(CopyBuffer other) {
+        try {
+            flush();
+            for (int off = 0; off < other.pos; off += FLUSH_AT) {
+                copyIn.writeToCopy(other.buf, off, Math.min(FLUSH_AT, other.pos - off));
+            }
+        } catch (SQLException ex) {
+            throw new IllegalStateException("COPY write failed: " + ex.getMessage(), ex);
+        }
+    }
+
+    /** Schließt das COPY ab und liefert die Anzahl geschriebener Zeilen. */
+    public long end() throws SQLException {
+        flush();
+        return copyIn.endCopy();
+    }
+
+    /** Bricht ein noch offenes COPY ab (nach Fehlern), damit die Verbindung wieder nutzbar ist. */
+    public void cancelIfActive() {
+        try {
+            if (copyIn != null && copyIn.isActive()) copyIn.cancelCopy();
+        } catch (SQLException ignored) {
+            // Transaktion wird ohnehin zurückgerollt
+        }
+    }
+
+    private void flush() {
+        if (pos == 0) return;
+        try {
+            copyIn.writeToCopy(buf, 0, pos);
+        } catch (SQLException ex) {
+            throw new IllegalStateException("COPY write failed: " + ex.getMessage(), ex);
+        }
+        pos = 0;
+    }
+
+    private CopyBuffer put(byte b) {
+        ensure(1);
+        buf[pos++] = b;
+        return this;
+    }
+
+    private void ensure(int n) {
+        if (pos + n > buf.length) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + n));
+    }
+
+    private void hex(long value, int chars) {
+        for (int i = chars - 1; i >= 0; i--) {
+            buf[pos + i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+        pos += chars;
+    }
+
+    private void digits(int value, int width) {
+        for (int i = width - 1; i >= 0; i--) {
+            buf[pos + i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        pos += width;
+    }
+}
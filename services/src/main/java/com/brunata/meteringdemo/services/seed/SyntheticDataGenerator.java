@@ -0,0 +1,423 @@
+package com.brunata.meteringdemo.services.seed;
+
+import com.brunata.meteringdemo.common.UuidV7;
+import com.brunata.meteringdemo.common.ValidationException;
+import com.brunata.meteringdemo.services.ReadingPartitionManager;
+import com.brunata.meteringdemo.services.config.SyntheticDataProperties;
+import com.brunata.meteringdemo.services.dto.SyntheticDataReport;
+import com.brunata.meteringdemo.services.dto.SyntheticDataSpec;
+import com.brunata.meteringdemo.services.ingest.DeviceWatermarkCache;
+import com.brunata.meteringdemo.services.reference.ReferenceDataCache;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generator für synthetische Last-/Kapazitätstestdaten: N Zähler mit Vertrag, mehrere Tarife (Einheitspreis,
+ * Staffeln, Zeitfenster) und realistische, monotone Messreihen ({@link SyntheticMeter}).
+ *
+ * Schreibpfad (je Chunk von `demo.synthetic.chunk-size` Zählern eine Transaktion, Chunks parallel):
+ * - Messwerte per PostgreSQL COPY (pgjdbc CopyManager) direkt nach `meter_reading` – die Reihen sind per
+ *   Konstruktion gültig, die Ingest-Prüfung entfällt
+ * - Tages-Rollup je Gerät/Tag beim Erzeugen aggregiert und ebenfalls per COPY geschrieben (neue Geräte → kein Merge)
+ * - Geräte (inkl. `last_seen_at` = letzter Messwert) und Verträge als JDBC-Batch
+ *
+ * Caches: Watermark-Einträge neuer Geräte werden je Chunk verworfen, der Stammdaten-Cache nach dem Lauf.
+ *
+ * Seriennummern `SYN<seed>-<index>` machen einen Lauf wiederauffindbar; ein zweiter Lauf mit demselben Seed wird
+ * abgelehnt. Monatspartitionen werden vorab angelegt.
+ */
+@Service
+public class SyntheticDataGenerator {
+    private static final Logger log = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+
+    static final int MAX_DEVICES = 1_000_000;
+    static final int MAX_TARIFFS = 100;
+    static final int MAX_DAYS = 3_660;
+    static final int MAX_ERRORS = 20;
+    static final String UNIT = "kWh";
+    static final String SOURCE = "synthetic";
+
+    private static final String COPY_READINGS = """
+            copy meter_reading (id, device_id, reading_time, value, unit, source) from stdin
+            """;
+
+    private static final String COPY_ROLLUP = """
+            copy device_daily_reading (device_id, day, first_time, first_value, last_time, last_value,
+                                       min_value, max_value, reading_count) from stdin
+            """;
+
+    private static final String INSERT_DEVICE = """
+            insert into device (id, type, serial_no, location, last_seen_at, status) values (?, ?, ?, ?, ?, 'ACTIVE')
+            """;
+
+    private static final String INSERT_CONTRACT = """
+            insert into contract (id, customer_name, device_id, start_date, tariff_id) values (?, ?, ?, ?, ?)
+            """;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final ReadingPartitionManager partitions;
+    private final DeviceWatermarkCache watermarks;
+    private final ReferenceDataCache referenceData;
+    private final SyntheticDataProperties props;
+    private final ExecutorService workers;
+
+    // zuletzt gestartete Läufe (älteste werden verdrängt)
+    private final Map<UUID, Run> runs;
+
+    public SyntheticDataGenerator(DataSource dataSource, JdbcTemplate jdbc, PlatformTransactionManager txManager,
+                                  ReadingPartitionManager partitions, DeviceWatermarkCache watermarks,
+                                  ReferenceDataCache referenceData, SyntheticDataProperties props) {
+        if (props.chunkSize() < 1 || props.parallelism() < 1) {
+            throw new IllegalArgumentException("demo.synthetic.chunk-size and parallelism must be >= 1");
+        }
+        this.dataSource = dataSource;
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(txManager);
+        this.partitions = partitions;
+        this.watermarks = watermarks;
+        this.referenceData = referenceData;
+        this.props = props;
+        var threadNo = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(props.parallelism(),
+                r -> new Thread(r, "synthetic-data-" + threadNo.incrementAndGet()));
+        this.runs = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Run> eldest) {
+                return size() > Math.max(1, props.retainedRuns());
+            }
+        };
+    }
+
+    /** Startet einen Lauf im Hintergrund (REST); nur mit `demo.synthetic.enabled=true`. */
+    public SyntheticDataReport start(SyntheticDataSpec request) {
+        if (!props.enabled()) {
+            throw new ValidationException("Synthetic data generation is disabled (demo.synthetic.enabled=false)");
+        }
+        var run = register(request);
+        Thread.ofVirtual().name("synthetic-data-" + run.id).start(() -> execute(run));
+        return run.snapshot();
+    }
+
+    /** Führt einen Lauf synchron aus (CLI) und liefert das Ergebnis. */
+    public SyntheticDataReport generate(SyntheticDataSpec request) {
+        var run = register(request);
+        execute(run);
+        return run.snapshot();
+    }
+
+    /** Fortschritt eines (laufenden oder beendeten) Laufs, solange er noch im Speicher gehalten wird. */
+    public Optional<SyntheticDataReport> progress(UUID runId) {
+        synchronized (runs) {
+            return Optional.ofNullable(runs.get(runId)).map(Run::snapshot);
+        }
+    }
+
+    private Run register(SyntheticDataSpec request) {
+        var spec = validate(request.withDefaults(LocalDate.now(ZoneOffset.UTC)));
+        var horizon = partitions.horizon();
+        if (horizon != null && spec.from().atStartOfDay().toInstant(ZoneOffset.UTC).isBefore(horizon)) {
+            throw new ValidationException("from must not be before the retention horizon " + horizon);
+        }
+        var prefix = "SYN" + spec.seed() + "-";
+        if (Boolean.TRUE.equals(jdbc.queryForObject(
+                "select exists(select 1 from device where serial_no like ?)", Boolean.class, prefix + "%"))) {
+            throw new ValidationException("Synthetic data for seed " + spec.seed() + " already exists (" + prefix + "*)");
+        }
+        var run = new Run(UuidV7.next(), spec, prefix);
+        synchronized (runs) {
+            // noch nicht committete Läufe desselben Seeds sind in der DB nicht sichtbar
+            if (runs.values().stream().anyMatch(r -> r.serialPrefix.equals(prefix)
+                    && r.status == SyntheticDataReport.Status.RUNNING)) {
+                throw new ValidationException("Synthetic data for seed " + spec.seed() + " is already being generated");
+            }
+            runs.put(run.id, run);
+        }
+        return run;
+    }
+
+    static SyntheticDataSpec validate(SyntheticDataSpec spec) {
+        if (spec.devices() < 1 || spec.devices() > MAX_DEVICES) {
+            throw new ValidationException("devices must be between 1 and " + MAX_DEVICES);
+        }
+        if (spec.tariffs() < 1 || spec.tariffs() > MAX_TARIFFS) {
+            throw new ValidationException("tariffs must be between 1 and " + MAX_TARIFFS);
+        }
+        if (spec.to().isBefore(spec.from())) throw new ValidationException("to < from");
+        if (!spec.to().isBefore(LocalDate.now(ZoneOffset.UTC))) {
+            throw new ValidationException("to must be before today (readings must not lie in the future)");
+        }
+        if (spec.from().plusDays(MAX_DAYS).isBefore(spec.to())) {
+            throw new ValidationException("period must not exceed " + MAX_DAYS + " days");
+        }
+        if (spec.interval().compareTo(Duration.ofMinutes(1)) < 0 || spec.interval().compareTo(Duration.ofDays(1)) > 0
+                || spec.interval().toNanos() % 1_000_000_000L != 0) {
+            throw new ValidationException("interval must be whole seconds between PT1M and P1D");
+        }
+        if (spec.noise() < 0 || spec.noise() > 1) throw new ValidationException("noise must be between 0 and 1");
+        if (spec.gapRate() < 0 || spec.gapRate() > 0.5) throw new ValidationException("gapRate must be between 0 and 0.5");
+        if (spec.offlineRate() < 0 || spec.offlineRate() > 1) {
+            throw new ValidationException("offlineRate must be between 0 and 1");
+        }
+        return spec;
+    }
+
+    /** Führt einen Lauf vollständig aus; kehrt erst zurück, wenn alle Chunks geschrieben sind. */
+    void execute(Run run) {
+        var spec = run.spec;
+        var start = spec.from().atStartOfDay().toInstant(ZoneOffset.UTC);
+        var end = spec.to().plusDays(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+        var inFlight = new Semaphore(props.parallelism());
+        try {
+            List<Instant> months = new ArrayList<>();
+            for (var m = YearMonth.from(spec.from()); !m.isAfter(YearMonth.from(spec.to())); m = m.plusMonths(1)) {
+                months.add(m.atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC));
+            }
+            partitions.ensureCovered(months);
+            var tariffIds = tx.execute(status -> createTariffs(spec));
+            run.tariffs = tariffIds.size();
+
+            int chunks = (spec.devices() + props.chunkSize() - 1) / props.chunkSize();
+            var completed = new AtomicInteger();
+            for (int first = 0; first < spec.devices() && !run.failed(); first += props.chunkSize()) {
+                int from = first, to = Math.min(spec.devices(), first + props.chunkSize());
+                inFlight.acquire();
+                workers.execute(() -> {
+                    try {
+                        if (!run.failed()) writeChunk(run, tariffIds, from, to, start, end);
+                        int done = completed.incrementAndGet();
+                        if (done % Math.max(1, chunks / 10) == 0 || done == chunks) {
+                            log.info("Synthetic data {}: {}/{} chunks, {} readings", run.id, done, chunks, run.readings.get());
+                        }
+                    } catch (RuntimeException ex) {
+                        log.warn("Synthetic data {}: devices {}..{} failed: {}", run.id, from, to - 1, ex.toString());
+                        var cause = NestedExceptionUtils.getMostSpecificCause(ex).getMessage();
+                        run.error("devices " + from + ".." + (to - 1) + ": " + (cause == null ? ex : cause.lines().findFirst().orElse("")));
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+            inFlight.acquire(props.parallelism());
+            run.finish(run.failed() ? SyntheticDataReport.Status.FAILED : SyntheticDataReport.Status.COMPLETED);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            run.error("interrupted");
+            run.finish(SyntheticDataReport.Status.FAILED);
+        } catch (RuntimeException ex) {
+            run.error(ex.toString());
+            run.finish(SyntheticDataReport.Status.FAILED);
+        }
+        // Massenänderung (auch bei Teilerfolg): Verträge nicht einzeln verwerfen
+        referenceData.evictAll();
+        var r = run.snapshot();
+        log.info("Synthetic data {} {}: devices={} (offline={}), tariffs={}, readings={}, gaps={}, rollups={}, rows/s={}",
+                r.runId(), r.status(), r.devices(), r.offlineDevices(), r.tariffs(), r.readings(), r.gaps(),
+                r.dailyRollups(), Math.round(r.rowsPerSecond()));
+    }
+
+    /** Tarife reihum als Einheitspreis, Staffel (ab 2 000 / 5 000 kWh) und Zeitfenster (Spitze/Nacht, Europe/Copenhagen). */
+    private List<UUID> createTariffs(SyntheticDataSpec spec) {
+        List<UUID> ids = new ArrayList<>(spec.tariffs());
+        for (int k = 0; k < spec.tariffs(); k++) {
+            var id = UuidV7.next();
+            var price = new BigDecimal("0.2000").add(new BigDecimal("0.0100").multiply(BigDecimal.valueOf(k / 3)));
+            int kind = k % 3;
+            var name = "SYN" + spec.seed() + " " + (kind == 0 ? "Flat" : kind == 1 ? "Tiered" : "Time-of-use") + " " + (k + 1);
+            jdbc.update("insert into tariff (id, name, price_per_unit, unit, time_zone) values (?, ?, ?, ?, ?)",
+                    id, name, price, UNIT, kind == 2 ? "Europe/Copenhagen" : "UTC");
+            if (kind == 1) {
+                jdbc.update("insert into tariff_tier (tariff_id, position, from_quantity, price_per_unit) values (?, 0, 2000, ?), (?, 1, 5000, ?)",
+                        id, price.subtract(new BigDecimal("0.0500")), id, price.subtract(new BigDecimal("0.1000")));
+            } else if (kind == 2) {
+                jdbc.update("insert into tariff_time_window (tariff_id, position, start_hour, end_hour, surcharge) values (?, 0, 17, 21, 0.1500), (?, 1, 22, 6, -0.0800)",
+                        id, id);
+            }
+            referenceData.evictTariff(id);
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    /** Zähler [first, last) in einer Transaktion; Zähler werden erst nach dem Commit fortgeschrieben. */
+    void writeChunk(Run run, List<UUID> tariffIds, int first, int last, Instant start, Instant end) {
+        var counts = tx.execute(status -> {
+            var result = new ChunkCounts();
+            List<Object[]> devices = new ArrayList<>(last - first);
+            List<Object[]> contracts = new ArrayList<>(last - first);
+            var rollup = new CopyBuffer(null);
+            try {
+                var copy = DataSourceUtils.getConnection(dataSource).unwrap(PGConnection.class).getCopyAPI();
+                var readings = new CopyBuffer(copy.copyIn(COPY_READINGS));
+                try {
+                    for (int i = first; i < last; i++) {
+                        var meter = SyntheticMeter.of(run.spec, i, start, end);
+                        var deviceId = UuidV7.next();
+                        var day = new DayAggregate(deviceId, rollup);
+                        result.gaps += meter.generate((t, micros) -> {
+                            readings.uuid(UuidV7.next()).tab().uuid(deviceId).tab().timestamp(t).tab().decimal(micros)
+                                    .tab().ascii(UNIT).tab().ascii(SOURCE).newline();
+                            day.add(t, micros);
+                        });
+                        day.flush();
+                        result.readings += day.readings;
+                        result.rollups += day.days;
+                        if (meter.offline()) result.offline++;
+                        devices.add(new Object[]{deviceId, meter.type(), run.serialPrefix + String.format("%07d", i),
+                                "Synthetic building " + (i / 20 + 1),
+                                day.lastTime == Long.MIN_VALUE ? null : Timestamp.from(Instant.ofEpochSecond(day.lastTime))});
+                        contracts.add(new Object[]{UuidV7.next(), "Synthetic customer " + (i + 1), deviceId,
+                                run.spec.from(), tariffIds.get(meter.tariffIndex())});
+                    }
+                    readings.end();
+                } finally {
+                    readings.cancelIfActive();
+                }
+                var rollupCopy = new CopyBuffer(copy.copyIn(COPY_ROLLUP));
+                try {
+                    rollupCopy.write(rollup);
+                    rollupCopy.end();
+                } finally {
+                    rollupCopy.cancelIfActive();
+                }
+            } catch (SQLException ex) {
+                throw new IllegalStateException("COPY failed: " + ex.getMessage(), ex);
+            }
+            jdbc.batchUpdate(INSERT_DEVICE, devices);
+            jdbc.batchUpdate(INSERT_CONTRACT, contracts);
+            watermarks.devicesCreated(devices.stream().map(d -> (UUID) d[0]).toList());
+            result.devices = devices.size();
+            return result;
+        });
+        run.add(counts);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /** Mengen eines Chunks (nach Commit in den Lauf übernommen). */
+    static final class ChunkCounts {
+        long devices, offline, readings, gaps, rollups;
+    }
+
+    /** Tages-Aggregat eines Geräts (Reihe ist monoton: min = erster, max = letzter Stand). */
+    private static final class DayAggregate {
+        private final UUID deviceId;
+        private final CopyBuffer out;
+        private long day = Long.MIN_VALUE, firstTime, firstValue, lastTime = Long.MIN_VALUE, lastValue, count;
+        long readings, days;
+
+        DayAggregate(UUID deviceId, CopyBuffer out) {
+            this.deviceId = deviceId;
+            this.out = out;
+        }
+
+        void add(long epochSecond, long micros) {
+            long d = Math.floorDiv(epochSecond, 86_400);
+            if (d != day) {
+                flush();
+                day = d;
+                firstTime = epochSecond;
+                firstValue = micros;
+                count = 0;
+            }
+            lastTime = epochSecond;
+            lastValue = micros;
+            count++;
+            readings++;
+        }
+
+        void flush() {
+            if (count == 0) return;
+            out.uuid(deviceId).tab().date(day).tab().timestamp(firstTime).tab().decimal(firstValue).tab()
+                    .timestamp(lastTime).tab().decimal(lastValue).tab().decimal(firstValue).tab().decimal(lastValue)
+                    .tab().number(count).newline();
+            days++;
+            count = 0;
+        }
+    }
+
+    static final class Run {
+        final UUID id;
+        final SyntheticDataSpec spec;
+        final String serialPrefix;
+        final Instant startedAt = Instant.now();
+        final AtomicLong devices = new AtomicLong(), offline = new AtomicLong(), readings = new AtomicLong(),
+                gaps = new AtomicLong(), rollups = new AtomicLong();
+        volatile int tariffs;
+        private final List<String> errors = new ArrayList<>();
+        private volatile boolean failed;
+        private volatile SyntheticDataReport.Status status = SyntheticDataReport.Status.RUNNING;
+        private volatile Instant finishedAt;
+
+        Run(UUID id, SyntheticDataSpec spec, String serialPrefix) {
+            this.id = id;
+            this.spec = spec;
+            this.serialPrefix = serialPrefix;
+        }
+
+        void add(ChunkCounts c) {
+            devices.addAndGet(c.devices);
+            offline.addAndGet(c.offline);
+            readings.addAndGet(c.readings);
+            gaps.addAndGet(c.gaps);
+            rollups.addAndGet(c.rollups);
+        }
+
+        boolean failed() {
+            return failed;
+        }
+
+        synchronized void error(String message) {
+            failed = true;
+            if (errors.size() < MAX_ERRORS) errors.add(message);
+        }
+
+        void finish(SyntheticDataReport.Status finalStatus) {
+            finishedAt = Instant.now();
+            status = finalStatus;
+        }
+
+        synchronized SyntheticDataReport snapshot() {
+            var until = finishedAt != null ? finishedAt : Instant.now();
+            double seconds = Math.max(1e-3, Duration.between(startedAt, until).toNanos() / 1e9);
+            long d = devices.get();
+            return new SyntheticDataReport(id, status, spec, serialPrefix, tariffs, d, offline.get(), d,
+                    readings.get(), gaps.get(), rollups.get(), readings.get() / seconds, startedAt, finishedAt,
+                    List.copyOf(errors));
+        }
+    }
+}
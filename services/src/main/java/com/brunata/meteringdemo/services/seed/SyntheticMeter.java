@@ -0,0 +1,124 @@
+package com.brunata.meteringdemo.services.seed;
+
+import com.brunata.meteringdemo.services.dto.SyntheticDataSpec;
+
+import java.time.Instant;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministischer synthetischer Zähler: Stammdaten und monotone Messreihe hängen nur von (Seed, Index, Spec) ab,
+ * nicht von Reihenfolge oder Parallelität der Erzeugung.
+ *
+ * Modell:
+ * - Jahresverbrauch log-normal um 8 000 kWh (HEAT, stark saisonal) bzw. 3 500 kWh (ELECTRICITY, schwach saisonal)
+ * - Verbrauch je Intervall = Mittelwert * Tagesprofil (UTC-Stunde) * Saison * (1 + noise * N(0,1)), nie negativ
+ * - Lücken: je Intervall mit Wahrscheinlichkeit `gapRate` fehlen 1..96 Messwerte; der Zähler zählt weiter
+ * - Offline: mit Wahrscheinlichkeit `offlineRate` endet die Reihe zu einem zufälligen Zeitpunkt im Zeitraum
+ */
+public final class SyntheticMeter {
+
+    /** Empfänger der Messwerte (Epoch-Sekunden, Zählerstand in Mikro-Einheiten, siehe Quantity). */
+    @FunctionalInterface
+    public interface Sink {
+        void reading(long epochSecond, long micros);
+    }
+
+    // Relatives Lastprofil je UTC-Stunde (Mittelwert 1): Nachtabsenkung, Morgen- und Abendspitze
+    private static final double[] HOURLY = {
+            0.55, 0.50, 0.48, 0.48, 0.52, 0.65, 0.95, 1.25, 1.30, 1.15, 1.05, 1.00,
+            1.00, 0.98, 0.97, 1.00, 1.10, 1.35, 1.55, 1.50, 1.35, 1.15, 0.90, 0.72};
+    private static final double SECONDS_PER_YEAR = 365.25 * 86_400;
+    private static final int MAX_GAP_INTERVALS = 96;
+
+    private final int index;
+    private final String type;
+    private final int tariffIndex;
+    private final long startMicros;
+    private final double microsPerSecond;
+    private final double seasonality;
+    private final long fromEpoch;
+    private final long endEpoch; // exklusiv; bei Offline-Zählern der Ausfallzeitpunkt
+    private final boolean offline;
+    private final long intervalSeconds;
+    private final double noise;
+    private final double gapRate;
+    private final SplittableRandom random;
+
+    private SyntheticMeter(SyntheticDataSpec spec, int index, SplittableRandom random, Instant from, Instant to) {
+        this.index = index;
+        this.random = random;
+        this.intervalSeconds = spec.interval().toSeconds();
+        this.noise = spec.noise();
+        this.gapRate = spec.gapRate();
+        this.fromEpoch = from.getEpochSecond();
+
+        boolean heat = random.nextInt(4) != 0;
+        this.type = heat ? "HEAT" : "ELECTRICITY";
+        this.seasonality = heat ? 0.6 : 0.15;
+        double annualKwh = (heat ? 8_000 : 3_500) * Math.exp(0.5 * random.nextGaussian() - 0.125);
+        this.microsPerSecond = annualKwh * 1_000_000 / SECONDS_PER_YEAR;
+        this.tariffIndex = random.nextInt(spec.tariffs());
+        this.startMicros = random.nextLong(100_000L * 1_000_000);
+
+        long toEpoch = to.getEpochSecond();
+        long intervals = Math.max(1, (toEpoch - fromEpoch) / intervalSeconds);
+        this.offline = random.nextDouble() < spec.offlineRate();
+        this.endEpoch = offline ? fromEpoch + (1 + random.nextLong(intervals)) * intervalSeconds : toEpoch;
+    }
+
+    /** Zähler `index` eines Laufs; `from`/`to` ist das Intervall [from, to) der Messreihe. */
+    public static SyntheticMeter of(SyntheticDataSpec spec, int index, Instant from, Instant to) {
+        long base = new SplittableRandom(spec.seed()).nextLong();
+        return new SyntheticMeter(spec, index, new SplittableRandom(base ^ (index * 0x9E3779B97F4A7C15L)), from, to);
+    }
+
+    public int index() {
+        return index;
+    }
+
+    public String type() {
+        return type;
+    }
+
+    /** Index des zugeordneten Tarifs (0 .. tariffs-1). */
+    public int tariffIndex() {
+        return tariffIndex;
+    }
+
+    public boolean offline() {
+        return offline;
+    }
+
+    /**
+     * Erzeugt die Messreihe aufsteigend nach Zeit und liefert die Anzahl der Lücken. Nur einmal aufrufbar
+     * (der Zufallsstrom wird fortgeschrieben).
+     */
+    public int generate(Sink sink) {
+        int gaps = 0;
+        long value = startMicros;
+        long t = fromEpoch;
+        while (t < endEpoch) {
+            if (gapRate > 0 && random.nextDouble() < gapRate) {
+                gaps++;
+                for (int skip = 1 + random.nextInt(MAX_GAP_INTERVALS); skip > 0 && t < endEpoch; skip--) {
+                    value += increment(t);
+                    t += intervalSeconds;
+                }
+                continue;
+            }
+            sink.reading(t, value);
+            value += increment(t);
+            t += intervalSeconds;
+        }
+        return gaps;
+    }
+
+    private long increment(long epochSecond) {
+        int hour = (int) (Math.floorMod(epochSecond, 86_400) / 3_600);
+        // Saison: Maximum Mitte Januar, Minimum Mitte Juli
+        double yearPhase = 2 * Math.PI * ((epochSecond - 1_209_600) / SECONDS_PER_YEAR);
+        double season = 1 + seasonality * Math.cos(yearPhase);
+        double jitter = Math.max(0, 1 + noise * random.nextGaussian());
+        return Math.round(microsPerSecond * intervalSeconds * HOURLY[hour] * season * jitter);
+    }
+}
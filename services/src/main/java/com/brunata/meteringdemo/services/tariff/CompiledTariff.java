@@ -0,0 +1,192 @@
+package com.brunata.meteringdemo.services.tariff;
+
+import com.brunata.meteringdemo.common.Money;
+import com.brunata.meteringdemo.common.Quantity;
+import com.brunata.meteringdemo.common.ValidationException;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * In primitive Lookup-Tabellen übersetzter {@link TariffPlan}; einmal je Tarif kompiliert
+ * (im Stammdaten-Cache gehalten) und danach beliebig oft und threadsicher auswertbar.
+ *
+ * - Staffelgrenzen als `long[]` in Millionstel der Einheit, Preise als `long[Staffel * 24 + Stunde]`
+ *   in Zehntausendsteln (Staffelpreis + Auf-/Abschläge der Zeitfenster bereits aufsummiert)
+ * - Zeitzone als Tabelle der UTC-Offset-Wechsel (Sommer-/Winterzeit) von 1970 bis 2100
+ * - {@link #evaluate} bepreist eine Zählerstandsreihe in einem Durchlauf ohne Objekt-Allokation:
+ *   je Intervall Stunde über den Offset-Cursor, Staffelwechsel innerhalb eines Intervalls werden exakt aufgeteilt
+ */
+public final class CompiledTariff {
+
+    /** Nachkommastellen der Zählerstände (wie meter_reading.value). */
+    public static final int QUANTITY_SCALE = Quantity.SCALE;
+    /** Nachkommastellen der Preise (wie tariff.price_per_unit). */
+    public static final int PRICE_SCALE = 4;
+    /** Nachkommastellen des Rohbetrags aus {@link #evaluate}. */
+    public static final int AMOUNT_SCALE = QUANTITY_SCALE + PRICE_SCALE;
+
+    /** Fehlermeldung, wenn der Rohbetrag einer Reihe den Wertebereich von {@link #evaluate} übersteigt. */
+    public static final String AMOUNT_OUT_OF_RANGE = "Tariff plan amount exceeds the supported range (about 9.2E8 per invoice)";
+
+    private static final int HOURS = 24;
+    private static final long ZONE_TABLE_START = Instant.parse("1970-01-01T00:00:00Z").getEpochSecond();
+    private static final long ZONE_TABLE_END = Instant.parse("2100-01-01T00:00:00Z").getEpochSecond();
+
+    private final TariffPlan plan;
+    private final Money unitPrice;
+    private final long[] tierStarts;
+    private final long[] prices;
+    private final boolean timeOfUse;
+    // offsets[k] gilt für transitions[k-1] <= t < transitions[k]
+    private final long[] transitions;
+    private final int[] offsets;
+
+    private CompiledTariff(TariffPlan plan, long[] tierStarts, long[] prices, boolean timeOfUse,
+                           long[] transitions, int[] offsets) {
+        this.plan = plan;
+        this.unitPrice = Money.of(plan.basePrice());
+        this.tierStarts = tierStarts;
+        this.prices = prices;
+        this.timeOfUse = timeOfUse;
+        this.transitions = transitions;
+        this.offsets = offsets;
+    }
+
+    public static CompiledTariff compile(TariffPlan plan) {
+        // Staffeln aufsteigend; unterhalb der ersten Staffel gilt der Grundpreis
+        var tiers = new ArrayList<>(plan.tiers());
+        tiers.sort(Comparator.comparing(TariffPlan.Tier::fromQuantity));
+        if (tiers.isEmpty() || tiers.get(0).fromQuantity().signum() > 0) {
+            tiers.add(0, new TariffPlan.Tier(BigDecimal.ZERO, plan.basePrice()));
+        }
+        var tierStarts = new long[tiers.size()];
+        var tierPrices = new long[tiers.size()];
+        for (int i = 0; i < tiers.size(); i++) {
+            var tier = tiers.get(i);
+            if (tier.fromQuantity().signum() < 0) throw new ValidationException("Tariff tier must start at >= 0");
+            tierStarts[i] = fixed(tier.fromQuantity(), QUANTITY_SCALE);
+            tierPrices[i] = fixed(tier.pricePerUnit(), PRICE_SCALE);
+            if (i > 0 && tierStarts[i] == tierStarts[i - 1]) {
+                throw new ValidationException("Duplicate tariff tier at " + tier.fromQuantity());
+            }
+        }
+
+        // Auf-/Abschlag je Stunde; überlappende Zeitfenster addieren sich
+        var surcharge = new long[HOURS];
+        for (var window : plan.timeWindows()) {
+            if (window.startHour() < 0 || window.startHour() > 23 || window.endHour() < 0 || window.endHour() > 24) {
+                throw new ValidationException("Invalid tariff time window " + window.startHour() + ".." + window.endHour());
+            }
+            long value = fixed(window.surcharge(), PRICE_SCALE);
+            int end = window.endHour() <= window.startHour() ? window.endHour() + HOURS : window.endHour();
+            for (int h = window.startHour(); h < end; h++) surcharge[h % HOURS] += value;
+        }
+
+        var prices = new long[tierStarts.length * HOURS];
+        for (int t = 0; t < tierStarts.length; t++) {
+            for (int h = 0; h < HOURS; h++) {
+                long price = tierPrices[t] + surcharge[h];
+                if (price < 0) throw new ValidationException("Tariff price must not be negative (tier " + t + ", hour " + h + ")");
+                prices[t * HOURS + h] = price;
+            }
+        }
+
+        // Offset-Wechsel der Zeitzone vorberechnen (fester Offset: keine Wechsel)
+        var rules = plan.zone().getRules();
+        var transitions = new ArrayList<Long>();
+        var offsets = new ArrayList<Integer>();
+        offsets.add(rules.getOffset(Instant.ofEpochSecond(ZONE_TABLE_START)).getTotalSeconds());
+        if (!rules.isFixedOffset()) {
+            for (var tr = rules.nextTransition(Instant.ofEpochSecond(ZONE_TABLE_START));
+                 tr != null && tr.toEpochSecond() < ZONE_TABLE_END;
+                 tr = rules.nextTransition(tr.getInstant())) {
+                transitions.add(tr.toEpochSecond());
+                offsets.add(tr.getOffsetAfter().getTotalSeconds());
+            }
+        }
+        return new CompiledTariff(plan, tierStarts, prices, !plan.timeWindows().isEmpty(),
+                transitions.stream().mapToLong(Long::longValue).toArray(),
+                offsets.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    public TariffPlan plan() {
+        return plan;
+    }
+
+    /** Einheitspreis: keine Staffeln und keine Zeitfenster (Betrag = Verbrauch * {@link #unitPrice()}). */
+    public boolean flat() {
+        return tierStarts.length == 1 && !timeOfUse;
+    }
+
+    /** Grundpreis je Einheit (bei {@link #flat()} der einzige Preis). */
+    public Money unitPrice() {
+        return unitPrice;
+    }
+
+    /**
+     * Ungerundeter Betrag der Reihe mit {@link #AMOUNT_SCALE} Nachkommastellen.
+     * Wertebereich: bis ca. ±9.2 * 10^8 Währungseinheiten je Reihe (`long` in 10^-{@value #AMOUNT_SCALE}).
+     *
+     * @throws ValidationException bei fallendem Zählerstand oder Betrag außerhalb des Wertebereichs
+     */
+    public Money amount(ReadingSeries series) {
+        try {
+            return Money.ofUnscaled(evaluate(series.epochSeconds, series.values, series.size), AMOUNT_SCALE);
+        } catch (ArithmeticException ex) {
+            throw new ValidationException(AMOUNT_OUT_OF_RANGE);
+        }
+    }
+
+    /**
+     * Bepreist die Intervalle zwischen aufeinanderfolgenden Zählerständen (Zeit aufsteigend, Epoch-Sekunden;
+     * Stände in Millionstel). Jedes Intervall zählt zur Stunde seines Beginns; die Staffel ergibt sich aus
+     * dem bis dahin kumulierten Verbrauch.
+     *
+     * @return Betrag in 10^-{@value #AMOUNT_SCALE} Währungseinheiten
+     * @throws ValidationException bei fallendem Zählerstand
+     * @throws ArithmeticException bei Überlauf
+     */
+    public long evaluate(long[] epochSeconds, long[] values, int count) {
+        if (count < 2) return 0;
+        int zone = zoneIndex(epochSeconds[0]);
+        int tier = 0;
+        long cumulative = 0;
+        long amount = 0;
+        for (int i = 1; i < count; i++) {
+            long delta = values[i] - values[i - 1];
+            if (delta < 0) throw new ValidationException("Negative consumption (check meter monotony)!");
+            if (delta == 0) continue;
+            long start = epochSeconds[i - 1];
+            while (zone < transitions.length && start >= transitions[zone]) zone++;
+            int hour = (int) (Math.floorMod(start + offsets[zone], 86_400L) / 3600);
+            while (true) {
+                long room = tier + 1 < tierStarts.length ? tierStarts[tier + 1] - cumulative : Long.MAX_VALUE;
+                long part = Math.min(delta, room);
+                amount = Math.addExact(amount, Math.multiplyExact(part, prices[tier * HOURS + hour]));
+                cumulative += part;
+                delta -= part;
+                if (delta == 0) break;
+                tier++;
+            }
+        }
+        return amount;
+    }
+
+    // Anzahl der Offset-Wechsel bis einschließlich t = Index in offsets
+    private int zoneIndex(long epochSecond) {
+        int i = Arrays.binarySearch(transitions, epochSecond);
+        return i >= 0 ? i + 1 : -i - 1;
+    }
+
+    private static long fixed(BigDecimal value, int scale) {
+        try {
+            return value.setScale(scale).unscaledValue().longValueExact();
+        } catch (ArithmeticException ex) {
+            throw new ValidationException("Tariff value " + value + " exceeds " + scale + " decimal places");
+        }
+    }
+}
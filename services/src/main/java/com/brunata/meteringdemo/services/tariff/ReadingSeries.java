@@ -0,0 +1,48 @@
+package com.brunata.meteringdemo.services.tariff;
+
+import com.brunata.meteringdemo.common.Quantity;
+
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Wiederverwendbarer Puffer für eine Zählerstandsreihe (aufsteigend nach Zeit) in primitiven Arrays:
+ * Zeit in Epoch-Sekunden, Zählerstand als ganzzahlige Millionstel ({@link CompiledTariff#QUANTITY_SCALE}).
+ * Nicht threadsicher; `clear()` behält die Kapazität.
+ */
+public final class ReadingSeries {
+
+    long[] epochSeconds;
+    long[] values;
+    int size;
+
+    public ReadingSeries() {
+        this(1024);
+    }
+
+    public ReadingSeries(int capacity) {
+        epochSeconds = new long[Math.max(2, capacity)];
+        values = new long[epochSeconds.length];
+    }
+
+    public void add(long epochSecond, long valueMicros) {
+        if (size == epochSeconds.length) {
+            epochSeconds = Arrays.copyOf(epochSeconds, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        epochSeconds[size] = epochSecond;
+        values[size++] = valueMicros;
+    }
+
+    public void add(Instant time, Quantity value) {
+        add(time.getEpochSecond(), value.micros());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+}
@@ -0,0 +1,42 @@
+package com.brunata.meteringdemo.services.tariff;
+
+import com.brunata.meteringdemo.domain.Tariff;
+
+import java.math.BigDecimal;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Unveränderlicher Tarifplan: Grundpreis, Staffeln nach kumuliertem Verbrauch im Abrechnungszeitraum und
+ * Zeitfenster mit Auf-/Abschlag je Stunde in der Tarif-Zeitzone.
+ *
+ * Preis einer Verbrauchsmenge = Preis der Staffel (unterhalb der ersten Staffel: `basePrice`)
+ * + Summe der Auf-/Abschläge der Zeitfenster, in deren Stunde das Messintervall beginnt.
+ * Auswertung über {@link CompiledTariff#compile(TariffPlan)}.
+ */
+public record TariffPlan(BigDecimal basePrice, ZoneId zone, List<Tier> tiers, List<TimeWindow> timeWindows) {
+
+    /** Ab `fromQuantity` gilt `pricePerUnit`. */
+    public record Tier(BigDecimal fromQuantity, BigDecimal pricePerUnit) {}
+
+    /** Stunden [startHour, endHour), bei `endHour <= startHour` über Mitternacht. */
+    public record TimeWindow(int startHour, int endHour, BigDecimal surcharge) {}
+
+    public TariffPlan {
+        tiers = List.copyOf(tiers);
+        timeWindows = List.copyOf(timeWindows);
+    }
+
+    /** Einheitspreis ohne Staffeln und Zeitfenster. */
+    public static TariffPlan flat(BigDecimal pricePerUnit) {
+        return new TariffPlan(pricePerUnit, ZoneId.of("UTC"), List.of(), List.of());
+    }
+
+    public static TariffPlan of(Tariff t) {
+        return new TariffPlan(t.getPricePerUnit(),
+                ZoneId.of(t.getTimeZone() == null ? "UTC" : t.getTimeZone()),
+                t.getTiers().stream().map(x -> new Tier(x.getFromQuantity(), x.getPricePerUnit())).toList(),
+                t.getTimeWindows().stream()
+                        .map(w -> new TimeWindow(w.getStartHour(), w.getEndHour(), w.getSurcharge())).toList());
+    }
+}
@@ -0,0 +1,199 @@
+package com.brunata.meteringdemo.services;
+
+import com.brunata.meteringdemo.services.config.IngestProperties;
+import com.brunata.meteringdemo.services.dto.IngestResult;
+import com.brunata.meteringdemo.services.dto.ReadingDto;
+import com.brunata.meteringdemo.services.ingest.AsyncIngestService;
+import com.brunata.meteringdemo.services.ingest.IngestUnavailableException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.util.unit.DataSize;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AsyncIngestServiceTest {
+    /**
+     * Tests für den asynchronen Ingest über das WAL (Batch-Service gemockt):
+     * - quittierte Messwerte werden je Gerät in Reihenfolge und mit den beim Anhängen vergebenen IDs geschrieben
+     * - nach Neustart werden unbestätigte Messwerte erneut eingespielt (gleiche IDs)
+     * - vorübergehende DB-Fehler werden wiederholt, auch über `max-attempts` hinaus, ohne Dead-Letter
+     * - ein dauerhaft scheiternder Messwert blockiert den Shard nicht: nach `max-attempts` wird satzweise
+     *   geschrieben, der Messwert landet in `dead-letter.ndjson`, nachfolgende Messwerte werden geschrieben
+     * - ohne Start (deaktiviert) → {@link IngestUnavailableException}
+     */
+
+    private static final Instant T0 = Instant.parse("2025-01-01T00:00:00Z");
+
+    @TempDir
+    Path dir;
+
+    private final ReadingBatchService batchService = mock(ReadingBatchService.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ObjectMapper mapper = JsonMapper.builder().findAndAddModules().build();
+    // vom Batch-Service geschriebene Messwerte (ID, Messwert)
+    private final List<UUID> writtenIds = Collections.synchronizedList(new ArrayList<>());
+    private final List<ReadingDto> written = Collections.synchronizedList(new ArrayList<>());
+    private AsyncIngestService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) service.stop();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void acknowledged_readings_are_written_in_order_with_wal_ids() {
+        when(batchService.ingest(anyList(), anyList())).thenAnswer(inv -> write(inv.getArgument(0), inv.getArgument(1)));
+        service = start(1, 2);
+
+        var device = UUID.randomUUID();
+        var readings = List.of(reading(device, 0, "1"), reading(device, 1, "2"), reading(device, 2, "3"));
+        var receipt = service.enqueue(readings);
+
+        assertThat(receipt.queued()).isEqualTo(3);
+        await(() -> written.size() == 3);
+        assertThat(written).containsExactlyElementsOf(readings);
+        assertThat(writtenIds).doesNotHaveDuplicates().doesNotContainNull();
+        await(() -> service.queueDepth() == 0);
+        assertThat(registry.counter("ingest.async.applied").count()).isEqualTo(3);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void unconfirmed_readings_are_replayed_with_the_same_ids_after_restart() {
+        // DB nicht erreichbar: nichts wird bestätigt
+        List<UUID> attemptedIds = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(inv -> {
+            attemptedIds.addAll(inv.getArgument(1));
+            throw new DataAccessResourceFailureException("down");
+        }).when(batchService).ingest(anyList(), anyList());
+        service = start(1, 10);
+        var device = UUID.randomUUID();
+        service.enqueue(List.of(reading(device, 0, "1"), reading(device, 1, "2")));
+        await(() -> attemptedIds.size() >= 2);
+        service.stop();
+
+        doAnswer(inv -> write(inv.getArgument(0), inv.getArgument(1))).when(batchService).ingest(anyList(), anyList());
+        service = start(1, 10);
+        await(() -> written.size() == 2);
+        assertThat(writtenIds).containsExactlyElementsOf(attemptedIds.subList(0, 2));
+        await(() -> service.queueDepth() == 0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void transient_failures_are_retried_beyond_max_attempts_without_dead_letter() throws Exception {
+        var calls = new AtomicInteger();
+        when(batchService.ingest(anyList(), anyList())).thenAnswer(inv -> {
+            if (calls.incrementAndGet() <= 3) throw new DataAccessResourceFailureException("connection refused");
+            return write(inv.getArgument(0), inv.getArgument(1));
+        });
+        service = start(1, 2); // max-attempts 2 < 3 Fehlschläge
+
+        var device = UUID.randomUUID();
+        service.enqueue(List.of(reading(device, 0, "1"), reading(device, 1, "2")));
+
+        await(() -> written.size() == 2);
+        assertThat(Files.exists(dir.resolve("shard-0").resolve("dead-letter.ndjson"))).isFalse();
+        assertThat(registry.counter("ingest.async.dead_lettered").count()).isZero();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void permanently_failing_reading_is_dead_lettered_and_does_not_block_the_shard() throws Exception {
+        var poison = "kilowatt-hours-xx";
+        // Insert scheitert für jeden Batch, der den Messwert enthält (z. B. VARCHAR(16) überschritten)
+        when(batchService.ingest(anyList(), anyList())).thenAnswer(inv -> {
+            List<ReadingDto> rows = inv.getArgument(0);
+            if (rows.stream().anyMatch(r -> r.unit().equals(poison))) {
+                throw new DataIntegrityViolationException("value too long for type character varying(16)");
+            }
+            return write(rows, inv.getArgument(1));
+        });
+        service = start(1, 2);
+
+        var device = UUID.randomUUID();
+        var poisoned = new ReadingDto(device, T0.plusSeconds(900), new BigDecimal("2"), poison, "LoRa");
+        service.enqueue(List.of(reading(device, 0, "1"), poisoned, reading(device, 2, "3")));
+
+        await(() -> service.queueDepth() == 0);
+        assertThat(written).extracting(ReadingDto::value).containsExactly(new BigDecimal("1"), new BigDecimal("3"));
+        var deadLetters = Files.readAllLines(dir.resolve("shard-0").resolve("dead-letter.ndjson"));
+        assertThat(deadLetters).hasSize(1);
+        var letter = mapper.readTree(deadLetters.get(0));
+        assertThat(letter.get("deviceId").asText()).isEqualTo(device.toString());
+        assertThat(letter.get("unit").asText()).isEqualTo(poison);
+        assertThat(letter.get("value").decimalValue()).isEqualByComparingTo("2");
+        assertThat(letter.get("id").asText()).isNotBlank();
+        assertThat(letter.get("error").asText()).contains("value too long");
+        assertThat(registry.counter("ingest.async.dead_lettered").count()).isEqualTo(1);
+
+        // der Shard läuft weiter
+        service.enqueue(List.of(reading(device, 3, "4")));
+        await(() -> written.size() == 3);
+    }
+
+    @Test
+    void enqueue_without_start_is_unavailable() {
+        service = new AsyncIngestService(batchService, props(false, 1, 2), registry, mapper);
+        assertThatThrownBy(() -> service.enqueue(List.of(reading(UUID.randomUUID(), 0, "1"))))
+                .isInstanceOf(IngestUnavailableException.class);
+    }
+
+    private AsyncIngestService start(int shards, int maxAttempts) {
+        var s = new AsyncIngestService(batchService, props(true, shards, maxAttempts), registry, mapper);
+        s.start();
+        return s;
+    }
+
+    private IngestProperties props(boolean enabled, int shards, int maxAttempts) {
+        return new IngestProperties(null, null, new IngestProperties.Async(enabled, dir.toString(), shards,
+                DataSize.ofKilobytes(64), IngestProperties.FsyncPolicy.NEVER, 10, 1000, maxAttempts));
+    }
+
+    private IngestResult write(List<ReadingDto> rows, List<UUID> ids) {
+        written.addAll(rows);
+        writtenIds.addAll(ids);
+        return new IngestResult(rows.size(), rows.size(), 0, List.of());
+    }
+
+    private static ReadingDto reading(UUID device, int interval, String value) {
+        return new ReadingDto(device, T0.plusSeconds(900L * interval), new BigDecimal(value), "kWh", "LoRa");
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within 10 s").isLessThan(deadline);
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(ex);
+            }
+        }
+    }
+}
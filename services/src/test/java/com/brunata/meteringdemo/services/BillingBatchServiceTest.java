@@ -0,0 +1,232 @@
+package com.brunata.meteringdemo.services;
+
+import com.brunata.meteringdemo.common.Money;
+import com.brunata.meteringdemo.common.ValidationException;
+import com.brunata.meteringdemo.services.config.BillingBatchProperties;
+import com.brunata.meteringdemo.services.config.BillingProperties;
+import com.brunata.meteringdemo.services.dto.BillingRunProgress;
+import com.brunata.meteringdemo.services.reference.ReferenceDataCache;
+import com.brunata.meteringdemo.services.tariff.CompiledTariff;
+import com.brunata.meteringdemo.services.tariff.TariffPlan;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BillingBatchServiceTest {
+    /**
+     * Tests für die Sammel-Abrechnung:
+     * - Verträge werden per Keyset in Chunks gelesen (nächster Chunk nach der letzten Vertrags-ID)
+     * - je Chunk ein Verbrauchs-Query und ein Insert-Batch; ohne Messwerte / negativ wird übersprungen,
+     *   Konflikte mit vorhandenen Rechnungen zählen als bereits abgerechnet
+     * - ein fehlgeschlagener Chunk bricht den Lauf nicht ab (COMPLETED_WITH_ERRORS, erneut startbar)
+     * - Verträge mit Tarifplan werden über die Messwertreihe ihres Geräts bepreist (ein Reihen-Query je Chunk)
+     * - alle Grenz-Seeks haben eine untere und obere Zeitgrenze (Zeitraum bzw. `billing.max-reading-gap`)
+     */
+
+    private static final LocalDate FROM = LocalDate.parse("2025-09-01");
+    private static final LocalDate TO = LocalDate.parse("2025-09-30");
+
+    private final UUID c1 = UUID.fromString("00000000-0000-0000-0000-0000000000c1");
+    private final UUID c2 = UUID.fromString("00000000-0000-0000-0000-0000000000c2");
+    private final UUID c3 = UUID.fromString("00000000-0000-0000-0000-0000000000c3");
+    private final UUID c4 = UUID.fromString("00000000-0000-0000-0000-0000000000c4");
+    private final UUID d1 = UUID.fromString("00000000-0000-0000-0000-0000000000d1");
+    private final UUID d2 = UUID.fromString("00000000-0000-0000-0000-0000000000d2");
+    private final UUID d3 = UUID.fromString("00000000-0000-0000-0000-0000000000d3");
+    private final UUID d4 = UUID.fromString("00000000-0000-0000-0000-0000000000d4");
+    private final UUID flatTariff = UUID.fromString("00000000-0000-0000-0000-0000000000f1");
+    private final UUID tieredTariff = UUID.fromString("00000000-0000-0000-0000-0000000000f2");
+
+    private JdbcTemplate jdbc;
+    private BillingBatchService service;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = mock(JdbcTemplate.class);
+        var referenceData = mock(ReferenceDataCache.class);
+        var price = new BigDecimal("2.5000");
+        when(referenceData.tariff(flatTariff)).thenReturn(Optional.of(new ReferenceDataCache.TariffSnapshot(
+                flatTariff, "Flat", price, "kWh", CompiledTariff.compile(TariffPlan.flat(price)))));
+        // 2.50 bis 5 kWh, darüber 1.00
+        var tiered = new TariffPlan(price, ZoneOffset.UTC,
+                List.of(new TariffPlan.Tier(new BigDecimal("5"), new BigDecimal("1.0000"))), List.of());
+        when(referenceData.tariff(tieredTariff)).thenReturn(Optional.of(new ReferenceDataCache.TariffSnapshot(
+                tieredTariff, "Tiered", price, "kWh", CompiledTariff.compile(tiered))));
+        service = service(referenceData, BillingProperties.ConsumptionMode.BOUNDARY);
+    }
+
+    private BillingBatchService service(ReferenceDataCache referenceData, BillingProperties.ConsumptionMode mode) {
+        return new BillingBatchService(jdbc, mock(PlatformTransactionManager.class), referenceData,
+                new BillingProperties(2, RoundingMode.HALF_UP, mode, Duration.ofDays(31), null),
+                new BillingBatchProperties(2, 1, 5), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void bills_keyset_chunks_with_one_consumption_query_and_batch_each() {
+        when(jdbc.query(eq(BillingBatchService.CONTRACT_CHUNK_SQL), any(RowMapper.class), any(Object[].class)))
+                .thenReturn(List.of(row(c1, d1), row(c2, d2)), List.of(row(c3, d3), row(c4, d4)), List.of());
+        consumption(d1, "10.005", d2, "-1", d3, "7");
+        when(jdbc.batchUpdate(eq(BillingBatchService.INSERT_SQL), anyList())).thenReturn(new int[]{1}, new int[]{0});
+
+        var run = new BillingBatchService.Run(UUID.randomUUID(), FROM, TO);
+        service.execute(run);
+
+        var p = run.snapshot();
+        assertThat(p.status()).isEqualTo(BillingRunProgress.Status.COMPLETED);
+        assertThat(p.chunksCompleted()).isEqualTo(2);
+        assertThat(p.contracts()).isEqualTo(4);
+        assertThat(p.invoicesCreated()).isEqualTo(1);
+        assertThat(p.alreadyInvoiced()).isEqualTo(1);
+        assertThat(p.negativeConsumption()).isEqualTo(1);
+        assertThat(p.withoutReadings()).isEqualTo(1);
+
+        // Keyset: zweiter Chunk beginnt nach c2, dritter nach c4
+        verify(jdbc).query(eq(BillingBatchService.CONTRACT_CHUNK_SQL), any(RowMapper.class), eq(c2), any(), any(), any(), any(), eq(2));
+        verify(jdbc).query(eq(BillingBatchService.CONTRACT_CHUNK_SQL), any(RowMapper.class), eq(c4), any(), any(), any(), any(), eq(2));
+
+        var batches = ArgumentCaptor.forClass(List.class);
+        verify(jdbc, times(2)).batchUpdate(eq(BillingBatchService.INSERT_SQL), batches.capture());
+        Object[] first = (Object[]) batches.getAllValues().get(0).get(0);
+        assertThat(first[1]).isEqualTo(c1);
+        assertThat(first[5]).isEqualTo(new BigDecimal("25.01")); // 10.005 * 2.5 = 25.0125 -> 25.01
+        assertThat(batches.getAllValues().get(0)).hasSize(1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failed_chunk_does_not_abort_run() {
+        when(jdbc.query(eq(BillingBatchService.CONTRACT_CHUNK_SQL), any(RowMapper.class), any(Object[].class)))
+                .thenReturn(List.of(row(c1, d1), row(c2, d2)), List.of(row(c3, d3)));
+        consumption(d1, "1", d2, "1", d3, "1");
+        when(jdbc.batchUpdate(eq(BillingBatchService.INSERT_SQL), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("connection lost"))
+                .thenReturn(new int[]{1});
+
+        var run = new BillingBatchService.Run(UUID.randomUUID(), FROM, TO);
+        service.execute(run);
+
+        var p = run.snapshot();
+        assertThat(p.status()).isEqualTo(BillingRunProgress.Status.COMPLETED_WITH_ERRORS);
+        assertThat(p.chunksFailed()).isEqualTo(1);
+        assertThat(p.invoicesCreated()).isEqualTo(1);
+        assertThat(p.errors()).singleElement().asString().contains("connection lost");
+
+        assertThatThrownBy(() -> service.start(TO, FROM)).isInstanceOf(ValidationException.class);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void prices_planned_tariffs_over_the_device_series() {
+        when(jdbc.query(eq(BillingBatchService.CONTRACT_CHUNK_SQL), any(RowMapper.class), any(Object[].class)))
+                .thenReturn(List.of(new BillingBatchService.ContractRow(c1, d1, tieredTariff, Money.of(new BigDecimal("2.5000")))));
+        consumption(d1, "10");
+        doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(1);
+            var t = Instant.parse("2025-09-01T00:00:00Z");
+            for (var value : List.of("100", "104", "110")) {
+                var rs = mock(ResultSet.class);
+                when(rs.getObject(1, UUID.class)).thenReturn(d1);
+                when(rs.getTimestamp(2)).thenReturn(Timestamp.from(t));
+                when(rs.getBigDecimal(3)).thenReturn(new BigDecimal(value));
+                handler.processRow(rs);
+                t = t.plusSeconds(900);
+            }
+            return null;
+        }).when(jdbc).query(eq(BillingBatchService.SERIES_SQL), any(RowCallbackHandler.class), any(Object[].class));
+        when(jdbc.batchUpdate(eq(BillingBatchService.INSERT_SQL), anyList())).thenReturn(new int[]{1});
+
+        var run = new BillingBatchService.Run(UUID.randomUUID(), FROM, TO);
+        service.execute(run);
+
+        assertThat(run.snapshot().invoicesCreated()).isEqualTo(1);
+        var batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbc).batchUpdate(eq(BillingBatchService.INSERT_SQL), batch.capture());
+        Object[] invoice = (Object[]) batch.getValue().get(0);
+        assertThat(invoice[4]).isEqualTo(new BigDecimal("10.000000"));
+        // 5 kWh * 2.50 + 5 kWh * 1.00 (Staffelwechsel im zweiten Intervall)
+        assertThat(invoice[5]).isEqualTo(new BigDecimal("17.50"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void interpolated_boundary_seeks_are_bounded_by_max_reading_gap() {
+        service.shutdown();
+        service = service(mock(ReferenceDataCache.class), BillingProperties.ConsumptionMode.INTERPOLATED);
+        when(jdbc.query(eq(BillingBatchService.CONTRACT_CHUNK_SQL), any(RowMapper.class), any(Object[].class)))
+                .thenReturn(List.of(row(c1, d1)), List.of());
+
+        service.execute(new BillingBatchService.Run(UUID.randomUUID(), FROM, TO));
+
+        // je Seek untere und obere Grenze: [Grenze - 31d, Grenze) rückwärts, [Grenze, Grenze + 31d) vorwärts
+        var start = Instant.parse("2025-09-01T00:00:00Z");
+        var end = Instant.parse("2025-10-01T00:00:00Z");
+        var gap = Duration.ofDays(31);
+        verify(jdbc).query(eq(BillingBatchService.BOUNDARY_POINTS_SQL), any(RowCallbackHandler.class), eq("{" + d1 + "}"),
+                eq(Timestamp.from(start.minus(gap))), eq(Timestamp.from(start)),
+                eq(Timestamp.from(start)), eq(Timestamp.from(start.plus(gap))),
+                eq(Timestamp.from(end.minus(gap))), eq(Timestamp.from(end)),
+                eq(Timestamp.from(end)), eq(Timestamp.from(end.plus(gap))));
+    }
+
+    @Test
+    void every_lateral_seek_has_a_lower_and_an_upper_bound() {
+        // ohne beide Grenzen kann PostgreSQL die Monatspartitionen nicht ausschließen (Seek über alle Partitionen)
+        for (var sql : List.of(BillingBatchService.FIRST_LAST_SQL, BillingBatchService.BOUNDARY_POINTS_SQL)) {
+            int laterals = sql.split("join lateral", -1).length - 1;
+            int bounded = sql.split("m.reading_time >= \\? and m.reading_time < \\?", -1).length - 1;
+            assertThat(laterals).isPositive();
+            assertThat(bounded).as(sql).isEqualTo(laterals);
+        }
+    }
+
+    private BillingBatchService.ContractRow row(UUID contract, UUID device) {
+        return new BillingBatchService.ContractRow(contract, device, flatTariff, Money.of(new BigDecimal("2.5000")));
+    }
+
+    /** Verbrauchs-Query (erster/letzter Messwert) liefert je Aufruf die Geräte des Chunks mit den angegebenen Verbräuchen. */
+    private void consumption(Object... deviceValuePairs) {
+        doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(1);
+            String devices = inv.getArgument(2);
+            for (int i = 0; i < deviceValuePairs.length; i += 2) {
+                if (!devices.contains(deviceValuePairs[i].toString())) continue;
+                var rs = mock(ResultSet.class);
+                when(rs.getObject(1, UUID.class)).thenReturn((UUID) deviceValuePairs[i]);
+                when(rs.getBigDecimal(2)).thenReturn(new BigDecimal("1000"));
+                when(rs.getBigDecimal(3)).thenReturn(new BigDecimal("1000").add(new BigDecimal((String) deviceValuePairs[i + 1])));
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbc).query(eq(BillingBatchService.FIRST_LAST_SQL), any(RowCallbackHandler.class), any(Object[].class));
+    }
+}
@@ -0,0 +1,97 @@
+package com.brunata.meteringdemo.services;
+
+import com.brunata.meteringdemo.common.ValidationException;
+import com.brunata.meteringdemo.domain.Invoice;
+import com.brunata.meteringdemo.services.config.BillingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class BillingRunCoordinatorTest {
+    /**
+     * Tests für die Koordination der Einzelabrechnung:
+     * - Gleichzeitige identische Läufe teilen sich eine Berechnung (BillingService nur einmal aufgerufen)
+     * - Idempotency-Key liefert das gemerkte Ergebnis ohne erneuten Lauf; anderer Lauf mit gleichem Schlüssel -> 400
+     * - Fehler werden an alle Wartenden weitergegeben und nicht gemerkt
+     */
+
+    private static final LocalDate FROM = LocalDate.parse("2025-09-01");
+    private static final LocalDate TO = LocalDate.parse("2025-09-30");
+
+    private BillingService billing;
+    private SimpleMeterRegistry registry;
+    private BillingRunCoordinator coordinator;
+    private final UUID contractId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        billing = mock(BillingService.class);
+        registry = new SimpleMeterRegistry();
+        var props = new BillingProperties(2, RoundingMode.HALF_UP, BillingProperties.ConsumptionMode.BOUNDARY, Duration.ofDays(31),
+                new BillingProperties.Idempotency(100, Duration.ofHours(1)));
+        coordinator = new BillingRunCoordinator(billing, props, registry);
+    }
+
+    @Test
+    void concurrent_identical_runs_share_one_computation() throws Exception {
+        var entered = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var invoice = new Invoice();
+        when(billing.run(contractId, FROM, TO)).thenAnswer(inv -> {
+            entered.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return invoice;
+        });
+
+        var leader = CompletableFuture.supplyAsync(() -> coordinator.run(contractId, FROM, TO, null));
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+        var follower = CompletableFuture.supplyAsync(() -> coordinator.run(contractId, FROM, TO, null));
+        // warten, bis der zweite Aufruf sich an den laufenden angehängt hat
+        while (registry.get("billing.run.coalesced").counter().count() < 1) Thread.onSpinWait();
+        release.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isSameAs(invoice);
+        assertThat(follower.get(5, TimeUnit.SECONDS)).isSameAs(invoice);
+        verify(billing, times(1)).run(contractId, FROM, TO);
+    }
+
+    @Test
+    void idempotency_key_returns_remembered_result() {
+        var invoice = new Invoice();
+        when(billing.run(contractId, FROM, TO)).thenReturn(invoice);
+
+        assertThat(coordinator.run(contractId, FROM, TO, "key-1")).isSameAs(invoice);
+        assertThat(coordinator.run(contractId, FROM, TO, "key-1")).isSameAs(invoice);
+        verify(billing, times(1)).run(contractId, FROM, TO);
+
+        assertThatThrownBy(() -> coordinator.run(contractId, FROM, TO.minusDays(1), "key-1"))
+                .isInstanceOf(ValidationException.class)
+                .hasMessageContaining("different billing run");
+        assertThatThrownBy(() -> coordinator.run(contractId, FROM, TO, " "))
+                .isInstanceOf(ValidationException.class);
+    }
+
+    @Test
+    void failures_are_not_remembered() {
+        var invoice = new Invoice();
+        when(billing.run(contractId, FROM, TO))
+                .thenThrow(new ValidationException("No readings in period"))
+                .thenReturn(invoice);
+
+        assertThatThrownBy(() -> coordinator.run(contractId, FROM, TO, "key-2"))
+                .isInstanceOf(ValidationException.class);
+        assertThat(coordinator.run(contractId, FROM, TO, "key-2")).isSameAs(invoice);
+    }
+}
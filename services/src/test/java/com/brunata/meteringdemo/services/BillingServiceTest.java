@@ -1,20 +1,34 @@
 package com.brunata.meteringdemo.services;
 
+import com.brunata.meteringdemo.common.Quantity;
 import com.brunata.meteringdemo.common.ValidationException;
 import com.brunata.meteringdemo.domain.Contract;
 import com.brunata.meteringdemo.domain.Invoice;
 import com.brunata.meteringdemo.domain.MeterReading;
 import com.brunata.meteringdemo.domain.Tariff;
+import com.brunata.meteringdemo.domain.TariffTimeWindow;
 import com.brunata.meteringdemo.persistence.ContractRepository;
 import com.brunata.meteringdemo.persistence.InvoiceRepository;
 import com.brunata.meteringdemo.persistence.MeterReadingRepository;
+import com.brunata.meteringdemo.persistence.TariffRepository;
+import com.brunata.meteringdemo.services.config.BillingProperties;
+import com.brunata.meteringdemo.services.config.ReferenceCacheProperties;
+import com.brunata.meteringdemo.services.reference.ReferenceDataCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -25,7 +39,12 @@ import static org.mockito.Mockito.*;
 class BillingServiceTest {
     /**
      * Tests für den BillingService:
-     * - Betrag aus Verbrauch (DB-Aggregat) und Tarif berechnen (Rundung)
+     * - Betrag aus Verbrauch (erster/letzter Messwert per Index-Seek) und Tarif berechnen (Rundung),
+     *   knotenübergreifend serialisiert per Advisory-Lock
+     * - Interpolierter Modus: Stand an den Grenzen aus Nachbar-Messwerten, Folgemonate schließen exakt an;
+     *   Seeks beidseitig auf `billing.max-reading-gap` begrenzt, weiter entfernte Messwerte zählen nicht
+     * - Tarifplan mit Zeitfenster: Bepreisung über die Messwertreihe in der Tarif-Zeitzone
+     * - Beträge über long rechnen exakt (BigDecimal-Rückfall), nicht speicherbare Beträge -> ValidationException
      * - Ungültige Zeiträume -> ValidationException
      * - Keine Messwerte im Zeitraum -> ValidationException
      */
@@ -33,6 +52,7 @@ class BillingServiceTest {
     private ContractRepository contractRepo;
     private MeterReadingRepository readingRepo;
     private InvoiceRepository invoiceRepo;
+    private JdbcTemplate jdbc;
     private BillingService service;
 
     @BeforeEach
@@ -40,8 +60,8 @@ class BillingServiceTest {
         contractRepo = mock(ContractRepository.class);
         readingRepo = mock(MeterReadingRepository.class);
         invoiceRepo = mock(InvoiceRepository.class);
-        var props = new com.brunata.meteringdemo.services.config.BillingProperties(2, java.math.RoundingMode.HALF_UP);
-        service = new BillingService(contractRepo, readingRepo, invoiceRepo, props);
+        jdbc = mock(JdbcTemplate.class);
+        service = service(BillingProperties.ConsumptionMode.BOUNDARY);
     }
 
     @Test
@@ -71,9 +91,13 @@ class BillingServiceTest {
         r2.setValue(new BigDecimal("160.500000"));
         r2.setUnit("kWh");
 
-        // DB-seitige Aggregat-Query für Verbrauch
-        when(readingRepo.computeConsumption(eq(deviceId), any(), any()))
-                .thenReturn(Optional.of(new BigDecimal("60.500000")));
+        // zwei Index-Seeks im Intervall [2025-09-01T00:00Z, 2025-10-01T00:00Z)
+        var start = Instant.parse("2025-09-01T00:00:00Z");
+        var end = Instant.parse("2025-10-01T00:00:00Z");
+        when(readingRepo.findFirstByDeviceIdAndReadingTimeGreaterThanEqualAndReadingTimeLessThanOrderByReadingTimeAsc(deviceId, start, end))
+                .thenReturn(Optional.of(r1));
+        when(readingRepo.findFirstByDeviceIdAndReadingTimeGreaterThanEqualAndReadingTimeLessThanOrderByReadingTimeDesc(deviceId, start, end))
+                .thenReturn(Optional.of(r2));
 
         // echo the invoice back on save
         when(invoiceRepo.save(any(Invoice.class))).thenAnswer(inv -> inv.getArgument(0));
@@ -87,16 +111,54 @@ class BillingServiceTest {
         assertThat(invoice.getAmount()).isEqualByComparingTo("15.13");
         assertThat(invoice.getStatus()).isEqualTo("OPEN");
 
+        // Advisory-Lock je (Vertrag, Zeitraum) vor der Idempotenz-Prüfung
+        verify(jdbc).query(eq(BillingService.ADVISORY_LOCK_SQL), any(RowCallbackHandler.class),
+                eq("invoice:" + contractId + ":2025-09-01:2025-09-30"));
+
         var captor = ArgumentCaptor.forClass(Invoice.class);
         verify(invoiceRepo).save(captor.capture());
         assertThat(captor.getValue().getPeriodFrom()).isEqualTo(from);
         assertThat(captor.getValue().getPeriodTo()).isEqualTo(to);
     }
 
+    @Test
+    void large_amounts_are_exact_and_unrepresentable_amounts_are_rejected() {
+        var tariff = new Tariff();
+        tariff.setPricePerUnit(new BigDecimal("9.9999"));
+        var contract = new Contract();
+        contract.setId(UUID.randomUUID());
+        contract.setDeviceId(UUID.randomUUID());
+        contract.setTariff(tariff);
+        when(contractRepo.findById(contract.getId())).thenReturn(Optional.of(contract));
+        when(invoiceRepo.save(any(Invoice.class))).thenAnswer(inv -> inv.getArgument(0));
+        var first = reading(contract.getDeviceId(), "2025-09-01T00:00:00Z", "0.000000");
+        var last = reading(contract.getDeviceId(), "2025-09-30T00:00:00Z", "999999999999.999999");
+        when(readingRepo.findFirstByDeviceIdAndReadingTimeGreaterThanEqualAndReadingTimeLessThanOrderByReadingTimeAsc(any(), any(), any()))
+                .thenReturn(Optional.of(first));
+        when(readingRepo.findFirstByDeviceIdAndReadingTimeGreaterThanEqualAndReadingTimeLessThanOrderByReadingTimeDesc(any(), any(), any()))
+                .thenReturn(Optional.of(last));
+
+        // Produkt übersteigt long (Skala 10), Betrag passt in NUMERIC(18,2)
+        var invoice = service.run(contract.getId(), LocalDate.parse("2025-09-01"), LocalDate.parse("2025-09-30"));
+        assertThat(invoice.getAmount()).isEqualByComparingTo("9999900000000.00");
+
+        // ~10^20: weder long noch NUMERIC(18,2) -> Fachfehler (400) statt ArithmeticException (500)
+        tariff.setPricePerUnit(new BigDecimal("99999999.9999"));
+        contract.setId(UUID.randomUUID());
+        when(contractRepo.findById(contract.getId())).thenReturn(Optional.of(contract));
+        assertThatThrownBy(() -> service.run(contract.getId(), LocalDate.parse("2025-09-01"), LocalDate.parse("2025-09-30")))
+                .isInstanceOf(ValidationException.class)
+                .hasMessageContaining("NUMERIC(18,2)");
+    }
+
     @Test
     void throws_on_invalid_period() {
         var id = UUID.randomUUID();
-        when(contractRepo.findById(id)).thenReturn(Optional.of(new Contract()));
+        var contract = new Contract();
+        var tariff = new Tariff();
+        tariff.setPricePerUnit(new BigDecimal("0.10"));
+        contract.setTariff(tariff);
+        when(contractRepo.findById(id)).thenReturn(Optional.of(contract));
         assertThatThrownBy(() -> service.run(id, LocalDate.parse("2025-10-01"), LocalDate.parse("2025-09-30")))
                 .isInstanceOf(ValidationException.class)
                 .hasMessageContaining("periodTo < periodFrom");
@@ -113,10 +175,159 @@ class BillingServiceTest {
         contract.setTariff(tariff);
 
         when(contractRepo.findById(contract.getId())).thenReturn(Optional.of(contract));
-        when(readingRepo.computeConsumption(any(), any(), any())).thenReturn(Optional.empty());
+        when(readingRepo.findFirstByDeviceIdAndReadingTimeGreaterThanEqualAndReadingTimeLessThanOrderByReadingTimeAsc(any(), any(), any()))
+                .thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> service.run(contract.getId(), LocalDate.parse("2025-09-01"), LocalDate.parse("2025-09-30")))
                 .isInstanceOf(ValidationException.class)
                 .hasMessageContaining("No readings in period");
     }
+
+    @Test
+    void interpolated_consecutive_months_add_up_exactly() {
+        service = service(BillingProperties.ConsumptionMode.INTERPOLATED);
+        var tariff = new Tariff();
+        tariff.setPricePerUnit(new BigDecimal("1.0000"));
+        var contract = new Contract();
+        contract.setId(UUID.randomUUID());
+        contract.setDeviceId(UUID.randomUUID());
+        contract.setTariff(tariff);
+        when(contractRepo.findById(contract.getId())).thenReturn(Optional.of(contract));
+        when(invoiceRepo.save(any(Invoice.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // unregelmäßige Messwerte, keiner liegt auf einer Monatsgrenze
+        var readings = List.of(
+                reading(contract.getDeviceId(), "2025-08-20T06:00:00Z", "100.000000"),
+                reading(contract.getDeviceId(), "2025-09-12T18:00:00Z", "130.000000"),
+                reading(contract.getDeviceId(), "2025-10-03T00:00:00Z", "171.000000"),
+                reading(contract.getDeviceId(), "2025-11-07T12:00:00Z", "200.000000"));
+        stubSeeks(readings);
+
+        var sep = service.run(contract.getId(), LocalDate.parse("2025-09-01"), LocalDate.parse("2025-09-30"));
+        var oct = service.run(contract.getId(), LocalDate.parse("2025-10-01"), LocalDate.parse("2025-10-31"));
+
+        // Stand 2025-10-01T00:00Z: 130 + 41 * (438h / 486h) = 166.950617
+        var septemberStart = MeterPoint.interpolate(Instant.parse("2025-09-01T00:00:00Z"),
+                point(readings.get(0)), point(readings.get(1)));
+        assertThat(sep.getConsumption()).isEqualByComparingTo(
+                new BigDecimal("166.950617").subtract(septemberStart.toBigDecimal()));
+        // Summe der Monate = Stand 2025-11-01 minus Stand 2025-09-01 (keine Lücke an der Grenze)
+        var total = MeterPoint.interpolate(Instant.parse("2025-11-01T00:00:00Z"),
+                point(readings.get(2)), point(readings.get(3))).minus(septemberStart);
+        assertThat(sep.getConsumption().add(oct.getConsumption())).isEqualByComparingTo(total.toBigDecimal());
+
+        // November ist noch nicht durch einen Messwert nach dem Monatsende abgeschlossen
+        assertThatThrownBy(() -> service.run(contract.getId(), LocalDate.parse("2025-11-01"), LocalDate.parse("2025-11-30")))
+                .isInstanceOf(ValidationException.class)
+                .hasMessageContaining("after period end");
+    }
+
+    @Test
+    void prices_time_of_use_tariff_over_reading_series() {
+        // 0.25 je kWh, 06-22 Uhr Ortszeit +0.10
+        var tariff = new Tariff();
+        tariff.setPricePerUnit(new BigDecimal("0.2500"));
+        tariff.setTimeZone("Europe/Copenhagen");
+        tariff.setTimeWindows(List.of(new TariffTimeWindow(6, 22, new BigDecimal("0.1000"))));
+        var contract = new Contract();
+        contract.setId(UUID.randomUUID());
+        contract.setDeviceId(UUID.randomUUID());
+        contract.setTariff(tariff);
+        when(contractRepo.findById(contract.getId())).thenReturn(Optional.of(contract));
+        when(invoiceRepo.save(any(Invoice.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // 03:00Z = 05:00 Sommerzeit (Grundpreis), 04:00Z = 06:00 (Zeitfenster)
+        var readings = List.of(
+                reading(contract.getDeviceId(), "2025-09-10T03:00:00Z", "100.000000"),
+                reading(contract.getDeviceId(), "2025-09-10T04:00:00Z", "110.000000"),
+                reading(contract.getDeviceId(), "2025-09-10T05:00:00Z", "130.000000"));
+        when(readingRepo.findFirstByDeviceIdAndReadingTimeGreaterThanEqualAndReadingTimeLessThanOrderByReadingTimeAsc(any(), any(), any()))
+                .thenReturn(Optional.of(readings.get(0)));
+        when(readingRepo.findFirstByDeviceIdAndReadingTimeGreaterThanEqualAndReadingTimeLessThanOrderByReadingTimeDesc(any(), any(), any()))
+                .thenReturn(Optional.of(readings.get(2)));
+        doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(1);
+            for (var r : readings) {
+                var rs = mock(ResultSet.class);
+                when(rs.getTimestamp(1)).thenReturn(Timestamp.from(r.getReadingTime()));
+                when(rs.getBigDecimal(2)).thenReturn(r.getValue());
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbc).query(eq(BillingService.SERIES_SQL), any(RowCallbackHandler.class), any(Object[].class));
+
+        var invoice = service.run(contract.getId(), LocalDate.parse("2025-09-01"), LocalDate.parse("2025-09-30"));
+
+        // 10 kWh * 0.25 + 20 kWh * 0.35 = 9.50
+        assertThat(invoice.getConsumption()).isEqualByComparingTo("30");
+        assertThat(invoice.getAmount()).isEqualByComparingTo("9.50");
+        assertThat(invoice.getContract().getTariff().getTimeZone()).isEqualTo("Europe/Copenhagen");
+    }
+
+    @Test
+    void interpolated_seeks_are_bounded_and_ignore_readings_beyond_max_gap() {
+        service = service(BillingProperties.ConsumptionMode.INTERPOLATED);
+        var tariff = new Tariff();
+        tariff.setPricePerUnit(new BigDecimal("1.0000"));
+        var contract = new Contract();
+        contract.setId(UUID.randomUUID());
+        contract.setDeviceId(UUID.randomUUID());
+        contract.setTariff(tariff);
+        when(contractRepo.findById(contract.getId())).thenReturn(Optional.of(contract));
+        when(invoiceRepo.save(any(Invoice.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // Messwert vom Juli liegt mehr als 31 Tage vor dem Zeitraumbeginn -> keine Stützstelle
+        var readings = List.of(
+                reading(contract.getDeviceId(), "2025-07-01T00:00:00Z", "50.000000"),
+                reading(contract.getDeviceId(), "2025-09-12T00:00:00Z", "130.000000"),
+                reading(contract.getDeviceId(), "2025-10-01T00:00:00Z", "171.000000"));
+        stubSeeks(readings);
+
+        var invoice = service.run(contract.getId(), LocalDate.parse("2025-09-01"), LocalDate.parse("2025-09-30"));
+
+        // Beginn = erster Messwert ab der Grenze (wie bei einem später montierten Zähler), Ende liegt auf einem Messwert
+        assertThat(invoice.getConsumption()).isEqualByComparingTo("41");
+        var start = Instant.parse("2025-09-01T00:00:00Z");
+        var end = Instant.parse("2025-10-01T00:00:00Z");
+        var gap = Duration.ofDays(31);
+        verify(readingRepo).findFirstByDeviceIdAndReadingTimeGreaterThanEqualAndReadingTimeLessThanOrderByReadingTimeDesc(
+                contract.getDeviceId(), start.minus(gap), start);
+        verify(readingRepo).findFirstByDeviceIdAndReadingTimeGreaterThanEqualAndReadingTimeLessThanOrderByReadingTimeAsc(
+                contract.getDeviceId(), start, start.plus(gap));
+        verify(readingRepo).findFirstByDeviceIdAndReadingTimeGreaterThanEqualAndReadingTimeLessThanOrderByReadingTimeDesc(
+                contract.getDeviceId(), end.minus(gap), end);
+        verify(readingRepo).findFirstByDeviceIdAndReadingTimeGreaterThanEqualAndReadingTimeLessThanOrderByReadingTimeAsc(
+                contract.getDeviceId(), end, end.plus(gap));
+    }
+
+    /** Bereichs-Seeks [from, to) auf einer sortierten Messwertliste. */
+    private void stubSeeks(List<MeterReading> readings) {
+        when(readingRepo.findFirstByDeviceIdAndReadingTimeGreaterThanEqualAndReadingTimeLessThanOrderByReadingTimeDesc(any(), any(), any()))
+                .thenAnswer(inv -> readings.stream().filter(r -> inRange(r, inv.getArgument(1), inv.getArgument(2))).reduce((a, b) -> b));
+        when(readingRepo.findFirstByDeviceIdAndReadingTimeGreaterThanEqualAndReadingTimeLessThanOrderByReadingTimeAsc(any(), any(), any()))
+                .thenAnswer(inv -> readings.stream().filter(r -> inRange(r, inv.getArgument(1), inv.getArgument(2))).findFirst());
+    }
+
+    private static boolean inRange(MeterReading r, Instant from, Instant to) {
+        return !r.getReadingTime().isBefore(from) && r.getReadingTime().isBefore(to);
+    }
+
+    private BillingService service(BillingProperties.ConsumptionMode mode) {
+        var referenceData = new ReferenceDataCache(contractRepo, mock(TariffRepository.class),
+                new ReferenceCacheProperties(true, 100, Duration.ofMinutes(1)), new SimpleMeterRegistry());
+        return new BillingService(referenceData, contractRepo, readingRepo, invoiceRepo,
+                new BillingProperties(2, RoundingMode.HALF_UP, mode, Duration.ofDays(31), null), jdbc, new SimpleMeterRegistry());
+    }
+
+    private static MeterPoint point(MeterReading r) {
+        return new MeterPoint(r.getReadingTime(), Quantity.of(r.getValue()));
+    }
+
+    private static MeterReading reading(UUID deviceId, String time, String value) {
+        var r = new MeterReading();
+        r.setDeviceId(deviceId);
+        r.setReadingTime(Instant.parse(time));
+        r.setValue(new BigDecimal(value));
+        return r;
+    }
 }
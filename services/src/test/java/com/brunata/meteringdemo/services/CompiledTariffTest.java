@@ -0,0 +1,89 @@
+package com.brunata.meteringdemo.services;
+
+import com.brunata.meteringdemo.common.Quantity;
+import com.brunata.meteringdemo.common.ValidationException;
+import com.brunata.meteringdemo.services.tariff.CompiledTariff;
+import com.brunata.meteringdemo.services.tariff.ReadingSeries;
+import com.brunata.meteringdemo.services.tariff.TariffPlan;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompiledTariffTest {
+    /**
+     * Tests für die Tarif-Engine:
+     * - Staffeln nach kumuliertem Verbrauch, Staffelwechsel innerhalb eines Intervalls wird aufgeteilt
+     * - Zeitfenster in Ortszeit über Sommer-/Winterzeitwechsel und über Mitternacht
+     * - fallender Zählerstand, Betrag außerhalb des Wertebereichs und ungültige Pläne -> ValidationException
+     */
+
+    private static final BigDecimal BASE = new BigDecimal("0.3000");
+
+    @Test
+    void splits_consumption_across_tier_boundaries() {
+        // 0.30 bis 100, 0.20 ab 100, 0.10 ab 250 (Staffeln unsortiert angegeben)
+        var tariff = CompiledTariff.compile(new TariffPlan(BASE, ZoneOffset.UTC, List.of(
+                new TariffPlan.Tier(new BigDecimal("250"), new BigDecimal("0.1000")),
+                new TariffPlan.Tier(new BigDecimal("100"), new BigDecimal("0.2000"))), List.of()));
+        var series = series("2025-01-01T00:00:00Z", 3600, "0", "60", "160", "300");
+
+        // 60*0.30 + (40*0.30 + 60*0.20) + (90*0.20 + 50*0.10) = 18 + 24 + 23
+        assertThat(tariff.flat()).isFalse();
+        assertThat(tariff.amount(series).toBigDecimal()).isEqualByComparingTo("65");
+        assertThat(CompiledTariff.compile(TariffPlan.flat(BASE)).flat()).isTrue();
+    }
+
+    @Test
+    void applies_time_windows_in_local_time_across_dst_and_midnight() {
+        // Nachtfenster 22-06 Uhr Ortszeit -0.10
+        var tariff = CompiledTariff.compile(new TariffPlan(BASE, ZoneId.of("Europe/Copenhagen"), List.of(),
+                List.of(new TariffPlan.TimeWindow(22, 6, new BigDecimal("-0.1000")))));
+
+        // 2025-03-30 Umstellung auf Sommerzeit um 01:00Z: 04:30Z = 05:30 MEZ bzw. 06:30 MESZ
+        var winter = series("2025-03-29T04:30:00Z", 900, "0", "1");
+        var summer = series("2025-03-31T04:30:00Z", 900, "0", "1");
+        assertThat(tariff.amount(winter).toBigDecimal()).isEqualByComparingTo("0.20");
+        assertThat(tariff.amount(summer).toBigDecimal()).isEqualByComparingTo("0.30");
+
+        // 23:00 Ortszeit (über Mitternacht gültiges Fenster)
+        assertThat(tariff.amount(series("2025-06-01T21:00:00Z", 900, "0", "1")).toBigDecimal()).isEqualByComparingTo("0.20");
+    }
+
+    @Test
+    void rejects_falling_readings_and_invalid_plans() {
+        var tariff = CompiledTariff.compile(TariffPlan.flat(BASE));
+        assertThatThrownBy(() -> tariff.amount(series("2025-01-01T00:00:00Z", 900, "10", "9")))
+                .isInstanceOf(ValidationException.class)
+                .hasMessageContaining("monotony");
+        // Rohbetrag über long (~10^20) ist ein Fachfehler statt eines ArithmeticException
+        var expensive = CompiledTariff.compile(TariffPlan.flat(new BigDecimal("99999999.9999")));
+        assertThatThrownBy(() -> expensive.amount(series("2025-01-01T00:00:00Z", 900, "0", "999999999999.999999")))
+                .isInstanceOf(ValidationException.class)
+                .hasMessage(CompiledTariff.AMOUNT_OUT_OF_RANGE);
+
+        assertThatThrownBy(() -> CompiledTariff.compile(new TariffPlan(BASE, ZoneOffset.UTC, List.of(),
+                List.of(new TariffPlan.TimeWindow(0, 24, new BigDecimal("-0.5000"))))))
+                .isInstanceOf(ValidationException.class)
+                .hasMessageContaining("must not be negative");
+        assertThatThrownBy(() -> CompiledTariff.compile(new TariffPlan(BASE, ZoneOffset.UTC, List.of(),
+                List.of(new TariffPlan.TimeWindow(25, 3, BigDecimal.ZERO)))))
+                .isInstanceOf(ValidationException.class);
+    }
+
+    private static ReadingSeries series(String start, long stepSeconds, String... values) {
+        var series = new ReadingSeries();
+        var t = Instant.parse(start);
+        for (var value : values) {
+            series.add(t, Quantity.of(new BigDecimal(value)));
+            t = t.plusSeconds(stepSeconds);
+        }
+        return series;
+    }
+}
@@ -0,0 +1,121 @@
+package com.brunata.meteringdemo.services;
+
+import com.brunata.meteringdemo.common.ValidationException;
+import com.brunata.meteringdemo.services.dto.ConsumptionBucket;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class ConsumptionSeriesServiceTest {
+    /**
+     * Tests für die Verbrauchsreihen:
+     * - Bucket-Anzahl entspricht date_trunc-Semantik (angebrochene Buckets zählen, Wochen ab Montag)
+     * - zu viele Punkte → Vergröberung entlang HOUR → DAY → … → YEAR, sonst ValidationException
+     * - ungültige Parameter werden vor jeder DB-Abfrage abgelehnt
+     * - ab DAY werden volle Tage aus dem Tages-Rollup gelesen, die angebrochenen Randtage aus den Rohdaten;
+     *   HOUR und Zeiträume ohne vollen Tag nur aus den Rohdaten
+     */
+
+    private JdbcTemplate jdbc;
+    private ConsumptionSeriesService service;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = mock(JdbcTemplate.class);
+        service = new ConsumptionSeriesService(jdbc);
+    }
+
+    @Test
+    void counts_buckets_like_date_trunc() {
+        var from = LocalDateTime.parse("2025-01-01T10:30:00");
+        assertThat(ConsumptionBucket.HOUR.count(from, LocalDateTime.parse("2025-01-01T12:00:00"))).isEqualTo(2);
+        assertThat(ConsumptionBucket.HOUR.count(from, LocalDateTime.parse("2025-01-01T12:00:01"))).isEqualTo(3);
+        assertThat(ConsumptionBucket.DAY.count(from, LocalDateTime.parse("2025-01-03T00:00:00"))).isEqualTo(2);
+        // 2025-01-01 ist ein Mittwoch → erste Woche beginnt am 2024-12-30
+        assertThat(ConsumptionBucket.WEEK.truncate(from)).isEqualTo(LocalDateTime.parse("2024-12-30T00:00:00"));
+        assertThat(ConsumptionBucket.QUARTER.truncate(LocalDateTime.parse("2025-08-17T05:00:00")))
+                .isEqualTo(LocalDateTime.parse("2025-07-01T00:00:00"));
+        assertThat(ConsumptionBucket.MONTH.count(from, LocalDateTime.parse("2026-01-01T00:00:00"))).isEqualTo(12);
+    }
+
+    @Test
+    void widens_bucket_until_max_points_fit() {
+        var from = LocalDateTime.parse("2024-01-01T00:00:00");
+        var to = LocalDateTime.parse("2026-01-01T00:00:00");
+
+        assertThat(ConsumptionSeriesService.widen(ConsumptionBucket.HOUR, from, to, 20_000)).isEqualTo(ConsumptionBucket.HOUR);
+        assertThat(ConsumptionSeriesService.widen(ConsumptionBucket.HOUR, from, to, 1_000)).isEqualTo(ConsumptionBucket.DAY);
+        assertThat(ConsumptionSeriesService.widen(ConsumptionBucket.HOUR, from, to, 30)).isEqualTo(ConsumptionBucket.MONTH);
+        assertThat(ConsumptionSeriesService.widen(ConsumptionBucket.MONTH, from, to, 2)).isEqualTo(ConsumptionBucket.YEAR);
+        assertThatThrownBy(() -> ConsumptionSeriesService.widen(ConsumptionBucket.HOUR, from, to, 1))
+                .isInstanceOf(ValidationException.class);
+    }
+
+    @Test
+    void reads_full_days_from_rollup_and_partial_days_from_raw_readings() {
+        var device = UUID.randomUUID();
+        var from = Instant.parse("2025-01-01T10:30:00Z");
+        var to = Instant.parse("2025-03-03T06:00:00Z");
+
+        service.series(device, from, to, ConsumptionBucket.WEEK, null);
+
+        var args = queryArguments();
+        assertThat(args.get(0)).isEqualTo(ConsumptionSeriesService.ROLLUP_SQL);
+        assertThat(args.subList(2, args.size())).containsExactly(
+                "week", device, LocalDate.parse("2025-01-02"), LocalDate.parse("2025-03-03"),
+                "week", device, Timestamp.from(from), Timestamp.from(Instant.parse("2025-01-02T00:00:00Z")),
+                Timestamp.from(Instant.parse("2025-03-03T00:00:00Z")), Timestamp.from(to),
+                device, Timestamp.from(from),
+                LocalDateTime.parse("2024-12-30T00:00:00"), LocalDateTime.parse("2025-03-03T00:00:00"), "1 week");
+    }
+
+    @Test
+    void uses_raw_readings_for_hours_and_ranges_without_a_full_day() {
+        var device = UUID.randomUUID();
+        // Tagesgrenzen exakt: [01.01., 02.01.) ist ein voller Tag
+        service.series(device, Instant.parse("2025-01-01T00:00:00Z"), Instant.parse("2025-01-02T00:00:00Z"),
+                ConsumptionBucket.DAY, null);
+        assertThat(queryArguments().get(0)).isEqualTo(ConsumptionSeriesService.ROLLUP_SQL);
+
+        clearInvocations(jdbc);
+        service.series(device, Instant.parse("2025-01-01T00:00:01Z"), Instant.parse("2025-01-02T23:00:00Z"),
+                ConsumptionBucket.DAY, null);
+        assertThat(queryArguments().get(0)).isEqualTo(ConsumptionSeriesService.RAW_SQL);
+
+        clearInvocations(jdbc);
+        service.series(device, Instant.parse("2025-01-01T00:00:00Z"), Instant.parse("2025-01-03T00:00:00Z"),
+                ConsumptionBucket.HOUR, null);
+        assertThat(queryArguments().get(0)).isEqualTo(ConsumptionSeriesService.RAW_SQL);
+    }
+
+    @Test
+    void rejects_invalid_parameters_without_querying() {
+        var device = UUID.randomUUID();
+        var t = Instant.parse("2025-01-01T00:00:00Z");
+        assertThatThrownBy(() -> service.series(device, null, t, null, null)).isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> service.series(device, t, t, null, null)).isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> service.series(device, t.minusSeconds(3600), t, null, 0)).isInstanceOf(ValidationException.class);
+        verifyNoInteractions(jdbc);
+    }
+
+    /** Argumente der einzigen Abfrage (SQL, RowMapper, Parameter). */
+    private List<Object> queryArguments() {
+        var invocations = mockingDetails(jdbc).getInvocations();
+        assertThat(invocations).hasSize(1);
+        return List.of(invocations.iterator().next().getArguments());
+    }
+}
@@ -0,0 +1,167 @@
+package com.brunata.meteringdemo.services;
+
+import com.brunata.meteringdemo.common.UuidV7;
+import com.brunata.meteringdemo.services.seed.CopyBuffer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.copy.CopyIn;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class CopyBufferTest {
+    /**
+     * Tests für den COPY-Textpuffer (Ausgabe gegen die JDK-Formatierung):
+     * - UUIDs wie `UUID.toString()` (zufällig, v7, alle Bits 0/1)
+     * - Datum wie `LocalDate.toString()`, Zeitstempel wie `OffsetDateTime` mit `yyyy-MM-dd HH:mm:ss+00`: Jahres-
+     *   und Jahrhundertwechsel, Schalttage (auch 1900/2100 ohne 29.02.), Zeiten vor 1970, Wechsel im Datums-Cache
+     * - Dezimalwerte wie `BigDecimal.toPlainString()` mit Skala 6: 0, negativ (auch -0.5), größter/kleinster Wert;
+     *   Ganzzahlen wie `Long.toString()`
+     * - volle Blöcke werden beim Zeilenende übergeben, Speicherpuffer wachsen und werden blockweise übertragen
+     */
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("uuuu-MM-dd HH:mm:ssx");
+
+    private CopyIn copyIn;
+    private final ByteArrayOutputStream copied = new ByteArrayOutputStream();
+    private final List<Integer> blocks = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        copyIn = mock(CopyIn.class);
+        doAnswer(inv -> {
+            int len = inv.getArgument(2);
+            copied.write(inv.<byte[]>getArgument(0), inv.<Integer>getArgument(1), len);
+            blocks.add(len);
+            return null;
+        }).when(copyIn).writeToCopy(any(byte[].class), anyInt(), anyInt());
+    }
+
+    @Test
+    void uuids_match_uuid_to_string() throws Exception {
+        var random = new SplittableRandom(1);
+        List<UUID> ids = new ArrayList<>(List.of(new UUID(0, 0), new UUID(-1, -1),
+                new UUID(Long.MIN_VALUE, Long.MAX_VALUE), new UUID(0x0123456789abcdefL, 0xfedcba9876543210L)));
+        for (int i = 0; i < 1_000; i++) {
+            ids.add(new UUID(random.nextLong(), random.nextLong()));
+            ids.add(UUID.randomUUID());
+            ids.add(UuidV7.next());
+        }
+
+        assertThat(lines(out -> ids.forEach(id -> out.uuid(id).newline())))
+                .containsExactlyElementsOf(ids.stream().map(UUID::toString).toList());
+    }
+
+    @Test
+    void dates_match_local_date_across_year_boundaries_and_leap_days() throws Exception {
+        List<LocalDate> days = new ArrayList<>();
+        // jeder Tag 1899..2101: Jahres-/Jahrhundertwechsel, 29.02.2000 (Schaltjahr), 1900/2100 ohne Schalttag
+        for (var d = LocalDate.parse("1899-12-01"); d.isBefore(LocalDate.parse("2101-03-02")); d = d.plusDays(1)) {
+            days.add(d);
+        }
+        days.addAll(List.of(LocalDate.parse("0000-01-01"), LocalDate.parse("0000-02-29"), LocalDate.parse("1600-02-29"),
+                LocalDate.parse("9999-12-31")));
+
+        assertThat(lines(out -> days.forEach(d -> out.date(d.toEpochDay()).newline())))
+                .containsExactlyElementsOf(days.stream().map(LocalDate::toString).toList());
+    }
+
+    @Test
+    void timestamps_match_offset_date_time_in_utc() throws Exception {
+        var random = new SplittableRandom(2);
+        List<Long> seconds = new ArrayList<>();
+        for (String t : List.of("1970-01-01T00:00:00Z", "1969-12-31T23:59:59Z", "1999-12-31T23:59:59Z",
+                "2000-01-01T00:00:00Z", "2000-02-28T23:59:59Z", "2000-02-29T00:00:00Z", "2000-02-29T23:59:59Z",
+                "2000-03-01T00:00:00Z", "2024-02-29T12:34:56Z", "2100-02-28T23:59:59Z", "2100-03-01T00:00:00Z",
+                "1900-02-28T23:59:59Z", "1900-03-01T00:00:00Z", "9999-12-31T23:59:59Z")) {
+            seconds.add(Instant.parse(t).getEpochSecond());
+        }
+        long min = Instant.parse("1800-01-01T00:00:00Z").getEpochSecond();
+        long max = Instant.parse("2200-01-01T00:00:00Z").getEpochSecond();
+        for (int i = 0; i < 10_000; i++) {
+            long s = random.nextLong(min, max);
+            // Paare am selben Tag und abwechselnde Tage nutzen bzw. verwerfen den Datums-Cache
+            seconds.add(s);
+            seconds.add(s + random.nextInt(3) * 3_600L);
+        }
+
+        assertThat(lines(out -> seconds.forEach(s -> out.timestamp(s).newline())))
+                .containsExactlyElementsOf(seconds.stream()
+                        .map(s -> Instant.ofEpochSecond(s).atOffset(ZoneOffset.UTC).format(TIMESTAMP)).toList());
+    }
+
+    @Test
+    void decimals_match_big_decimal_plain_string() throws Exception {
+        var random = new SplittableRandom(3);
+        List<Long> micros = new ArrayList<>(List.of(0L, 1L, -1L, 999_999L, -999_999L, 1_000_000L, -1_000_000L,
+                -500_000L, 123_456_789L, -123_456_789L, 999_999_999_999_999_999L, Long.MAX_VALUE, Long.MIN_VALUE,
+                Long.MIN_VALUE + 1));
+        for (int i = 0; i < 10_000; i++) {
+            micros.add(random.nextLong() >> random.nextInt(64));
+        }
+
+        assertThat(lines(out -> micros.forEach(m -> out.decimal(m).newline())))
+                .containsExactlyElementsOf(micros.stream().map(m -> BigDecimal.valueOf(m, 6).toPlainString()).toList());
+    }
+
+    @Test
+    void numbers_match_long_to_string() throws Exception {
+        var random = new SplittableRandom(4);
+        List<Long> values = new ArrayList<>(List.of(0L, 1L, -1L, 9L, 10L, -10L, Long.MAX_VALUE, Long.MIN_VALUE));
+        for (int i = 0; i < 10_000; i++) {
+            values.add(random.nextLong() >> random.nextInt(64));
+        }
+
+        assertThat(lines(out -> values.forEach(v -> out.number(v).newline())))
+                .containsExactlyElementsOf(values.stream().map(String::valueOf).toList());
+    }
+
+    @Test
+    void full_blocks_are_written_at_line_end_and_memory_buffers_in_blocks() throws Exception {
+        var line = "x".repeat(99);
+        var direct = new CopyBuffer(copyIn);
+        for (int i = 0; i < 2_000; i++) direct.ascii(line).newline();
+        direct.end();
+
+        // 200 000 Bytes: drei volle Blöcke (jeweils an einer Zeilengrenze) und der Rest beim Abschluss
+        assertThat(blocks).hasSize(4).allMatch(len -> len % 100 == 0);
+        assertThat(blocks.subList(0, 3)).allMatch(len -> len >= 64 * 1024);
+
+        blocks.clear();
+        copied.reset();
+        var memory = new CopyBuffer(null);
+        for (int i = 0; i < 2_000; i++) memory.ascii(line).newline();
+        var target = new CopyBuffer(copyIn);
+        target.ascii("head").newline();
+        target.write(memory);
+        target.end();
+
+        assertThat(blocks).containsExactly(5, 64 * 1024, 64 * 1024, 64 * 1024, 200_000 - 3 * 64 * 1024);
+        var lines = copied.toString(StandardCharsets.US_ASCII).lines().toList();
+        assertThat(lines).hasSize(2_001).first().isEqualTo("head");
+        assertThat(lines.subList(1, 2_001)).allMatch(line::equals);
+    }
+
+    private List<String> lines(Consumer<CopyBuffer> writer) throws Exception {
+        var out = new CopyBuffer(copyIn);
+        writer.accept(out);
+        out.end();
+        return copied.toString(StandardCharsets.US_ASCII).lines().toList();
+    }
+}
@@ -0,0 +1,95 @@
+package com.brunata.meteringdemo.services;
+
+import com.brunata.meteringdemo.common.ValidationException;
+import com.brunata.meteringdemo.services.dto.ReadingDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DailyReadingRollupTest {
+    /**
+     * Tests für den Tages-Rollup:
+     * - Messwerte werden je Gerät und UTC-Tag zu first/last/min/max/count verdichtet (ein Upsert je Gerät/Tag)
+     * - Neuaufbau läuft monatsweise: Sperre, Löschen, Neuberechnung je Monat
+     */
+
+    private JdbcTemplate jdbc;
+    private DailyReadingRollup rollup;
+
+    private final UUID device = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+    @BeforeEach
+    void setUp() {
+        jdbc = mock(JdbcTemplate.class);
+        rollup = new DailyReadingRollup(jdbc, mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void aggregates_per_device_and_utc_day() throws SQLException {
+        rollup.add(List.of(
+                dto("2025-09-12T23:30:00Z", "110.0"),
+                dto("2025-09-12T08:00:00Z", "100.0"),
+                dto("2025-09-12T12:00:00Z", "105.0"),
+                dto("2025-09-13T00:15:00Z", "111.0")));
+
+        var rows = ArgumentCaptor.forClass(Collection.class);
+        var setter = ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+        verify(jdbc).batchUpdate(eq(DailyReadingRollup.UPSERT_SQL), rows.capture(), anyInt(), setter.capture());
+        assertThat(rows.getValue()).hasSize(2);
+
+        var ps = mock(PreparedStatement.class);
+        setter.getValue().setValues(ps, new ArrayList<>(rows.getValue()).get(0));
+        verify(ps).setObject(2, LocalDate.parse("2025-09-12"));
+        verify(ps).setTimestamp(3, Timestamp.from(Instant.parse("2025-09-12T08:00:00Z")));
+        verify(ps).setBigDecimal(4, new BigDecimal("100.000000"));
+        verify(ps).setTimestamp(5, Timestamp.from(Instant.parse("2025-09-12T23:30:00Z")));
+        verify(ps).setBigDecimal(6, new BigDecimal("110.000000"));
+        verify(ps).setBigDecimal(7, new BigDecimal("100.000000"));
+        verify(ps).setBigDecimal(8, new BigDecimal("110.000000"));
+        verify(ps).setLong(9, 3L);
+    }
+
+    @Test
+    void rebuilds_month_by_month() {
+        when(jdbc.update(anyString())).thenReturn(10);
+
+        var report = rollup.rebuild(LocalDate.parse("2025-01-20"), LocalDate.parse("2025-03-05"));
+
+        assertThat(report.deviceDays()).isEqualTo(30);
+        InOrder order = inOrder(jdbc);
+        order.verify(jdbc).execute(contains("lock table device_daily_reading"));
+        order.verify(jdbc).update(startsWith("delete"), eq(LocalDate.parse("2025-01-20")), eq(LocalDate.parse("2025-01-31")));
+        order.verify(jdbc).update(contains("reading_time >= '2025-01-20T00:00:00Z' and reading_time < '2025-02-01T00:00:00Z'"));
+        order.verify(jdbc).update(startsWith("delete"), eq(LocalDate.parse("2025-02-01")), eq(LocalDate.parse("2025-02-28")));
+        order.verify(jdbc).update(startsWith("delete"), eq(LocalDate.parse("2025-03-01")), eq(LocalDate.parse("2025-03-05")));
+        order.verify(jdbc).update(contains("reading_time < '2025-03-06T00:00:00Z'"));
+
+        assertThatThrownBy(() -> rollup.rebuild(LocalDate.parse("2025-02-01"), LocalDate.parse("2025-01-01")))
+                .isInstanceOf(ValidationException.class);
+    }
+
+    private ReadingDto dto(String time, String value) {
+        return new ReadingDto(device, Instant.parse(time), new BigDecimal(value), "kWh", "LoRa");
+    }
+}
@@ -0,0 +1,68 @@
+package com.brunata.meteringdemo.services;
+
+import com.brunata.meteringdemo.services.ingest.DeviceLastSeenTracker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class DeviceLastSeenTrackerTest {
+    /**
+     * Tests für den koaleszierenden lastSeenAt-Tracker:
+     * - je Gerät wird nur der maximale Zeitpunkt geschrieben (ein Statement für alle Geräte)
+     * - fehlgeschlagene Flushes werden für den nächsten Lauf zurückgelegt
+     */
+
+    private JdbcTemplate jdbc;
+    private DeviceLastSeenTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = mock(JdbcTemplate.class);
+        tracker = new DeviceLastSeenTracker(jdbc);
+    }
+
+    @Test
+    void coalesces_to_max_per_device_in_one_statement() {
+        var a = UUID.randomUUID();
+        var b = UUID.randomUUID();
+        tracker.touch(a, Instant.parse("2025-09-12T10:00:00Z"));
+        tracker.touch(a, Instant.parse("2025-09-12T12:00:00Z"));
+        tracker.touch(a, Instant.parse("2025-09-12T11:00:00Z"));
+        tracker.touch(b, Instant.parse("2025-09-12T09:00:00Z"));
+        when(jdbc.update(anyString(), any(Object[].class))).thenReturn(2);
+
+        assertThat(tracker.flush()).isEqualTo(2);
+
+        var args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbc, times(1)).update(anyString(), args.capture());
+        assertThat(args.getValue()).hasSize(4);
+        assertThat(args.getValue()).contains(Instant.parse("2025-09-12T12:00:00Z").atOffset(ZoneOffset.UTC));
+        assertThat(args.getValue()).doesNotContain(Instant.parse("2025-09-12T10:00:00Z").atOffset(ZoneOffset.UTC));
+        assertThat(tracker.pendingCount()).isZero();
+    }
+
+    @Test
+    void requeues_on_failure() {
+        tracker.touch(UUID.randomUUID(), Instant.parse("2025-09-12T10:00:00Z"));
+        when(jdbc.update(anyString(), any(Object[].class))).thenThrow(new RuntimeException("db down"));
+
+        assertThat(tracker.flush()).isZero();
+        assertThat(tracker.pendingCount()).isEqualTo(1);
+    }
+
+    @Test
+    void no_statement_when_nothing_pending() {
+        assertThat(tracker.flush()).isZero();
+        verifyNoInteractions(jdbc);
+    }
+}
@@ -0,0 +1,119 @@
+package com.brunata.meteringdemo.services;
+
+import com.brunata.meteringdemo.services.config.ErpSyncProperties;
+import com.brunata.meteringdemo.services.config.IntegrationProperties;
+import com.brunata.meteringdemo.services.integration.CustomerSyncStore;
+import com.brunata.meteringdemo.services.integration.CustomerSyncStore.Validators;
+import com.brunata.meteringdemo.services.integration.ErpCustomer;
+import com.brunata.meteringdemo.services.integration.ErpCustomerSync;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ErpCustomerSyncTest {
+    /**
+     * Tests für den inkrementellen ERP-Kundensync:
+     * - NDJSON-Stream wird in Chunks der Batch-Größe geschrieben, ungültige Zeilen übersprungen, ETag gespeichert
+     * - gespeicherte Validatoren werden als If-None-Match/If-Modified-Since gesendet; 304 schreibt nichts
+     * - bricht der Stream ab, bleiben die alten Validatoren (nächster Lauf lädt vollständig neu)
+     */
+
+    private static final String NDJSON = """
+            {"customerNo": "C1", "name": "Alpha", "city": "Hamburg", "updatedAt": "2026-10-01T00:00:00Z"}
+            {"customerNo": "C2", "name": "Beta"}
+            {"customerNo": "", "name": "ohne Nummer"}
+            {"customerNo": "C3", "name": "Gamma", "email": "g@example.org"}
+            {"customerNo": "C4", "name": "Delta"}
+            """;
+
+    private CustomerSyncStore store;
+    private SimpleMeterRegistry registry;
+    private List<ClientRequest> requests;
+
+    @BeforeEach
+    void setUp() {
+        store = mock(CustomerSyncStore.class);
+        registry = new SimpleMeterRegistry();
+        requests = new ArrayList<>();
+        when(store.upsert(anyList())).thenAnswer(inv -> ((List<?>) inv.getArgument(0)).size() - 1);
+    }
+
+    private ErpCustomerSync sync(HttpStatus status, String body) {
+        var builder = WebClient.builder().exchangeFunction(req -> {
+            requests.add(req);
+            return Mono.just(ClientResponse.create(status)
+                    .header(HttpHeaders.CONTENT_TYPE, "application/x-ndjson")
+                    .header(HttpHeaders.ETAG, "\"v2\"")
+                    .header(HttpHeaders.LAST_MODIFIED, "Sat, 17 Oct 2026 10:00:00 GMT")
+                    .body(body)
+                    .build());
+        });
+        var integration = new IntegrationProperties(true, null, "http://erp", 24, 200, Duration.ofMinutes(4), false);
+        return new ErpCustomerSync(builder, integration, new ErpSyncProperties(2, Duration.ofSeconds(5),
+                Duration.ofSeconds(5)), store, registry);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void streamsChunksAndStoresValidators() {
+        when(store.validators(any())).thenReturn(new Validators(null, null));
+
+        var result = sync(HttpStatus.OK, NDJSON).sync();
+
+        var chunks = ArgumentCaptor.forClass(List.class);
+        verify(store, times(3)).upsert(chunks.capture());
+        assertThat(chunks.getAllValues()).extracting(List::size).containsExactly(2, 1, 1);
+        assertThat(((List<ErpCustomer>) chunks.getAllValues().get(0)).get(0).city()).isEqualTo("Hamburg");
+        assertThat(result.received()).isEqualTo(5);
+        assertThat(result.skipped()).isEqualTo(1);
+        assertThat(result.changed()).isEqualTo(1); // Stub: je Chunk ein Kunde weniger geändert
+        verify(store).saveValidators(eq("erp-customers"),
+                eq(new Validators("\"v2\"", "Sat, 17 Oct 2026 10:00:00 GMT")));
+        assertThat(requests.get(0).headers().getIfNoneMatch()).isEmpty();
+        assertThat(registry.counter("erp.sync.customers", "outcome", "unchanged").count()).isEqualTo(3);
+    }
+
+    @Test
+    void notModifiedCostsOneRoundTrip() {
+        when(store.validators(any())).thenReturn(new Validators("\"v2\"", "Sat, 17 Oct 2026 10:00:00 GMT"));
+
+        var result = sync(HttpStatus.NOT_MODIFIED, "").sync();
+
+        assertThat(result.notModified()).isTrue();
+        assertThat(requests).singleElement().satisfies(r -> {
+            assertThat(r.headers().getIfNoneMatch()).containsExactly("\"v2\"");
+            assertThat(r.headers().getFirst(HttpHeaders.IF_MODIFIED_SINCE)).isEqualTo("Sat, 17 Oct 2026 10:00:00 GMT");
+        });
+        verify(store, never()).upsert(anyList());
+        verify(store, never()).saveValidators(any(), any());
+        assertThat(registry.counter("erp.sync.runs", "result", "not_modified").count()).isEqualTo(1);
+    }
+
+    @Test
+    void brokenStreamKeepsOldValidators() {
+        when(store.validators(any())).thenReturn(new Validators(null, null));
+
+        assertThatThrownBy(() -> sync(HttpStatus.OK, NDJSON + "{kaputt\n").sync()).isInstanceOf(RuntimeException.class);
+
+        verify(store, never()).saveValidators(any(), any());
+        assertThat(registry.counter("erp.sync.runs", "result", "failed").count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,98 @@
+package com.brunata.meteringdemo.services;
+
+import com.brunata.meteringdemo.services.dto.ReadingDto;
+import com.brunata.meteringdemo.services.ingest.IngestMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class IngestMetricsTest {
+    /**
+     * Tests für die Ingest-Metriken:
+     * - Quellen werden normalisiert; nach der Obergrenze zählen neue Quellen als `other` (begrenzte Kardinalität)
+     * - Ablehnungen je Regel aus den Validator-Meldungen
+     * - Ingest-Lag folgt dem neuesten gespeicherten Messzeitpunkt
+     * - Transaktionsdauer wird erst bei Transaktionsende mit dem Ergebnis als Tag erfasst
+     */
+
+    private SimpleMeterRegistry registry;
+    private IngestMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics = new IngestMetrics(registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void sourceTagsAreNormalizedAndBounded() {
+        metrics.storedAfterCommit(List.of(reading("LoRa", "2025-09-12T10:00:00Z"), reading("LoRa", "2025-09-12T10:15:00Z"),
+                reading(" Gateway 7/ä ", "2025-09-12T10:00:00Z"), reading("", "2025-09-12T10:00:00Z")));
+
+        assertThat(registry.get("ingest.readings").tag("source", "lora").counter().count()).isEqualTo(2);
+        assertThat(registry.get("ingest.readings").tag("source", "gateway_7__").counter().count()).isEqualTo(1);
+        assertThat(registry.get("ingest.readings").tag("source", "unknown").counter().count()).isEqualTo(1);
+
+        IntStream.range(0, 100).forEach(i -> metrics.storedAfterCommit(List.of(reading("src-" + i, "2025-09-12T11:00:00Z"))));
+
+        assertThat(registry.find("ingest.readings").counters()).hasSizeLessThanOrEqualTo(21);
+        assertThat(registry.get("ingest.readings").tag("source", "other").counter().count()).isGreaterThan(80);
+    }
+
+    @Test
+    void rejectionsAreCountedPerRule() {
+        metrics.rejected("Monotonicity violated for device ABC-1");
+        metrics.rejected("Monotonicity violated for device ABC-2");
+        metrics.rejected("Unknown device: " + UUID.randomUUID());
+
+        assertThat(registry.get("ingest.rejected").tag("rule", "monotonicity").counter().count()).isEqualTo(2);
+        assertThat(registry.get("ingest.rejected").tag("rule", "unknown_device").counter().count()).isEqualTo(1);
+        assertThat(registry.find("ingest.rejected").counters()).hasSize(2);
+    }
+
+    @Test
+    void lagFollowsNewestStoredReading() {
+        assertThat(registry.get("ingest.lag").gauge().value()).isNaN();
+
+        var newest = Instant.now().minus(Duration.ofMinutes(10));
+        metrics.storedAfterCommit(List.of(reading("lora", newest.toString()), reading("lora", "2025-01-01T00:00:00Z")));
+
+        assertThat(registry.get("ingest.lag").gauge().value()).isCloseTo(600, within(5.0));
+    }
+
+    @Test
+    void transactionDurationIsRecordedAtCompletion() {
+        TransactionSynchronizationManager.initSynchronization();
+        metrics.timeTransaction(IngestMetrics.Operation.BATCH);
+        assertThat(registry.find("ingest.batch").timers()).isEmpty();
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertThat(registry.get("ingest.batch").tag("outcome", "rolled_back").timer().count()).isEqualTo(1);
+    }
+
+    private static ReadingDto reading(String source, String time) {
+        return new ReadingDto(UUID.randomUUID(), Instant.parse(time), new BigDecimal("1.0"), "kWh", source);
+    }
+}
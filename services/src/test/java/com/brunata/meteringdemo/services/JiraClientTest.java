@@ -0,0 +1,188 @@
+package com.brunata.meteringdemo.services;
+
+import com.brunata.meteringdemo.domain.Device;
+import com.brunata.meteringdemo.services.config.IntegrationProperties;
+import com.brunata.meteringdemo.services.config.JiraClientProperties;
+import com.brunata.meteringdemo.services.integration.AdaptiveLimit;
+import com.brunata.meteringdemo.services.integration.CircuitBreaker;
+import com.brunata.meteringdemo.services.integration.JiraClient;
+import com.brunata.meteringdemo.services.integration.OfflineReportStore.OfflineReport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JiraClientTest {
+    /**
+     * Tests für den Jira-Client:
+     * - AIMD: Limit wächst bei schnellen Erfolgen um ~1 je Limit Requests, halbiert sich bei Fehlern/Latenz, bleibt in den Grenzen
+     * - Circuit Breaker: öffnet nach aufeinanderfolgenden Fehlern, lässt nach der Wartezeit genau eine Probe zu
+     * - Bulk-Anlage: Antwort-Keys werden den Geräten zugeordnet, abgelehnte Elemente zählen als fehlgeschlagen
+     * - bei offenem Breaker bleibt Arbeit als `unsent` liegen (statt verworfen zu werden); Metriken spiegeln den Zustand
+     * - langsame Antworten werden abgewartet; bei Abbruch werden offene Requests storniert, bereits eingetroffene
+     *   Erfolge aber noch ausgewertet (kein verwaistes Issue)
+     */
+
+    private SimpleMeterRegistry registry;
+    private AtomicInteger calls;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        calls = new AtomicInteger();
+    }
+
+    private JiraClient client(HttpStatus status, String body, int batchSize, int failureThreshold) {
+        return client(req -> {
+            calls.incrementAndGet();
+            return Mono.just(response(status, body));
+        }, batchSize, failureThreshold);
+    }
+
+    private static ClientResponse response(HttpStatus status, String body) {
+        return ClientResponse.create(status).header(HttpHeaders.CONTENT_TYPE, "application/json").body(body).build();
+    }
+
+    private JiraClient client(ExchangeFunction exchange, int batchSize, int failureThreshold) {
+        var builder = WebClient.builder().exchangeFunction(exchange);
+        var integration = new IntegrationProperties(true, "http://jira", null, 24, 200, Duration.ofMinutes(4), false);
+        var props = new JiraClientProperties(batchSize, 2, 1, 8, Duration.ofSeconds(1), Duration.ofSeconds(5), 2,
+                failureThreshold, Duration.ofMinutes(1));
+        return new JiraClient(builder, integration, props, registry);
+    }
+
+    private static List<Device> devices(int n) {
+        return IntStream.range(0, n).mapToObj(i -> {
+            var d = new Device();
+            d.setId(UUID.randomUUID());
+            d.setSerialNo("D" + i);
+            return d;
+        }).toList();
+    }
+
+    @Test
+    void aimdIncreasesAdditivelyAndHalvesOnFailure() {
+        var limit = new AdaptiveLimit(4, 1, 6, Duration.ofMillis(100).toNanos());
+        for (int i = 0; i < 4; i++) limit.onSuccess(Duration.ofMillis(10).toNanos());
+        assertThat(limit.limit()).isEqualTo(4); // 4 + 4 * ~1/4 knapp unter 5
+        limit.onSuccess(Duration.ofMillis(10).toNanos());
+        assertThat(limit.limit()).isEqualTo(5);
+        limit.onFailure();
+        assertThat(limit.limit()).isEqualTo(2);
+        limit.onSuccess(Duration.ofMillis(500).toNanos()); // über dem Latenzziel
+        assertThat(limit.limit()).isEqualTo(1);
+        limit.onFailure();
+        assertThat(limit.limit()).isEqualTo(1);
+        for (int i = 0; i < 200; i++) limit.onSuccess(0);
+        assertThat(limit.limit()).isEqualTo(6);
+    }
+
+    @Test
+    void circuitBreakerOpensAndProbesOnce() throws InterruptedException {
+        var transitions = new ArrayList<CircuitBreaker.State>();
+        var breaker = new CircuitBreaker(2, Duration.ofMillis(20), transitions::add);
+        breaker.onFailure();
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onFailure();
+        assertThat(breaker.tryAcquire()).isFalse();
+        Thread.sleep(30);
+        assertThat(breaker.tryAcquire()).isTrue();  // Probe
+        assertThat(breaker.tryAcquire()).isFalse(); // nur eine
+        breaker.onFailure();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        Thread.sleep(30);
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onSuccess();
+        assertThat(transitions).containsExactly(CircuitBreaker.State.OPEN, CircuitBreaker.State.HALF_OPEN,
+                CircuitBreaker.State.OPEN, CircuitBreaker.State.HALF_OPEN, CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void bulkCreateMapsKeysAndSkipsRejectedElements() {
+        var body = """
+                {"issues": [{"key": "OPS-1"}, {"key": "OPS-2"}],
+                 "errors": [{"failedElementNumber": 1, "elementErrors": {"errors": {"summary": "invalid"}}}]}
+                """;
+        var outcome = client(HttpStatus.CREATED, body, 3, 5)
+                .createIssues(devices(3), Instant.now().plusSeconds(30));
+
+        assertThat(calls).hasValue(1);
+        assertThat(outcome.done()).extracting(OfflineReport::serialNo).containsExactly("D0", "D2");
+        assertThat(outcome.done()).extracting(OfflineReport::issueKey).containsExactly("OPS-1", "OPS-2");
+        assertThat(outcome.failed()).isEqualTo(1);
+        assertThat(outcome.complete()).isTrue();
+        assertThat(registry.counter("jira.client.items", "operation", "create", "outcome", "done").count()).isEqualTo(2);
+    }
+
+    @Test
+    void openCircuitKeepsUnsentWork() {
+        var client = client(HttpStatus.SERVICE_UNAVAILABLE, "{}", 1, 3);
+
+        var outcome = client.createIssues(devices(10), Instant.now().plusSeconds(30));
+
+        // 3 Fehlschläge öffnen den Breaker; kein Gerät geht verloren
+        assertThat(calls).hasValue(3);
+        assertThat(outcome.done()).isEmpty();
+        assertThat(outcome.complete()).isFalse();
+        assertThat(outcome.failed() + outcome.unsent()).isEqualTo(10);
+        assertThat(outcome.unsent()).isEqualTo(10);
+        assertThat(client.circuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(registry.get("jira.client.circuit.state").gauge().value()).isEqualTo(2);
+        assertThat(registry.get("jira.client.concurrency.limit").gauge().value()).isEqualTo(1);
+
+        // weiterer Lauf bei offenem Breaker: kein Request, alles bleibt liegen
+        var next = client.createIssues(devices(2), Instant.now().plusSeconds(30));
+        assertThat(calls).hasValue(3);
+        assertThat(next.unsent()).isEqualTo(2);
+    }
+
+    @Test
+    void slowResponsesAreAwaitedBeforeReturning() {
+        var client = client(req -> {
+            calls.incrementAndGet();
+            return Mono.delay(Duration.ofMillis(150)).thenReturn(response(HttpStatus.CREATED, "{\"issues\": [{\"key\": \"OPS-1\"}]}"));
+        }, 1, 5);
+
+        var outcome = client.createIssues(devices(5), Instant.now().plusSeconds(30));
+
+        assertThat(outcome.done()).hasSize(5);
+        assertThat(outcome.unsent()).isZero();
+        assertThat(registry.get("jira.client.inflight").gauge().value()).isZero();
+    }
+
+    @Test
+    void interruptCancelsOpenRequestsButKeepsArrivedSuccesses() throws InterruptedException {
+        var client = client(req -> {
+            var ok = Mono.just(response(HttpStatus.CREATED, "{\"issues\": [{\"key\": \"OPS-" + calls.get() + "\"}]}"));
+            // erster Request antwortet sofort, der zweite erst nach dem Abbruch
+            return calls.incrementAndGet() == 1 ? ok : ok.delayElement(Duration.ofMillis(300));
+        }, 1, 5);
+
+        Thread.currentThread().interrupt();
+        var outcome = client.createIssues(devices(4), Instant.now().plusSeconds(30));
+        assertThat(Thread.interrupted()).isTrue();
+
+        assertThat(calls).hasValue(2); // initiale Parallelität 2, danach nichts mehr versendet
+        assertThat(outcome.done()).extracting(OfflineReport::serialNo).containsExactly("D0");
+        assertThat(outcome.unsent()).isEqualTo(3);
+        assertThat(registry.get("jira.client.inflight").gauge().value()).isZero();
+
+        Thread.sleep(400); // die stornierte Antwort darf nicht mehr ankommen
+        assertThat(registry.counter("jira.client.items", "operation", "create", "outcome", "done").count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,170 @@
+package com.brunata.meteringdemo.services;
+
+import com.brunata.meteringdemo.services.config.IngestProperties;
+import com.brunata.meteringdemo.services.dto.IngestResult;
+import com.brunata.meteringdemo.services.dto.ReadingDto;
+import com.brunata.meteringdemo.services.ingest.BoundedLineReader;
+import com.brunata.meteringdemo.services.ingest.NdjsonReadingIngestor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class NdjsonReadingIngestorTest {
+    /**
+     * Tests für den NDJSON-Streaming-Ingest:
+     * - Zeilen werden in Chunks fester Größe persistiert
+     * - JSON-/Constraint-Fehler und Ablehnungen des Batch-Services erscheinen mit Zeilennummer in der Antwort
+     * - zu lange Zeilen (auch ohne abschließenden Zeilenumbruch) werden abgelehnt und übersprungen, ohne sie zu
+     *   puffern; die folgenden Zeilen werden normal verarbeitet
+     * - Werte außerhalb der Spaltentypen (`numeric(18,6)`, `varchar(16)`) werden schon bei der Validierung abgelehnt
+     */
+
+    private ReadingBatchService batchService;
+    private NdjsonReadingIngestor ingestor;
+
+    @BeforeEach
+    void setUp() {
+        batchService = mock(ReadingBatchService.class);
+        var props = new IngestProperties(
+                new IngestProperties.WatermarkCache(true, 1000, Duration.ofMinutes(10), Duration.ofSeconds(30)),
+                new IngestProperties.Ndjson(2, 200), null);
+        var mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        ingestor = new NdjsonReadingIngestor(batchService, mapper,
+                Validation.buildDefaultValidatorFactory().getValidator(), props);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void streams_line_results_and_persists_in_chunks() throws Exception {
+        // 2. Zeile im ersten Chunk wird vom Batch-Service abgelehnt (Index 1 im übergebenen Chunk)
+        when(batchService.ingest(anyList())).thenAnswer(inv -> {
+            List<ReadingDto> rows = inv.getArgument(0);
+            if (rows.size() == 2) {
+                return new IngestResult(2, 1, 1, List.of(new IngestResult.ItemError(1, "Monotonicity violated for device X")));
+            }
+            return new IngestResult(rows.size(), rows.size(), 0, List.of());
+        });
+
+        var body = String.join("\n",
+                line("2025-09-12T10:00:00Z", "100.0"),
+                line("2025-09-12T11:00:00Z", "99.0"),
+                "",
+                "{not json",
+                line("2025-09-12T12:00:00Z", "-1"),
+                line("2025-09-12T13:00:00Z", "101.0"));
+
+        var out = new ByteArrayOutputStream();
+        var summary = ingestor.ingest(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out);
+
+        assertThat(summary.received()).isEqualTo(5);
+        assertThat(summary.accepted()).isEqualTo(2);
+        assertThat(summary.rejected()).isEqualTo(3);
+        verify(batchService, times(2)).ingest(anyList());
+
+        var lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).hasSize(6);
+        assertThat(lines.get(0)).contains("\"line\":1").contains("ACCEPTED");
+        assertThat(lines.get(1)).contains("\"line\":2").contains("Monotonicity");
+        assertThat(lines.get(2)).contains("\"line\":4").contains("Malformed JSON");
+        assertThat(lines.get(3)).contains("\"line\":5").contains("value");
+        assertThat(lines.get(4)).contains("\"line\":6").contains("ACCEPTED");
+        assertThat(lines.get(5)).contains("\"received\":5");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void overlong_lines_are_rejected_and_skipped() throws Exception {
+        when(batchService.ingest(anyList())).thenAnswer(inv -> {
+            List<ReadingDto> rows = inv.getArgument(0);
+            return new IngestResult(rows.size(), rows.size(), 0, List.of());
+        });
+        var huge = "{\"deviceId\":\"" + "x".repeat(1_000_000) + "\"}";
+        var body = line("2025-09-12T10:00:00Z", "100.0") + "\r\n"
+                + huge + "\n"
+                + line("2025-09-12T11:00:00Z", "101.0") + "\n"
+                + huge; // letzte Zeile ohne Zeilenumbruch
+
+        var out = new ByteArrayOutputStream();
+        var summary = ingestor.ingest(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out);
+
+        assertThat(summary.received()).isEqualTo(4);
+        assertThat(summary.accepted()).isEqualTo(2);
+        var lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines.get(0)).contains("\"line\":1").contains("ACCEPTED");
+        assertThat(lines.get(1)).contains("\"line\":2").contains("Line exceeds 200 characters");
+        assertThat(lines.get(2)).contains("\"line\":3").contains("ACCEPTED");
+        assertThat(lines.get(3)).contains("\"line\":4").contains("Line exceeds 200 characters");
+        // Ausgabe enthält die Zeile nicht
+        assertThat(out.size()).isLessThan(2_000);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void readings_exceeding_the_column_types_are_rejected_before_persisting() throws Exception {
+        when(batchService.ingest(anyList())).thenAnswer(inv -> {
+            List<ReadingDto> rows = inv.getArgument(0);
+            return new IngestResult(rows.size(), rows.size(), 0, List.of());
+        });
+        var body = String.join("\n",
+                line("2025-09-12T10:00:00Z", "999999999999.999999"),
+                line("2025-09-12T11:00:00Z", "1000000000000"),
+                line("2025-09-12T12:00:00Z", "1.0000001"),
+                line("2025-09-12T13:00:00Z", "1").replace("\"kWh\"", "\"kilowatt-hours-xx\""),
+                line("2025-09-12T14:00:00Z", "1").replace("\"LoRa\"", "\"wireless-m-bus-xx\""));
+
+        var out = new ByteArrayOutputStream();
+        var summary = ingestor.ingest(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out);
+
+        assertThat(summary.received()).isEqualTo(5);
+        assertThat(summary.accepted()).isEqualTo(1);
+        var lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines.get(0)).contains("\"line\":1").contains("ACCEPTED");
+        assertThat(lines.get(1)).contains("\"line\":2").contains("value");
+        assertThat(lines.get(2)).contains("\"line\":3").contains("value");
+        assertThat(lines.get(3)).contains("\"line\":4").contains("unit");
+        assertThat(lines.get(4)).contains("\"line\":5").contains("source");
+        verify(batchService).ingest(argThat(rows -> rows.size() == 1));
+    }
+
+    @Test
+    void bounded_reader_matches_line_semantics_at_the_limit() throws Exception {
+        var exact = "a".repeat(10);
+        // `\r` als letztes Zeichen des ersten Lesepuffers (8192 Zeichen), `\n` im nächsten
+        var body = "d".repeat(8_180) + "\n" + exact + "\r\n"
+                + exact + "\n" + exact + "b\n\n" + exact + "\r\n" + "c".repeat(8_185) + "\n" + exact + "\r";
+        var reader = new BoundedLineReader(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), 10);
+
+        assertThat(reader.readLine()).isEmpty();
+        assertThat(reader.overlong()).isTrue();
+        assertThat(reader.readLine()).isEqualTo(exact);
+        assertThat(reader.overlong()).isFalse();
+        assertThat(reader.readLine()).isEqualTo(exact);
+        assertThat(reader.overlong()).isFalse();
+        assertThat(reader.readLine()).isEmpty();
+        assertThat(reader.overlong()).isTrue();
+        assertThat(reader.readLine()).isEmpty();
+        assertThat(reader.overlong()).isFalse();
+        assertThat(reader.readLine()).isEqualTo(exact);
+        assertThat(reader.readLine()).isEmpty();
+        assertThat(reader.overlong()).isTrue();
+        assertThat(reader.readLine()).isEqualTo(exact);
+        assertThat(reader.readLine()).isNull();
+    }
+
+    private static String line(String time, String value) {
+        return "{\"deviceId\":\"62eb5088-15b6-4128-b7fe-44690e42099d\",\"readingTime\":\"" + time
+                + "\",\"value\":" + value + ",\"unit\":\"kWh\",\"source\":\"LoRa\"}";
+    }
+}
@@ -0,0 +1,153 @@
+package com.brunata.meteringdemo.services;
+
+import com.brunata.meteringdemo.domain.Device;
+import com.brunata.meteringdemo.persistence.DeviceRepository;
+import com.brunata.meteringdemo.services.config.IntegrationProperties;
+import com.brunata.meteringdemo.services.config.JiraClientProperties;
+import com.brunata.meteringdemo.services.integration.ErpCustomerSync;
+import com.brunata.meteringdemo.services.integration.JiraClient;
+import com.brunata.meteringdemo.services.integration.OfflineReportStore;
+import com.brunata.meteringdemo.services.integration.OfflineReportStore.OfflineReport;
+import com.brunata.meteringdemo.services.integration.SyncService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class OfflineDeviceReportTest {
+    /**
+     * Tests für den Offline-Report an Jira:
+     * - nur Geräte ohne offene Meldung erhalten ein Issue (Übergang online -> offline), Issue-Key wird gespeichert
+     * - Keyset-Seiten ab der gespeicherten Position; nach der letzten (unvollständigen) Seite beginnt sie von vorn
+     * - fehlgeschlagene Meldungen werden nicht vermerkt, halten die Position aber nicht auf
+     * - wieder erreichbare Geräte verlieren ihre Meldung; mit `jira-close-on-recovery` erst nach dem Schließen
+     */
+
+    private DeviceRepository deviceRepo;
+    private OfflineReportStore store;
+    private List<ClientRequest> requests;
+
+    @BeforeEach
+    void setUp() {
+        deviceRepo = mock(DeviceRepository.class);
+        store = mock(OfflineReportStore.class);
+        requests = Collections.synchronizedList(new ArrayList<>());
+        when(store.cursor(any())).thenReturn(OfflineReportStore.START);
+        when(store.reported(any())).thenReturn(Set.of());
+        when(store.recovered(any(), any(), anyInt())).thenReturn(List.of());
+    }
+
+    private SyncService service(boolean closeOnRecovery, HttpStatus status) {
+        var builder = WebClient.builder().exchangeFunction(req -> {
+            int n = requests.size();
+            requests.add(req);
+            // Bulk-Antwort wie Jira: Keys in Reihenfolge der angelegten Issues
+            return Mono.just(ClientResponse.create(status)
+                    .header(HttpHeaders.CONTENT_TYPE, "application/json")
+                    .body("{\"issues\": [{\"key\": \"OPS-" + n + "1\"}, {\"key\": \"OPS-" + n + "2\"}], \"errors\": []}")
+                    .build());
+        });
+        var props = new IntegrationProperties(true, "http://jira", "http://erp", 24, 2, Duration.ofSeconds(30),
+                closeOnRecovery);
+        var registry = new SimpleMeterRegistry();
+        var jira = new JiraClient(builder, props, new JiraClientProperties(50, 4, 1, 8, Duration.ofSeconds(1),
+                Duration.ofSeconds(5), 1, 5, Duration.ofSeconds(60)), registry);
+        return new SyncService(deviceRepo, store, jira, mock(ErpCustomerSync.class), props);
+    }
+
+    private static Device device(String serial) {
+        var d = new Device();
+        d.setId(UUID.randomUUID());
+        d.setSerialNo(serial);
+        d.setLastSeenAt(Instant.parse("2026-01-01T00:00:00Z"));
+        return d;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<OfflineReport> markedReports() {
+        var captor = ArgumentCaptor.forClass(List.class);
+        verify(store, atLeastOnce()).markReported(captor.capture());
+        var all = new ArrayList<OfflineReport>();
+        captor.getAllValues().forEach(l -> all.addAll((List<OfflineReport>) l));
+        return all;
+    }
+
+    @Test
+    void reportsOnlyNewOfflineDevicesAndWrapsCursor() {
+        var a = device("A");
+        var b = device("B");
+        var c = device("C");
+        when(deviceRepo.findOfflineAfter(eq(OfflineReportStore.START), any(), any(Pageable.class)))
+                .thenReturn(List.of(a, b));
+        when(deviceRepo.findOfflineAfter(eq(b.getId()), any(), any(Pageable.class))).thenReturn(List.of(c));
+        when(store.reported(List.of(a.getId(), b.getId()))).thenReturn(Set.of(a.getId()));
+
+        service(false, HttpStatus.CREATED).reportOfflineDevicesToJira();
+
+        // eine Bulk-Anlage je Seite
+        assertThat(requests).hasSize(2).allSatisfy(r -> assertThat(r.url().getPath()).isEqualTo("/mock/issue/bulk"));
+        assertThat(markedReports()).extracting(OfflineReport::serialNo).containsExactlyInAnyOrder("B", "C");
+        assertThat(markedReports()).extracting(OfflineReport::issueKey).containsExactlyInAnyOrder("OPS-01", "OPS-11");
+        var order = inOrder(store);
+        order.verify(store).saveCursor("jira-offline", b.getId());
+        order.verify(store).saveCursor("jira-offline", OfflineReportStore.START);
+    }
+
+    @Test
+    void failedReportsAreRetriedLaterWithoutBlockingTheCursor() {
+        var a = device("A");
+        when(deviceRepo.findOfflineAfter(eq(OfflineReportStore.START), any(), any(Pageable.class)))
+                .thenReturn(List.of(a));
+
+        service(false, HttpStatus.BAD_REQUEST).reportOfflineDevicesToJira();
+
+        assertThat(markedReports()).isEmpty();
+        verify(store).saveCursor("jira-offline", OfflineReportStore.START);
+    }
+
+    @Test
+    void recoveredDevicesAreResolved() {
+        var id = UUID.randomUUID();
+        when(store.recovered(any(), eq(OfflineReportStore.START), anyInt()))
+                .thenReturn(List.of(new OfflineReport(id, "A", "OPS-7", Instant.now())));
+        when(deviceRepo.findOfflineAfter(any(), any(), any(Pageable.class))).thenReturn(List.of());
+
+        service(true, HttpStatus.OK).reportOfflineDevicesToJira();
+
+        assertThat(requests).singleElement()
+                .satisfies(r -> assertThat(r.url().getPath()).isEqualTo("/mock/issue/OPS-7/close"));
+        verify(store).resolved(List.of(id));
+    }
+
+    @Test
+    void recoveredDevicesStayReportedWhenCloseFails() {
+        when(store.recovered(any(), eq(OfflineReportStore.START), anyInt()))
+                .thenReturn(List.of(new OfflineReport(UUID.randomUUID(), "A", "OPS-7", Instant.now())));
+        when(deviceRepo.findOfflineAfter(any(), any(), any(Pageable.class))).thenReturn(List.of());
+
+        service(true, HttpStatus.BAD_REQUEST).reportOfflineDevicesToJira();
+
+        verify(store).resolved(List.of());
+    }
+}
@@ -0,0 +1,136 @@
+package com.brunata.meteringdemo.services;
+
+import com.brunata.meteringdemo.services.config.QueryStatsProperties;
+import com.brunata.meteringdemo.services.dto.QueryStatsReport;
+import com.brunata.meteringdemo.services.jdbc.QueryStatistics;
+import com.brunata.meteringdemo.services.jdbc.QueryStatsDataSource;
+import com.brunata.meteringdemo.services.jdbc.SqlFingerprint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class QueryStatisticsTest {
+    /**
+     * Tests für die SQL-Statement-Statistik:
+     * - Fingerprint normalisiert Literale, Kommentare, IN-Listen und mehrzeilige VALUES; Bezeichner bleiben erhalten
+     * - Prepared Statements über die instrumentierte DataSource: Anzahl, gelesene Zeilen (beim Schließen) und Fehler
+     * - Batch-Update-Counts werden summiert, Proxies sind identitätsbasiert gleich
+     * - oberhalb von `max-fingerprints` landen neue Statements im Sammeleintrag `<other>`
+     */
+
+    private Connection connection;
+    private DataSource target;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = mock(Connection.class);
+        target = mock(DataSource.class);
+        when(target.getConnection()).thenReturn(connection);
+    }
+
+    private static QueryStatistics statistics(int maxFingerprints) {
+        return new QueryStatistics(new QueryStatsProperties(true, Duration.ofSeconds(10), maxFingerprints));
+    }
+
+    private static QueryStatsReport.Statement statement(QueryStatsReport report, String fingerprint) {
+        return report.statements().stream().filter(s -> s.fingerprint().equals(fingerprint)).findFirst().orElseThrow();
+    }
+
+    @Test
+    void fingerprintNormalizesLiteralsListsAndComments() {
+        assertThat(SqlFingerprint.of("SELECT * FROM reading /* hint */ WHERE device_id = 'a''b'\n  AND value > 12.5 -- x\n"))
+                .isEqualTo("select * from reading where device_id = ? and value > ?");
+        assertThat(SqlFingerprint.of("select id from device where id in (?, ?, ?)"))
+                .isEqualTo(SqlFingerprint.of("select id from device where id in (?,?)"))
+                .isEqualTo("select id from device where id in (?)");
+        assertThat(SqlFingerprint.of("insert into t1 (a, b) values (?, ?), (?, ?), (?, ?)"))
+                .isEqualTo("insert into t1 (a, b) values (?), ...");
+        assertThat(SqlFingerprint.of("select \"Value\" from reading_2026 where x = $1"))
+                .isEqualTo("select \"Value\" from reading_2026 where x = ?");
+    }
+
+    @Test
+    void recordsPreparedExecutionsRowsAndErrors() throws SQLException {
+        var ps = mock(PreparedStatement.class);
+        var rs = mock(ResultSet.class);
+        when(connection.prepareStatement(anyString())).thenReturn(ps);
+        when(ps.executeQuery()).thenReturn(rs);
+        when(ps.executeUpdate()).thenThrow(new SQLException("boom"));
+        when(rs.next()).thenReturn(true, true, true, false, true, true, true, false);
+        var statistics = statistics(100);
+        var dataSource = new QueryStatsDataSource(target, statistics);
+
+        try (var c = dataSource.getConnection()) {
+            for (var device : new String[]{"a", "b"}) {
+                try (var p = c.prepareStatement("select * from reading where device_id = '" + device + "'");
+                     var r = p.executeQuery()) {
+                    while (r.next()) {
+                        // Zeilen lesen
+                    }
+                }
+            }
+            var failing = c.prepareStatement("update device set name = ?");
+            assertThatThrownBy(failing::executeUpdate).isInstanceOf(SQLException.class);
+        }
+
+        var report = statistics.report("count", 10);
+        assertThat(report.fingerprints()).isEqualTo(2);
+        var select = statement(report, "select * from reading where device_id = ?");
+        assertThat(select.count()).isEqualTo(2);
+        assertThat(select.rows()).isEqualTo(6);
+        assertThat(select.errors()).isZero();
+        assertThat(select.p99Ms()).isLessThanOrEqualTo(select.maxMs());
+        assertThat(statement(report, "update device set name = ?").errors()).isEqualTo(1);
+    }
+
+    @Test
+    void sumsBatchCountsAndKeepsProxyIdentity() throws SQLException {
+        var st = mock(Statement.class);
+        when(connection.createStatement()).thenReturn(st);
+        when(st.executeBatch()).thenReturn(new int[]{1, 1, Statement.SUCCESS_NO_INFO, 1});
+        var statistics = statistics(100);
+        var dataSource = new QueryStatsDataSource(target, statistics);
+
+        var c = dataSource.getConnection();
+        assertThat(c).isEqualTo(c).isNotEqualTo(connection);
+        assertThat(c.hashCode()).isEqualTo(c.hashCode());
+        var s = c.createStatement();
+        assertThat(s.getConnection()).isSameAs(c);
+        s.addBatch("delete from reading where id = 1");
+        s.addBatch("delete from reading where id = 2");
+        s.executeBatch();
+
+        var batch = statement(statistics.report(null, 10), "delete from reading where id = ?");
+        assertThat(batch.count()).isEqualTo(1);
+        assertThat(batch.rows()).isEqualTo(3);
+    }
+
+    @Test
+    void capsDistinctFingerprints() throws SQLException {
+        var st = mock(Statement.class);
+        when(connection.createStatement()).thenReturn(st);
+        var statistics = statistics(2);
+        var dataSource = new QueryStatsDataSource(target, statistics);
+
+        try (var c = dataSource.getConnection(); var s = c.createStatement()) {
+            for (int i = 0; i < 5; i++) s.execute("select * from t" + (char) ('a' + i));
+        }
+
+        var report = statistics.report(null, 10);
+        assertThat(report.fingerprints()).isEqualTo(3);
+        assertThat(statement(report, "<other>").count()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,211 @@
+package com.brunata.meteringdemo.services;
+
+import com.brunata.meteringdemo.common.ValidationException;
+import com.brunata.meteringdemo.services.config.IngestProperties;
+import com.brunata.meteringdemo.services.ingest.DeviceWatermarkCache;
+import com.brunata.meteringdemo.services.ingest.ReadingBackfillService;
+import com.brunata.meteringdemo.services.ingest.ReadingValidator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.PSQLState;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ReadingBackfillServiceTest {
+    /**
+     * Tests für den Backfill (ohne Datenbank; SQL-Validierung siehe ReadingBackfillIntegrationTest im app-Modul):
+     * - CSV wird unverändert an `COPY ... (format csv, header true)` gestreamt, COPY-Fehler -> ValidationException
+     * - NDJSON wird je Zeile in eine CSV-Zeile für COPY übersetzt: Felder gequotet, fehlende/null-Felder als
+     *   SQL NULL, Dezimalwerte exakt, Leerzeilen ignoriert, nicht parsebare und zu lange Zeilen mit `parse_error`
+     * - große Uploads werden in Blöcken geschrieben; ein Lesefehler bricht den COPY ab
+     * - der Aufbewahrungshorizont wird als Literal in die Validierung eingesetzt
+     */
+
+    private static final String DEVICE = "0190a2b4-0000-7000-8000-000000000001";
+
+    private DataSource dataSource;
+    private CopyManager copy;
+    private CopyIn copyIn;
+    private JdbcTemplate jdbc;
+    private ReadingPartitionManager partitions;
+    private ReadingBackfillService service;
+
+    private final ByteArrayOutputStream copied = new ByteArrayOutputStream();
+    private final AtomicBoolean active = new AtomicBoolean(true);
+    private int writes;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dataSource = mock(DataSource.class);
+        var connection = mock(Connection.class);
+        var pg = mock(PGConnection.class);
+        copy = mock(CopyManager.class);
+        copyIn = mock(CopyIn.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.unwrap(PGConnection.class)).thenReturn(pg);
+        when(pg.getCopyAPI()).thenReturn(copy);
+        when(copy.copyIn(anyString())).thenReturn(copyIn);
+        doAnswer(inv -> {
+            copied.write(inv.<byte[]>getArgument(0), inv.<Integer>getArgument(1), inv.<Integer>getArgument(2));
+            writes++;
+            return null;
+        }).when(copyIn).writeToCopy(any(byte[].class), anyInt(), anyInt());
+        when(copyIn.isActive()).thenAnswer(inv -> active.get());
+        when(copyIn.endCopy()).thenAnswer(inv -> {
+            active.set(false);
+            return copied.toString(StandardCharsets.UTF_8).lines().count();
+        });
+
+        jdbc = mock(JdbcTemplate.class);
+        partitions = mock(ReadingPartitionManager.class);
+        service = new ReadingBackfillService(dataSource, jdbc, mock(DeviceWatermarkCache.class), partitions,
+                mock(DailyReadingRollup.class), new ObjectMapper(), new IngestProperties(
+                        new IngestProperties.WatermarkCache(true, 1000, Duration.ofMinutes(10), Duration.ofSeconds(30)),
+                        new IngestProperties.Ndjson(500, 200), null));
+    }
+
+    @Test
+    void csv_is_streamed_unchanged_to_copy_with_header() throws Exception {
+        var csv = "deviceId,readingTime,value,unit,source\n" + DEVICE + ",2025-01-01T00:00:00Z,1.5,kWh,gw\n";
+        when(copy.copyIn(anyString(), any(InputStream.class))).thenReturn(1L);
+
+        var report = service.backfill(in(csv), ReadingBackfillService.Format.CSV);
+
+        assertThat(report.rowsStaged()).isEqualTo(1);
+        verify(copy).copyIn(argThat(sql -> sql.contains("format csv, header true")), any(InputStream.class));
+        verify(copy, never()).copyIn(anyString());
+    }
+
+    @Test
+    void copy_failure_is_a_validation_error() throws Exception {
+        when(copy.copyIn(anyString(), any(InputStream.class)))
+                .thenThrow(new PSQLException("extra data after last expected column", PSQLState.DATA_ERROR));
+
+        assertThatThrownBy(() -> service.backfill(in("a,b\n1,2,3\n"), ReadingBackfillService.Format.CSV))
+                .isInstanceOf(ValidationException.class)
+                .hasMessageContaining("Backfill upload rejected")
+                .hasMessageContaining("extra data after last expected column");
+    }
+
+    @Test
+    void ndjson_lines_are_converted_to_quoted_csv() throws Exception {
+        var ndjson = String.join("\n",
+                "{\"deviceId\":\"" + DEVICE + "\",\"readingTime\":\"2025-01-01T00:00:00Z\",\"value\":123456789012.123456,\"unit\":\"kWh\",\"source\":\"gw\"}",
+                "",
+                "   ",
+                "{\"deviceId\":\"" + DEVICE + "\",\"readingTime\":\"2025-01-01T00:15:00Z\",\"value\":\"1.0000001\",\"unit\":\"kWh\",\"source\":\"say \\\"hi\\\", ok\"}",
+                "{\"deviceId\":null,\"value\":1e3,\"unit\":\"kWh\",\"source\":\"gw\"}");
+
+        var report = service.backfill(in(ndjson), ReadingBackfillService.Format.NDJSON);
+
+        assertThat(report.rowsStaged()).isEqualTo(3);
+        verify(copy).copyIn(argThat(sql -> sql.contains("parse_error") && sql.contains("format csv")));
+        assertThat(copied.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "\"" + DEVICE + "\",\"2025-01-01T00:00:00Z\",\"123456789012.123456\",\"kWh\",\"gw\",\n"
+                        // Werte als String bleiben unverändert (Prüfung erst in der Datenbank), Quotes verdoppelt
+                        + "\"" + DEVICE + "\",\"2025-01-01T00:15:00Z\",\"1.0000001\",\"kWh\",\"say \"\"hi\"\", ok\",\n"
+                        // null bzw. fehlend -> leeres, unquotiertes Feld (SQL NULL); Zahl exakt als BigDecimal
+                        + ",,\"1E+3\",\"kWh\",\"gw\",\n");
+    }
+
+    @Test
+    void malformed_ndjson_lines_are_staged_with_parse_error() {
+        var ndjson = "{\"deviceId\":\"" + DEVICE + "\",\"value\":\n{\"deviceId\":\"x\"}\n";
+
+        service.backfill(in(ndjson), ReadingBackfillService.Format.NDJSON);
+
+        var lines = copied.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(0)).startsWith(",,,,,\"Malformed JSON: ");
+        assertThat(lines.get(1)).isEqualTo("\"x\",,,,,");
+    }
+
+    @Test
+    void overlong_ndjson_lines_are_staged_with_parse_error() {
+        var ndjson = "{\"deviceId\":\"" + "x".repeat(1_000_000) + "\"}\n{\"deviceId\":\"x\"}\n" + "y".repeat(500);
+
+        var report = service.backfill(in(ndjson), ReadingBackfillService.Format.NDJSON);
+
+        assertThat(report.rowsStaged()).isEqualTo(3);
+        assertThat(copied.toString(StandardCharsets.UTF_8).lines().toList()).containsExactly(
+                ",,,,,\"Line exceeds 200 characters\"",
+                "\"x\",,,,,",
+                ",,,,,\"Line exceeds 200 characters\"");
+    }
+
+    @Test
+    void large_ndjson_upload_is_written_in_blocks() {
+        var sb = new StringBuilder();
+        for (int i = 0; i < 5_000; i++) {
+            sb.append("{\"deviceId\":\"").append(DEVICE).append("\",\"readingTime\":\"2025-01-01T00:00:00Z\",\"value\":")
+                    .append(i).append(",\"unit\":\"kWh\",\"source\":\"gw\"}\n");
+        }
+
+        var report = service.backfill(in(sb.toString()), ReadingBackfillService.Format.NDJSON);
+
+        assertThat(report.rowsStaged()).isEqualTo(5_000);
+        assertThat(writes).isGreaterThan(1);
+        var lines = copied.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).hasSize(5_000);
+        assertThat(lines.get(4_999)).contains("\"4999\"");
+    }
+
+    @Test
+    void read_failure_cancels_copy() throws Exception {
+        var broken = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("connection reset");
+            }
+        };
+
+        assertThatThrownBy(() -> service.backfill(broken, ReadingBackfillService.Format.NDJSON))
+                .isInstanceOf(ValidationException.class)
+                .hasMessageContaining("could not be read");
+        verify(copyIn).cancelCopy();
+    }
+
+    @Test
+    void retention_horizon_is_inlined_into_validation() {
+        when(partitions.horizon()).thenReturn(Instant.parse("2024-01-01T00:00:00Z"));
+
+        service.backfill(in(""), ReadingBackfillService.Format.NDJSON);
+
+        verify(jdbc).execute(argThat((String sql) -> sql.contains("reading_staging_checked")
+                && sql.contains("when t.reading_time < timestamptz '2024-01-01T00:00:00Z' then '"
+                + ReadingValidator.RETENTION + "'")));
+
+        // ohne Horizont: keine Zeile ist zu alt
+        when(partitions.horizon()).thenReturn(null);
+        copied.reset();
+        active.set(true);
+        service.backfill(in(""), ReadingBackfillService.Format.NDJSON);
+        verify(jdbc).execute(argThat((String sql) -> sql.contains("'-infinity'::timestamptz")));
+        verify(jdbc, atLeastOnce()).queryForList(anyString(), eq(UUID.class));
+    }
+
+    private static InputStream in(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
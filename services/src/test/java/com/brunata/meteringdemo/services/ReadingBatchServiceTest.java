@@ -0,0 +1,187 @@
+package com.brunata.meteringdemo.services;
+
+import com.brunata.meteringdemo.persistence.MeterReadingRepository;
+import com.brunata.meteringdemo.services.config.IngestProperties;
+import com.brunata.meteringdemo.services.dto.ReadingDto;
+import com.brunata.meteringdemo.services.ingest.DeviceLastSeenTracker;
+import com.brunata.meteringdemo.services.ingest.DeviceWatermarkCache;
+import com.brunata.meteringdemo.services.ingest.IngestMetrics;
+import com.brunata.meteringdemo.services.ingest.ReadingValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ReadingBatchServiceTest {
+    /**
+     * Tests für den Bulk-Ingest:
+     * - Batch wird je Gerät sortiert und gegen den letzten Messwert geprüft
+     * - Ablehnungen werden mit Index gemeldet, gültige Werte per JDBC-Batch geschrieben
+     * - nur tatsächlich eingefügte Werte gehen in den Tages-Rollup (Replay mit Konflikten)
+     * - Partitionen werden vor der Transaktion angelegt; Werte vor dem Aufbewahrungshorizont werden abgelehnt
+     * - Werte außerhalb von `NUMERIC(18,6)` werden einzeln abgelehnt, ohne den Batch abzubrechen
+     */
+
+    private DeviceLastSeenTracker lastSeen;
+    private MeterReadingRepository readingRepo;
+    private JdbcTemplate jdbc;
+    private DailyReadingRollup rollup;
+    private ReadingBatchService service;
+    private SimpleMeterRegistry registry;
+    private ReadingPartitionManager partitions;
+    private PlatformTransactionManager txManager;
+
+    private final UUID deviceId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        lastSeen = mock(DeviceLastSeenTracker.class);
+        readingRepo = mock(MeterReadingRepository.class);
+        jdbc = mock(JdbcTemplate.class);
+        var props = new IngestProperties(new IngestProperties.WatermarkCache(true, 1000, Duration.ofMinutes(10), Duration.ofSeconds(30)), new IngestProperties.Ndjson(500, 65536), null);
+        registry = new SimpleMeterRegistry();
+        var cache = new DeviceWatermarkCache(readingRepo, props, registry);
+        rollup = mock(DailyReadingRollup.class);
+        partitions = mock(ReadingPartitionManager.class);
+        txManager = mock(PlatformTransactionManager.class);
+        service = new ReadingBatchService(cache, lastSeen, partitions, rollup, jdbc, new IngestMetrics(registry),
+                txManager);
+
+        when(readingRepo.findWatermarks(anyCollection())).thenReturn(List.of(
+                watermark(deviceId, Instant.parse("2025-09-12T10:00:00Z"), new BigDecimal("100.0"))));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void accepts_unsorted_batch_and_rejects_violations_with_index() {
+        var batch = List.of(
+                dto(deviceId, "2025-09-12T12:00:00Z", "103.0"),   // 0: ok (nach Sortierung zuletzt)
+                dto(deviceId, "2025-09-12T11:00:00Z", "101.0"),   // 1: ok
+                dto(deviceId, "2025-09-12T09:00:00Z", "150.0"),   // 2: vor letztem DB-Wert
+                dto(deviceId, "2025-09-12T11:30:00Z", "100.5"),   // 3: Wert sinkt gegenüber 101.0
+                dto(UUID.randomUUID(), "2025-09-12T11:00:00Z", "1.0") // 4: unbekanntes Gerät
+        );
+
+        var result = service.ingest(batch);
+
+        assertThat(result.received()).isEqualTo(5);
+        assertThat(result.accepted()).isEqualTo(2);
+        assertThat(result.rejected()).isEqualTo(3);
+        assertThat(result.errors()).extracting(e -> e.index()).containsExactly(2, 3, 4);
+        assertThat(result.errors().get(0).message()).contains("Reading time must be >= last reading time");
+        assertThat(result.errors().get(1).message()).contains("Monotonicity");
+        assertThat(result.errors().get(2).message()).contains("Unknown device");
+
+        var rows = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbc).batchUpdate(anyString(), rows.capture(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        assertThat(rows.getValue()).extracting(r -> ((ReadingDto) r).value())
+                .containsExactly(new BigDecimal("101.0"), new BigDecimal("103.0"));
+        verify(lastSeen).touchAfterCommit(eq(java.util.Set.of(deviceId)), any());
+        verify(rollup).add(rows.getValue());
+
+        assertThat(registry.get("ingest.rejected").tag("rule", "time_order").counter().count()).isEqualTo(1);
+        assertThat(registry.get("ingest.rejected").tag("rule", "monotonicity").counter().count()).isEqualTo(1);
+        assertThat(registry.get("ingest.rejected").tag("rule", "unknown_device").counter().count()).isEqualTo(1);
+        assertThat(registry.get("ingest.readings").tag("source", "lora").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void replay_adds_only_inserted_rows_to_rollup() {
+        var batch = List.of(dto(deviceId, "2025-09-12T11:00:00Z", "101.0"), dto(deviceId, "2025-09-12T12:00:00Z", "102.0"));
+        // erster Satz existiert bereits (ON CONFLICT DO NOTHING → 0)
+        when(jdbc.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{{0, 1}});
+
+        service.ingest(batch, List.of(UUID.randomUUID(), UUID.randomUUID()));
+
+        var added = ArgumentCaptor.forClass(Collection.class);
+        verify(rollup).add(added.capture());
+        assertThat(added.getValue()).containsExactly(batch.get(1));
+    }
+
+    @Test
+    void writes_nothing_when_all_rejected() {
+        var result = service.ingest(List.of(dto(deviceId, "2025-09-12T11:00:00Z", "99.0")));
+
+        assertThat(result.accepted()).isZero();
+        assertThat(result.rejected()).isEqualTo(1);
+        verifyNoInteractions(jdbc, rollup);
+        verify(lastSeen, never()).touchAfterCommit(anyCollection(), any());
+    }
+
+    @Test
+    void uses_cached_watermark_after_first_batch() {
+        service.ingest(List.of(dto(deviceId, "2025-09-12T11:00:00Z", "101.0")));
+        var result = service.ingest(List.of(dto(deviceId, "2025-09-12T10:30:00Z", "102.0")));
+
+        // zweiter Batch prüft gegen den fortgeschriebenen Cache-Stand (11:00), ohne erneute Query
+        assertThat(result.rejected()).isEqualTo(1);
+        verify(readingRepo, times(1)).findWatermarks(anyCollection());
+    }
+
+    @Test
+    void ensures_partitions_before_transaction_and_rejects_readings_before_horizon() {
+        when(partitions.horizon()).thenReturn(Instant.parse("2025-09-01T00:00:00Z"));
+        var batch = List.of(dto(deviceId, "2025-08-31T23:59:59Z", "101.0"), dto(deviceId, "2025-09-12T11:00:00Z", "101.0"));
+
+        var result = service.ingest(batch);
+
+        assertThat(result.accepted()).isEqualTo(1);
+        assertThat(result.errors()).singleElement().satisfies(e -> {
+            assertThat(e.index()).isZero();
+            assertThat(e.message()).isEqualTo(ReadingValidator.RETENTION);
+        });
+        assertThat(registry.get("ingest.rejected").tag("rule", "retention").counter().count()).isEqualTo(1);
+        var order = inOrder(partitions, txManager);
+        order.verify(partitions).ensureCovered(anyCollection());
+        order.verify(txManager).getTransaction(any());
+    }
+
+    @Test
+    void rejects_values_out_of_column_range_individually() {
+        var batch = List.of(
+                dto(deviceId, "2025-09-12T11:00:00Z", "1e30"),                 // 0: sprengt long
+                dto(deviceId, "2025-09-12T11:15:00Z", "1000000000000"),        // 1: > NUMERIC(18,6)
+                dto(deviceId, "2025-09-12T11:30:00Z", "999999999999.9999995"), // 2: Rundung auf 10^12
+                dto(deviceId, "2025-09-12T11:45:00Z", "999999999999.999999")); // 3: größter Wert
+
+        var result = service.ingest(batch);
+
+        assertThat(result.accepted()).isEqualTo(1);
+        assertThat(result.errors()).extracting(e -> e.index()).containsExactly(0, 1, 2);
+        assertThat(result.errors()).extracting(e -> e.message()).containsOnly(ReadingValidator.VALUE_RANGE);
+        assertThat(registry.get("ingest.rejected").tag("rule", "value_range").counter().count()).isEqualTo(3);
+    }
+
+    private static ReadingDto dto(UUID deviceId, String time, String value) {
+        return new ReadingDto(deviceId, Instant.parse(time), new BigDecimal(value), "kWh", "LoRa");
+    }
+
+    private static MeterReadingRepository.DeviceWatermarkView watermark(UUID id, Instant time, BigDecimal value) {
+        return new MeterReadingRepository.DeviceWatermarkView() {
+            public UUID getDeviceId() { return id; }
+            public String getSerialNo() { return "ABC-123"; }
+            public Instant getReadingTime() { return time; }
+            public BigDecimal getValue() { return value; }
+        };
+    }
+}
@@ -0,0 +1,95 @@
+package com.brunata.meteringdemo.services;
+
+import com.brunata.meteringdemo.common.ValidationException;
+import com.brunata.meteringdemo.services.dto.ReadingView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ReadingHistoryServiceTest {
+    /**
+     * Tests für die Keyset-Pagination der Messwert-Historie:
+     * - eine Zeile mehr als `limit` wird gelesen; ist sie vorhanden, zeigt der Cursor auf den letzten Eintrag der Seite
+     * - Folgeseiten filtern per (reading_time, id) > Cursor statt OFFSET
+     * - ungültige Limits/Cursor werden mit ValidationException abgelehnt
+     */
+
+    private JdbcTemplate jdbc;
+    private ReadingHistoryService service;
+
+    private final UUID deviceId = UUID.randomUUID();
+    private final Instant t0 = Instant.parse("2025-09-01T00:00:00Z");
+
+    @BeforeEach
+    void setUp() {
+        jdbc = mock(JdbcTemplate.class);
+        service = new ReadingHistoryService(jdbc);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void returns_cursor_of_last_item_when_more_rows_exist() {
+        var rows = rows(4);
+        when(jdbc.query(any(String.class), any(RowMapper.class), any(Object[].class))).thenReturn(rows);
+
+        var page = service.page(deviceId, null, null, null, null, 3);
+
+        assertThat(page.items()).hasSize(3);
+        assertThat(page.nextAfter()).isEqualTo(rows.get(2).readingTime());
+        assertThat(page.nextAfterId()).isEqualTo(rows.get(2).id());
+
+        var args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbc).query(any(String.class), any(RowMapper.class), args.capture());
+        assertThat(args.getValue()).containsExactly(deviceId, 4);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void last_page_has_no_cursor_and_uses_keyset_condition() {
+        when(jdbc.query(any(String.class), any(RowMapper.class), any(Object[].class))).thenReturn(rows(2));
+        var afterId = UUID.randomUUID();
+
+        var page = service.page(deviceId, null, null, t0, afterId, 3);
+
+        assertThat(page.items()).hasSize(2);
+        assertThat(page.nextAfter()).isNull();
+        assertThat(page.nextAfterId()).isNull();
+
+        var sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbc).query(sql.capture(), any(RowMapper.class), any(Object[].class));
+        assertThat(sql.getValue()).contains("(reading_time, id) > (?, ?)").doesNotContain("offset");
+    }
+
+    @Test
+    void rejects_invalid_limit_and_cursor() {
+        assertThatThrownBy(() -> service.page(deviceId, null, null, null, null, 0))
+                .isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> service.page(deviceId, null, null, null, null, ReadingHistoryService.MAX_LIMIT + 1))
+                .isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> service.page(deviceId, null, null, null, UUID.randomUUID(), 10))
+                .isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> service.page(deviceId, t0, t0, null, null, 10))
+                .isInstanceOf(ValidationException.class);
+        verifyNoInteractions(jdbc);
+    }
+
+    private List<ReadingView> rows(int n) {
+        return IntStream.range(0, n)
+                .mapToObj(i -> new ReadingView(UUID.randomUUID(), deviceId, t0.plusSeconds(900L * i),
+                        BigDecimal.valueOf(100 + i), "kWh", "GATEWAY"))
+                .toList();
+    }
+}
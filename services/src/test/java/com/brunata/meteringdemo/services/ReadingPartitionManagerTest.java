@@ -0,0 +1,89 @@
+package com.brunata.meteringdemo.services;
+
+import com.brunata.meteringdemo.services.config.ReadingPartitionProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ReadingPartitionManagerTest {
+    /**
+     * Tests für die Partitionsverwaltung von meter_reading:
+     * - fehlende Monate werden per CREATE + ATTACH angelegt, bekannte Monate ohne DDL übersprungen
+     * - Wartungslauf legt künftige Monate an und entfernt Partitionen außerhalb der Aufbewahrung
+     * - Monate vor dem Aufbewahrungshorizont werden nicht (wieder) angelegt
+     */
+
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = mock(JdbcTemplate.class);
+    }
+
+    @Test
+    void creates_only_missing_months() {
+        stubPartitions("meter_reading_y2025m09");
+        var manager = new ReadingPartitionManager(jdbc, mock(PlatformTransactionManager.class),
+                new ReadingPartitionProperties(3, 0, ReadingPartitionProperties.RetentionAction.DETACH));
+
+        manager.ensureCovered(List.of(
+                Instant.parse("2025-09-12T10:00:00Z"),
+                Instant.parse("2025-07-31T23:59:59Z"),
+                Instant.parse("2025-07-01T00:00:00Z")));
+        manager.ensureCovered(List.of(Instant.parse("2025-07-15T00:00:00Z")));
+
+        var ddl = ArgumentCaptor.forClass(String.class);
+        verify(jdbc, times(2)).execute(ddl.capture());
+        assertThat(ddl.getAllValues().get(0)).contains("create table if not exists meter_reading_y2025m07");
+        assertThat(ddl.getAllValues().get(1)).contains("attach partition meter_reading_y2025m07")
+                .contains("from ('2025-07-01T00:00:00Z') to ('2025-08-01T00:00:00Z')");
+    }
+
+    @Test
+    void maintain_creates_future_months_and_drops_expired() {
+        var current = YearMonth.now(ZoneOffset.UTC);
+        stubPartitions(ReadingPartitionManager.name(current.minusMonths(13)),
+                ReadingPartitionManager.name(current.minusMonths(12)),
+                ReadingPartitionManager.name(current));
+        var manager = new ReadingPartitionManager(jdbc, mock(PlatformTransactionManager.class),
+                new ReadingPartitionProperties(1, 12, ReadingPartitionProperties.RetentionAction.DROP));
+
+        manager.maintain();
+
+        verify(jdbc).execute(contains("attach partition " + ReadingPartitionManager.name(current.plusMonths(1))));
+        verify(jdbc).execute("alter table meter_reading detach partition "
+                + ReadingPartitionManager.name(current.minusMonths(13)) + " concurrently");
+        verify(jdbc).execute("drop table " + ReadingPartitionManager.name(current.minusMonths(13)));
+        verify(jdbc, never()).execute(contains("detach partition " + ReadingPartitionManager.name(current.minusMonths(12))));
+    }
+
+    @Test
+    void does_not_recreate_months_before_retention_horizon() {
+        var current = YearMonth.now(ZoneOffset.UTC);
+        stubPartitions(ReadingPartitionManager.name(current));
+        var manager = new ReadingPartitionManager(jdbc, mock(PlatformTransactionManager.class),
+                new ReadingPartitionProperties(1, 12, ReadingPartitionProperties.RetentionAction.DETACH));
+
+        assertThat(manager.horizon()).isEqualTo(current.minusMonths(12).atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC));
+        manager.ensureCovered(List.of(manager.horizon().minusSeconds(1)));
+        verify(jdbc, never()).execute(anyString());
+
+        manager.ensureCovered(List.of(manager.horizon()));
+        verify(jdbc).execute(contains("attach partition " + ReadingPartitionManager.name(current.minusMonths(12))));
+    }
+
+    private void stubPartitions(String... names) {
+        when(jdbc.queryForList(anyString(), eq(String.class), any(Object[].class))).thenReturn(List.of(names));
+    }
+}
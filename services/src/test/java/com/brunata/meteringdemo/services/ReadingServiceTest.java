@@ -1,41 +1,57 @@
 package com.brunata.meteringdemo.services;
 
 import com.brunata.meteringdemo.common.ValidationException;
-import com.brunata.meteringdemo.domain.Device;
 import com.brunata.meteringdemo.domain.MeterReading;
-import com.brunata.meteringdemo.persistence.DeviceRepository;
 import com.brunata.meteringdemo.persistence.MeterReadingRepository;
+import com.brunata.meteringdemo.services.config.IngestProperties;
 import com.brunata.meteringdemo.services.dto.ReadingDto;
+import com.brunata.meteringdemo.services.ingest.DeviceLastSeenTracker;
+import com.brunata.meteringdemo.services.ingest.DeviceWatermarkCache;
+import com.brunata.meteringdemo.services.ingest.IngestMetrics;
+import com.brunata.meteringdemo.services.ingest.ReadingValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.Instant;
-import java.util.Optional;
+import java.util.List;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.Mockito.*;
 
 class ReadingServiceTest {
 
-    private DeviceRepository deviceRepo;
+    private DeviceLastSeenTracker lastSeen;
     private MeterReadingRepository readingRepo;
+    private DeviceWatermarkCache watermarks;
     private ReadingService service;
 
     private final UUID deviceId = UUID.randomUUID();
 
     @BeforeEach
     void setUp() {
-        deviceRepo = mock(DeviceRepository.class);
+        lastSeen = mock(DeviceLastSeenTracker.class);
         readingRepo = mock(MeterReadingRepository.class);
-        service = new ReadingService(deviceRepo, readingRepo);
+        var props = new IngestProperties(new IngestProperties.WatermarkCache(true, 1000, Duration.ofMinutes(10), Duration.ofSeconds(30)), new IngestProperties.Ndjson(500, 65536), null);
+        watermarks = new DeviceWatermarkCache(readingRepo, props, new SimpleMeterRegistry());
+        service = new ReadingService(readingRepo, watermarks, lastSeen,
+                mock(ReadingPartitionManager.class), mock(DailyReadingRollup.class), new IngestMetrics(new SimpleMeterRegistry()),
+                mock(PlatformTransactionManager.class));
+    }
 
-        var dev = new Device();
-        dev.setId(deviceId);
-        dev.setSerialNo("ABC-123");
-        when(deviceRepo.findById(deviceId)).thenReturn(Optional.of(dev));
+    private void stubLastReading(MeterReading last) {
+        when(readingRepo.findWatermarks(anyCollection())).thenReturn(List.of(new MeterReadingRepository.DeviceWatermarkView() {
+            public UUID getDeviceId() { return deviceId; }
+            public String getSerialNo() { return "ABC-123"; }
+            public Instant getReadingTime() { return last.getReadingTime(); }
+            public BigDecimal getValue() { return last.getValue(); }
+        }));
     }
 
     @Test
@@ -44,8 +60,7 @@ class ReadingServiceTest {
         last.setDeviceId(deviceId);
         last.setReadingTime(Instant.parse("2025-09-12T10:00:00Z"));
         last.setValue(new BigDecimal("100.0"));
-        when(readingRepo.findTop1ByDeviceIdOrderByReadingTimeDesc(deviceId))
-                .thenReturn(Optional.of(last));
+        stubLastReading(last);
 
         var dto = new ReadingDto(
                 deviceId,
@@ -67,8 +82,7 @@ class ReadingServiceTest {
         last.setDeviceId(deviceId);
         last.setReadingTime(Instant.parse("2025-09-12T10:00:00Z"));
         last.setValue(new BigDecimal("100.0"));
-        when(readingRepo.findTop1ByDeviceIdOrderByReadingTimeDesc(deviceId))
-                .thenReturn(Optional.of(last));
+        stubLastReading(last);
 
         var dto = new ReadingDto(
                 deviceId,
@@ -83,4 +97,45 @@ class ReadingServiceTest {
                 .hasMessageContaining("Monotonicity");
         verify(readingRepo, never()).save(any());
     }
+
+    @Test
+    void rejects_reading_for_unknown_device() {
+        when(readingRepo.findWatermarks(anyCollection())).thenReturn(List.of());
+
+        var dto = new ReadingDto(deviceId, Instant.parse("2025-09-12T10:00:01Z"), new BigDecimal("1.0"), "kWh", "LoRa");
+
+        assertThatThrownBy(() -> service.save(dto))
+                .isInstanceOf(ValidationException.class)
+                .hasMessageContaining("Unknown device");
+        verify(readingRepo, never()).save(any());
+    }
+
+    @Test
+    void rejects_value_out_of_column_range() {
+        var dto = new ReadingDto(deviceId, Instant.parse("2025-09-12T10:00:01Z"), new BigDecimal("1e19"), "kWh", "LoRa");
+
+        assertThatThrownBy(() -> service.save(dto))
+                .isInstanceOf(ValidationException.class)
+                .hasMessage(ReadingValidator.VALUE_RANGE);
+        verifyNoInteractions(readingRepo);
+    }
+
+    @Test
+    void accepts_reading_once_unknown_device_is_created() {
+        var dto = new ReadingDto(deviceId, Instant.parse("2025-09-12T10:00:01Z"), new BigDecimal("1.0"), "kWh", "LoRa");
+        when(readingRepo.findWatermarks(anyCollection())).thenReturn(List.of());
+        assertThatThrownBy(() -> service.save(dto)).hasMessageContaining("Unknown device");
+
+        // Gerät wird angelegt (noch ohne Messwert): der negative Eintrag darf nicht bis zur negative-ttl bleiben
+        when(readingRepo.findWatermarks(anyCollection())).thenReturn(List.of(new MeterReadingRepository.DeviceWatermarkView() {
+            public UUID getDeviceId() { return deviceId; }
+            public String getSerialNo() { return "ABC-123"; }
+            public Instant getReadingTime() { return null; }
+            public BigDecimal getValue() { return null; }
+        }));
+        watermarks.devicesCreated(List.of(deviceId));
+
+        service.save(dto);
+        verify(readingRepo).save(any());
+    }
 }
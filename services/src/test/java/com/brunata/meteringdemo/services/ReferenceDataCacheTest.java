@@ -0,0 +1,87 @@
+package com.brunata.meteringdemo.services;
+
+import com.brunata.meteringdemo.domain.Contract;
+import com.brunata.meteringdemo.domain.Tariff;
+import com.brunata.meteringdemo.persistence.ContractRepository;
+import com.brunata.meteringdemo.persistence.TariffRepository;
+import com.brunata.meteringdemo.services.config.ReferenceCacheProperties;
+import com.brunata.meteringdemo.services.reference.ReferenceDataCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class ReferenceDataCacheTest {
+    /**
+     * Tests für den Stammdaten-Cache:
+     * - Zweiter Zugriff kommt aus dem Cache (ein Repository-Aufruf), Treffer/Fehlzugriffe als Micrometer-Metrik
+     * - Snapshots sind von der Entity entkoppelt (spätere Änderungen an der Entity wirken nicht)
+     * - Unbekannte IDs werden nicht gecacht; evictTariff verwirft auch Verträge mit diesem Tarif
+     */
+
+    private ContractRepository contractRepo;
+    private SimpleMeterRegistry registry;
+    private ReferenceDataCache cache;
+
+    private final UUID contractId = UUID.randomUUID();
+    private final UUID tariffId = UUID.randomUUID();
+    private Contract contract;
+
+    @BeforeEach
+    void setUp() {
+        contractRepo = mock(ContractRepository.class);
+        registry = new SimpleMeterRegistry();
+        cache = new ReferenceDataCache(contractRepo, mock(TariffRepository.class),
+                new ReferenceCacheProperties(true, 100, Duration.ofMinutes(1)), registry);
+
+        var tariff = new Tariff();
+        tariff.setId(tariffId);
+        tariff.setName("Standard");
+        tariff.setPricePerUnit(new BigDecimal("0.2500"));
+        tariff.setUnit("kWh");
+        contract = new Contract();
+        contract.setId(contractId);
+        contract.setCustomerName("Musterkunde");
+        contract.setDeviceId(UUID.randomUUID());
+        contract.setStartDate(LocalDate.parse("2025-01-01"));
+        contract.setTariff(tariff);
+        when(contractRepo.findById(contractId)).thenReturn(Optional.of(contract));
+    }
+
+    @Test
+    void serves_snapshots_from_cache_and_records_hits() {
+        var first = cache.contract(contractId).orElseThrow();
+        contract.getTariff().setPricePerUnit(new BigDecimal("9.9900"));
+        var second = cache.contract(contractId).orElseThrow();
+
+        assertThat(second).isEqualTo(first);
+        assertThat(second.tariff().pricePerUnit()).isEqualByComparingTo("0.2500");
+        verify(contractRepo, times(1)).findById(contractId);
+        assertThat(registry.get("cache.gets").tag("cache", "referenceContract").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void does_not_cache_unknown_ids_and_evicts_contracts_of_changed_tariff() {
+        var unknown = UUID.randomUUID();
+        when(contractRepo.findById(unknown)).thenReturn(Optional.empty());
+        assertThat(cache.contract(unknown)).isEmpty();
+        assertThat(cache.contract(unknown)).isEmpty();
+        verify(contractRepo, times(2)).findById(unknown);
+
+        cache.contract(contractId);
+        contract.getTariff().setPricePerUnit(new BigDecimal("0.3000"));
+        cache.evictTariff(tariffId);
+
+        assertThat(cache.contract(contractId).orElseThrow().tariff().pricePerUnit()).isEqualByComparingTo("0.3000");
+        verify(contractRepo, times(2)).findById(contractId);
+    }
+}
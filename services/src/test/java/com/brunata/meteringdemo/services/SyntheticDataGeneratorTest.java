@@ -0,0 +1,212 @@
+package com.brunata.meteringdemo.services;
+
+import com.brunata.meteringdemo.common.ValidationException;
+import com.brunata.meteringdemo.services.config.SyntheticDataProperties;
+import com.brunata.meteringdemo.services.dto.SyntheticDataReport;
+import com.brunata.meteringdemo.services.dto.SyntheticDataSpec;
+import com.brunata.meteringdemo.services.ingest.DeviceWatermarkCache;
+import com.brunata.meteringdemo.services.reference.ReferenceDataCache;
+import com.brunata.meteringdemo.services.seed.SyntheticDataGenerator;
+import com.brunata.meteringdemo.services.seed.SyntheticMeter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SyntheticDataGeneratorTest {
+    /**
+     * Tests für den Generator synthetischer Daten (ohne Datenbank, COPY und JDBC gemockt):
+     * - je Zähler entspricht die per COPY geschriebene Reihe genau {@link SyntheticMeter} (unabhängig von Chunks und
+     *   Parallelität), Stammdaten/Vertrag/`last_seen_at` passen dazu
+     * - das Tages-Rollup stimmt mit den Rohdaten überein (erster/letzter Wert, min/max, Anzahl), auch über den
+     *   Jahreswechsel
+     * - vorhandener Seed und ungültige Parameter werden abgelehnt
+     */
+
+    private static final String INSERT_DEVICE = "insert into device";
+    private static final String INSERT_CONTRACT = "insert into contract";
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("uuuu-MM-dd HH:mm:ssx");
+
+    private JdbcTemplate jdbc;
+    private ReadingPartitionManager partitions;
+    private DeviceWatermarkCache watermarks;
+    private SyntheticDataGenerator generator;
+
+    // COPY-Inhalt je Ziel-Tabelle (Chunks laufen parallel, je Chunk ein COPY)
+    private final List<String> readingCopies = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> rollupCopies = Collections.synchronizedList(new ArrayList<>());
+    private final Map<String, List<Object[]>> batches = Collections.synchronizedMap(new HashMap<>());
+    private final List<UUID> tariffIds = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() throws Exception {
+        var dataSource = mock(DataSource.class);
+        var connection = mock(Connection.class);
+        var pg = mock(PGConnection.class);
+        var copy = mock(CopyManager.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.unwrap(PGConnection.class)).thenReturn(pg);
+        when(pg.getCopyAPI()).thenReturn(copy);
+        when(copy.copyIn(anyString())).thenAnswer(inv -> copyIn(inv.<String>getArgument(0).contains("meter_reading")
+                ? readingCopies : rollupCopies));
+
+        jdbc = mock(JdbcTemplate.class);
+        when(jdbc.update(startsWith("insert into tariff ("), any(Object[].class))).thenAnswer(inv -> {
+            tariffIds.add(inv.getArgument(1));
+            return 1;
+        });
+        when(jdbc.batchUpdate(anyString(), anyList())).thenAnswer(inv -> {
+            String sql = inv.getArgument(0);
+            batches.computeIfAbsent(sql.strip().substring(0, sql.strip().indexOf(" (")),
+                    k -> Collections.synchronizedList(new ArrayList<>())).addAll(inv.getArgument(1));
+            return new int[0];
+        });
+        partitions = mock(ReadingPartitionManager.class);
+        watermarks = mock(DeviceWatermarkCache.class);
+        generator = new SyntheticDataGenerator(dataSource, jdbc, mock(PlatformTransactionManager.class), partitions,
+                watermarks, mock(ReferenceDataCache.class), new SyntheticDataProperties(false, 2, 2, 10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        generator.shutdown();
+    }
+
+    @Test
+    void copied_series_and_rollup_match_the_synthetic_meters() {
+        var spec = new SyntheticDataSpec(11L, 5, 3, LocalDate.parse("2025-12-30"), LocalDate.parse("2026-01-01"),
+                Duration.ofMinutes(15), 0.2, 0.005, 0.4);
+
+        var report = generator.generate(spec);
+
+        assertThat(report.status()).isEqualTo(SyntheticDataReport.Status.COMPLETED);
+        assertThat(report.errors()).isEmpty();
+        assertThat(report.devices()).isEqualTo(5);
+        assertThat(report.tariffs()).isEqualTo(3);
+        assertThat(readingCopies).hasSize(3); // 5 Zähler in Chunks zu 2
+
+        var readings = rows(readingCopies);
+        var rollups = rows(rollupCopies);
+        assertThat(report.readings()).isEqualTo(readings.size());
+        assertThat(report.dailyRollups()).isEqualTo(rollups.size());
+
+        var start = Instant.parse("2025-12-30T00:00:00Z");
+        var end = Instant.parse("2026-01-02T00:00:00Z");
+        Map<String, String> contractTariff = new HashMap<>();
+        batches.get(INSERT_CONTRACT).forEach(c -> contractTariff.put(c[2].toString(), c[4].toString()));
+        long offline = 0, gaps = 0;
+        for (Object[] device : batches.get(INSERT_DEVICE)) {
+            var deviceId = device[0].toString();
+            int index = Integer.parseInt(((String) device[2]).substring("SYN11-".length()));
+            var meter = SyntheticMeter.of(spec, index, start, end);
+            List<String> expected = new ArrayList<>();
+            gaps += meter.generate((t, micros) -> expected.add(deviceId + "\t" + format(t) + "\t"
+                    + BigDecimal.valueOf(micros, 6).toPlainString() + "\tkWh\tsynthetic"));
+            if (meter.offline()) offline++;
+
+            var series = readings.stream().filter(r -> r[1].equals(deviceId)).toList();
+            assertThat(series).extracting(r -> String.join("\t", List.of(r).subList(1, 6)))
+                    .containsExactlyElementsOf(expected);
+            assertThat(device[1]).isEqualTo(meter.type());
+            assertThat(device[4]).isEqualTo(series.isEmpty() ? null
+                    : Timestamp.from(Instant.from(TIMESTAMP.parse(series.get(series.size() - 1)[2]))));
+            assertThat(contractTariff.get(deviceId)).isEqualTo(tariffIds.get(meter.tariffIndex()).toString());
+
+            // Rollup je Tag aus den Rohdaten (Reihe monoton: min = erster, max = letzter Wert)
+            Map<String, List<String[]>> byDay = new TreeMap<>();
+            series.forEach(r -> byDay.computeIfAbsent(r[2].substring(0, 10), k -> new ArrayList<>()).add(r));
+            List<String> expectedRollup = new ArrayList<>();
+            byDay.forEach((day, rows) -> {
+                var first = rows.get(0);
+                var last = rows.get(rows.size() - 1);
+                expectedRollup.add(String.join("\t", deviceId, day, first[2], first[3], last[2], last[3], first[3],
+                        last[3], String.valueOf(rows.size())));
+            });
+            assertThat(rollups.stream().filter(r -> r[0].equals(deviceId)).map(r -> String.join("\t", r)))
+                    .containsExactlyElementsOf(expectedRollup);
+        }
+        assertThat(byDays(rollups)).containsOnlyKeys("2025-12-30", "2025-12-31", "2026-01-01");
+        // Spec so gewählt, dass Lücken und Offline-Zähler vorkommen
+        assertThat(offline).isPositive();
+        assertThat(gaps).isPositive();
+        assertThat(report.offlineDevices()).isEqualTo(offline);
+        assertThat(report.gaps()).isEqualTo(gaps);
+        verify(partitions).ensureCovered(List.of(Instant.parse("2025-12-01T00:00:00Z"),
+                Instant.parse("2026-01-01T00:00:00Z")));
+        verify(watermarks, times(3)).devicesCreated(anyList());
+    }
+
+    @Test
+    void existing_seed_and_invalid_specs_are_rejected() {
+        var day = LocalDate.now(ZoneOffset.UTC).minusDays(10);
+        when(jdbc.queryForObject(anyString(), eq(Boolean.class), eq("SYN7-%"))).thenReturn(true);
+
+        assertThatThrownBy(() -> generator.generate(new SyntheticDataSpec(7L, 1, 1, day, day, null, null, null, null)))
+                .isInstanceOf(ValidationException.class).hasMessageContaining("already exists (SYN7-*)");
+        assertThatThrownBy(() -> generator.generate(new SyntheticDataSpec(8L, 0, 1, day, day, null, null, null, null)))
+                .isInstanceOf(ValidationException.class).hasMessageContaining("devices");
+        assertThatThrownBy(() -> generator.generate(new SyntheticDataSpec(8L, 1, 1, day, day.plusDays(10), null, null, null, null)))
+                .isInstanceOf(ValidationException.class).hasMessageContaining("before today");
+        assertThatThrownBy(() -> generator.generate(new SyntheticDataSpec(8L, 1, 1, day, day, Duration.ofSeconds(90).plusMillis(1), null, null, null)))
+                .isInstanceOf(ValidationException.class).hasMessageContaining("whole seconds");
+        assertThatThrownBy(() -> generator.start(new SyntheticDataSpec(8L, 1, 1, day, day, null, null, null, null)))
+                .isInstanceOf(ValidationException.class).hasMessageContaining("disabled");
+        verifyNoInteractions(watermarks);
+    }
+
+    private static CopyIn copyIn(List<String> target) throws Exception {
+        var copyIn = mock(CopyIn.class);
+        var out = new ByteArrayOutputStream();
+        doAnswer(inv -> {
+            out.write(inv.<byte[]>getArgument(0), inv.<Integer>getArgument(1), inv.<Integer>getArgument(2));
+            return null;
+        }).when(copyIn).writeToCopy(any(byte[].class), anyInt(), anyInt());
+        when(copyIn.endCopy()).thenAnswer(inv -> {
+            target.add(out.toString(StandardCharsets.US_ASCII));
+            return out.toString(StandardCharsets.US_ASCII).lines().count();
+        });
+        return copyIn;
+    }
+
+    private static List<String[]> rows(List<String> copies) {
+        return copies.stream().flatMap(String::lines).map(l -> l.split("\t", -1)).toList();
+    }
+
+    private static Map<String, Long> byDays(List<String[]> rollups) {
+        Map<String, Long> days = new HashMap<>();
+        rollups.forEach(r -> days.merge(r[1], 1L, Long::sum));
+        return days;
+    }
+
+    private static String format(long epochSecond) {
+        return Instant.ofEpochSecond(epochSecond).atOffset(ZoneOffset.UTC).format(TIMESTAMP);
+    }
+}
@@ -0,0 +1,98 @@
+package com.brunata.meteringdemo.services;
+
+import com.brunata.meteringdemo.services.dto.SyntheticDataSpec;
+import com.brunata.meteringdemo.services.seed.SyntheticMeter;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SyntheticMeterTest {
+    /**
+     * Tests für den synthetischen Zähler:
+     * - gleicher Seed + Index → identische Stammdaten und Messreihe; anderer Seed → andere Reihe
+     * - Messwerte liegen auf dem Intervallraster, steigen monoton und bleiben im Zeitraum
+     * - Lücken überspringen Intervalle, der Zählerstand läuft währenddessen weiter
+     * - Offline-Zähler enden vor dem Zeitraumende, ohne Offline-Quote läuft jede Reihe bis zum Ende
+     */
+
+    private static final LocalDate DAY = LocalDate.parse("2026-01-01");
+    private static final Instant FROM = Instant.parse("2026-01-01T00:00:00Z");
+    private static final Instant TO = Instant.parse("2026-01-31T00:00:00Z");
+
+    @Test
+    void sameSeedAndIndexYieldIdenticalSeries() {
+        var spec = spec(7L, 0.001, 0.0);
+        assertThat(series(spec, 3)).isEqualTo(series(spec, 3));
+        assertThat(SyntheticMeter.of(spec, 3, FROM, TO).type()).isEqualTo(SyntheticMeter.of(spec, 3, FROM, TO).type());
+        assertThat(series(spec, 3)).isNotEqualTo(series(spec, 4));
+        assertThat(series(spec(8L, 0.001, 0.0), 3)).isNotEqualTo(series(spec, 3));
+    }
+
+    @Test
+    void readingsAreAlignedMonotonicAndWithinPeriod() {
+        var readings = series(spec(1L, 0.0, 0.0), 0);
+
+        assertThat(readings).hasSize(30 * 96);
+        assertThat(readings.get(0).get(0)).isEqualTo(FROM.getEpochSecond());
+        for (int i = 1; i < readings.size(); i++) {
+            assertThat(readings.get(i).get(0) - readings.get(i - 1).get(0)).isEqualTo(900);
+            assertThat(readings.get(i).get(1)).isGreaterThanOrEqualTo(readings.get(i - 1).get(1));
+        }
+        assertThat(readings.get(readings.size() - 1).get(0)).isLessThan(TO.getEpochSecond());
+    }
+
+    @Test
+    void gapsSkipIntervalsWhileCounterKeepsRunning() {
+        var meter = SyntheticMeter.of(spec(5L, 0.05, 0.0), 0, FROM, TO);
+        List<long[]> readings = new ArrayList<>();
+        int gaps = meter.generate((t, micros) -> readings.add(new long[]{t, micros}));
+
+        assertThat(gaps).isPositive();
+        assertThat(readings.size()).isLessThan(30 * 96);
+        long skipped = 0;
+        for (int i = 1; i < readings.size(); i++) {
+            long step = readings.get(i)[0] - readings.get(i - 1)[0];
+            assertThat(step % 900).isZero();
+            if (step > 900) {
+                skipped++;
+                assertThat(readings.get(i)[1]).isGreaterThan(readings.get(i - 1)[1]);
+            }
+        }
+        assertThat(skipped).isPositive();
+    }
+
+    @Test
+    void offlineMetersStopEarly() {
+        var allOffline = spec(9L, 0.0, 1.0);
+        for (int i = 0; i < 20; i++) {
+            var meter = SyntheticMeter.of(allOffline, i, FROM, TO);
+            assertThat(meter.offline()).isTrue();
+            assertThat(series(allOffline, i).size()).isLessThanOrEqualTo(30 * 96);
+        }
+        long shorter = IntStream.range(0, 20)
+                .filter(i -> series(allOffline, i).size() < 30 * 96).count();
+        assertThat(shorter).isGreaterThanOrEqualTo(19);
+
+        var online = spec(9L, 0.0, 0.0);
+        assertThat(SyntheticMeter.of(online, 0, FROM, TO).offline()).isFalse();
+        assertThat(series(online, 0)).hasSize(30 * 96);
+    }
+
+    private static SyntheticDataSpec spec(long seed, double gapRate, double offlineRate) {
+        return new SyntheticDataSpec(seed, 10, 3, DAY, DAY.plusDays(29), Duration.ofMinutes(15), 0.2, gapRate, offlineRate)
+                .withDefaults(DAY);
+    }
+
+    private static List<List<Long>> series(SyntheticDataSpec spec, int index) {
+        List<List<Long>> out = new ArrayList<>();
+        SyntheticMeter.of(spec, index, FROM, TO).generate((t, micros) -> out.add(List.of(t, micros)));
+        return out;
+    }
+}
@@ -0,0 +1,159 @@
+package com.brunata.meteringdemo.services;
+
+import com.brunata.meteringdemo.services.ingest.WriteAheadLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WriteAheadLogTest {
+    /**
+     * Tests für das segmentierte Write-Ahead-Log des asynchronen Ingests:
+     * - nach Neustart werden nur unbestätigte Sätze erneut gelesen (Replay ab Checkpoint)
+     * - Segmentwechsel + Löschen vollständig bestätigter Segmente
+     * - ein abgeschnittener Satz am Ende (Absturz beim Schreiben) wird verworfen
+     * - zeigt der Checkpoint (nach OS-Absturz) auf ein bereits gelöschtes Segment, wird ab dem ältesten vorhandenen
+     *   Segment eingespielt; das fehlende Segment wird nicht neu angelegt, neuere Segmente bleiben erhalten
+     * - endet ein Segment ohne Marker vor einem neueren Segment, wird dieses weiter gescannt statt gelöscht
+     */
+
+    private static final int SEGMENT_SIZE = 256;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replays_only_uncommitted_records_after_reopen() throws IOException {
+        try (var wal = WriteAheadLog.open(dir, SEGMENT_SIZE)) {
+            append(wal, "a", "b", "c");
+            var first = wal.read(2);
+            assertThat(texts(first)).containsExactly("a", "b");
+            wal.commit(first.get(1).next(), 2);
+            assertThat(wal.pending()).isEqualTo(1);
+        }
+
+        try (var wal = WriteAheadLog.open(dir, SEGMENT_SIZE)) {
+            assertThat(wal.pending()).isEqualTo(1);
+            assertThat(wal.oldestPendingMillis()).isEqualTo(1000L);
+            append(wal, "d");
+            assertThat(texts(wal.read(10))).containsExactly("c", "d");
+        }
+    }
+
+    @Test
+    void rewind_rereads_from_last_checkpoint() throws IOException {
+        try (var wal = WriteAheadLog.open(dir, SEGMENT_SIZE)) {
+            append(wal, "a", "b");
+            wal.read(10);
+            wal.rewind();
+            assertThat(texts(wal.read(10))).containsExactly("a", "b");
+        }
+    }
+
+    @Test
+    void rolls_segments_and_deletes_consumed_ones() throws IOException {
+        try (var wal = WriteAheadLog.open(dir, SEGMENT_SIZE)) {
+            var payload = "x".repeat(100);
+            append(wal, payload, payload, payload, payload, payload);
+            assertThat(segments()).hasSizeGreaterThan(1);
+
+            var all = wal.read(10);
+            assertThat(all).hasSize(5);
+            wal.commit(all.get(4).next(), 5);
+
+            assertThat(wal.pending()).isZero();
+            assertThat(segments()).hasSize(1);
+        }
+    }
+
+    @Test
+    void truncates_torn_record_at_tail() throws IOException {
+        try (var wal = WriteAheadLog.open(dir, SEGMENT_SIZE)) {
+            append(wal, "a", "b");
+        }
+        // Payload des zweiten Satzes beschädigen (CRC passt nicht mehr)
+        int secondPayload = 2 * 16 + 1;
+        try (var file = new RandomAccessFile(segments().get(0).toFile(), "rw")) {
+            file.seek(secondPayload);
+            file.write('z');
+        }
+
+        try (var wal = WriteAheadLog.open(dir, SEGMENT_SIZE)) {
+            assertThat(wal.pending()).isEqualTo(1);
+            append(wal, "c");
+            assertThat(texts(wal.read(10))).containsExactly("a", "c");
+        }
+    }
+
+    @Test
+    void stale_checkpoint_pointing_to_deleted_segment_keeps_newer_segments() throws IOException {
+        var payload = "x".repeat(100);
+        byte[] staleCheckpoint;
+        try (var wal = WriteAheadLog.open(dir, SEGMENT_SIZE)) {
+            append(wal, payload, "a");
+            var first = wal.read(1);
+            wal.commit(first.get(0).next(), 1); // Checkpoint in Segment 0
+            staleCheckpoint = Files.readAllBytes(dir.resolve("checkpoint"));
+
+            append(wal, payload, payload, payload, "b");
+            var rest = wal.read(10);
+            assertThat(texts(rest)).endsWith("b");
+            // bestätigt bis einschließlich des 2. Satzes mit `payload` → Segmente davor werden gelöscht
+            wal.commit(rest.get(2).next(), 3);
+        }
+        var remaining = segments();
+        assertThat(remaining.get(0).getFileName().toString()).isNotEqualTo("0000000000000000.seg");
+        // OS-Absturz: der neue Checkpoint ging verloren, das Löschen der Segmente nicht
+        Files.write(dir.resolve("checkpoint"), staleCheckpoint);
+
+        try (var wal = WriteAheadLog.open(dir, SEGMENT_SIZE)) {
+            assertThat(segments()).isEqualTo(remaining);
+            var replay = texts(wal.read(10));
+            assertThat(replay).endsWith(payload, "b");
+            assertThat(wal.pending()).isEqualTo(replay.size());
+        }
+    }
+
+    @Test
+    void segment_ending_without_marker_continues_with_newer_segment() throws IOException {
+        var payload = "x".repeat(100);
+        try (var wal = WriteAheadLog.open(dir, SEGMENT_SIZE)) {
+            append(wal, payload, payload, payload);
+        }
+        var segs = segments();
+        assertThat(segs).hasSize(2);
+        // Segmentende-Marker von Segment 0 entfernen (nach 2 Sätzen à 116 Bytes)
+        try (var file = new RandomAccessFile(segs.get(0).toFile(), "rw")) {
+            file.seek(2 * 116);
+            file.writeInt(0);
+        }
+
+        try (var wal = WriteAheadLog.open(dir, SEGMENT_SIZE)) {
+            assertThat(segments()).isEqualTo(segs);
+            assertThat(wal.pending()).isEqualTo(3);
+            append(wal, "d");
+            assertThat(texts(wal.read(10))).containsExactly(payload, payload, payload, "d");
+        }
+    }
+
+    private static void append(WriteAheadLog wal, String... texts) throws IOException {
+        for (var t : texts) wal.append(t.getBytes(StandardCharsets.UTF_8), 1000L);
+    }
+
+    private static List<String> texts(List<WriteAheadLog.Entry> entries) {
+        return entries.stream().map(e -> new String(e.payload(), StandardCharsets.UTF_8)).toList();
+    }
+
+    private List<Path> segments() throws IOException {
+        try (var files = Files.list(dir)) {
+            return files.filter(p -> p.toString().endsWith(".seg")).sorted().toList();
+        }
+    }
+}